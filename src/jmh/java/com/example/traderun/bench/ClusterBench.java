@@ -0,0 +1,63 @@
+package com.example.traderun.bench;
+
+import com.example.traderun.floor.ClusterFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Floor scan clustering ("/traderun floor add"): a trading hall corridor with two rows of
+ * cells, plus a second smaller hall and a few strays further away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClusterBench {
+
+    private static final double CLUSTER_DISTANCE_SQ = 5.0 * 5.0;
+
+    @Param({"16", "64", "256"})
+    public int villagers;
+
+    private double[] x;
+    private double[] y;
+    private double[] z;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        x = new double[villagers];
+        y = new double[villagers];
+        z = new double[villagers];
+        int hall = villagers * 3 / 4;
+        int strays = Math.max(1, villagers / 16);
+        for (int i = 0; i < villagers; i++) {
+            if (i < hall) {
+                // Main hall: cells every 2 blocks on both sides of a corridor
+                x[i] = (i / 2) * 2.0 + 0.5;
+                z[i] = (i % 2 == 0) ? -2.5 : 2.5;
+            } else if (i < villagers - strays) {
+                // Second hall 40 blocks away
+                x[i] = 40.0 + ((i - hall) / 2) * 2.0 + 0.5;
+                z[i] = 40.0 + ((i % 2 == 0) ? -2.5 : 2.5);
+            } else {
+                x[i] = rnd.nextDouble() * 200.0 - 100.0;
+                z[i] = rnd.nextDouble() * 200.0 - 100.0;
+            }
+            y[i] = 64.0;
+        }
+    }
+
+    @Benchmark
+    public int[] largestCluster() {
+        return ClusterFinder.largest(x, y, z, villagers, CLUSTER_DISTANCE_SQ);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.traderun.bench;
+
+import com.example.traderun.cooldown.CooldownRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CooldownRegistry: the per-villager lookup done by every eligibility check and every
+ * rendered villager (lock-free read of the published map), and the record + save done
+ * after every trade (copy-on-write of the map; save only marks cooldowns.json dirty, the
+ * write happens on ConfigStore's thread). Runs against build/jmh-config (see build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CooldownBench {
+
+    @Param({"16", "128", "512"})
+    public int cooldowns;
+
+    private UUID[] onCooldown;
+    private UUID[] unknown;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(3L);
+        CooldownRegistry.resetAll();
+        onCooldown = new UUID[cooldowns];
+        unknown = new UUID[cooldowns];
+        for (int i = 0; i < cooldowns; i++) {
+            onCooldown[i] = new UUID(rnd.nextLong(), rnd.nextLong());
+            unknown[i] = new UUID(rnd.nextLong(), rnd.nextLong());
+            CooldownRegistry.onVillagerTraded(onCooldown[i], null);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        CooldownRegistry.resetAll();
+    }
+
+    @Benchmark
+    public boolean lookupHit() {
+        next = (next + 1) % cooldowns;
+        return CooldownRegistry.isOnCooldown(onCooldown[next]);
+    }
+
+    @Benchmark
+    public boolean lookupMiss() {
+        next = (next + 1) % cooldowns;
+        return CooldownRegistry.isOnCooldown(unknown[next]);
+    }
+
+    /** Re-record an existing villager: map copy plus marking cooldowns.json dirty. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void recordAndSave() {
+        next = (next + 1) % cooldowns;
+        CooldownRegistry.onVillagerTraded(onCooldown[next], null);
+    }
+}
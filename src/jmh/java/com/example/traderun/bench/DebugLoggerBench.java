@@ -0,0 +1,58 @@
+package com.example.traderun.bench;
+
+import com.example.traderun.util.DebugLogger;
+import com.example.traderun.util.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one DebugLogger.log() call on the client thread (message build and ring
+ * claim; formatting and the file append happen on the log thread). Writes to
+ * build/jmh-config/debug_latest.log. The event benchmarks compare the structured API
+ * with the level enabled and below the default DEBUG level (should not allocate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DebugLoggerBench {
+
+    private static final LogEvent TRACE_EVENT = LogEvent.define("seek_input", DebugLogger.Level.TRACE,
+            "have", "min", "?restock", "floorY");
+    private static final LogEvent DEBUG_EVENT = LogEvent.define("seek_target", DebugLogger.Level.DEBUG,
+            "x", "y", "z", "?afterClearingFails");
+
+    private int n = 0;
+
+    @Setup
+    public void setup() {
+        DebugLogger.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        DebugLogger.clear();
+    }
+
+    @Benchmark
+    public void log() {
+        DebugLogger.log("SEEK: target villager dist=" + (n++ & 31) + " score=0.42");
+    }
+
+    @Benchmark
+    public void eventEnabled() {
+        DebugLogger.event(DEBUG_EVENT, n++ & 31, 64, -12, 0);
+    }
+
+    @Benchmark
+    public void eventDisabled() {
+        DebugLogger.event(TRACE_EVENT, n++ & 31, 64, 1, -60);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.traderun.bench;
+
+import com.example.traderun.inventory.SlotScan;
+import com.example.traderun.inventory.TransferPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Container session planning through SlotScan, as ContainerOps runs it: deposits take
+ * the player's stacks in slot order, withdrawals take the container's stacks largest
+ * first; both end in a TransferPlan.
+ *
+ * The handler is a flat fixture (item id and count per slot): container slots first,
+ * then the 36 player slots, like a GenericContainerScreenHandler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SlotScanBench {
+
+    private static final int PLAYER_SLOTS = 36;
+    private static final int TARGET_ITEM = 1;
+
+    /** 27 = single chest, 54 = double chest. */
+    @Param({"27", "54"})
+    public int containerSlots;
+
+    private int[] slotItem;
+    private int[] slotCount;
+    private int[] containerRange;
+    private int[] playerRange;
+    private SlotScan.Counts matching;
+    private final SlotScan scan = new SlotScan();
+    private int freeContainerRoom;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7L);
+        int total = containerSlots + PLAYER_SLOTS;
+        slotItem = new int[total];
+        slotCount = new int[total];
+        containerRange = new int[containerSlots];
+        playerRange = new int[PLAYER_SLOTS];
+        scan.resize(total);
+
+        int free = 0;
+        for (int i = 0; i < total; i++) {
+            if (i < containerSlots) containerRange[i] = i;
+            else playerRange[i - containerSlots] = i;
+
+            int r = rnd.nextInt(10);
+            if (r < 3) {
+                slotItem[i] = 0;                // empty
+                slotCount[i] = 0;
+                if (i < containerSlots) free++;
+            } else if (r < 8) {
+                slotItem[i] = TARGET_ITEM;
+                slotCount[i] = 1 + rnd.nextInt(64);
+            } else {
+                slotItem[i] = 2 + rnd.nextInt(5);
+                slotCount[i] = 1 + rnd.nextInt(64);
+            }
+        }
+        freeContainerRoom = free * 64;
+        matching = idx -> slotItem[idx] == TARGET_ITEM ? slotCount[idx] : 0;
+    }
+
+    /** Deposit: player slots holding the item, in slot order, into the container. */
+    @Benchmark
+    public TransferPlan depositPlan() {
+        int n = scan.collect(playerRange, matching);
+        return scan.plan(n, freeContainerRoom);
+    }
+
+    /** Withdraw: container slots holding the item, largest stacks first, into the player inventory. */
+    @Benchmark
+    public TransferPlan withdrawPlan() {
+        int playerRoom = 0;
+        for (int i : playerRange) {
+            if (slotItem[i] == 0) playerRoom += 64;
+            else if (slotItem[i] == TARGET_ITEM) playerRoom += 64 - slotCount[i];
+        }
+        int n = scan.collect(containerRange, matching);
+        scan.sortByCountDesc(n);
+        return scan.plan(n, playerRoom);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.traderun.bench;
+
+import com.example.traderun.nav.StandCover;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StandingPlanner's tile choice through StandCover: candidate tiles within 3 blocks of
+ * every villager, the villagers each tile reaches, then the greedy cover.
+ *
+ * The world is a grid fixture: villagers in cells on both sides of a 3-wide corridor,
+ * only corridor tiles are walkable (stands in for ApproachUtil.isValidWalkway) and reach
+ * is plain distance (stands in for the bounding box test and the raycast).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StandCoverBench {
+
+    private static final double REACH_SQ = (4.5 - 0.5) * (4.5 - 0.5);
+
+    @Param({"8", "32", "96"})
+    public int villagers;
+
+    private int[] vx;
+    private int[] vy;
+    private int[] vz;
+    private StandCover.Grid grid;
+    private StandCover.Candidates candidates;
+
+    @Setup
+    public void setup() {
+        vx = new int[villagers];
+        vy = new int[villagers];
+        vz = new int[villagers];
+        for (int i = 0; i < villagers; i++) {
+            vx[i] = (i / 2) * 2;
+            vz[i] = (i % 2 == 0) ? -3 : 3;
+        }
+        grid = new StandCover.Grid() {
+            @Override
+            public boolean isWalkway(int vi, int x, int y, int z) {
+                return z >= -1 && z <= 1;
+            }
+
+            @Override
+            public boolean canReach(int x, int y, int z, int vi) {
+                double dx = vx[vi] - x;
+                double dz = vz[vi] - z;
+                return dx * dx + dz * dz <= REACH_SQ;
+            }
+        };
+        candidates = StandCover.candidates(vx, vy, vz, villagers, grid);
+    }
+
+    /** Candidate tiles plus the reach test for every (tile, villager) pair. */
+    @Benchmark
+    public StandCover.Candidates evaluateCandidates() {
+        return StandCover.candidates(vx, vy, vz, villagers, grid);
+    }
+
+    @Benchmark
+    public StandCover.Cover greedyCover() {
+        return StandCover.cover(candidates, villagers);
+    }
+
+    @Benchmark
+    public StandCover.Cover planFromScratch() {
+        return StandCover.plan(vx, vy, vz, villagers, grid);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.traderun.bench;
+
+import com.example.traderun.cooldown.CooldownRegistry;
+import com.example.traderun.villager.TargetSelector;
+import com.example.traderun.villager.VillagerFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VillagerFinder's per-scan work through TargetSelector: the eligibility checks against
+ * the live registries (cooldowns, recent failures, prices), the floor filter and the
+ * score, over every villager in the scan box.
+ *
+ * Villagers are a fixture - a two-floor hall, a third of them on cooldown, a few babies
+ * and sleepers - read through the same Villagers port VillagerFinder adapts entities with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TargetSelectBench {
+
+    private static final int FLOOR_Y = 64;
+
+    private static final class Fixture {
+        final UUID id;
+        final double x;
+        final double y;
+        final double z;
+        final boolean baby;
+        final boolean sleeping;
+
+        Fixture(UUID id, double x, double y, double z, boolean baby, boolean sleeping) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.baby = baby;
+            this.sleeping = sleeping;
+        }
+    }
+
+    private static final TargetSelector.Villagers<Fixture> PORT = new TargetSelector.Villagers<>() {
+        @Override
+        public UUID id(Fixture v) {
+            return v.id;
+        }
+
+        @Override
+        public double x(Fixture v) {
+            return v.x;
+        }
+
+        @Override
+        public double y(Fixture v) {
+            return v.y;
+        }
+
+        @Override
+        public double z(Fixture v) {
+            return v.z;
+        }
+
+        @Override
+        public int blockY(Fixture v) {
+            return (int) Math.floor(v.y);
+        }
+
+        @Override
+        public boolean isBaby(Fixture v) {
+            return v.baby;
+        }
+
+        @Override
+        public boolean isSleeping(Fixture v) {
+            return v.sleeping;
+        }
+
+        @Override
+        public boolean professionOk(Fixture v) {
+            return true;
+        }
+
+        @Override
+        public boolean hasCustomer(Fixture v) {
+            return false;
+        }
+    };
+
+    @Param({"16", "64", "256"})
+    public int villagers;
+
+    private List<Fixture> hall;
+    private TargetSelector<Fixture> selector;
+    private final List<Fixture> out = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(11L);
+        CooldownRegistry.resetAll();
+        hall = new ArrayList<>(villagers);
+        for (int i = 0; i < villagers; i++) {
+            UUID id = new UUID(rnd.nextLong(), rnd.nextLong());
+            // Cells every 2 blocks on both sides of a corridor, upper floor for every other pair
+            double x = (i / 4) * 2.0 + 0.5;
+            double z = (i % 2 == 0) ? -2.5 : 2.5;
+            double y = ((i / 2) % 2 == 0) ? FLOOR_Y : FLOOR_Y + 6;
+            hall.add(new Fixture(id, x, y, z, i % 17 == 0, i % 23 == 0));
+            if (i % 3 == 0) CooldownRegistry.onVillagerTraded(id, null);
+        }
+        selector = new TargetSelector<>(PORT, VillagerFinder.LIVE_RULES);
+    }
+
+    @TearDown
+    public void tearDown() {
+        CooldownRegistry.resetAll();
+    }
+
+    /** findBestTarget: best scoring eligible villager on the floor. */
+    @Benchmark
+    public Fixture bestTarget() {
+        return selector.best(hall, FLOOR_Y, 0.5, FLOOR_Y, 0.5);
+    }
+
+    /** findEligibleOnFloor: the list StandingPlanner plans stands for. */
+    @Benchmark
+    public int eligibleOnFloor() {
+        out.clear();
+        selector.eligibleOnFloor(hall, FLOOR_Y, out);
+        return out.size();
+    }
+}
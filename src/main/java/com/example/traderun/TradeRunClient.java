@@ -1,20 +1,65 @@
 package com.example.traderun;
 
 import com.example.traderun.command.TradeRunCommands;
+import com.example.traderun.config.ConfigStore;
+import com.example.traderun.config.TradeRunSettings;
 import com.example.traderun.cooldown.CooldownRegistry;
 import com.example.traderun.cooldown.RestockWatcher;
+import com.example.traderun.fsm.TradeRunStateMachine;
+import com.example.traderun.event.TradeRunEvents;
+import com.example.traderun.floor.FloorRegistry;
+import com.example.traderun.inventory.InventoryLedger;
+import com.example.traderun.jfr.JfrRecorder;
+import com.example.traderun.metrics.MetricsExporter;
 import com.example.traderun.runtime.TradeRunRuntime;
+import com.example.traderun.session.SessionRecorder;
 import com.example.traderun.storage.StorageLearner;
+import com.example.traderun.storage.StorageRegistry;
+import com.example.traderun.util.ConfigPaths;
+import com.example.traderun.util.DebugLogger;
+import com.example.traderun.util.TickClock;
+import com.example.traderun.villager.HallRegistry;
 import com.example.traderun.visual.TradeRunVisuals;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.minecraft.client.gui.screen.ChatScreen;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.registry.Registries;
 
 public final class TradeRunClient implements ClientModInitializer {
 
+    private static final int RECORD_POSITION_EVERY_TICKS = 20;
+    private static final int OBSERVE_HALL_EVERY_TICKS = 20;
+
+    private int ticks = 0;
+
     @Override
     public void onInitializeClient() {
+        // Registries read their files on ConfigStore's thread; until then they are empty
+        StorageRegistry.preload();
+        FloorRegistry.preload();
+        CooldownRegistry.preload();
+        HallRegistry.preload();
+
+        DebugLogger.setLevel(DebugLogger.Level.parse(TradeRunSettings.get().logLevel));
+        if (TradeRunSettings.get().sessionRecorder) {
+            TradeRunStateMachine.State[] states = TradeRunStateMachine.State.values();
+            String[] names = new String[states.length];
+            for (int i = 0; i < states.length; i++) names[i] = states[i].name();
+            SessionRecorder.open(ConfigPaths.file("session.ring"), names);
+        }
+
+        // Config files are written behind; don't lose the last second of changes on quit
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            ConfigStore.flushAll();
+            DebugLogger.flush();
+            JfrRecorder.stop();
+        });
+
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> {
             TradeRunCommands.register(dispatcher);
         });
@@ -25,6 +70,9 @@ public final class TradeRunClient implements ClientModInitializer {
                 TradeRunRuntime.get().releaseAllKeys(client);
             }
             
+            long tickStartNs = System.nanoTime();
+            InventoryLedger.tick(client);
+            TradeRunEvents.tick(TickClock.nowMs());
             TradeRunRuntime.get().tick(client);
             CooldownRegistry.tick(client);
             RestockWatcher.tick(client);
@@ -32,8 +80,32 @@ public final class TradeRunClient implements ClientModInitializer {
             
             // Learn items from storage containers even when bot is not running
             StorageLearner.tick(client);
+            MetricsExporter.recordTick(System.nanoTime() - tickStartNs);
+            MetricsExporter.tick(client);
+
+            // Remember villagers as they come into range, even while the bot is idle
+            ++ticks;
+            if (ticks % OBSERVE_HALL_EVERY_TICKS == 0) HallRegistry.observe(client);
+
+            if (ticks % RECORD_POSITION_EVERY_TICKS == 0 && client.player != null && TradeRunRuntime.get().isActive()) {
+                SessionRecorder.position(client.player.getX(), client.player.getY(), client.player.getZ());
+            }
         });
         
+        // Feed the event bus - waiting states sleep until one of these arrives
+        InventoryLedger.addListener((item, oldCount, newCount) -> {
+            SessionRecorder.inventory(Registries.ITEM.getRawId(item), oldCount, newCount);
+            TradeRunEvents.post(TradeRunEvents.Type.INVENTORY_CHANGED);
+        });
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity) TradeRunEvents.post(TradeRunEvents.Type.ENTITY_LOADED);
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity) TradeRunEvents.post(TradeRunEvents.Type.ENTITY_UNLOADED);
+        });
+
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> TickClock.resetServerTime());
+
         // Register world render event for 3D markers
         TradeRunVisuals.register();
     }
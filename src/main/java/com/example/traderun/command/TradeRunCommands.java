@@ -3,8 +3,16 @@ package com.example.traderun.command;
 import com.example.traderun.config.TradeRunSettings;
 import com.example.traderun.cooldown.CooldownRegistry;
 import com.example.traderun.floor.FloorRegistry;
+import com.example.traderun.jfr.JfrRecorder;
+import com.example.traderun.metrics.MetricsExporter;
+import com.example.traderun.metrics.TradeRunMetrics;
 import com.example.traderun.runtime.TradeRunRuntime;
+import com.example.traderun.session.SessionRecorder;
 import com.example.traderun.storage.StorageRegistry;
+import com.example.traderun.util.ConfigPaths;
+import com.example.traderun.util.DebugLogger;
+import com.example.traderun.util.TickClock;
+import com.example.traderun.villager.HallRegistry;
 import com.example.traderun.villager.VillagerFinder;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
@@ -14,6 +22,7 @@ import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.command.CommandRegistryAccess;
+import net.minecraft.registry.Registries;
 import net.minecraft.text.Text;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.hit.HitResult;
@@ -80,6 +89,15 @@ public final class TradeRunCommands {
         return builder.buildFuture();
     };
 
+    private static final SuggestionProvider<FabricClientCommandSource> LOG_LEVEL_SUGGESTIONS = (context, builder) -> {
+        String remaining = builder.getRemaining().toLowerCase();
+        for (DebugLogger.Level level : DebugLogger.Level.values()) {
+            String name = level.name().toLowerCase();
+            if (name.startsWith(remaining)) builder.suggest(name);
+        }
+        return builder.buildFuture();
+    };
+
     public static void register(CommandDispatcher<FabricClientCommandSource> dispatcher) {
         register(dispatcher, null);
     }
@@ -260,6 +278,21 @@ public final class TradeRunCommands {
                                     msg("All floors cleared");
                                     return 1;
                                 }))
+                                .then(literal("hall").executes(ctx -> {
+                                    var counts = HallRegistry.countsByY();
+                                    if (counts.isEmpty()) {
+                                        msg("No villagers remembered yet - walk along the hall once");
+                                        return 1;
+                                    }
+                                    msg("Remembered villagers: " + HallRegistry.size());
+                                    counts.forEach((y, n) -> msg("  Y=" + y + ": " + n));
+                                    return 1;
+                                })
+                                        .then(literal("clear").executes(ctx -> {
+                                            HallRegistry.clear();
+                                            msg("Hall villager memory cleared");
+                                            return 1;
+                                        })))
                                 .then(literal("del")
                                         .then(argument("floorName", StringArgumentType.word())
                                                 .executes(ctx -> {
@@ -314,6 +347,58 @@ public final class TradeRunCommands {
                                     msg("Rescanned floor " + currentFloor.getDisplayName() + ": " + result.message);
                                     return 1;
                                 }))
+                                // /traderun floor trade ... - native trading whitelist for current floor
+                                .then(literal("trade")
+                                        .then(literal("add")
+                                                .then(literal("hand").executes(ctx -> {
+                                                    MinecraftClient c = MinecraftClient.getInstance();
+                                                    if (c == null || c.player == null) return 0;
+                                                    var stack = c.player.getMainHandStack();
+                                                    if (stack.isEmpty()) {
+                                                        msg("Hold the item you want to buy");
+                                                        return 0;
+                                                    }
+                                                    return addTradeWhitelist(Registries.ITEM.getId(stack.getItem()).toString());
+                                                }))
+                                                .then(argument("item", StringArgumentType.greedyString())
+                                                        .executes(ctx -> addTradeWhitelist(
+                                                                normalizeItemId(StringArgumentType.getString(ctx, "item"))))))
+                                        .then(literal("remove")
+                                                .then(argument("item", StringArgumentType.greedyString())
+                                                        .executes(ctx -> {
+                                                            MinecraftClient c = MinecraftClient.getInstance();
+                                                            if (c == null || c.player == null) return 0;
+                                                            String id = normalizeItemId(StringArgumentType.getString(ctx, "item"));
+                                                            int y = c.player.getBlockPos().getY();
+                                                            if (FloorRegistry.removeTradeWhitelist(y, id)) {
+                                                                msg("Removed from trade whitelist: " + id);
+                                                            } else {
+                                                                msg("Not on this floor's trade whitelist: " + id);
+                                                            }
+                                                            return 1;
+                                                        })))
+                                        .then(literal("list").executes(ctx -> {
+                                            MinecraftClient c = MinecraftClient.getInstance();
+                                            if (c == null || c.player == null) return 0;
+                                            var list = FloorRegistry.getTradeWhitelist(c.player.getBlockPos().getY());
+                                            if (list.isEmpty()) {
+                                                msg("Trade whitelist empty - all offers are traded");
+                                            } else {
+                                                msg("Trade whitelist: " + String.join(", ", list));
+                                            }
+                                            return 1;
+                                        }))
+                                        .then(literal("clear").executes(ctx -> {
+                                            MinecraftClient c = MinecraftClient.getInstance();
+                                            if (c == null || c.player == null) return 0;
+                                            int y = c.player.getBlockPos().getY();
+                                            if (FloorRegistry.clearTradeWhitelist(y)) {
+                                                msg("Trade whitelist cleared");
+                                            } else {
+                                                msg("No floor registered at Y=" + y);
+                                            }
+                                            return 1;
+                                        })))
                                 .then(literal("transition")
                                         .then(argument("targetY", IntegerArgumentType.integer(-64, 320))
                                                 .executes(ctx -> {
@@ -406,6 +491,145 @@ public final class TradeRunCommands {
                                                     msg("clickRateMs=" + ms);
                                                     return 1;
                                                 })))
+                                .then(literal("clickWindow")
+                                        .then(argument("n", IntegerArgumentType.integer(1, 8))
+                                                .executes(ctx -> {
+                                                    int n = IntegerArgumentType.getInteger(ctx, "n");
+                                                    TradeRunSettings.get().containerClickWindow = n;
+                                                    TradeRunSettings.saveQuiet();
+                                                    msg("containerClickWindow=" + n + " (clicks in flight)");
+                                                    return 1;
+                                                })))
+                                .then(literal("containerClickMs")
+                                        .then(argument("ms", IntegerArgumentType.integer(20, 1000))
+                                                .executes(ctx -> {
+                                                    int ms = IntegerArgumentType.getInteger(ctx, "ms");
+                                                    TradeRunSettings.get().containerMinClickMs = ms;
+                                                    TradeRunSettings.saveQuiet();
+                                                    msg("containerMinClickMs=" + ms + " (minimum gap between container clicks)");
+                                                    return 1;
+                                                })))
+                                .then(literal("bulkTransfers")
+                                        .then(literal("true").executes(ctx -> {
+                                            TradeRunSettings.get().bulkContainerTransfers = true;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Bulk container transfers: ON");
+                                            return 1;
+                                        }))
+                                        .then(literal("false").executes(ctx -> {
+                                            TradeRunSettings.get().bulkContainerTransfers = false;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Bulk container transfers: OFF");
+                                            return 1;
+                                        })))
+                                .then(literal("nativeTrading")
+                                        .then(literal("true").executes(ctx -> {
+                                            TradeRunSettings.get().nativeTrading = true;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Native trading: ON (AutoTrade not needed)");
+                                            return 1;
+                                        }))
+                                        .then(literal("false").executes(ctx -> {
+                                            TradeRunSettings.get().nativeTrading = false;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Native trading: OFF (AutoTrade does the trading)");
+                                            return 1;
+                                        })))
+                                .then(literal("directInteract")
+                                        .then(literal("true").executes(ctx -> {
+                                            TradeRunSettings.get().directInteract = true;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Direct villager interaction: ON");
+                                            return 1;
+                                        }))
+                                        .then(literal("false").executes(ctx -> {
+                                            TradeRunSettings.get().directInteract = false;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Direct villager interaction: OFF (use-key clicking)");
+                                            return 1;
+                                        })))
+                                .then(literal("interactOnArrival")
+                                        .then(literal("true").executes(ctx -> {
+                                            TradeRunSettings.get().interactOnArrival = true;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Interact on arrival: ON");
+                                            return 1;
+                                        }))
+                                        .then(literal("false").executes(ctx -> {
+                                            TradeRunSettings.get().interactOnArrival = false;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Interact on arrival: OFF (walk to approach tile first)");
+                                            return 1;
+                                        })))
+                                .then(literal("standAndTrade")
+                                        .then(literal("true").executes(ctx -> {
+                                            TradeRunSettings.get().standAndTrade = true;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Stand-and-trade: ON");
+                                            return 1;
+                                        }))
+                                        .then(literal("false").executes(ctx -> {
+                                            TradeRunSettings.get().standAndTrade = false;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Stand-and-trade: OFF (one approach tile per villager)");
+                                            return 1;
+                                        })))
+                                .then(literal("maxPrice")
+                                        .then(argument("n", IntegerArgumentType.integer(0, 64))
+                                                .executes(ctx -> {
+                                                    int n = IntegerArgumentType.getInteger(ctx, "n");
+                                                    TradeRunSettings.get().maxInputPrice = n;
+                                                    TradeRunSettings.saveQuiet();
+                                                    msg("maxInputPrice=" + (n == 0 ? "no limit" : n));
+                                                    return 1;
+                                                })))
+                                .then(literal("metrics")
+                                        .then(literal("true").executes(ctx -> {
+                                            TradeRunSettings.get().metricsEnabled = true;
+                                            TradeRunSettings.saveQuiet();
+                                            msg("Metrics endpoint: ON (http://127.0.0.1:" + TradeRunSettings.get().metricsPort + "/metrics)");
+                                            return 1;
+                                        }))
+                                        .then(literal("false").executes(ctx -> {
+                                            TradeRunSettings.get().metricsEnabled = false;
+                                            TradeRunSettings.saveQuiet();
+                                            MetricsExporter.stop();
+                                            msg("Metrics endpoint: OFF");
+                                            return 1;
+                                        })))
+                                .then(literal("metricsPort")
+                                        .then(argument("port", IntegerArgumentType.integer(1024, 65535))
+                                                .executes(ctx -> {
+                                                    int port = IntegerArgumentType.getInteger(ctx, "port");
+                                                    TradeRunSettings.get().metricsPort = port;
+                                                    TradeRunSettings.saveQuiet();
+                                                    msg("metricsPort=" + port);
+                                                    return 1;
+                                                })))
+                                .then(literal("logLevel")
+                                        .then(argument("level", StringArgumentType.word())
+                                                .suggests(LOG_LEVEL_SUGGESTIONS)
+                                                .executes(ctx -> {
+                                                    DebugLogger.Level level = DebugLogger.Level.parse(StringArgumentType.getString(ctx, "level"));
+                                                    if (level == null) {
+                                                        msg("Unknown level. Use: trace, debug, info, warn, error");
+                                                        return 0;
+                                                    }
+                                                    TradeRunSettings.get().logLevel = level.name();
+                                                    TradeRunSettings.saveQuiet();
+                                                    DebugLogger.setLevel(level);
+                                                    msg("logLevel=" + level.name().toLowerCase());
+                                                    return 1;
+                                                })))
+                                .then(literal("scanRadius")
+                                        .then(argument("blocks", IntegerArgumentType.integer(16, 128))
+                                                .executes(ctx -> {
+                                                    int blocks = IntegerArgumentType.getInteger(ctx, "blocks");
+                                                    TradeRunSettings.get().scanRadius = blocks;
+                                                    TradeRunSettings.saveQuiet();
+                                                    msg("scanRadius=" + blocks);
+                                                    return 1;
+                                                })))
                                 .then(literal("cooldownSec")
                                         .then(argument("sec", IntegerArgumentType.integer(0, 3600))
                                                 .executes(ctx -> {
@@ -450,6 +674,62 @@ public final class TradeRunCommands {
                                                 }))))
 
                         // /traderun debug - saves last 30 debug lines to file
+                        .then(literal("stats")
+                                .executes(ctx -> {
+                                    msg("§6Run stats §7(state time per visit: p50/p90/p99/max)");
+                                    for (String line : TradeRunMetrics.report(TickClock.nowMs(), 5)) {
+                                        msg("§7" + line);
+                                    }
+                                    return 1;
+                                })
+                                .then(literal("reset").executes(ctx -> {
+                                    TradeRunMetrics.reset(TickClock.nowMs());
+                                    msg("Stats reset");
+                                    return 1;
+                                }))
+                        )
+                        .then(literal("record")
+                                .then(literal("save").executes(ctx -> {
+                                    if (!SessionRecorder.isOpen()) {
+                                        msg("Session recorder is off (set sessionRecorder in settings.json)");
+                                        return 0;
+                                    }
+                                    String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+                                    Path saved = SessionRecorder.snapshot(ConfigPaths.dir(), "manual", timestamp);
+                                    if (saved == null) {
+                                        msg("Failed to save session recording");
+                                        return 0;
+                                    }
+                                    msg("Session saved (" + SessionRecorder.records() + " records): " + saved.getFileName());
+                                    msg("View: ./gradlew viewSession -PsessionArgs=\"" + saved.toAbsolutePath() + "\"");
+                                    return 1;
+                                }))
+                        )
+
+                        // /traderun jfr start|stop - local flight recording for JDK Mission Control
+                        .then(literal("jfr")
+                                .then(literal("start").executes(ctx -> {
+                                    String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+                                    Path file = ConfigPaths.file("traderun_" + timestamp + ".jfr");
+                                    String error = JfrRecorder.start(file);
+                                    if (error != null) {
+                                        msg("JFR not started: " + error);
+                                        return 0;
+                                    }
+                                    msg("JFR recording started -> " + file.getFileName());
+                                    return 1;
+                                }))
+                                .then(literal("stop").executes(ctx -> {
+                                    Path file = JfrRecorder.stop();
+                                    if (file == null) {
+                                        msg("No JFR recording running");
+                                        return 0;
+                                    }
+                                    msg("JFR recording saved: " + file.toAbsolutePath());
+                                    msg("Open it in JDK Mission Control (events under TradeRun)");
+                                    return 1;
+                                }))
+                        )
                         .then(literal("debug").executes(ctx -> {
                             List<String> lines = TradeRunRuntime.get().getDebugLines(30);
                             if (lines.isEmpty()) {
@@ -465,6 +745,8 @@ public final class TradeRunCommands {
                                 sb.append("TradeRun Debug Log - ").append(LocalDateTime.now()).append("\n");
                                 sb.append("State: ").append(TradeRunRuntime.get().getState()).append("\n");
                                 sb.append("Active: ").append(TradeRunRuntime.get().isActive()).append("\n");
+                                sb.append("Events: ").append(TradeRunRuntime.get().getSleepStats()).append("\n");
+                                sb.append("States:\n").append(TradeRunRuntime.get().getStateStats()).append("\n");
                                 sb.append("---\n");
                                 for (String line : lines) {
                                     sb.append(line).append("\n");
@@ -519,6 +801,24 @@ public final class TradeRunCommands {
         );
     }
 
+    private static int addTradeWhitelist(String itemId) {
+        MinecraftClient c = MinecraftClient.getInstance();
+        if (c == null || c.player == null) return 0;
+        int y = c.player.getBlockPos().getY();
+        if (FloorRegistry.addTradeWhitelist(y, itemId)) {
+            msg("Added to trade whitelist: " + itemId);
+        } else {
+            msg("No floor registered at Y=" + y);
+            msg("Use /traderun floor add <name> <profession> first");
+        }
+        return 1;
+    }
+
+    private static String normalizeItemId(String raw) {
+        String id = raw.trim().toLowerCase();
+        return id.contains(":") ? id : "minecraft:" + id;
+    }
+
     private static void msg(String text) {
         MinecraftClient c = MinecraftClient.getInstance();
         if (c == null || c.player == null) return;
@@ -557,7 +857,10 @@ public final class TradeRunCommands {
         helpMsg("§f/traderun start <floor> §7- Start trading");
         helpMsg("§f/traderun stop §7- Stop trading");
         helpMsg("§f/traderun status §7- Show status");
+        helpMsg("§f/traderun stats §7- State timings and trades/hour");
         helpMsg("§f/traderun debug §7- Save debug log");
+        helpMsg("§f/traderun record save §7- Save the session recording for the session viewer");
+        helpMsg("§f/traderun jfr <start|stop> §7- Flight recording for JDK Mission Control");
     }
     
     private static void showHelpSetup() {
@@ -611,11 +914,24 @@ public final class TradeRunCommands {
         helpMsg("§f/traderun floor clear");
         helpMsg("§7Removes all floor data");
         helpMsg("");
+        helpMsg("§e§lRemembered villagers:§r");
+        helpMsg("§f/traderun floor hall");
+        helpMsg("§7Villagers seen per Y level, used to walk to far parts of the hall");
+        helpMsg("§f/traderun floor hall clear");
+        helpMsg("§7Forget them (re-learned while walking)");
+        helpMsg("");
         helpMsg("§e§lTransitions (for multi-floor):§r");
         helpMsg("§f/traderun floor transition <targetY>");
         helpMsg("§7Stand on stairs, set transition to target Y");
         helpMsg("§f/traderun floor transitions");
         helpMsg("§7List all transitions");
+        helpMsg("");
+        helpMsg("§e§lNative trade whitelist (current floor):§r");
+        helpMsg("§f/traderun floor trade add <item|hand>");
+        helpMsg("§7Only buy offers selling this item (empty = all offers)");
+        helpMsg("§f/traderun floor trade remove <item>");
+        helpMsg("§f/traderun floor trade list");
+        helpMsg("§f/traderun floor trade clear");
     }
     
     private static void showHelpStorage() {
@@ -664,7 +980,7 @@ public final class TradeRunCommands {
         helpMsg("");
         helpMsg("§e§lHow it works:§r");
         helpMsg("§71. Finds villagers on current floor");
-        helpMsg("§72. Navigates and opens trade (uses AutoTrade)");
+        helpMsg("§72. Navigates and opens trade (uses AutoTrade, or native trading)");
         helpMsg("§73. Restocks from input chest when low");
         helpMsg("§74. Dumps to output chest when full");
         helpMsg("§75. Switches floors when all villagers on cooldown");
@@ -683,7 +999,37 @@ public final class TradeRunCommands {
         helpMsg("");
         helpMsg("§e§lClick rate:§r");
         helpMsg("§f/traderun set clickRate <ms>");
-        helpMsg("§7Delay between container clicks (default: 170ms)");
+        helpMsg("§7Delay between use-key presses when opening trades (default: 170ms)");
+        helpMsg("");
+        helpMsg("§e§lContainer clicks:§r");
+        helpMsg("§f/traderun set clickWindow <n>");
+        helpMsg("§7Clicks in flight before waiting for the server (default: 2)");
+        helpMsg("§f/traderun set containerClickMs <ms>");
+        helpMsg("§7Minimum gap between container clicks (default: 50ms)");
+        helpMsg("§f/traderun set bulkTransfers <true|false>");
+        helpMsg("§7Move all stacks in one burst like shift-double-click (default: false)");
+        helpMsg("");
+        helpMsg("§e§lTrading:§r");
+        helpMsg("§f/traderun set nativeTrading <true|false>");
+        helpMsg("§7Trade whitelisted offers ourselves instead of AutoTrade (default: false)");
+        helpMsg("§f/traderun set directInteract <true|false>");
+        helpMsg("§7Open villagers with one interact instead of use-key spam (default: false)");
+        helpMsg("§f/traderun set interactOnArrival <true|false>");
+        helpMsg("§7Open trade as soon as the villager is in reach, skip the rest of the walk (default: false)");
+        helpMsg("§f/traderun set standAndTrade <true|false>");
+        helpMsg("§7Trade all villagers reachable from one tile before walking on (default: false)");
+        helpMsg("§f/traderun set maxPrice <n>");
+        helpMsg("§7Skip villagers asking more than n inputs per trade (default: 0 = no limit)");
+        helpMsg("§f/traderun set scanRadius <blocks>");
+        helpMsg("§7Search radius for loaded villagers; further ones are walked to from memory (default: 48)");
+        helpMsg("");
+        helpMsg("§e§lMonitoring:§r");
+        helpMsg("§f/traderun set metrics <true|false>");
+        helpMsg("§7Serve OpenMetrics on 127.0.0.1 for Prometheus (default: false)");
+        helpMsg("§f/traderun set metricsPort <port>");
+        helpMsg("§7Port of the metrics endpoint (default: 9464)");
+        helpMsg("§f/traderun set logLevel <trace|debug|info|warn|error>");
+        helpMsg("§7Lowest level written to debug_latest.log (default: debug)");
         helpMsg("");
         helpMsg("§e§lCooldown:§r");
         helpMsg("§f/traderun set cooldownSec <seconds>");
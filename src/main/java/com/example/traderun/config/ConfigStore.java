@@ -0,0 +1,238 @@
+package com.example.traderun.config;
+
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.util.ConfigPaths;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One persistence layer for all config files (config/traderun/*.json).
+ *
+ * - Write-behind: owners call {@link #markDirty} on every change; the file is written
+ *   once, WRITE_DELAY_MS later, on a background thread. Bursts of changes (learning
+ *   items, scanning a floor) coalesce into a single write.
+ * - The snapshot supplier runs on the writer thread and must take the owner's lock;
+ *   it only builds a JSON tree, formatting and disk I/O happen outside that lock.
+ * - Atomic: written to name.tmp, forced to disk, then renamed over the old file, so a
+ *   crash leaves either the old or the new file, never a truncated one.
+ * - Loads: {@link #readAsync} reads on the same thread, so registries load off the
+ *   client/render thread and a pending write never overtakes the load it follows.
+ * - Envelope: {"schemaVersion": n, "data": ...}. Files written before the envelope
+ *   existed are read as schema version 0 (the whole file is the data) and migrated step
+ *   by step up to SCHEMA_VERSION. A file from a newer build is neither loaded nor ever
+ *   written over: the owner starts from defaults and its changes stay in memory.
+ */
+public final class ConfigStore {
+
+    private ConfigStore() {}
+
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final long WRITE_DELAY_MS = 1000L;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private static final class Pending {
+        final String name;
+        final Object writeLock = new Object();
+        Supplier<JsonElement> snapshot;
+        boolean dirty = false;
+        boolean scheduled = false;
+        long writes = 0L;
+
+        Pending(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final Map<String, Pending> FILES = new LinkedHashMap<>();
+
+    // Files with a schemaVersion above ours - read-only for this session
+    private static final Set<String> NEWER = ConcurrentHashMap.newKeySet();
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "TradeRun-ConfigStore");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConfigStore::flushAll, "TradeRun-ConfigStore-Flush"));
+    }
+
+    /**
+     * Read a file's data at SCHEMA_VERSION; null if missing, unreadable or from a newer build.
+     * Accepts both the envelope and the legacy bare format.
+     */
+    public static JsonElement read(String name) {
+        return read(name, ConfigPaths.file(name));
+    }
+
+    static JsonElement read(String name, Path p) {
+        if (!Files.exists(p)) return null;
+        try (Reader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
+            return unwrap(name, JsonParser.parseReader(r));
+        } catch (Throwable t) {
+            System.err.println("[traderun] Failed to read " + name + ": " + t.getMessage());
+            return null;
+        }
+    }
+
+    /** Data of a parsed file, migrated to SCHEMA_VERSION. A newer file marks name read-only and gives null. */
+    static JsonElement unwrap(String name, JsonElement root) {
+        int version = 0;
+        JsonElement data = root;
+        if (root != null && root.isJsonObject()) {
+            JsonObject o = root.getAsJsonObject();
+            if (o.has("schemaVersion") && o.has("data")) {
+                version = o.get("schemaVersion").getAsInt();
+                data = o.get("data");
+            }
+        }
+        if (version > SCHEMA_VERSION) {
+            NEWER.add(name);
+            System.err.println("[traderun] " + name + " has schemaVersion " + version + ", this build knows "
+                    + SCHEMA_VERSION + " - not loading it and not saving over it");
+            return null;
+        }
+        return migrate(version, data);
+    }
+
+    /** Upgrade data one schema version at a time. */
+    static JsonElement migrate(int version, JsonElement data) {
+        for (int v = version; v < SCHEMA_VERSION; v++) {
+            switch (v) {
+                case 0 -> {} // Bare file from before the envelope: same data, only the wrapper is new
+                default -> throw new IllegalStateException("no migration from schemaVersion " + v);
+            }
+        }
+        return data;
+    }
+
+    /** True if name came from a newer build and is never written this session. */
+    static boolean isNewer(String name) {
+        return NEWER.contains(name);
+    }
+
+    /**
+     * Read name on the store's thread and hand its data (null if missing) to apply there.
+     * Queued ahead of every write scheduled afterwards.
+     */
+    public static void readAsync(String name, Consumer<JsonElement> apply) {
+        WRITER.execute(() -> {
+            try {
+                apply.accept(read(name));
+            } catch (Throwable t) {
+                System.err.println("[traderun] Failed to load " + name + ": " + t.getMessage());
+            }
+        });
+    }
+
+    /** Schedule a write of name; the latest supplier wins. Cheap, callable from any thread. */
+    public static void markDirty(String name, Supplier<JsonElement> snapshot) {
+        if (NEWER.contains(name)) return;
+        Pending p;
+        synchronized (FILES) {
+            p = FILES.computeIfAbsent(name, Pending::new);
+        }
+        synchronized (p) {
+            p.snapshot = snapshot;
+            p.dirty = true;
+            if (p.scheduled) return;
+            p.scheduled = true;
+        }
+        WRITER.schedule(() -> flush(p), WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Write every dirty file now (client shutdown, tests). */
+    public static void flushAll() {
+        Pending[] all;
+        synchronized (FILES) {
+            all = FILES.values().toArray(new Pending[0]);
+        }
+        for (Pending p : all) flush(p);
+    }
+
+    private static void flush(Pending p) {
+        // One writer per file at a time (the scheduled task and flushAll may race). The
+        // flags have their own lock so markDirty never waits for a write in progress.
+        synchronized (p.writeLock) {
+            Supplier<JsonElement> snapshot;
+            synchronized (p) {
+                p.scheduled = false;
+                if (!p.dirty) return;
+                p.dirty = false;
+                snapshot = p.snapshot;
+            }
+            if (NEWER.contains(p.name)) return; // Marked dirty before its load found a newer file
+            JfrEvents.PersistenceWrite event = new JfrEvents.PersistenceWrite();
+            event.begin();
+            try {
+                JsonObject envelope = new JsonObject();
+                envelope.addProperty("schemaVersion", SCHEMA_VERSION);
+                envelope.add("data", snapshot.get());
+                event.bytes = writeAtomic(ConfigPaths.file(p.name), GSON.toJson(envelope));
+                event.file = p.name;
+                event.commit();
+                p.writes++;
+            } catch (Throwable t) {
+                System.err.println("[traderun] Failed to save " + p.name + ": " + t.getMessage());
+            }
+        }
+    }
+
+    /** Returns the number of bytes written. */
+    static long writeAtomic(Path target, String content) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) ch.write(bytes);
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return bytes.limit();
+    }
+
+    /** Debug summary: writes per file since launch. */
+    public static String stats() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (FILES) {
+            for (Pending p : FILES.values()) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(p.name).append('=').append(p.writes).append(p.dirty ? "*" : "");
+            }
+        }
+        for (String name : NEWER) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(name).append("=newer");
+        }
+        return sb.length() == 0 ? "none" : sb.toString();
+    }
+}
@@ -1,18 +1,12 @@
 package com.example.traderun.config;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import net.minecraft.client.MinecraftClient;
-
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import com.google.gson.JsonElement;
 
 public final class TradeRunSettings {
 
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson GSON = new Gson();
+    private static final String FILE = "settings.json";
     private static TradeRunSettings INSTANCE;
 
     // Tunables
@@ -24,6 +18,28 @@ public final class TradeRunSettings {
     public int storageTimeoutSec = 60; // Time to wait for storage navigation before giving up
     public int maxNoTradeTimeMinutes = 20; // Maximum time to wait when all villagers on cooldown
 
+    // Container click pacing (ack-driven, see ClickPipeline)
+    public int containerClickWindow = 2;     // Max clicks in flight before waiting for the server
+    public int containerMinClickMs = 50;     // Safety ceiling - never click faster than this
+    public int containerMaxAckWaitMs = 400;  // Give up waiting for an ack after this long
+    public boolean bulkContainerTransfers = false; // Send a whole transfer as one burst (shift-double-click style)
+
+    // Trading
+    public boolean nativeTrading = false; // Trade inside the merchant screen ourselves instead of waiting for AutoTrade
+    public boolean directInteract = false; // Open villagers with an interact packet instead of use-key clicks
+    public boolean interactOnArrival = false; // Stop walking and open as soon as the villager is in reach and visible
+    public boolean standAndTrade = false; // Trade every villager reachable from one tile before walking on
+    public int maxInputPrice = 0; // Skip villagers whose last seen input price is above this (0 = no limit)
+    public int scanRadius = 48; // Blocks around the player searched for loaded villagers (HallRegistry covers the rest)
+
+    // Diagnostics
+    public boolean sessionRecorder = true; // Binary ring of transitions/events in config/traderun/session.ring
+    public String logLevel = "DEBUG"; // Lowest DebugLogger level written to debug_latest.log
+
+    // Metrics endpoint for Prometheus (opt-in, localhost only)
+    public boolean metricsEnabled = false;
+    public int metricsPort = 9464;
+
     // Optional tunables (safe defaults)
     public float yawPerTick = 8.0f;
     public boolean floorLock = true;
@@ -35,20 +51,12 @@ public final class TradeRunSettings {
         return INSTANCE;
     }
 
-    private static Path path() {
-        Path dir = MinecraftClient.getInstance().runDirectory.toPath()
-                .resolve("config")
-                .resolve("traderun");
-        try { Files.createDirectories(dir); } catch (IOException ignored) {}
-        return dir.resolve("settings.json");
-    }
-
     private static TradeRunSettings load() {
-        Path p = path();
-        if (!Files.exists(p)) return new TradeRunSettings();
+        JsonElement el = ConfigStore.read(FILE);
+        if (el == null) return new TradeRunSettings();
 
-        try (Reader r = Files.newBufferedReader(p)) {
-            TradeRunSettings s = GSON.fromJson(r, TradeRunSettings.class);
+        try {
+            TradeRunSettings s = GSON.fromJson(el, TradeRunSettings.class);
             return (s == null) ? new TradeRunSettings() : s;
         } catch (Throwable ignored) {
             return new TradeRunSettings();
@@ -56,23 +64,22 @@ public final class TradeRunSettings {
     }
 
     public static void saveQuiet() {
-        try {
-            save();
-        } catch (Throwable ignored) {}
+        save();
     }
 
-    public static void save() throws IOException {
-        TradeRunSettings s = get();
-        Path p = path();
-        try (Writer w = Files.newBufferedWriter(p)) {
-            GSON.toJson(s, w);
-        }
+    /** Written by ConfigStore shortly after the last change. */
+    public static void save() {
+        ConfigStore.markDirty(FILE, () -> GSON.toJsonTree(get()));
     }
 
     public long getCooldownMs() {
         return cooldownSec * 1000L;
     }
 
+    public double getScanRadius() {
+        return Math.max(16, Math.min(128, scanRadius));
+    }
+
     public long getMaxNoTradeTimeoutMs() {
         return maxNoTradeTimeMinutes * 60L * 1000L;
     }
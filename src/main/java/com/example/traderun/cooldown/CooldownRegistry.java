@@ -1,21 +1,16 @@
 package com.example.traderun.cooldown;
 
+import com.example.traderun.config.ConfigStore;
 import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.util.TickClock;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
-import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.passive.VillagerEntity;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.lang.reflect.Type;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 
@@ -28,6 +23,10 @@ import java.util.UUID;
  * - If cooldown starts at night, extend until next day
  * 
  * IMPORTANT: coord-safe - no chat printing of coordinates, only local particles.
+ *
+ * The render thread asks isOnCooldown() for every villager it draws, so reads never lock:
+ * mutations copy the map and publish an immutable one through a volatile field, and the
+ * ConfigStore writer serializes whatever map is published.
  */
 public final class CooldownRegistry {
 
@@ -39,20 +38,15 @@ public final class CooldownRegistry {
     private static final long DAY_LENGTH = 24000L;
     
     // Persistence
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson GSON = new Gson();
     private static final Type MAP_TYPE = new TypeToken<Map<String, Long>>(){}.getType();
-    
-    private static Path configPath() {
-        Path dir = FabricLoader.getInstance().getConfigDir().resolve("traderun");
-        try { Files.createDirectories(dir); } catch (IOException ignored) {}
-        return dir.resolve("cooldowns.json");
-    }
+    private static final String FILE = "cooldowns.json";
 
-    // Cooldown entry with time tracking
-    private static class CooldownEntry {
-        long cooldownUntilMs;      // System time when cooldown ends
-        boolean startedDuringDay;  // Was it day when cooldown started?
-        long worldTimeAtStart;     // World time when cooldown started
+    // Cooldown entry with time tracking (immutable - shared with lock-free readers)
+    private static final class CooldownEntry {
+        final long cooldownUntilMs;      // System time when cooldown ends
+        final boolean startedDuringDay;  // Was it day when cooldown started?
+        final long worldTimeAtStart;     // World time when cooldown started
         
         CooldownEntry(long untilMs, boolean duringDay, long worldTime) {
             this.cooldownUntilMs = untilMs;
@@ -61,9 +55,13 @@ public final class CooldownRegistry {
         }
     }
 
-    private static final Map<UUID, CooldownEntry> cooldowns = new HashMap<>();
-    
-    static { load(); }  // Load on class init
+    // Copy-on-write: replaced (never modified) under the class lock, read without it
+    private static volatile Map<UUID, CooldownEntry> cooldowns = Map.of();
+
+    /** Publish a modified copy; callers hold the class lock so writers don't lose each other's changes. */
+    private static void publishMap(Map<UUID, CooldownEntry> next) {
+        cooldowns = Map.copyOf(next);
+    }
 
     /** Check if it's currently day in the world */
     public static boolean isDayTime(MinecraftClient client) {
@@ -80,17 +78,23 @@ public final class CooldownRegistry {
     /** Call when we consider a villager "traded" (Merchant screen opened). */
     public static void onVillagerTraded(VillagerEntity v) {
         if (v == null) return;
-        MinecraftClient client = MinecraftClient.getInstance();
-        
+        onVillagerTraded(v.getUuid(), MinecraftClient.getInstance());
+    }
+
+    /** Same by UUID; a null client counts as daytime (benchmarks, tools). */
+    public static synchronized void onVillagerTraded(UUID id, MinecraftClient client) {
+        if (id == null) return;
         long cooldownMs = TradeRunSettings.get().getCooldownMs();
         long worldTime = (client != null && client.world != null) ? client.world.getTimeOfDay() % DAY_LENGTH : 0L;
         boolean isDay = isDayTime(client);
         
-        cooldowns.put(v.getUuid(), new CooldownEntry(
-            System.currentTimeMillis() + cooldownMs,
+        Map<UUID, CooldownEntry> next = new HashMap<>(cooldowns);
+        next.put(id, new CooldownEntry(
+            TickClock.wallMs() + cooldownMs,
             isDay,
             worldTime
         ));
+        publishMap(next);
         
         save();  // Persist to disk
     }
@@ -100,23 +104,22 @@ public final class CooldownRegistry {
         return isOnCooldown(v.getUuid());
     }
 
+    /** Lock-free; expired entries stay until tick() drops them. */
     public static boolean isOnCooldown(UUID id) {
         if (id == null) return false;
         CooldownEntry entry = cooldowns.get(id);
         if (entry == null) return false;
         
-        long now = System.currentTimeMillis();
-        MinecraftClient client = MinecraftClient.getInstance();
+        long now = TickClock.wallMs();
         
         // Basic cooldown expired?
         if (now >= entry.cooldownUntilMs) {
             // Check night extension (only if enabled)
-            if (TradeRunSettings.get().nightCooldownEnabled && isNightTime(client)) {
+            if (TradeRunSettings.get().nightCooldownEnabled && isNightTime(MinecraftClient.getInstance())) {
                 // It's night - villager can't restock yet, stay on cooldown
                 return true;
             }
             // Cooldown is truly over
-            cooldowns.remove(id);
             return false;
         }
         
@@ -132,37 +135,40 @@ public final class CooldownRegistry {
         clearCooldown(v.getUuid());
     }
     
-    public static void clearCooldown(UUID id) {
-        if (id == null) return;
-        if (cooldowns.remove(id) != null) {
-            save();  // Persist change
-        }
+    public static synchronized void clearCooldown(UUID id) {
+        if (id == null || !cooldowns.containsKey(id)) return;
+        Map<UUID, CooldownEntry> next = new HashMap<>(cooldowns);
+        next.remove(id);
+        publishMap(next);
+        save();  // Persist change
     }
     
     /**
      * Clear all cooldowns (e.g., when villager work time is detected).
      */
-    public static void clearAllCooldowns() {
+    public static synchronized void clearAllCooldowns() {
         if (!cooldowns.isEmpty()) {
-            cooldowns.clear();
+            cooldowns = Map.of();
             save();
         }
     }
 
-    public static void tick(MinecraftClient client) {
+    public static synchronized void tick(MinecraftClient client) {
         if (client == null || client.world == null || client.player == null) return;
 
-        long now = System.currentTimeMillis();
+        long now = TickClock.wallMs();
         boolean isDay = isDayTime(client);
         
-        // Cleanup expired entries (only during day)
+        // Cleanup expired entries (only during day); copy only when something expired
         if (isDay) {
-            for (Iterator<Map.Entry<UUID, CooldownEntry>> it = cooldowns.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<UUID, CooldownEntry> e = it.next();
-                if (now >= e.getValue().cooldownUntilMs) {
-                    it.remove();
-                }
+            Map<UUID, CooldownEntry> current = cooldowns;
+            Map<UUID, CooldownEntry> next = null;
+            for (Map.Entry<UUID, CooldownEntry> e : current.entrySet()) {
+                if (now < e.getValue().cooldownUntilMs) continue;
+                if (next == null) next = new HashMap<>(current);
+                next.remove(e.getKey());
             }
+            if (next != null) publishMap(next);
         }
         
         // Visual markers are now handled by TradeRunVisuals
@@ -172,8 +178,8 @@ public final class CooldownRegistry {
         resetAll();
     }
 
-    public static void resetAll() {
-        cooldowns.clear();
+    public static synchronized void resetAll() {
+        cooldowns = Map.of();
         save();  // Clear the persisted file too
     }
 
@@ -190,15 +196,21 @@ public final class CooldownRegistry {
     
     // ===== Persistence =====
     
-    private static void load() {
-        Path path = configPath();
-        if (!Files.exists(path)) return;
+    /** Load cooldowns.json in the background; called once at client init. */
+    public static void preload() {
+        ConfigStore.readAsync(FILE, CooldownRegistry::publish);
+    }
+    
+    /** Parse without the lock, then publish in one step; trades recorded meanwhile win. */
+    private static void publish(JsonElement el) {
+        if (el == null) return;
+        Map<UUID, CooldownEntry> loaded = new HashMap<>();
         
-        try (Reader r = Files.newBufferedReader(path)) {
-            Map<String, Long> stored = GSON.fromJson(r, MAP_TYPE);
+        try {
+            Map<String, Long> stored = GSON.fromJson(el, MAP_TYPE);
             if (stored == null) return;
             
-            long now = System.currentTimeMillis();
+            long now = TickClock.wallMs();
             for (Map.Entry<String, Long> e : stored.entrySet()) {
                 try {
                     UUID uuid = UUID.fromString(e.getKey());
@@ -206,7 +218,7 @@ public final class CooldownRegistry {
                     
                     // Only load if cooldown hasn't expired yet
                     if (untilMs > now) {
-                        cooldowns.put(uuid, new CooldownEntry(untilMs, true, 0L));
+                        loaded.put(uuid, new CooldownEntry(untilMs, true, 0L));
                     }
                 } catch (IllegalArgumentException ignored) {
                     // Invalid UUID, skip
@@ -214,27 +226,30 @@ public final class CooldownRegistry {
             }
         } catch (Exception e) {
             // Ignore load errors
+            return;
+        }
+        synchronized (CooldownRegistry.class) {
+            Map<UUID, CooldownEntry> next = new HashMap<>(loaded);
+            next.putAll(cooldowns);
+            publishMap(next);
         }
     }
     
     private static void save() {
-        try {
-            Map<String, Long> toStore = new HashMap<>();
-            long now = System.currentTimeMillis();
-            
-            for (Map.Entry<UUID, CooldownEntry> e : cooldowns.entrySet()) {
-                // Only save non-expired cooldowns
-                if (e.getValue().cooldownUntilMs > now) {
-                    toStore.put(e.getKey().toString(), e.getValue().cooldownUntilMs);
-                }
-            }
-            
-            Path path = configPath();
-            try (Writer w = Files.newBufferedWriter(path)) {
-                GSON.toJson(toStore, w);
+        ConfigStore.markDirty(FILE, CooldownRegistry::snapshot);
+    }
+    
+    /** Runs on the ConfigStore writer; serializes the published map, never takes the lock. */
+    private static JsonElement snapshot() {
+        Map<String, Long> toStore = new HashMap<>();
+        long now = TickClock.wallMs();
+        
+        for (Map.Entry<UUID, CooldownEntry> e : cooldowns.entrySet()) {
+            // Only save non-expired cooldowns
+            if (e.getValue().cooldownUntilMs > now) {
+                toStore.put(e.getKey().toString(), e.getValue().cooldownUntilMs);
             }
-        } catch (Exception e) {
-            // Ignore save errors
         }
+        return GSON.toJsonTree(toStore, MAP_TYPE);
     }
 }
@@ -1,5 +1,6 @@
 package com.example.traderun.cooldown;
 
+import com.example.traderun.util.TickClock;
 import net.minecraft.entity.passive.VillagerEntity;
 
 import java.util.Map;
@@ -29,7 +30,7 @@ public final class RecentFailRegistry {
      */
     public static void markFailure(VillagerEntity villager) {
         if (villager == null) return;
-        UNTIL_MS.put(villager.getUuid(), System.currentTimeMillis() + FAIL_MS);
+        UNTIL_MS.put(villager.getUuid(), TickClock.nowMs() + FAIL_MS);
     }
     
     /**
@@ -38,7 +39,7 @@ public final class RecentFailRegistry {
      */
     public static void markNoApproachFailure(VillagerEntity villager) {
         if (villager == null) return;
-        UNTIL_MS.put(villager.getUuid(), System.currentTimeMillis() + SECOND_FAIL_MS);
+        UNTIL_MS.put(villager.getUuid(), TickClock.nowMs() + SECOND_FAIL_MS);
     }
     
     /**
@@ -55,11 +56,11 @@ public final class RecentFailRegistry {
         
         if (count >= 2) {
             // Second failure - slightly longer cooldown
-            UNTIL_MS.put(id, System.currentTimeMillis() + SECOND_FAIL_MS);
+            UNTIL_MS.put(id, TickClock.nowMs() + SECOND_FAIL_MS);
             return true;
         } else {
             // First failure - short cooldown, will retry after other villagers
-            UNTIL_MS.put(id, System.currentTimeMillis() + FAIL_MS);
+            UNTIL_MS.put(id, TickClock.nowMs() + FAIL_MS);
             return false;
         }
     }
@@ -72,13 +73,17 @@ public final class RecentFailRegistry {
     }
 
     public static boolean isSuppressed(VillagerEntity villager) {
-        if (villager == null) return false;
-        long now = System.currentTimeMillis();
+        return villager != null && isSuppressed(villager.getUuid());
+    }
+
+    public static boolean isSuppressed(UUID id) {
+        if (id == null) return false;
+        long now = TickClock.nowMs();
         
-        Long until = UNTIL_MS.get(villager.getUuid());
+        Long until = UNTIL_MS.get(id);
         if (until != null) {
             if (now < until) return true;
-            UNTIL_MS.remove(villager.getUuid());
+            UNTIL_MS.remove(id);
         }
         
         return false;
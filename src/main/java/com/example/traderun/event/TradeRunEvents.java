@@ -0,0 +1,116 @@
+package com.example.traderun.event;
+
+import com.example.traderun.session.SessionRecorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Small client-thread event bus.
+ *
+ * Producers (mixins, Fabric callbacks, the ledger, the navigator) post events as they
+ * happen. Consumers subscribe with a mask of the event types they care about, so a
+ * waiting state can sleep until something relevant changes instead of re-checking every
+ * condition each tick. Timers are kept in a min-heap; checking them costs one peek per tick.
+ *
+ * Everything runs on the client thread, no locking.
+ */
+public final class TradeRunEvents {
+
+    private TradeRunEvents() {}
+
+    public enum Type {
+        SCREEN_OPENED,
+        SCREEN_CLOSED,
+        INVENTORY_CHANGED,
+        ENTITY_LOADED,
+        ENTITY_UNLOADED,
+        BLOCK_UPDATED,
+        NAV_ARRIVED,
+        NAV_FAILED,
+        TIMER_EXPIRED;
+
+        public int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    public interface Listener {
+        void onEvent(Type type);
+    }
+
+    private static final class Subscription {
+        final int mask;
+        final Listener listener;
+
+        Subscription(int mask, Listener listener) {
+            this.mask = mask;
+            this.listener = listener;
+        }
+    }
+
+    private static final List<Subscription> subscriptions = new ArrayList<>();
+    private static final PriorityQueue<Long> timers = new PriorityQueue<>();
+    private static final long[] posted = new long[Type.values().length];
+
+    /** Combine event types into a subscription mask. */
+    public static int mask(Type... types) {
+        int m = 0;
+        for (Type t : types) m |= t.bit();
+        return m;
+    }
+
+    public static void subscribe(int mask, Listener listener) {
+        if (listener == null || mask == 0) return;
+        unsubscribe(listener);
+        subscriptions.add(new Subscription(mask, listener));
+    }
+
+    public static void unsubscribe(Listener listener) {
+        subscriptions.removeIf(s -> s.listener == listener);
+    }
+
+    public static void post(Type type) {
+        if (type == null) return;
+        posted[type.ordinal()]++;
+        SessionRecorder.event(type.ordinal());
+        int bit = type.bit();
+        // Backwards so listeners may unsubscribe themselves while being notified
+        for (int i = subscriptions.size() - 1; i >= 0; i--) {
+            if (i >= subscriptions.size()) continue;
+            Subscription s = subscriptions.get(i);
+            if ((s.mask & bit) != 0) s.listener.onEvent(type);
+        }
+    }
+
+    /** Post TIMER_EXPIRED once the clock passes atMs. Stale timers just cause an early re-check. */
+    public static void scheduleTimer(long atMs) {
+        timers.add(atMs);
+    }
+
+    /** Called once per client tick; fires due timers. */
+    public static void tick(long nowMs) {
+        boolean fired = false;
+        while (!timers.isEmpty() && timers.peek() <= nowMs) {
+            timers.poll();
+            fired = true;
+        }
+        if (fired) post(Type.TIMER_EXPIRED);
+    }
+
+    public static void clearTimers() {
+        timers.clear();
+    }
+
+    /** Debug summary: events posted per type since launch. */
+    public static String stats() {
+        StringBuilder sb = new StringBuilder();
+        for (Type t : Type.values()) {
+            if (posted[t.ordinal()] == 0) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(t.name().toLowerCase()).append('=').append(posted[t.ordinal()]);
+        }
+        return sb.length() == 0 ? "none" : sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.traderun.floor;
+
+/**
+ * Groups points into clusters: two points belong together when they are within
+ * maxDistSq of each other, directly or through a chain of neighbours (union-find).
+ *
+ * Works on plain coordinate arrays so it can run (and be benchmarked) without a world.
+ */
+public final class ClusterFinder {
+
+    private ClusterFinder() {}
+
+    /**
+     * Indices of the largest cluster among the first n points, ascending.
+     * Ties go to the cluster containing the lowest index.
+     */
+    public static int[] largest(double[] x, double[] y, double[] z, int n, double maxDistSq) {
+        if (n <= 0) return new int[0];
+        if (n == 1) return new int[] {0};
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double dx = x[i] - x[j];
+                double dy = y[i] - y[j];
+                double dz = z[i] - z[j];
+                if (dx * dx + dy * dy + dz * dz <= maxDistSq) {
+                    union(parent, i, j);
+                }
+            }
+        }
+
+        // Cluster sizes by root
+        int[] size = new int[n];
+        int bestRoot = -1;
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            size[root]++;
+        }
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (bestRoot < 0 || size[root] > size[bestRoot]) bestRoot = root;
+        }
+
+        int[] out = new int[size[bestRoot]];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (find(parent, i) == bestRoot) out[k++] = i;
+        }
+        return out;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];  // Path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int i, int j) {
+        int ri = find(parent, i);
+        int rj = find(parent, j);
+        if (ri != rj) parent[ri] = rj;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.traderun.floor;
 
+import com.example.traderun.config.ConfigStore;
+import com.example.traderun.config.TradeRunSettings;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
-import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.registry.Registries;
@@ -12,21 +13,20 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.village.VillagerProfession;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.lang.reflect.Type;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Tracks which floors have which professions.
  * Stores clustered villager positions for navigation.
+ *
+ * Reads never lock: mutations copy the floor map (and the FloorInfo they change) or the
+ * transition list and publish immutable ones through volatile fields, and the
+ * ConfigStore writer serializes whatever is published. A FloorInfo handed out is never
+ * changed afterwards.
  */
 public final class FloorRegistry {
 
-    private static final double SCAN_RADIUS = 48.0;
     private static final double CLUSTER_DISTANCE = 5.0;
     private static final double CLUSTER_DISTANCE_SQ = CLUSTER_DISTANCE * CLUSTER_DISTANCE;
 
@@ -37,11 +37,24 @@ public final class FloorRegistry {
         public int villagerCount;
         public int clusterX; // Center of cluster
         public int clusterZ;
+        public Set<String> tradeWhitelist = new HashSet<>(); // Sell item ids traded natively (empty = all)
         
         /** Get display name - custom name if set, otherwise "Y=<y>" */
         public String getDisplayName() {
             return (name != null && !name.isEmpty()) ? name : "Y=" + y;
         }
+
+        FloorInfo copy() {
+            FloorInfo c = new FloorInfo();
+            c.name = name;
+            c.y = y;
+            c.professions = professions == null ? new HashSet<>() : new HashSet<>(professions);
+            c.villagerCount = villagerCount;
+            c.clusterX = clusterX;
+            c.clusterZ = clusterZ;
+            c.tradeWhitelist = tradeWhitelist == null ? new HashSet<>() : new HashSet<>(tradeWhitelist);
+            return c;
+        }
     }
     
     public static final class TransitionPoint {
@@ -61,72 +74,94 @@ public final class FloorRegistry {
         }
     }
     
-    private static final List<TransitionPoint> TRANSITIONS = new ArrayList<>();
-
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson GSON = new Gson();
+    private static final String FLOORS_FILE = "floors.json";
+    private static final String TRANSITIONS_FILE = "transitions.json";
     private static final Type FLOORS_TYPE = new TypeToken<List<FloorInfo>>(){}.getType();
     private static final Type TRANS_TYPE = new TypeToken<List<TransitionPoint>>(){}.getType();
-    private static final Map<Integer, FloorInfo> FLOORS = new HashMap<>();
+
+    // Copy-on-write: replaced (never modified) under the class lock, read without it
+    private static volatile Map<Integer, FloorInfo> floors = Map.of();
+    private static volatile List<TransitionPoint> transitions = List.of();
 
     private FloorRegistry() {}
 
-    private static Path configPath() {
-        Path dir = FabricLoader.getInstance().getConfigDir().resolve("traderun");
-        try { Files.createDirectories(dir); } catch (IOException ignored) {}
-        return dir.resolve("floors.json");
+    /** Publish modified copies; callers hold the class lock so writers don't lose each other's changes. */
+    private static void publishFloorMap(Map<Integer, FloorInfo> next) {
+        floors = Map.copyOf(next);
     }
-    
-    private static Path transitionsPath() {
-        Path dir = FabricLoader.getInstance().getConfigDir().resolve("traderun");
-        try { Files.createDirectories(dir); } catch (IOException ignored) {}
-        return dir.resolve("transitions.json");
+
+    private static void publishTransitionList(List<TransitionPoint> next) {
+        transitions = List.copyOf(next);
     }
 
-    static { load(); }
+    /** Writable copy of floor y in next (a new floor if there is none). */
+    private static FloorInfo floor(Map<Integer, FloorInfo> next, int y) {
+        FloorInfo old = next.get(y);
+        FloorInfo f = old == null ? new FloorInfo() : old.copy();
+        f.y = y;
+        next.put(y, f);
+        return f;
+    }
 
-    public static synchronized void load() {
-        FLOORS.clear();
-        TRANSITIONS.clear();
-        
-        // Load floors
-        Path p = configPath();
-        if (Files.exists(p)) {
-            try (Reader r = Files.newBufferedReader(p)) {
-                List<FloorInfo> list = GSON.fromJson(r, FLOORS_TYPE);
+    /** Load floors.json and transitions.json in the background; called once at client init. */
+    public static void preload() {
+        ConfigStore.readAsync(FLOORS_FILE, FloorRegistry::publishFloors);
+        ConfigStore.readAsync(TRANSITIONS_FILE, FloorRegistry::publishTransitions);
+    }
+
+    /** Parse without the lock, then publish in one step; floors scanned meanwhile win. */
+    private static void publishFloors(JsonElement el) {
+        Map<Integer, FloorInfo> loaded = new HashMap<>();
+        if (el != null) {
+            try {
+                List<FloorInfo> list = GSON.fromJson(el, FLOORS_TYPE);
                 if (list != null) {
                     for (FloorInfo f : list) {
-                        if (f != null) FLOORS.put(f.y, f);
+                        if (f != null) loaded.put(f.y, f);
                     }
                 }
             } catch (Throwable ignored) {}
         }
-        
-        // Load transitions
-        Path t = transitionsPath();
-        if (Files.exists(t)) {
-            try (Reader r = Files.newBufferedReader(t)) {
-                List<TransitionPoint> list = GSON.fromJson(r, TRANS_TYPE);
+        synchronized (FloorRegistry.class) {
+            Map<Integer, FloorInfo> next = new HashMap<>(loaded);
+            next.putAll(floors);
+            publishFloorMap(next);
+        }
+    }
+
+    private static void publishTransitions(JsonElement el) {
+        List<TransitionPoint> loaded = new ArrayList<>();
+        if (el != null) {
+            try {
+                List<TransitionPoint> list = GSON.fromJson(el, TRANS_TYPE);
                 if (list != null) {
-                    TRANSITIONS.addAll(list);
+                    for (TransitionPoint t : list) {
+                        if (t != null) loaded.add(t);
+                    }
                 }
             } catch (Throwable ignored) {}
         }
+        synchronized (FloorRegistry.class) {
+            loaded.addAll(transitions);
+            publishTransitionList(loaded);
+        }
     }
 
-    private static synchronized void save() {
-        // Save floors
-        Path p = configPath();
-        List<FloorInfo> list = new ArrayList<>(FLOORS.values());
+    private static void save() {
+        ConfigStore.markDirty(FLOORS_FILE, FloorRegistry::floorsSnapshot);
+        ConfigStore.markDirty(TRANSITIONS_FILE, FloorRegistry::transitionsSnapshot);
+    }
+
+    /** Runs on the ConfigStore writer; serializes the published floors, never takes the lock. */
+    private static JsonElement floorsSnapshot() {
+        List<FloorInfo> list = new ArrayList<>(floors.values());
         list.sort(Comparator.comparingInt(a -> a.y));
-        try (Writer w = Files.newBufferedWriter(p)) {
-            GSON.toJson(list, FLOORS_TYPE, w);
-        } catch (Throwable ignored) {}
-        
-        // Save transitions
-        Path t = transitionsPath();
-        try (Writer w = Files.newBufferedWriter(t)) {
-            GSON.toJson(TRANSITIONS, TRANS_TYPE, w);
-        } catch (Throwable ignored) {}
+        return GSON.toJsonTree(list, FLOORS_TYPE);
+    }
+
+    private static JsonElement transitionsSnapshot() {
+        return GSON.toJsonTree(transitions, TRANS_TYPE);
     }
 
     /**
@@ -141,7 +176,8 @@ public final class FloorRegistry {
         }
 
         int playerY = client.player.getBlockPos().getY();
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, 3, SCAN_RADIUS);
+        double radius = TradeRunSettings.get().getScanRadius();
+        Box box = client.player.getBoundingBox().expand(radius, 3, radius);
 
         Identifier targetProf = null;
         if (profession != null && !profession.isBlank()) {
@@ -189,12 +225,15 @@ public final class FloorRegistry {
         BlockPos center = new BlockPos((int) cx, playerY, (int) cz);
 
         // Save to registry
-        FloorInfo info = FLOORS.computeIfAbsent(playerY, y -> new FloorInfo());
-        info.y = playerY;
-        info.professions.add(profession.toLowerCase());
-        info.villagerCount = largestCluster.size();
-        info.clusterX = center.getX();
-        info.clusterZ = center.getZ();
+        synchronized (FloorRegistry.class) {
+            Map<Integer, FloorInfo> next = new HashMap<>(floors);
+            FloorInfo info = floor(next, playerY);
+            info.professions.add(profession.toLowerCase());
+            info.villagerCount = largestCluster.size();
+            info.clusterX = center.getX();
+            info.clusterZ = center.getZ();
+            publishFloorMap(next);
+        }
         save();
 
         return new ScanResult(largestCluster.size(), center, 
@@ -204,42 +243,22 @@ public final class FloorRegistry {
     private static List<VillagerEntity> findLargestCluster(List<VillagerEntity> villagers) {
         if (villagers.size() <= 1) return villagers;
 
-        // Union-find to group villagers within CLUSTER_DISTANCE of each other
         int n = villagers.size();
-        int[] parent = new int[n];
-        for (int i = 0; i < n; i++) parent[i] = i;
-
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
         for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                double distSq = villagers.get(i).squaredDistanceTo(villagers.get(j));
-                if (distSq <= CLUSTER_DISTANCE_SQ) {
-                    union(parent, i, j);
-                }
-            }
+            VillagerEntity v = villagers.get(i);
+            x[i] = v.getX();
+            y[i] = v.getY();
+            z[i] = v.getZ();
         }
 
-        // Count cluster sizes
-        Map<Integer, List<VillagerEntity>> clusters = new HashMap<>();
-        for (int i = 0; i < n; i++) {
-            int root = find(parent, i);
-            clusters.computeIfAbsent(root, k -> new ArrayList<>()).add(villagers.get(i));
+        List<VillagerEntity> out = new ArrayList<>();
+        for (int i : ClusterFinder.largest(x, y, z, n, CLUSTER_DISTANCE_SQ)) {
+            out.add(villagers.get(i));
         }
-
-        // Return largest cluster
-        return clusters.values().stream()
-            .max(Comparator.comparingInt(List::size))
-            .orElse(new ArrayList<>());
-    }
-
-    private static int find(int[] parent, int i) {
-        if (parent[i] != i) parent[i] = find(parent, parent[i]);
-        return parent[i];
-    }
-
-    private static void union(int[] parent, int i, int j) {
-        int ri = find(parent, i);
-        int rj = find(parent, j);
-        if (ri != rj) parent[ri] = rj;
+        return out;
     }
 
     /**
@@ -250,7 +269,7 @@ public final class FloorRegistry {
         FloorInfo best = null;
         int bestCount = 0;
 
-        for (FloorInfo f : FLOORS.values()) {
+        for (FloorInfo f : floors.values()) {
             if (Math.abs(f.y - currentY) <= 1) continue; // Skip current floor
 
             // Check if this floor has any of the target professions
@@ -279,7 +298,7 @@ public final class FloorRegistry {
         if (profession == null) return Optional.empty();
         String profLower = profession.toLowerCase();
         
-        for (FloorInfo f : FLOORS.values()) {
+        for (FloorInfo f : floors.values()) {
             if (f.professions.contains(profLower)) {
                 return Optional.of(f);
             }
@@ -294,16 +313,17 @@ public final class FloorRegistry {
     public static Optional<FloorInfo> getFloorByName(String name) {
         if (name == null || name.isEmpty()) return Optional.empty();
         String nameLower = name.toLowerCase();
+        Map<Integer, FloorInfo> m = floors;
         
         // First try to match by floor name
-        for (FloorInfo f : FLOORS.values()) {
+        for (FloorInfo f : m.values()) {
             if (f.name != null && f.name.toLowerCase().equals(nameLower)) {
                 return Optional.of(f);
             }
         }
         
         // If no floor name match, try to match by profession
-        for (FloorInfo f : FLOORS.values()) {
+        for (FloorInfo f : m.values()) {
             if (f.professions != null && f.professions.contains(nameLower)) {
                 return Optional.of(f);
             }
@@ -317,7 +337,7 @@ public final class FloorRegistry {
      */
     public static List<String> getAllFloorNames() {
         List<String> names = new ArrayList<>();
-        for (FloorInfo f : FLOORS.values()) {
+        for (FloorInfo f : floors.values()) {
             if (f.name != null && !f.name.isEmpty()) {
                 names.add(f.name);
             }
@@ -330,25 +350,76 @@ public final class FloorRegistry {
      * Set or update floor name.
      */
     public static synchronized boolean setFloorName(int y, String name) {
-        FloorInfo f = FLOORS.get(y);
-        if (f == null) return false;
-        f.name = name;
+        if (!floors.containsKey(y)) return false;
+        Map<Integer, FloorInfo> next = new HashMap<>(floors);
+        floor(next, y).name = name;
+        publishFloorMap(next);
+        save();
+        return true;
+    }
+
+    // ---- Trade whitelist ----
+
+    /** Whitelisted sell items for the floor at (or within ±1 of) y. Empty = trade every offer. */
+    public static Set<String> getTradeWhitelist(int y) {
+        FloorInfo f = findFloorNear(floors, y);
+        if (f == null || f.tradeWhitelist == null) return new HashSet<>();
+        return new HashSet<>(f.tradeWhitelist);
+    }
+
+    public static synchronized boolean addTradeWhitelist(int y, String itemId) {
+        FloorInfo near = findFloorNear(floors, y);
+        if (near == null) return false;
+        Map<Integer, FloorInfo> next = new HashMap<>(floors);
+        floor(next, near.y).tradeWhitelist.add(itemId);
+        publishFloorMap(next);
+        save();
+        return true;
+    }
+
+    public static synchronized boolean removeTradeWhitelist(int y, String itemId) {
+        FloorInfo near = findFloorNear(floors, y);
+        if (near == null || near.tradeWhitelist == null || !near.tradeWhitelist.contains(itemId)) return false;
+        Map<Integer, FloorInfo> next = new HashMap<>(floors);
+        floor(next, near.y).tradeWhitelist.remove(itemId);
+        publishFloorMap(next);
+        save();
+        return true;
+    }
+
+    public static synchronized boolean clearTradeWhitelist(int y) {
+        FloorInfo near = findFloorNear(floors, y);
+        if (near == null) return false;
+        Map<Integer, FloorInfo> next = new HashMap<>(floors);
+        floor(next, near.y).tradeWhitelist = new HashSet<>();
+        publishFloorMap(next);
         save();
         return true;
     }
 
+    private static FloorInfo findFloorNear(Map<Integer, FloorInfo> m, int y) {
+        FloorInfo exact = m.get(y);
+        if (exact != null) return exact;
+        for (FloorInfo f : m.values()) {
+            if (Math.abs(f.y - y) <= 1) return f;
+        }
+        return null;
+    }
+
     public static synchronized void removeFloor(int y) {
-        FLOORS.remove(y);
+        Map<Integer, FloorInfo> next = new HashMap<>(floors);
+        next.remove(y);
+        publishFloorMap(next);
         save();
     }
 
     public static synchronized void clear() {
-        FLOORS.clear();
+        floors = Map.of();
         save();
     }
 
-    public static synchronized List<FloorInfo> getAllFloors() {
-        List<FloorInfo> list = new ArrayList<>(FLOORS.values());
+    public static List<FloorInfo> getAllFloors() {
+        List<FloorInfo> list = new ArrayList<>(floors.values());
         list.sort(Comparator.comparingInt(f -> f.y));
         return list;
     }
@@ -357,15 +428,16 @@ public final class FloorRegistry {
      * Check if any floors are registered.
      */
     public static boolean hasRegisteredFloors() {
-        return !FLOORS.isEmpty();
+        return !floors.isEmpty();
     }
     
     /**
      * Check if player is on a registered floor (within ±1 Y).
      */
     public static boolean isOnRegisteredFloor(int playerY) {
-        if (FLOORS.isEmpty()) return true; // No floors registered = anywhere is fine
-        for (FloorInfo f : FLOORS.values()) {
+        Map<Integer, FloorInfo> m = floors;
+        if (m.isEmpty()) return true; // No floors registered = anywhere is fine
+        for (FloorInfo f : m.values()) {
             if (Math.abs(f.y - playerY) <= 1) return true;
         }
         return false;
@@ -375,12 +447,13 @@ public final class FloorRegistry {
      * Get the nearest registered floor to return to.
      */
     public static Optional<FloorInfo> getNearestRegisteredFloor(int playerY) {
-        if (FLOORS.isEmpty()) return Optional.empty();
+        Map<Integer, FloorInfo> m = floors;
+        if (m.isEmpty()) return Optional.empty();
         
         FloorInfo nearest = null;
         int nearestDist = Integer.MAX_VALUE;
         
-        for (FloorInfo f : FLOORS.values()) {
+        for (FloorInfo f : m.values()) {
             int dist = Math.abs(f.y - playerY);
             if (dist < nearestDist) {
                 nearestDist = dist;
@@ -407,10 +480,12 @@ public final class FloorRegistry {
         if (currentY == targetY) return "Target Y must be different from current Y";
         
         // Remove existing transition from this Y to target Y
-        TRANSITIONS.removeIf(t -> t.fromY == currentY && t.toY == targetY);
+        List<TransitionPoint> next = new ArrayList<>(transitions);
+        next.removeIf(t -> t.fromY == currentY && t.toY == targetY);
         
         TransitionPoint tp = new TransitionPoint(currentY, targetY, x, z);
-        TRANSITIONS.add(tp);
+        next.add(tp);
+        publishTransitionList(next);
         save();
         
         String dir = targetY > currentY ? "up" : "down";
@@ -420,16 +495,17 @@ public final class FloorRegistry {
     /**
      * Find transition from current floor to target floor.
      */
-    public static synchronized Optional<TransitionPoint> findTransition(int fromY, int toY) {
+    public static Optional<TransitionPoint> findTransition(int fromY, int toY) {
+        List<TransitionPoint> all = transitions;
         // Direct transition
-        for (TransitionPoint t : TRANSITIONS) {
+        for (TransitionPoint t : all) {
             if (Math.abs(t.fromY - fromY) <= 1 && Math.abs(t.toY - toY) <= 1) {
                 return Optional.of(t);
             }
         }
         
         // Try to find any transition that gets us closer
-        for (TransitionPoint t : TRANSITIONS) {
+        for (TransitionPoint t : all) {
             if (Math.abs(t.fromY - fromY) <= 1) {
                 // This transition starts from our floor
                 // Check if it gets us closer to target
@@ -444,12 +520,12 @@ public final class FloorRegistry {
         return Optional.empty();
     }
     
-    public static synchronized List<TransitionPoint> getAllTransitions() {
-        return new ArrayList<>(TRANSITIONS);
+    public static List<TransitionPoint> getAllTransitions() {
+        return new ArrayList<>(transitions);
     }
     
     public static synchronized void clearTransitions() {
-        TRANSITIONS.clear();
+        transitions = List.of();
         save();
     }
 
@@ -0,0 +1,32 @@
+package com.example.traderun.fsm;
+
+import com.example.traderun.util.TickClock;
+
+/**
+ * When WAIT_CLOSE closes a merchant screen AutoTrade is clicking on. Pure timing over
+ * server time (TickClock.serverNowMs), so it stretches with lag.
+ *
+ * A result slot update is activity, not a trade: selecting an offer fills the result
+ * slot even when the trade then fails (no room for QUICK_MOVE). So "nothing traded yet"
+ * times out from the later of offers and last activity instead of waiting for none.
+ */
+final class AutoTradeClose {
+
+    enum Decision { KEEP_OPEN, NOTHING_TRADEABLE, TRADER_IDLE, NO_TRADE }
+
+    static final long CLOSE_DELAY_AFTER_TRADE_MS = TickClock.ticksToMs(4); // Trader went idle after at least one trade
+    static final long NO_TRADE_TIMEOUT_MS = TickClock.ticksToMs(6); // Close 6 ticks after offers / last activity if nothing trades
+
+    private AutoTradeClose() {}
+
+    /** lastActivityMs is 0 when the screen saw no result slot update or uses change yet. */
+    static Decision decide(boolean canTradeMore, int tradesObserved, long offersAtMs, long lastActivityMs, long nowMs) {
+        if (!canTradeMore) return Decision.NOTHING_TRADEABLE;
+        if (tradesObserved > 0) {
+            if (lastActivityMs > 0L && nowMs - lastActivityMs >= CLOSE_DELAY_AFTER_TRADE_MS) return Decision.TRADER_IDLE;
+            return Decision.KEEP_OPEN;
+        }
+        if (nowMs - Math.max(offersAtMs, lastActivityMs) >= NO_TRADE_TIMEOUT_MS) return Decision.NO_TRADE;
+        return Decision.KEEP_OPEN;
+    }
+}
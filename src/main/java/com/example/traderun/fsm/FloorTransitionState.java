@@ -0,0 +1,179 @@
+package com.example.traderun.fsm;
+
+import com.example.traderun.util.TickClock;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Optional;
+
+/**
+ * FLOOR_TRANSITION: walk to a point on another floor and let Baritone handle the stairs.
+ * When the path stalls it detours via the nearest villager (and escapes if stuck there),
+ * gives up after a few retries or the absolute timeout, and hands arrival back to the
+ * machine.
+ *
+ * The caller sets the destination with prepare() right before switching to the state.
+ */
+final class FloorTransitionState implements StateHandler {
+
+    private static final long FLOOR_TRANSITION_TIMEOUT_MS = 45000L; // 45 seconds max for vertical navigation
+    private static final long FLOOR_TRANSITION_RETRY_MS = 10000L; // Give Baritone 10s before trying alternate route
+    private static final int FLOOR_TRANSITION_MAX_RETRIES = 5; // Max villager detour retries
+
+    private final TradeRunStateMachine m;
+
+    private int targetY = 0;
+    private BlockPos point = null;
+    private int startY = 0;
+    private long startMs = 0L;            // Reset on every retry
+    private long originalStartMs = 0L;    // Never reset - for absolute timeout
+    private boolean retryViaVillager = false;
+    private long retryStartMs = 0L;
+    private int retryCount = 0;
+
+    FloorTransitionState(TradeRunStateMachine m) {
+        this.m = m;
+    }
+
+    /** Destination for the next entry: floor Y, a walkable point on it, and the Y we leave from. */
+    void prepare(int targetY, BlockPos point, int startY) {
+        this.targetY = targetY;
+        this.point = point;
+        this.startY = startY;
+    }
+
+    @Override
+    public void enter() {
+        long now = TickClock.nowMs();
+        startMs = now;
+        originalStartMs = now;
+        retryViaVillager = false;
+        retryStartMs = 0L;
+        retryCount = 0;
+    }
+
+    @Override
+    public void exit() {
+        targetY = 0;
+        point = null;
+        startY = 0;
+    }
+
+    @Override
+    public void tick(MinecraftClient client) {
+        if (client.player == null || client.world == null) return;
+
+        int currentY = client.player.getBlockPos().getY();
+        long now = TickClock.nowMs();
+
+        if (startY == 0) {
+            startY = currentY;
+        }
+
+        boolean goingUp = targetY > startY;
+
+        // Check if we've reached the target floor (directional)
+        // Going up: require currentY >= target Y
+        // Going down: require currentY <= target Y
+        boolean reached = goingUp ? currentY >= targetY : currentY <= targetY;
+        if (reached) {
+            m.navigator.stop();
+            m.releaseForwardKey(client);
+            m.say(client, "Reached floor Y=" + currentY);
+            m.dbg("FLOOR_TRANSITION complete, arrived at Y=" + currentY);
+            // The TARGET floor, not the current Y - that might be higher
+            m.onFloorReached(client, targetY);
+            return;
+        }
+
+        // After 10s of no progress, try going to nearest villager first
+        long elapsed = now - startMs;
+        if (!retryViaVillager && elapsed > FLOOR_TRANSITION_RETRY_MS) {
+            Optional<VillagerEntity> nearestVillager = m.villagerFinder.findAnyNearestVillager(client);
+            if (nearestVillager.isPresent()) {
+                m.dbg("floor transition: no progress for 10s, trying alternate route via villager");
+                retryViaVillager = true;
+                retryStartMs = now;
+                BlockPos villagerGoal = m.navigator.gotoVillagerApproachPoint(client, nearestVillager.get());
+                if (villagerGoal != null) {
+                    return;
+                }
+            }
+        }
+
+        // If we went to villager, check if we're making progress
+        if (retryViaVillager && now - retryStartMs > FLOOR_TRANSITION_RETRY_MS) {
+            // Check if we moved at all - if not, try escape
+            Vec3d currentPos = client.player.getPos();
+            if (m.lastMovePos() != null) {
+                double movedSq = TradeRunStateMachine.horizDistSq(currentPos, m.lastMovePos());
+                if (movedSq < 2.0 * 2.0) {
+                    // Stuck going to villager - try escape
+                    m.dbg("floor transition: stuck on alternate route, attempting escape");
+                    BlockPos escapeTarget = m.navigator.escapeToNearby(client);
+                    if (escapeTarget != null) {
+                        m.dbg("floor transition: escaping to " + escapeTarget);
+                        retryStartMs = now; // Give escape some time
+                        return;
+                    }
+                }
+            }
+
+            retryCount++;
+            m.dbg("floor transition: retrying after villager detour (attempt " + retryCount + "/" + FLOOR_TRANSITION_MAX_RETRIES + ")");
+            retryViaVillager = false;
+            m.navigator.gotoFloorPosition(client, point);
+            startMs = now; // Reset timer for retry
+            return;
+        }
+
+        // Check retry limit
+        if (retryCount >= FLOOR_TRANSITION_MAX_RETRIES) {
+            giveUp(client, "§c⚠ Floor transition failed after " + FLOOR_TRANSITION_MAX_RETRIES + " retries - stuck!",
+                    "FLOOR_TRANSITION max retries reached");
+            return;
+        }
+
+        // Absolute timeout check (uses original start time, not reset time)
+        if (now - originalStartMs > FLOOR_TRANSITION_TIMEOUT_MS) {
+            giveUp(client, "§c⚠ Floor transition timeout - couldn't reach Y=" + targetY, "FLOOR_TRANSITION timeout (absolute)");
+            return;
+        }
+
+        // Simple approach: just navigate to the transition point using Baritone
+        // Baritone handles stairs, ladders, etc. automatically
+        if (point == null) {
+            m.setState(TradeRunStateMachine.State.SEEK);
+            return;
+        }
+
+        // Check if we're close enough horizontally (Y is checked at the top)
+        double distSq = client.player.squaredDistanceTo(point.getX() + 0.5, client.player.getY(), point.getZ() + 0.5);
+
+        if (distSq < 4.0 && Math.abs(currentY - targetY) > 1) {
+            // Close enough horizontally but wrong Y - Baritone might be stuck.
+            // Check if we've been here too long (use transition timeout / 2)
+            if (now - startMs > FLOOR_TRANSITION_TIMEOUT_MS / 2) {
+                giveUp(client, "⚠ Can't reach Y=" + targetY + " from here - continuing on current floor",
+                        "FLOOR_TRANSITION: stuck near target, giving up");
+                return;
+            }
+        }
+
+        // Keep navigating to the transition point
+        if (m.navigator.getActiveGoal() == null || !m.navigator.getActiveGoal().equals(point)) {
+            m.navigator.gotoFloorPosition(client, point);
+        }
+    }
+
+    /** Stop walking and keep trading on the current floor. */
+    private void giveUp(MinecraftClient client, String message, String debug) {
+        m.navigator.stop();
+        m.releaseForwardKey(client);
+        m.say(client, message);
+        m.dbg(debug);
+        m.setState(TradeRunStateMachine.State.SEEK);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.traderun.fsm;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.MerchantScreen;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * NUDGE_FORWARD: hold the forward key for a few ticks (or until moved a little) so a
+ * diagonal stand gets the villager under the crosshair, then try opening again.
+ */
+final class NudgeForwardState implements StateHandler {
+
+    private static final double NUDGE_FORWARD_DISTANCE = 0.40;
+    private static final double NUDGE_FORWARD_DISTANCE_SQ = NUDGE_FORWARD_DISTANCE * NUDGE_FORWARD_DISTANCE;
+    private static final int NUDGE_FORWARD_MAX_TICKS = 10;
+
+    private final TradeRunStateMachine m;
+    private int ticksRemaining = 0;
+    private Vec3d startPos = null;
+
+    NudgeForwardState(TradeRunStateMachine m) {
+        this.m = m;
+    }
+
+    @Override
+    public void enter() {
+        ticksRemaining = NUDGE_FORWARD_MAX_TICKS;
+        startPos = null;
+    }
+
+    @Override
+    public void tick(MinecraftClient client) {
+        if (client.player == null) return;
+
+        if (client.currentScreen instanceof MerchantScreen) {
+            m.releaseForwardKey(client);
+            m.setState(TradeRunStateMachine.State.WAIT_CLOSE);
+            return;
+        }
+
+        if (m.target() == null || !m.target().isAlive()) {
+            m.releaseForwardKey(client);
+            m.setState(TradeRunStateMachine.State.SEEK);
+            return;
+        }
+
+        if (startPos == null) startPos = client.player.getPos();
+
+        m.pressForwardKey(client, true);
+
+        Vec3d nowPos = client.player.getPos();
+        double movedSq = TradeRunStateMachine.horizDistSq(nowPos, startPos);
+        ticksRemaining--;
+
+        if (movedSq >= NUDGE_FORWARD_DISTANCE_SQ || ticksRemaining <= 0) {
+            m.pressForwardKey(client, false);
+            m.resetUseKeyState();
+            m.setState(TradeRunStateMachine.State.OPEN_ATTEMPTS);
+        }
+    }
+}
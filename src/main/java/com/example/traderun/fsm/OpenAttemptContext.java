@@ -0,0 +1,10 @@
+package com.example.traderun.fsm;
+
+/** State of the current attempt to open a villager. Owned by OpenAttemptsState, replaced on every entry. */
+final class OpenAttemptContext {
+
+    long firstAttemptMs = 0L;
+    long lastAimMs = 0L;
+    int directInteractAttempts = 0;
+    long lastDirectInteractMs = 0L;
+}
@@ -0,0 +1,170 @@
+package com.example.traderun.fsm;
+
+import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.cooldown.RecentFailRegistry;
+import com.example.traderun.inventory.InventoryOps;
+import com.example.traderun.metrics.TradeRunMetrics;
+import com.example.traderun.storage.StorageRegistry;
+import com.example.traderun.storage.StorageRegistry.Role;
+import com.example.traderun.util.TickClock;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.MerchantScreen;
+import net.minecraft.item.BlockItem;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.Hand;
+import net.minecraft.util.Identifier;
+
+/**
+ * OPEN_ATTEMPTS: aim at the target and click (use key or interact packet) until the
+ * merchant screen opens. A diagonal stand gets one nudge forward, then the villager is
+ * skipped for a while.
+ */
+final class OpenAttemptsState implements StateHandler {
+
+    private static final long OPEN_TIMEOUT_MS = 7000L;
+    private static final long AIM_DELAY_MS = 80L;
+    private static final long DIAGONAL_RETRY_MS = 400L;  // Try diagonal for 400ms before nudging
+
+    private static final long DIRECT_INTERACT_RETRY_MS = 500L;  // No screen after this = rejected, send again
+    private static final int DIRECT_INTERACT_MAX_ATTEMPTS = 3;   // Then fall back to use-key clicking
+
+    private static final double INTERACT_RANGE_VILLAGER = 7.0;
+    private static final double INTERACT_RANGE_VILLAGER_SQ = INTERACT_RANGE_VILLAGER * INTERACT_RANGE_VILLAGER;
+
+    private static final int NUDGE_FORWARD_MAX_TIMES = 1;  // Only nudge once, then give up
+
+    private final TradeRunStateMachine m;
+    private OpenAttemptContext open = new OpenAttemptContext();
+
+    OpenAttemptsState(TradeRunStateMachine m) {
+        this.m = m;
+    }
+
+    @Override
+    public void enter() {
+        open = new OpenAttemptContext();
+    }
+
+    @Override
+    public void tick(MinecraftClient client) {
+        if (client.player == null || client.world == null) return;
+
+        if (m.target() == null || !m.target().isAlive()) {
+            m.releaseUseKey(client);
+            m.setState(TradeRunStateMachine.State.SEEK);
+            return;
+        }
+
+        int floorY = m.currentFloorKeyY(client);
+        Identifier safeInputId = StorageRegistry.getRememberedItem(Role.INPUT, floorY).orElse(m.learnedInputItemId());
+        if (!InventoryOps.ensureFreeHand(client.player, safeInputId)) {
+            m.dbg("OPEN_ATTEMPTS: couldn't secure safe hand (floorY=" + floorY + ")");
+            // Check if holding a placeable block - warn user!
+            ItemStack handStack = client.player.getMainHandStack();
+            if (!handStack.isEmpty() && handStack.getItem() instanceof BlockItem) {
+                m.say(client, "§c⚠ WARNING: Holding block item! May place blocks - dump inventory!");
+                m.status(client, "§c⚠ HOLDING BLOCK - MAY PLACE!");
+            }
+        }
+
+        long now = TickClock.nowMs();
+        if (open.firstAttemptMs == 0L) open.firstAttemptMs = now;
+
+        if (client.currentScreen instanceof MerchantScreen) {
+            m.releaseUseKey(client);
+            m.setState(TradeRunStateMachine.State.WAIT_CLOSE);
+            m.dbg("OPEN_ATTEMPTS -> WAIT_CLOSE (merchant open)");
+            return;
+        }
+
+        long elapsed = now - open.firstAttemptMs;
+
+        double distSq = client.player.squaredDistanceTo(m.target());
+        if (distSq > INTERACT_RANGE_VILLAGER_SQ) {
+            m.releaseUseKey(client);
+            TradeRunMetrics.onFailure("open_out_of_range");
+            RecentFailRegistry.markFailure(m.target());
+            m.setState(TradeRunStateMachine.State.SEEK);
+            return;
+        }
+
+        if (elapsed > OPEN_TIMEOUT_MS) {
+            m.releaseUseKey(client);
+            TradeRunMetrics.onFailure("open_timeout");
+            RecentFailRegistry.markFailure(m.target());
+            m.setState(TradeRunStateMachine.State.SEEK);
+            return;
+        }
+
+        // Direct mode: one targeted interact packet instead of use-key cycles
+        if (TradeRunSettings.get().directInteract && open.directInteractAttempts < DIRECT_INTERACT_MAX_ATTEMPTS) {
+            if (tryDirectInteract(client, now)) return;
+        }
+
+        if (m.usingDiagonal() && elapsed >= DIAGONAL_RETRY_MS) {
+            if (m.takeNudge(NUDGE_FORWARD_MAX_TIMES)) {
+                m.releaseUseKey(client);
+                m.faceEntity(client, m.target());
+
+                m.setState(TradeRunStateMachine.State.NUDGE_FORWARD);
+                m.dbg("OPEN_ATTEMPTS -> NUDGE_FORWARD");
+                return;
+            } else {
+                // Diagonal approach failed after nudge - use retry logic
+                m.releaseUseKey(client);
+                TradeRunMetrics.onFailure("open_diagonal");
+                boolean secondFail = RecentFailRegistry.markDiagonalFailure(m.target());
+                if (secondFail) {
+                    m.dbg("diagonal failed twice, skipping villager (15s)");
+                } else {
+                    m.dbg("diagonal failed, will retry after other villagers (5s)");
+                }
+                m.dropTarget();
+                m.setState(TradeRunStateMachine.State.SEEK);
+                return;
+            }
+        }
+
+        if (now - open.lastAimMs >= AIM_DELAY_MS) {
+            m.faceEntity(client, m.target());
+            open.lastAimMs = now;
+        }
+
+        m.spamUseKey(client, now);
+    }
+
+    /**
+     * Send an interact-entity action at the target when it is in reach and visible.
+     * The server answers with the merchant screen; if no screen arrives within
+     * the retry window the interaction was rejected and is sent again. Reach keeps the
+     * same margin as interact-on-arrival, since the server checks from its own view of
+     * our position.
+     *
+     * @return true if direct mode handled this tick (caller must not spam the use key)
+     */
+    private boolean tryDirectInteract(MinecraftClient client, long now) {
+        if (client.interactionManager == null) return false;
+        if (!TradeRunStateMachine.inReachAndSight(client, m.target())) {
+            return false; // Not reachable yet - let the use-key / nudge logic handle it
+        }
+
+        if (open.lastDirectInteractMs != 0L && now - open.lastDirectInteractMs < DIRECT_INTERACT_RETRY_MS) {
+            return true; // Waiting for the screen
+        }
+
+        m.releaseUseKey(client);
+        m.faceEntity(client, m.target());
+        ActionResult result = client.interactionManager.interactEntity(client.player, m.target(), Hand.MAIN_HAND);
+        open.directInteractAttempts++;
+        open.lastDirectInteractMs = now;
+        m.dbg("direct interact #" + open.directInteractAttempts + " -> " + result);
+        if (!result.isAccepted()) {
+            // The client already predicts a refusal (spectator, baby, sleeping...) - no screen will come
+            open.directInteractAttempts = DIRECT_INTERACT_MAX_ATTEMPTS;
+            m.dbg("direct interact refused locally, falling back to use key");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.traderun.fsm;
+
+import net.minecraft.client.MinecraftClient;
+
+/**
+ * Per-tick logic of one state, registered in a StateTable. States that keep their own
+ * bookkeeping reset it in enter(); exit() runs on every way out, including stop and
+ * budget recovery.
+ */
+@FunctionalInterface
+interface StateHandler {
+    void tick(MinecraftClient client);
+
+    default void enter() {}
+
+    default void exit() {}
+}
@@ -0,0 +1,218 @@
+package com.example.traderun.fsm;
+
+import net.minecraft.client.MinecraftClient;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Dispatch table for the state machine: one handler per state, the transitions each
+ * state may take, and per-state budgets.
+ *
+ * - CPU budget: time a single handler tick may take. A tick can't be preempted, so
+ *   overruns are counted; a state that overruns MAX_CONSECUTIVE_OVERRUNS ticks in a row
+ *   reports overCpuBudget() and the owner recovers like for the time budget.
+ * - Time budget: how long the machine may stay in the state, not counting time the
+ *   owner reports as waited(). The owner asks overTimeBudget() each tick and recovers
+ *   when it is exceeded.
+ *
+ * Every state registered with on() needs both budgets. The one exception is the resting
+ * state registered with rest(): the owner doesn't tick it, so there is nothing to bound.
+ *
+ * The owner checks isAllowed() before transition(); a transition outside the table is a
+ * bug and is rejected (counted via reject()), never applied.
+ */
+final class StateTable<S extends Enum<S>> {
+
+    static final class Stats {
+        long ticks = 0L;
+        long totalNs = 0L;
+        long maxNs = 0L;
+        long overruns = 0L;
+        long entries = 0L;
+        long timeInStateMs = 0L;
+    }
+
+    /** Overrunning ticks in a row before the state counts as over its CPU budget. */
+    static final int MAX_CONSECUTIVE_OVERRUNS = 20;
+
+    private final Class<S> type;
+    private final Map<S, StateHandler> handlers;
+    private final Map<S, EnumSet<S>> transitions;
+    private final EnumSet<S> fromAny;
+    private final Map<S, Long> cpuBudgetNs;
+    private final Map<S, Long> timeBudgetMs;
+    private final Map<S, Stats> stats;
+
+    private S current = null;
+    private long enteredAtMs = 0L;
+    private long budgetFromMs = 0L;
+    private int consecutiveOverruns = 0;
+    private long rejectedTransitions = 0L;
+
+    StateTable(Class<S> type) {
+        this.type = type;
+        this.handlers = new EnumMap<>(type);
+        this.transitions = new EnumMap<>(type);
+        this.fromAny = EnumSet.noneOf(type);
+        this.cpuBudgetNs = new EnumMap<>(type);
+        this.timeBudgetMs = new EnumMap<>(type);
+        this.stats = new EnumMap<>(type);
+        for (S s : type.getEnumConstants()) stats.put(s, new Stats());
+    }
+
+    /** Register a state: handler, CPU budget per tick (ms) and max time in state (ms). */
+    StateTable<S> on(S state, StateHandler handler, double cpuBudgetMs, long maxTimeMs) {
+        if (cpuBudgetMs <= 0.0 || maxTimeMs <= 0L) {
+            throw new IllegalArgumentException(state + " needs a CPU and a time budget");
+        }
+        handlers.put(state, handler);
+        cpuBudgetNs.put(state, (long) (cpuBudgetMs * 1_000_000.0));
+        timeBudgetMs.put(state, maxTimeMs);
+        return this;
+    }
+
+    /** Register the resting state: no handler and no budgets, the owner doesn't tick it. */
+    StateTable<S> rest(S state) {
+        handlers.remove(state);
+        cpuBudgetNs.put(state, 0L);
+        timeBudgetMs.put(state, 0L);
+        return this;
+    }
+
+    @SafeVarargs
+    final StateTable<S> allow(S from, S... to) {
+        EnumSet<S> set = transitions.computeIfAbsent(from, k -> EnumSet.noneOf(type));
+        for (S s : to) set.add(s);
+        return this;
+    }
+
+    /** Targets reachable from every state (stop, recovery, floor lock). */
+    @SafeVarargs
+    final StateTable<S> allowFromAny(S... to) {
+        for (S s : to) fromAny.add(s);
+        return this;
+    }
+
+    boolean isAllowed(S from, S to) {
+        if (from == null || from == to || fromAny.contains(to)) return true;
+        EnumSet<S> set = transitions.get(from);
+        return set != null && set.contains(to);
+    }
+
+    /** Switch to a listed state: exit() the old handler, enter() the new one. */
+    void transition(S to, long nowMs) {
+        consecutiveOverruns = 0;
+        if (to == current) return;
+        if (current != null) {
+            stats.get(current).timeInStateMs += Math.max(0L, nowMs - enteredAtMs);
+            StateHandler old = handlers.get(current);
+            if (old != null) old.exit();
+        }
+        current = to;
+        enteredAtMs = nowMs;
+        budgetFromMs = nowMs;
+        stats.get(to).entries++;
+        StateHandler next = handlers.get(to);
+        if (next != null) next.enter();
+    }
+
+    /** Start the current state over (exit(), enter()) with a fresh time budget. */
+    void restart(long nowMs) {
+        consecutiveOverruns = 0;
+        if (current == null) return;
+        StateHandler handler = handlers.get(current);
+        if (handler != null) {
+            handler.exit();
+            handler.enter();
+        }
+        budgetFromMs = nowMs;
+    }
+
+    /**
+     * The current state waited on purpose from sinceMs to nowMs (asleep until an event).
+     * Only the part inside the current budget window is taken off.
+     */
+    void waited(long sinceMs, long nowMs) {
+        if (current == null || nowMs <= budgetFromMs) return;
+        budgetFromMs += nowMs - Math.max(sinceMs, budgetFromMs);
+    }
+
+    /** Count a transition the owner refused because the table doesn't list it. */
+    void reject() {
+        rejectedTransitions++;
+    }
+
+    /** Run the handler of the current state and account its CPU time. Returns true on a budget overrun. */
+    boolean dispatch(MinecraftClient client) {
+        if (current == null) return false;
+        StateHandler handler = handlers.get(current);
+        if (handler == null) return false;
+
+        S state = current;
+        long start = System.nanoTime();
+        handler.tick(client);
+        long took = System.nanoTime() - start;
+
+        Stats st = stats.get(state);
+        st.ticks++;
+        st.totalNs += took;
+        if (took > st.maxNs) st.maxNs = took;
+        long budget = cpuBudgetNs.getOrDefault(state, 0L);
+        if (budget > 0L && took > budget) {
+            st.overruns++;
+            consecutiveOverruns++;
+            return true;
+        }
+        consecutiveOverruns = 0;
+        return false;
+    }
+
+    boolean overCpuBudget() {
+        return consecutiveOverruns >= MAX_CONSECUTIVE_OVERRUNS;
+    }
+
+    boolean overTimeBudget(long nowMs) {
+        if (current == null) return false;
+        long budget = timeBudgetMs.getOrDefault(current, 0L);
+        return budget > 0L && nowMs - budgetFromMs > budget;
+    }
+
+    long timeInStateMs(long nowMs) {
+        return current == null ? 0L : nowMs - enteredAtMs;
+    }
+
+    void resetStats() {
+        for (Stats st : stats.values()) {
+            st.ticks = 0L;
+            st.totalNs = 0L;
+            st.maxNs = 0L;
+            st.overruns = 0L;
+            st.entries = 0L;
+            st.timeInStateMs = 0L;
+        }
+        consecutiveOverruns = 0;
+        rejectedTransitions = 0L;
+    }
+
+    /** One line per state that ran: ticks, avg/max CPU, overruns, entries, wall time. */
+    String report(long nowMs) {
+        StringBuilder sb = new StringBuilder();
+        for (S s : type.getEnumConstants()) {
+            Stats st = stats.get(s);
+            long wall = st.timeInStateMs + (s == current ? Math.max(0L, nowMs - enteredAtMs) : 0L);
+            if (st.ticks == 0L && st.entries == 0L) continue;
+            long avgUs = st.ticks == 0L ? 0L : st.totalNs / st.ticks / 1000L;
+            sb.append(s.name())
+                    .append(": ticks=").append(st.ticks)
+                    .append(" avg=").append(avgUs).append("us")
+                    .append(" max=").append(st.maxNs / 1000L).append("us")
+                    .append(" over=").append(st.overruns)
+                    .append(" entries=").append(st.entries)
+                    .append(" time=").append(wall / 1000L).append("s\n");
+        }
+        sb.append("rejected transitions=").append(rejectedTransitions);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.traderun.fsm;
+
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.trade.TradeExecutor;
+
+/** State of one open merchant screen. Owned by WaitCloseState, replaced on every entry. */
+final class TradeContext {
+
+    enum Outcome { NONE, TRADED, EXHAUSTED }
+
+    long guiOpenedMs = 0L;
+    int invCountAtStart = -1;
+    int tradesObserved = 0;
+    Outcome outcome = Outcome.NONE;
+    boolean profileRecorded = false;
+    boolean cooldownRegistered = false;
+    TradeExecutor executor = null;
+    JfrEvents.TradeSession jfrSession = null;   // Open span from the first WAIT_CLOSE tick
+}
@@ -5,14 +5,23 @@ import com.example.traderun.cooldown.CooldownRegistry;
 import com.example.traderun.cooldown.InteractedVillagerRegistry;
 import com.example.traderun.cooldown.RecentFailRegistry;
 import com.example.traderun.cooldown.RestockWatcher;
+import com.example.traderun.event.TradeRunEvents;
 import com.example.traderun.floor.FloorRegistry;
 import com.example.traderun.inventory.ContainerOps;
+import com.example.traderun.inventory.InventoryLedger;
 import com.example.traderun.inventory.InventoryOps;
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.metrics.TradeRunMetrics;
 import com.example.traderun.nav.Navigator;
+import com.example.traderun.nav.StandingPlanner;
+import com.example.traderun.session.SessionRecorder;
 import com.example.traderun.storage.StorageRegistry;
 import com.example.traderun.storage.StorageRegistry.Role;
 import com.example.traderun.util.DebugLogger;
+import com.example.traderun.util.LogEvent;
+import com.example.traderun.util.TickClock;
 import com.example.traderun.villager.VillagerFinder;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.ChatScreen;
 import net.minecraft.client.gui.screen.GameMenuScreen;
@@ -21,6 +30,7 @@ import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.item.Item;
 import net.minecraft.registry.Registries;
 import net.minecraft.text.Text;
+import net.minecraft.util.Hand;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.math.BlockPos;
@@ -58,14 +68,11 @@ public class TradeRunStateMachine {
 
     private static final double APPROACH_GOAL_RANGE = 0.75;
     private static final double APPROACH_GOAL_RANGE_SQ = APPROACH_GOAL_RANGE * APPROACH_GOAL_RANGE;
-
-    private static final double INTERACT_RANGE_VILLAGER = 7.0;
-    private static final double INTERACT_RANGE_VILLAGER_SQ = INTERACT_RANGE_VILLAGER * INTERACT_RANGE_VILLAGER;
+    private static final double EARLY_INTERACT_REACH_MARGIN = 0.5; // Stay this far inside reach for interact-on-arrival
 
     private static final double INTERACT_RANGE_CONTAINER = 5.0;
     private static final double INTERACT_RANGE_CONTAINER_SQ = INTERACT_RANGE_CONTAINER * INTERACT_RANGE_CONTAINER;
 
-    private static final long OPEN_TIMEOUT_MS = 7000L;
     private static final long APPROACH_TIMEOUT_MS = 8000L;
     // Storage timeouts - now configurable via /traderun set storageTimeout
     private long getStorageNavTimeoutMs() {
@@ -77,19 +84,11 @@ public class TradeRunStateMachine {
     }
 
     private static final long USE_PRESS_MS = 80L;
-    private static final long AIM_DELAY_MS = 80L;
 
     private static final long STRAIGHT_APPROACH_HANG_MS = 800L;  // 800ms before trying alternate
     private static final double HANG_MIN_PROGRESS_DISTSQ = 0.02 * 0.02;
     private static final double HANG_MIN_IMPROVE_DISTSQ = 0.04;
 
-    private static final long DIAGONAL_RETRY_MS = 400L;  // Try diagonal for 400ms before nudging
-
-    private static final double NUDGE_FORWARD_DISTANCE = 0.40;
-    private static final double NUDGE_FORWARD_DISTANCE_SQ = NUDGE_FORWARD_DISTANCE * NUDGE_FORWARD_DISTANCE;
-    private static final int NUDGE_FORWARD_MAX_TICKS = 10;
-    private static final int NUDGE_FORWARD_MAX_TIMES = 1;  // Only nudge once, then give up
-
     private static final int DUMP_TRIGGER_EMPTY_SLOTS = 2;  // Keep 2 slots free
     private static final int RESTOCK_RESERVED_EMPTY_SLOTS = 1;
 
@@ -106,8 +105,30 @@ public class TradeRunStateMachine {
     private long lastRecoverAttemptMs = 0L;
     private long firstStallMs = 0L; // When stall was first detected (doesn't reset on recovery)
 
+    // ===== Event-driven waiting =====
+    // While asleep, tick() only watches the sneak key; a subscribed event or the wake timer
+    // ends the sleep and the state re-evaluates everything once.
+    private static final long WAIT_RECHECK_MS = 1000L;
+    private boolean sleeping = false;
+    private long wakeAtMs = 0L;
+    private long sleptAtMs = 0L;
+    private int sleepTicks = 0;
+    private final TradeRunEvents.Listener wakeListener = this::onWakeEvent;
+
     private final Deque<String> debugLines = new ArrayDeque<>();
     private static final int DEBUG_MAX = 50;
+
+    // Structured lines for the per-pass SEEK / APPROACH logging (no strings built unless enabled)
+    private static final LogEvent EV_SEEK_INPUT = LogEvent.define("seek_input", DebugLogger.Level.TRACE,
+            "input", "have", "min", "?restock", "floorY");
+    private static final LogEvent EV_SEEK_HOLD = LogEvent.define("seek_hold_output", DebugLogger.Level.TRACE,
+            "output", "floorY");
+    private static final LogEvent EV_SEEK_TARGET = LogEvent.define("seek_target", DebugLogger.Level.DEBUG,
+            "x", "y", "z", "?afterClearingFails");
+    private static final LogEvent EV_APPROACH_GOAL = LogEvent.define("approach_goal", DebugLogger.Level.DEBUG,
+            "x", "y", "z", "?diagonal");
+    private static final LogEvent EV_SEEK_FAR = LogEvent.define("seek_far_cluster", DebugLogger.Level.DEBUG,
+            "x", "y", "z", "villagers");
     private State lastDbgState = null;
 
     // Remembered per session (persisted per-floor via StorageRegistry)
@@ -122,8 +143,63 @@ public class TradeRunStateMachine {
 
     private State state = State.IDLE;
 
-    private final Navigator navigator = new Navigator();
-    private final VillagerFinder villagerFinder = new VillagerFinder();
+    // ===== State table =====
+    // CPU budget is per handler tick (ms); time budget is a safety net above each state's own
+    // timeouts (ms). Time spent asleep waiting for an event doesn't count against it, so SEEK
+    // and the storage states can wait for cooldowns and refills without tripping it.
+    private static final double CPU_BUDGET_SEEK_MS = 2.0;
+    private static final double CPU_BUDGET_DEFAULT_MS = 1.0;
+    private static final long TIME_BUDGET_SEEK_MS = 60_000L;
+    private static final long TIME_BUDGET_APPROACH_MS = 60_000L;
+    private static final long TIME_BUDGET_OPEN_MS = 30_000L;
+    private static final long TIME_BUDGET_NUDGE_MS = 5_000L;
+    private static final long TIME_BUDGET_WAIT_CLOSE_MS = 120_000L;
+    private static final long TIME_BUDGET_FLOOR_TRANSITION_MS = 300_000L;
+    private static final long TIME_BUDGET_STORAGE_MS = 420_000L; // Above the longest storageTimeout (300s) plus the container session
+    private static final long TIME_BUDGET_RETURN_INPUT_MS = 60_000L;
+    private static final long BUDGET_WARN_INTERVAL_MS = 5_000L;
+    private long lastBudgetWarnMs = 0L;
+
+    // Unlisted transitions are bugs: they throw in a dev environment and fall back to SEEK otherwise
+    private static final boolean FAIL_HARD_ON_UNLISTED = FabricLoader.getInstance().isDevelopmentEnvironment();
+
+    // States with their own bookkeeping live in their own classes (declared before the table).
+    // SEEK, APPROACH and the storage states stay methods here for now: they share the run's
+    // target, approach tracking, chest and wait-mode fields, which need their own run context
+    // before they can move out.
+    private final OpenAttemptsState openAttempts = new OpenAttemptsState(this);
+    private final NudgeForwardState nudgeForward = new NudgeForwardState(this);
+    private final WaitCloseState waitClose = new WaitCloseState(this);
+    private final FloorTransitionState floorTransition = new FloorTransitionState(this);
+
+    private final StateTable<State> table = new StateTable<>(State.class)
+            .rest(State.IDLE)
+            .on(State.SEEK, this::tickSeek, CPU_BUDGET_SEEK_MS, TIME_BUDGET_SEEK_MS)
+            .on(State.APPROACH, this::tickApproach, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_APPROACH_MS)
+            .on(State.OPEN_ATTEMPTS, openAttempts, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_OPEN_MS)
+            .on(State.NUDGE_FORWARD, nudgeForward, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_NUDGE_MS)
+            .on(State.WAIT_CLOSE, waitClose, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_WAIT_CLOSE_MS)
+            .on(State.DETOUR_RESTOCK, this::tickDetourRestock, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_STORAGE_MS)
+            .on(State.DETOUR_DUMP, this::tickDetourDump, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_STORAGE_MS)
+            .on(State.RETURN_INPUT, this::tickReturnInput, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_RETURN_INPUT_MS)
+            .on(State.FLOOR_TRANSITION, floorTransition, CPU_BUDGET_DEFAULT_MS, TIME_BUDGET_FLOOR_TRANSITION_MS)
+            // Stop and stall / budget recovery can fire from anywhere
+            .allowFromAny(State.IDLE, State.SEEK)
+            .allow(State.IDLE, State.FLOOR_TRANSITION)
+            .allow(State.SEEK, State.APPROACH, State.OPEN_ATTEMPTS, State.DETOUR_RESTOCK, State.DETOUR_DUMP,
+                    State.RETURN_INPUT, State.FLOOR_TRANSITION)
+            // Floor lock (ensureOnActiveFloor) covers the villager states
+            .allow(State.APPROACH, State.OPEN_ATTEMPTS, State.DETOUR_RESTOCK, State.DETOUR_DUMP, State.FLOOR_TRANSITION)
+            .allow(State.OPEN_ATTEMPTS, State.NUDGE_FORWARD, State.WAIT_CLOSE, State.FLOOR_TRANSITION)
+            .allow(State.NUDGE_FORWARD, State.OPEN_ATTEMPTS, State.WAIT_CLOSE, State.FLOOR_TRANSITION)
+            .allow(State.WAIT_CLOSE, State.FLOOR_TRANSITION)
+            .allow(State.DETOUR_RESTOCK, State.DETOUR_DUMP)
+            .allow(State.RETURN_INPUT, State.FLOOR_TRANSITION)
+            .allow(State.FLOOR_TRANSITION, State.DETOUR_RESTOCK);
+
+    final Navigator navigator = new Navigator();
+    final VillagerFinder villagerFinder = new VillagerFinder();
+    private final StandingPlanner standingPlanner = new StandingPlanner();
 
     private VillagerEntity currentTarget;
     private BlockPos currentApproachGoal;
@@ -160,15 +236,9 @@ public class TradeRunStateMachine {
     // Track if ESC menu should be restored after interaction
     private boolean restoreEscMenu = false;
 
-    private long firstOpenAttemptMs = 0L;
-    private long lastAimMs = 0L;
-    private boolean cooldownRegistered = false;
-
     private boolean usingDiagonal = false;
 
     private int nudgeTimes = 0;
-    private int nudgeTicksRemaining = 0;
-    private Vec3d nudgeStartPos = null;
 
     private ContainerOps.Session containerSession = null;
     private long containerOpenFirstAttemptMs = 0L;
@@ -178,8 +248,26 @@ public class TradeRunStateMachine {
     public State getState() { return state; }
     public boolean isActive() { return state != State.IDLE; }
 
-    private void dbg(String msg) {
-        if (msg == null) return;
+    // Read-only views for the state handlers; the machine owns these fields
+    VillagerEntity target() { return currentTarget; }
+    boolean usingDiagonal() { return usingDiagonal; }
+    Vec3d lastMovePos() { return lastMovePos; }
+    Identifier learnedInputItemId() { return learnedInputItemId; }
+
+    /** Give up on the current villager without marking it failed. */
+    void dropTarget() {
+        currentTarget = null;
+    }
+
+    /** Use one of the villager's forward nudges; false once {@code max} are used up. */
+    boolean takeNudge(int max) {
+        if (nudgeTimes >= max) return false;
+        nudgeTimes++;
+        return true;
+    }
+
+    void dbg(String msg) {
+        if (msg == null || !DebugLogger.isEnabled(DebugLogger.Level.DEBUG)) return;
         if (debugLines.size() >= DEBUG_MAX) debugLines.removeFirst();
         debugLines.addLast("[" + java.time.LocalTime.now().toString().substring(0,8) + "] " + msg);
         DebugLogger.log(msg);  // Also log to file
@@ -195,7 +283,7 @@ public class TradeRunStateMachine {
         return result;
     }
 
-    private void say(MinecraftClient c, String msg) {
+    void say(MinecraftClient c, String msg) {
         if (c != null && c.player != null) c.player.sendMessage(Text.literal("[traderun] " + msg), false);
     }
     
@@ -229,7 +317,7 @@ public class TradeRunStateMachine {
     }
     
     /** Show short status in hotbar/actionbar */
-    private void status(MinecraftClient c, String msg) {
+    void status(MinecraftClient c, String msg) {
         if (c != null && c.player != null) c.player.sendMessage(Text.literal("§7" + msg), true);
     }
     
@@ -238,7 +326,7 @@ public class TradeRunStateMachine {
     
     /** Show status but rate-limit to avoid spam (updates every 500ms) */
     private void statusThrottled(MinecraftClient c, String msg) {
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (!msg.equals(lastStatus) || now - lastStatusMs > 500L) {
             status(c, msg);
             lastStatus = msg;
@@ -246,13 +334,13 @@ public class TradeRunStateMachine {
         }
     }
 
-    private void closeAnyScreenProperly(MinecraftClient client) {
+    void closeAnyScreenProperly(MinecraftClient client) {
         if (client == null) return;
         if (client.player != null) {
             try { client.player.closeHandledScreen(); } catch (Throwable ignored) {}
         }
         try { client.setScreen(null); } catch (Throwable ignored) {}
-        blockContainerInteractUntilMs = System.currentTimeMillis() + POST_CONTAINER_CLOSE_COOLDOWN_MS;
+        blockContainerInteractUntilMs = TickClock.nowMs() + POST_CONTAINER_CLOSE_COOLDOWN_MS;
     }
 
     public void startForProfession(String professionKey) {
@@ -262,6 +350,8 @@ public class TradeRunStateMachine {
         villagerFinder.setTargetProfessionId(professionKey);
         InteractedVillagerRegistry.clear();
         RecentFailRegistry.fullReset();  // Full reset on new start
+        if (state != State.IDLE) setState(State.IDLE);  // Restart mid-run: let the running state exit first
+        table.resetStats();
 
         resetAllTransient();
         nextRestockAllowedMs = 0L;
@@ -279,8 +369,8 @@ public class TradeRunStateMachine {
             }
         }
 
-        state = State.SEEK;
-        arrivedOnFloorMs = System.currentTimeMillis();
+        setState(State.SEEK);
+        arrivedOnFloorMs = TickClock.nowMs();
         dbg("start(" + professionKey + ") primaryFloorY=" + primaryFloorY);
         
         MinecraftClient client = MinecraftClient.getInstance();
@@ -338,6 +428,8 @@ public class TradeRunStateMachine {
         
         InteractedVillagerRegistry.clear();
         RecentFailRegistry.fullReset();  // Full reset on new start
+        if (state != State.IDLE) setState(State.IDLE);  // Restart mid-run: let the running state exit first
+        table.resetStats();
 
         resetAllTransient();
         nextRestockAllowedMs = 0L;
@@ -366,22 +458,17 @@ public class TradeRunStateMachine {
             
             if (Math.abs(firstFloor.y - playerY) > 1) {
                 // Not on the right floor - set up floor transition
-                targetFloorY = firstFloor.y;
                 BlockPos target = new BlockPos(firstFloor.clusterX, firstFloor.y, firstFloor.clusterZ);
                 showTitle(client, "⚡ TRADERUN STARTED", "Sneak (Shift) to stop");
                 say(client, "Trading: " + profsStr + " - navigating to floor Y=" + firstFloor.y);
                 dbg("start(" + profsStr + ") - need floor Y=" + firstFloor.y + ", at Y=" + playerY);
-                floorTransitionStartY = client.player.getBlockPos().getY();
-                floorTransitionStartMs = System.currentTimeMillis();
-                state = State.FLOOR_TRANSITION;
-                floorTransitionPhase = 0;
-                transitionPoint = target;
+                beginFloorTransition(firstFloor.y, target, playerY);
                 return;
             }
         }
 
-        state = State.SEEK;
-        arrivedOnFloorMs = System.currentTimeMillis();
+        setState(State.SEEK);
+        arrivedOnFloorMs = TickClock.nowMs();
         dbg("start(" + profsStr + ")");
         
         showTitle(client, "⚡ TRADERUN STARTED", "Sneak (Shift) to stop");
@@ -471,6 +558,8 @@ public class TradeRunStateMachine {
         
         InteractedVillagerRegistry.clear();
         RecentFailRegistry.fullReset();  // Full reset on new start
+        if (state != State.IDLE) setState(State.IDLE);  // Restart mid-run: let the running state exit first
+        table.resetStats();
         resetAllTransient();
         nextRestockAllowedMs = 0L;
         lastRestockNoticeMs = 0L;
@@ -491,13 +580,8 @@ public class TradeRunStateMachine {
             
             if (Math.abs(firstFloor.y - playerY) > 1) {
                 // Navigate to first floor
-                targetFloorY = firstFloor.y;
                 BlockPos target = new BlockPos(firstFloor.clusterX, firstFloor.y, firstFloor.clusterZ);
-                floorTransitionStartY = client.player != null ? client.player.getBlockPos().getY() : firstFloor.y;
-                floorTransitionStartMs = System.currentTimeMillis();
-                state = State.FLOOR_TRANSITION;
-                floorTransitionPhase = 0;
-                transitionPoint = target;
+                beginFloorTransition(firstFloor.y, target, playerY);
                 dbg("start floors: navigating to " + activeFloorNames.get(0) + " Y=" + firstFloor.y);
                 String navResult = "Started (floors: " + String.join(", ", validNames) + ") - navigating to " + activeFloorNames.get(0);
                 if (!noStorageFloors.isEmpty()) {
@@ -507,7 +591,7 @@ public class TradeRunStateMachine {
             }
         }
         
-        state = State.SEEK;
+        setState(State.SEEK);
         String result = "Started (floors: " + String.join(", ", validNames) + ")";
         if (errors.length() > 0) {
             result += " - unknown floors: " + errors;
@@ -530,7 +614,7 @@ public class TradeRunStateMachine {
         }
         
         // Don't switch floors too quickly - give time to trade
-        long timeSinceArrival = System.currentTimeMillis() - arrivedOnFloorMs;
+        long timeSinceArrival = TickClock.nowMs() - arrivedOnFloorMs;
         if (arrivedOnFloorMs > 0 && timeSinceArrival < MIN_TIME_ON_FLOOR_MS) {
             dbg("tryNextFloor: staying on floor, only " + timeSinceArrival + "ms since arrival");
             return false;
@@ -579,19 +663,15 @@ public class TradeRunStateMachine {
                         currentChestOpenSpot = null;
                         currentApproachGoal = null;
                         containerSession = null;
-                        state = State.RETURN_INPUT;
+                        setState(State.RETURN_INPUT);
                         return true;
                     }
                     
                     // Normal floor switch (no excess items)
                     currentFloorIndex = nextIndex;
                     primaryFloorY = floor.y;
-                    targetFloorY = floor.y;
-                    transitionPoint = new BlockPos(floor.clusterX, floor.y, floor.clusterZ);
-                    floorTransitionPhase = 0;
-                    floorTransitionStartY = client != null && client.player != null ? client.player.getBlockPos().getY() : floor.y;
-                    floorTransitionStartMs = System.currentTimeMillis();
-                    state = State.FLOOR_TRANSITION;
+                    int fromY = client != null && client.player != null ? client.player.getBlockPos().getY() : floor.y;
+                    beginFloorTransition(floor.y, new BlockPos(floor.clusterX, floor.y, floor.clusterZ), fromY);
                     
                     // Update target professions to ONLY the new floor's professions
                     villagerFinder.setTargetProfessions(new ArrayList<>(floor.professions));
@@ -657,7 +737,7 @@ public class TradeRunStateMachine {
         villagerFinder.setTargetFloorY(null);  // Clear floor lock
         activeFloorNames.clear();  // Clear floor names mode
         currentFloorIndex = 0;
-        state = State.IDLE;
+        setState(State.IDLE);
         dbg("stop()");
     }
 
@@ -670,7 +750,7 @@ public class TradeRunStateMachine {
         primaryFloorY = null;  // Clear on abort
         activeFloorNames.clear();
         currentFloorIndex = 0;
-        state = State.IDLE;
+        setState(State.IDLE);
         dbg("abortHard()");
     }
 
@@ -706,6 +786,17 @@ public class TradeRunStateMachine {
             // Don't call navigator.stop() - that wipes navigation state
             return; // Skip processing this tick, mixin handles ESC auto-close
         }
+
+        // Waiting for an event - skip every other check until something relevant happens
+        if (sleeping) {
+            if (client.options != null && client.options.sneakKey != null && client.options.sneakKey.isPressed()) {
+                dbg("abort: sneak");
+                abortHard(client);
+                return;
+            }
+            sleepTicks++;
+            return;
+        }
         
         // Queue detection - at 0,0 means waiting in server queue (10 block radius)
         if (client.player != null) {
@@ -717,13 +808,14 @@ public class TradeRunStateMachine {
                 releaseForwardKey(client);
                 navigator.stop();
                 statusThrottled(client, "⏳ Waiting in queue...");
+                sleepUntil(TickClock.nowMs() + WAIT_RECHECK_MS);
                 return;
             }
         }
         
         // Global stuck detection - stop mod if stuck for 2 minutes
         if (client.player != null) {
-            long now = System.currentTimeMillis();
+            long now = TickClock.nowMs();
             Vec3d playerPos = client.player.getPos();
             
             if (globalStuckCheckPos == null) {
@@ -769,12 +861,13 @@ public class TradeRunStateMachine {
                             
                             // Mark current target as temporarily failed and find another
                             if (currentTarget != null) {
+                                TradeRunMetrics.onFailure("global_stuck");
                                 RecentFailRegistry.markDiagonalFailure(currentTarget);
                             }
                             currentTarget = null;
                             currentApproachGoal = null;
                             navigator.stop();
-                            state = State.SEEK;
+                            setState(State.SEEK);
                         }
                     }
                 }
@@ -812,14 +905,14 @@ public class TradeRunStateMachine {
             dbg("state->" + state);
             lastDbgState = state;
             // Reset movement timer on state change to prevent false stall detection
-            lastMoveMs = System.currentTimeMillis();
+            lastMoveMs = TickClock.nowMs();
             lastMovePos = client.player != null ? client.player.getPos() : null;
             lastRecoverAttemptMs = 0L;
         }
 
         // General stall detection for ALL active states
         if (state != State.IDLE) {
-            long now = System.currentTimeMillis();
+            long now = TickClock.nowMs();
             
             // Track when stall first started (doesn't reset on recovery)
             if ((now - lastMoveMs) >= RECOVER_NO_MOVE_MS) {
@@ -861,6 +954,7 @@ public class TradeRunStateMachine {
                     " screen=" + (client.currentScreen != null ? client.currentScreen.getClass().getSimpleName() : "null");
                 dbg(failInfo);
                 DebugLogger.error(failInfo);  // Auto-save debug file
+                TradeRunMetrics.onFailure("stall_stop");
                 say(client, "FAIL: stalled 5s - debug saved to config/traderun_error_*.txt");
                 firstStallMs = 0L;
                 stop();
@@ -868,23 +962,103 @@ public class TradeRunStateMachine {
             }
         }
 
-        switch (state) {
-            case IDLE -> {}
-            case DETOUR_RESTOCK -> tickDetourRestock(client);
-            case DETOUR_DUMP -> tickDetourDump(client);
-            case RETURN_INPUT -> tickReturnInput(client);
-            case SEEK -> tickSeek(client);
-            case APPROACH -> tickApproach(client);
-            case OPEN_ATTEMPTS -> tickOpenAttempts(client);
-            case NUDGE_FORWARD -> tickNudgeForward(client);
-            case WAIT_CLOSE -> tickWaitClose(client);
-            case FLOOR_TRANSITION -> tickFloorTransition(client);
+        long now = TickClock.nowMs();
+        if (table.overTimeBudget(now)) {
+            enforceBudget(client, now, false);
+            return;
+        }
+        if (table.overCpuBudget()) {
+            enforceBudget(client, now, true);
+            return;
+        }
+
+        State ticked = state;
+        if (table.dispatch(client) && now - lastBudgetWarnMs >= BUDGET_WARN_INTERVAL_MS) {
+            lastBudgetWarnMs = now;
+            dbg("budget: " + ticked + " tick over CPU budget");
         }
     }
 
+    void setState(State next) {
+        if (!table.isAllowed(state, next)) {
+            rejectTransition(next);
+            return;
+        }
+        long now = TickClock.nowMs();
+        if (next != state) {
+            SessionRecorder.state(state.ordinal(), next.ordinal());
+            JfrEvents.onStateChange(next.name());
+            TradeRunMetrics.onTransition(state.name(), next.name(), table.timeInStateMs(now));
+            if (state == State.IDLE) TradeRunMetrics.onRunStarted(now);
+            switch (next) {
+                case IDLE -> TradeRunMetrics.onRunStopped(now);
+                case DETOUR_DUMP -> TradeRunMetrics.onStorageTrip("dump");
+                case DETOUR_RESTOCK -> TradeRunMetrics.onStorageTrip("restock");
+                case RETURN_INPUT -> TradeRunMetrics.onStorageTrip("return");
+                case FLOOR_TRANSITION -> TradeRunMetrics.onFloorSwitch();
+                default -> {}
+            }
+        }
+        table.transition(next, now);
+        state = next;
+    }
+
+    /**
+     * A transition the table doesn't list is a handler bug. Throw in a dev environment so it
+     * gets fixed; in a release build never apply it - drop the target and start over from SEEK.
+     */
+    private void rejectTransition(State next) {
+        String msg = "unlisted transition " + state + " -> " + next;
+        table.reject();
+        if (FAIL_HARD_ON_UNLISTED) throw new IllegalStateException(msg);
+        DebugLogger.log(DebugLogger.Level.WARN, msg + ", -> SEEK");
+        failToSeek(MinecraftClient.getInstance(), "unlisted_transition");
+    }
+
+    /** A state overstayed its time budget, or overran its CPU budget tick after tick. */
+    private void enforceBudget(MinecraftClient client, long now, boolean cpu) {
+        if (cpu) {
+            dbg("budget: " + state + " over CPU budget for " + StateTable.MAX_CONSECUTIVE_OVERRUNS + " ticks in a row, -> SEEK");
+        } else {
+            dbg("budget: " + state + " exceeded time budget (" + table.timeInStateMs(now) / 1000L + "s), -> SEEK");
+        }
+        failToSeek(client, "budget_" + state.name().toLowerCase());
+    }
+
+    /** Drop the current target and whatever is in progress, then start over from SEEK after a short pause. */
+    private void failToSeek(MinecraftClient client, String reason) {
+        long now = TickClock.nowMs();
+        TradeRunMetrics.onFailure(reason);
+        navigator.stop();
+        releaseUseKey(client);
+        releaseForwardKey(client);
+        if (hasContainerScreen(client)) closeAnyScreenProperly(client);
+        if (currentTarget != null) RecentFailRegistry.markFailure(currentTarget);
+        currentTarget = null;
+        currentApproachGoal = null;
+        containerSession = null;
+        resetUseKeyState();
+        nextSeekAllowedMs = now + 500L;
+        if (state == State.SEEK) {
+            table.restart(now); // SEEK itself overran: start its budget over
+        } else {
+            setState(State.SEEK);
+        }
+    }
+
+    /** How long the machine has been in the current state. */
+    public long timeInStateMs() {
+        return table.timeInStateMs(TickClock.nowMs());
+    }
+
+    /** Per-state CPU and wall time since the last start. */
+    public String stateStats() {
+        return table.report(TickClock.nowMs());
+    }
+
     private void updateMovementWatch(MinecraftClient client) {
         if (client.player == null) return;
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         Vec3d p = client.player.getPos();
         if (lastMovePos == null) {
             lastMovePos = p;
@@ -918,6 +1092,7 @@ public class TradeRunStateMachine {
         // Simple recovery: mark current target as failed if villager, then go to SEEK with delay
         if (approachKind == ApproachKind.VILLAGER && currentTarget != null) {
             dbg("recover: marking current villager as failed");
+            TradeRunMetrics.onFailure("stall");
             RecentFailRegistry.markFailure(currentTarget);
         }
         
@@ -926,8 +1101,8 @@ public class TradeRunStateMachine {
         currentApproachGoal = null;
         // Don't clear currentChestPos - it will be re-acquired from StorageRegistry
         // Don't clear containerSession - let it finish or timeout naturally
-        nextSeekAllowedMs = System.currentTimeMillis() + 1500L; // 1.5 second delay
-        state = State.SEEK;
+        nextSeekAllowedMs = TickClock.nowMs() + 1500L; // 1.5 second delay
+        setState(State.SEEK);
         dbg("recover: -> SEEK (waiting 1.5s)");
     }
 
@@ -948,29 +1123,24 @@ public class TradeRunStateMachine {
 
         forwardKeyForced = false;
 
-        firstOpenAttemptMs = 0L;
-        lastAimMs = 0L;
-        cooldownRegistered = false;
-
         usingDiagonal = false;
 
         nudgeTimes = 0;
-        nudgeTicksRemaining = 0;
-        nudgeStartPos = null;
 
         containerSession = null;
         containerOpenFirstAttemptMs = 0L;
         containerLastInteractMs = 0L;
+        standingPlanner.clear();
 
         blockContainerInteractUntilMs = 0L;
 
         lastMovePos = null;
-        lastMoveMs = System.currentTimeMillis();
+        lastMoveMs = TickClock.nowMs();
         lastRecoverAttemptMs = 0L;
         firstStallMs = 0L;
         
         // Global stuck reset
-        globalStuckCheckMs = System.currentTimeMillis();
+        globalStuckCheckMs = TickClock.nowMs();
         globalStuckCheckPos = null;
         globalStuckVillagerRetries = 0;
         outputChestFull = false;
@@ -987,24 +1157,51 @@ public class TradeRunStateMachine {
         floorReturnAttempts = 0;
         storageRetryViaVillager = false;
         storageRetryTarget = null;
-        floorTransitionRetryViaVillager = false;
+
+        wake();
+        sleepTicks = 0;
 
         debugLines.clear();
         lastDbgState = null;
     }
 
-    private void resetOpenAttemptState() {
-        firstOpenAttemptMs = 0L;
-        lastAimMs = 0L;
-        cooldownRegistered = false;
+    /**
+     * Park the state until atMs or until one of the given events is posted.
+     * The state handler runs again right after waking and decides whether to sleep again.
+     */
+    private void sleepUntil(long atMs, TradeRunEvents.Type... wakeOn) {
+        sleeping = true;
+        wakeAtMs = atMs;
+        sleptAtMs = TickClock.nowMs();
+        TradeRunEvents.subscribe(TradeRunEvents.mask(wakeOn) | TradeRunEvents.Type.TIMER_EXPIRED.bit(), wakeListener);
+        TradeRunEvents.scheduleTimer(atMs);
+    }
+
+    private void onWakeEvent(TradeRunEvents.Type type) {
+        // Timers from earlier sleeps may still fire - only ours counts
+        if (type == TradeRunEvents.Type.TIMER_EXPIRED && TickClock.nowMs() < wakeAtMs) return;
+        wake();
+    }
+
+    private void wake() {
+        if (!sleeping) return;
+        sleeping = false;
+        table.waited(sleptAtMs, TickClock.nowMs());
+        TradeRunEvents.unsubscribe(wakeListener);
+    }
+
+    /** Debug summary: ticks skipped while waiting for events. */
+    public String sleepStats() {
+        return "sleeping=" + sleeping + " skippedTicks=" + sleepTicks + " events[" + TradeRunEvents.stats() + "]";
+    }
+
+    void resetUseKeyState() {
         useKeyHeld = false;
         lastUseToggleMs = 0L;
-        nudgeTicksRemaining = 0;
-        nudgeStartPos = null;
     }
 
     private void resetApproachTracking(MinecraftClient client) {
-        approachStartMs = System.currentTimeMillis();
+        approachStartMs = TickClock.nowMs();
         approachStartPlayerPos = (client.player == null) ? null : client.player.getPos();
         approachStartGoalDistSq = (client.player == null || currentApproachGoal == null) ? 0.0 : distSqToGoal(client, currentApproachGoal);
         // Reset rolling stuck detection
@@ -1024,7 +1221,7 @@ public class TradeRunStateMachine {
     }
 
     private void backoffRestock(MinecraftClient client, String reason) {
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         nextRestockAllowedMs = now + 3500L;
         if (now - lastRestockNoticeMs > 1200L) {
             say(client, reason);
@@ -1047,7 +1244,7 @@ public class TradeRunStateMachine {
         return InventoryOps.countItem(client.player, it);
     }
 
-    private int currentFloorKeyY(MinecraftClient client) {
+    int currentFloorKeyY(MinecraftClient client) {
         // Use the primary floor Y set at start (for storage lookups)
         if (primaryFloorY != null) return primaryFloorY;
         // Fallback to current target villager's Y
@@ -1060,7 +1257,7 @@ public class TradeRunStateMachine {
     private void tickDetourRestock(MinecraftClient client) {
         if (client.player == null || client.world == null) return;
 
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         int floorY = currentFloorKeyY(client);
         
         // Dump output items if we have more than 64 (1 stack) - do both input/output at same location
@@ -1072,7 +1269,7 @@ public class TradeRunStateMachine {
                     Optional<StorageRegistry.StoredLocation> outputLoc = StorageRegistry.getForY(Role.OUTPUT, floorY);
                     if (outputLoc.isPresent()) {
                         dbg("restock: have " + outCount + " output items (>64), dumping while here");
-                        state = State.DETOUR_DUMP;
+                        setState(State.DETOUR_DUMP);
                         return;
                     }
                 }
@@ -1099,7 +1296,7 @@ public class TradeRunStateMachine {
                     say(client, "No INPUT storage found! Stand at villager floor & use: /traderun storage set input");
                     nextRestockAllowedMs = now + 10000L;
                 }
-                state = State.SEEK;
+                setState(State.SEEK);
                 return;
             }
             currentChestPos = locOpt.get().toBlockPos();
@@ -1152,7 +1349,7 @@ public class TradeRunStateMachine {
                         say(client, "Inventory full - no OUTPUT storage set (use /traderun storage set output)");
                     } else {
                         dbg("restock: inv full, going to dump");
-                        state = State.DETOUR_DUMP;
+                        setState(State.DETOUR_DUMP);
                         return;
                     }
                 }
@@ -1175,7 +1372,7 @@ public class TradeRunStateMachine {
                     currentChestPos = null;
                     currentChestOpenSpot = null;
                     currentApproachGoal = null;
-                    state = State.SEEK;
+                    setState(State.SEEK);
                     dbg("restock: chest empty, entering wait mode (next check in 20s)");
                     if (handleSingleFloorInputEmpty(client)) {
                         return;
@@ -1205,7 +1402,7 @@ public class TradeRunStateMachine {
                         savedChestPos = currentChestPos;
                         say(client, "Input chest depleted (" + haveNow + "/" + neededMin + ") - waiting mode");
                     }
-                    state = State.SEEK;
+                    setState(State.SEEK);
                     dbg("restock: still short on items, entering wait mode (next check in 20s)");
                     if (handleSingleFloorInputEmpty(client)) {
                         return;
@@ -1213,7 +1410,7 @@ public class TradeRunStateMachine {
                     return;
                 }
 
-                state = State.SEEK;
+                setState(State.SEEK);
                 dbg("restock done -> SEEK");
             }
             return;
@@ -1254,14 +1451,14 @@ public class TradeRunStateMachine {
                 backoffRestock(client, "restock blocked: " + (err != null ? err : "can't path to INPUT"));
                 currentChestPos = null;
                 currentChestOpenSpot = null;
-                state = State.SEEK;
+                setState(State.SEEK);
             }
             return;
         }
 
         double dGoal = distSqToGoal(client, currentApproachGoal);
         if (dGoal > APPROACH_GOAL_RANGE_SQ) {
-            long elapsed = System.currentTimeMillis() - approachStartMs;
+            long elapsed = TickClock.nowMs() - approachStartMs;
             
             // After 4s, try going to nearest villager first then retry
             if (!storageRetryViaVillager && elapsed > getStorageRetryViaVillagerMs()) {
@@ -1273,7 +1470,7 @@ public class TradeRunStateMachine {
                     BlockPos villagerGoal = navigator.gotoVillagerApproachPoint(client, nearestVillager.get());
                     if (villagerGoal != null) {
                         currentApproachGoal = villagerGoal;
-                        approachStartMs = System.currentTimeMillis(); // Reset timer for villager approach
+                        approachStartMs = TickClock.nowMs(); // Reset timer for villager approach
                         return;
                     }
                 }
@@ -1285,7 +1482,7 @@ public class TradeRunStateMachine {
                 storageRetryViaVillager = false;
                 currentApproachGoal = navigator.gotoStoragePosition(client, storageRetryTarget);
                 storageRetryTarget = null;
-                approachStartMs = System.currentTimeMillis();
+                approachStartMs = TickClock.nowMs();
                 return;
             }
             
@@ -1300,7 +1497,7 @@ public class TradeRunStateMachine {
                 currentApproachGoal = null;
                 storageRetryViaVillager = false;
                 storageRetryTarget = null;
-                state = State.SEEK;
+                setState(State.SEEK);
                 dbg("DETOUR_RESTOCK -> SEEK (nav timeout)");
             }
             return;
@@ -1319,7 +1516,7 @@ public class TradeRunStateMachine {
         }
 
         navigator.stop();
-        state = State.DETOUR_RESTOCK;
+        setState(State.DETOUR_RESTOCK);
     }
 
     private long dumpStartMs = 0L;
@@ -1353,12 +1550,12 @@ public class TradeRunStateMachine {
     private void tickDetourDump(MinecraftClient client) {
         if (client.player == null || client.world == null) return;
 
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (now < blockContainerInteractUntilMs) return;
         
         // Cooldown after failed dump attempt - go back to SEEK for wait mode handling
         if (now < nextDumpAllowedMs) {
-            state = State.SEEK;
+            setState(State.SEEK);
             return;
         }
         
@@ -1375,7 +1572,7 @@ public class TradeRunStateMachine {
             currentApproachGoal = null;
             approachKind = ApproachKind.VILLAGER;
             dumpStartMs = 0L;
-            state = State.SEEK;
+            setState(State.SEEK);
             return;
         }
         
@@ -1403,7 +1600,7 @@ public class TradeRunStateMachine {
                 stop();
             } else {
                 dumpStartMs = 0L;
-                state = State.SEEK;
+                setState(State.SEEK);
             }
             return;
         }
@@ -1461,8 +1658,8 @@ public class TradeRunStateMachine {
                 if (remaining > 0) {
                     outputChestFull = true;
                     // Set cooldowns so we wait 20s before trying again
-                    lastWaitCheckMs = System.currentTimeMillis();
-                    nextDumpAllowedMs = System.currentTimeMillis() + WAIT_CHECK_INTERVAL_MS;
+                    lastWaitCheckMs = TickClock.nowMs();
+                    nextDumpAllowedMs = TickClock.nowMs() + WAIT_CHECK_INTERVAL_MS;
                     dbg("output chest full, " + remaining + " items remaining, waiting 20s");
                 } else {
                     // Dump succeeded - reset full flag and wait mode
@@ -1484,7 +1681,7 @@ public class TradeRunStateMachine {
                 currentApproachGoal = null;
                 approachKind = ApproachKind.VILLAGER;
                 dumpStartMs = 0L;
-                state = State.SEEK;
+                setState(State.SEEK);
                 dbg("dump done -> SEEK");
             }
             return;
@@ -1501,14 +1698,14 @@ public class TradeRunStateMachine {
                 say(client, "⚠ Can't reach OUTPUT: " + (err != null ? err : "path blocked"));
                 currentChestPos = null;
                 currentChestOpenSpot = null;
-                state = State.SEEK;
+                setState(State.SEEK);
             }
             return;
         }
 
         double dGoal = distSqToGoal(client, currentApproachGoal);
         if (dGoal > APPROACH_GOAL_RANGE_SQ) {
-            long elapsed = System.currentTimeMillis() - approachStartMs;
+            long elapsed = TickClock.nowMs() - approachStartMs;
             
             // After 4s, try going to nearest villager first then retry
             if (!storageRetryViaVillager && elapsed > getStorageRetryViaVillagerMs()) {
@@ -1520,7 +1717,7 @@ public class TradeRunStateMachine {
                     BlockPos villagerGoal = navigator.gotoVillagerApproachPoint(client, nearestVillager.get());
                     if (villagerGoal != null) {
                         currentApproachGoal = villagerGoal;
-                        approachStartMs = System.currentTimeMillis();
+                        approachStartMs = TickClock.nowMs();
                         return;
                     }
                 }
@@ -1532,7 +1729,7 @@ public class TradeRunStateMachine {
                 storageRetryViaVillager = false;
                 currentApproachGoal = navigator.gotoStoragePosition(client, storageRetryTarget);
                 storageRetryTarget = null;
-                approachStartMs = System.currentTimeMillis();
+                approachStartMs = TickClock.nowMs();
                 return;
             }
             
@@ -1546,7 +1743,7 @@ public class TradeRunStateMachine {
                 currentApproachGoal = null;
                 storageRetryViaVillager = false;
                 storageRetryTarget = null;
-                state = State.SEEK;
+                setState(State.SEEK);
                 dbg("DETOUR_DUMP -> SEEK (nav timeout)");
             }
             return;
@@ -1565,7 +1762,7 @@ public class TradeRunStateMachine {
         }
 
         navigator.stop();
-        state = State.DETOUR_DUMP;
+        setState(State.DETOUR_DUMP);
     }
     
     /**
@@ -1575,7 +1772,7 @@ public class TradeRunStateMachine {
     private void tickReturnInput(MinecraftClient client) {
         if (client.player == null || client.world == null) return;
         
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (now < blockContainerInteractUntilMs) return;
         
         int floorY = currentFloorKeyY(client);
@@ -1679,7 +1876,7 @@ public class TradeRunStateMachine {
         double dGoal = distSqToGoal(client, currentApproachGoal);
         if (dGoal > APPROACH_GOAL_RANGE_SQ) {
             // Still navigating
-            if (System.currentTimeMillis() - approachStartMs > APPROACH_TIMEOUT_MS) {
+            if (TickClock.nowMs() - approachStartMs > APPROACH_TIMEOUT_MS) {
                 dbg("return input: navigation timeout - cancelling floor switch, staying on current floor");
                 navigator.stop();
                 currentChestPos = null;
@@ -1690,7 +1887,7 @@ public class TradeRunStateMachine {
                 pendingFloorSwitchIndex = 0;
                 itemToReturn = null;
                 say(client, "Couldn't reach input chest - staying on current floor");
-                state = State.SEEK;
+                setState(State.SEEK);
             }
             return;
         }
@@ -1705,7 +1902,7 @@ public class TradeRunStateMachine {
     private void proceedWithPendingFloorSwitch(MinecraftClient client) {
         if (pendingFloorSwitchName == null) {
             dbg("proceedWithPendingFloorSwitch: no pending switch, going to SEEK");
-            state = State.SEEK;
+            setState(State.SEEK);
             return;
         }
         
@@ -1713,7 +1910,7 @@ public class TradeRunStateMachine {
         if (floorOpt.isEmpty()) {
             dbg("proceedWithPendingFloorSwitch: floor not found, going to SEEK");
             pendingFloorSwitchName = null;
-            state = State.SEEK;
+            setState(State.SEEK);
             return;
         }
         
@@ -1721,20 +1918,16 @@ public class TradeRunStateMachine {
         
         currentFloorIndex = pendingFloorSwitchIndex;
         primaryFloorY = floor.y;
-        targetFloorY = floor.y;
-        transitionPoint = new BlockPos(floor.clusterX, floor.y, floor.clusterZ);
-        floorTransitionPhase = 0;
-        floorTransitionStartY = client != null && client.player != null ? client.player.getBlockPos().getY() : floor.y;
-        floorTransitionStartMs = System.currentTimeMillis();
-        if (floorTransitionStartY == targetFloorY) {
-            dbg("proceedWithPendingFloorSwitch: already at Y=" + targetFloorY + ", skipping transition");
+        int fromY = client != null && client.player != null ? client.player.getBlockPos().getY() : floor.y;
+        if (fromY == floor.y) {
+            dbg("proceedWithPendingFloorSwitch: already at Y=" + floor.y + ", skipping transition");
             pendingFloorSwitchName = null;
             pendingFloorSwitchIndex = 0;
             itemToReturn = null;
-            state = State.SEEK;
+            setState(State.SEEK);
             return;
         }
-        state = State.FLOOR_TRANSITION;
+        beginFloorTransition(floor.y, new BlockPos(floor.clusterX, floor.y, floor.clusterZ), fromY);
         
         // Update target professions to ONLY the new floor's professions
         villagerFinder.setTargetProfessions(new ArrayList<>(floor.professions));
@@ -1752,7 +1945,7 @@ public class TradeRunStateMachine {
     }
 
     private void tickOpenAndRunContainerSession(MinecraftClient client, ContainerOps.Session session) {
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (containerOpenFirstAttemptMs == 0L) {
             containerOpenFirstAttemptMs = now;
         }
@@ -1793,7 +1986,7 @@ public class TradeRunStateMachine {
                 dbg("container session error: " + session.error);
                 say(client, session.error);
             } else {
-                dbg("container session completed OK");
+                dbg("container session completed OK (" + session.pipelineStats() + ")");
             }
         } else {
             // Safety timeout: if session running too long (10s), force close
@@ -1815,13 +2008,18 @@ public class TradeRunStateMachine {
     }
 
     private long nextSeekAllowedMs = 0L; // Delay between seek attempts after failures
+
+    // Walking toward villagers remembered beyond the scan radius (HallRegistry)
+    private BlockPos farClusterGoal = null;
+    private double farClusterBestDistSq = Double.MAX_VALUE;
+    private long farClusterProgressMs = 0L;
+    private long farClusterLastMs = 0L;
+    private long farClusterPausedUntilMs = 0L;
+    private static final long FAR_CLUSTER_NO_PROGRESS_MS = 30_000L; // Not a block closer in this long = unreachable
+    private static final double FAR_CLUSTER_PROGRESS = 1.0;
+    private static final long FAR_CLUSTER_PAUSE_MS = 60_000L;
     
-    // Floor transition state
-    private int targetFloorY = 0;
-    private BlockPos transitionPoint = null;
-    private int floorTransitionPhase = 0; // 0=approach transition, 1=traverse stairs, 2=done
-    private long floorTransitionStartMs = 0L;
-    private int floorTransitionStartY = 0;
+    // Floor transition bookkeeping lives in FloorTransitionState
     private int floorReturnAttempts = 0; // Track repeated fall/return cycles
     private static final int MAX_FLOOR_RETURN_ATTEMPTS = 3; // Stop after this many failed returns
     
@@ -1840,10 +2038,11 @@ public class TradeRunStateMachine {
             return;
         }
 
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         
         // Rate limit SEEK to prevent rapid cycling after failures
         if (now < nextSeekAllowedMs) {
+            sleepUntil(nextSeekAllowedMs);
             return;
         }
         
@@ -1887,9 +2086,8 @@ public class TradeRunStateMachine {
         // In multi-floor mode with no remembered input, ALWAYS restock to learn the input item
         boolean needsRestock = (inputId == null || haveInput < effectiveMin);
         
-        // ALWAYS log the input check for debugging
-        dbg("SEEK input check: inputId=" + (inputId != null ? inputId.getPath() : "null") + 
-            " have=" + haveInput + "/" + effectiveMin + " needsRestock=" + needsRestock + " floorY=" + floorY);
+        // Runs on every SEEK pass - TRACE, so only written when the log level asks for it
+        DebugLogger.event(EV_SEEK_INPUT, inputId, haveInput, effectiveMin, needsRestock ? 1 : 0, floorY);
         
         if (needsRestock) {
             // ALWAYS go to input chest first to check - don't assume it's empty
@@ -1930,6 +2128,9 @@ public class TradeRunStateMachine {
                     int secs = (int) ((remaining % 60000) / 1000);
                     say(client, "no input detected, auto stop in " + mins + ":" + String.format("%02d", secs));
                 }
+                // Wake early if the player hands us items
+                sleepUntil(Math.min(nextRestockCheckMs, now + WAIT_RECHECK_MS),
+                        TradeRunEvents.Type.INVENTORY_CHANGED);
                 return;
             }
             
@@ -1943,7 +2144,7 @@ public class TradeRunStateMachine {
             currentChestPos = null;
             currentChestOpenSpot = null;
             containerSession = null;
-            state = State.DETOUR_RESTOCK;
+            setState(State.DETOUR_RESTOCK);
             statusThrottled(client, "📦 Need input items");
             dbg("SEEK -> DETOUR_RESTOCK (have " + haveInput + "/" + effectiveMin + " input items)");
             return;
@@ -2016,9 +2217,13 @@ public class TradeRunStateMachine {
                 currentChestPos = savedChestPos;
                 currentApproachGoal = null;
                 containerSession = null;
-                state = State.DETOUR_DUMP;
+                setState(State.DETOUR_DUMP);
                 dbg("wait check: navigating to output chest");
+                return;
             }
+            // Wake early if the player frees some space
+            sleepUntil(Math.min(lastWaitCheckMs + WAIT_CHECK_INTERVAL_MS, lastWaitMessageMs + WAIT_MESSAGE_INTERVAL_MS),
+                    TradeRunEvents.Type.INVENTORY_CHANGED);
             return;
         }
         
@@ -2047,14 +2252,16 @@ public class TradeRunStateMachine {
             currentChestPos = null;
             currentChestOpenSpot = null;
             containerSession = null;
-            state = State.DETOUR_DUMP;
+            setState(State.DETOUR_DUMP);
             dbg("SEEK -> DETOUR_DUMP (threshold=" + thresholdHit + " invFull=" + invCompletelyFull + ")");
             return;
         } else if (holdingForNextFloor) {
-            dbg("Skipping dump - holding " + outId.getPath() + " for next floor input");
+            DebugLogger.event(EV_SEEK_HOLD, outId, floorY);
             statusThrottled(client, "Holding " + outId.getPath() + " for next floor");
         }
 
+        if (TradeRunSettings.get().standAndTrade && trySeekFromStand(client)) return;
+
         Optional<VillagerEntity> best = villagerFinder.findBestTarget(client);
         if (best.isEmpty()) {
             // Always clear fail registry and retry when no villager found
@@ -2062,12 +2269,17 @@ public class TradeRunStateMachine {
             best = villagerFinder.findBestTarget(client);
             
             if (best.isEmpty()) {
-                dbg("SEEK: no villager - " + villagerFinder.debugCounts(client));
+                // debugCounts() rescans the floor; skip it when the line would be dropped anyway
+                if (DebugLogger.isEnabled(DebugLogger.Level.DEBUG)) {
+                    dbg("SEEK: no villager - " + villagerFinder.debugCounts(client));
+                }
             } else {
-                dbg("SEEK: found villager after clearing fails at " + best.get().getBlockPos().toShortString());
+                BlockPos p = best.get().getBlockPos();
+                DebugLogger.event(EV_SEEK_TARGET, p.getX(), p.getY(), p.getZ(), 1);
             }
         } else {
-            dbg("SEEK: found villager at " + best.get().getBlockPos().toShortString());
+            BlockPos p = best.get().getBlockPos();
+            DebugLogger.event(EV_SEEK_TARGET, p.getX(), p.getY(), p.getZ(), 0);
         }
         
         // If no villagers on current floor, check if we should change floors or restock
@@ -2082,6 +2294,9 @@ public class TradeRunStateMachine {
                 return;
             }
 
+            // Off-cooldown villagers remembered further down the hall: walk there instead of idling
+            if (trySeekFarCluster(client, now)) return;
+
             if (allOnCooldown) {
                 // If using floor names mode with multiple floors, try switching floors first
                 if (!activeFloorNames.isEmpty() && activeFloorNames.size() > 1) {
@@ -2092,7 +2307,7 @@ public class TradeRunStateMachine {
                 }
                 
                 // All villagers on cooldown - use this time to restock if needed (but don't loop)
-                long currentMs = System.currentTimeMillis();
+                long currentMs = TickClock.nowMs();
                 if (currentMs >= nextCooldownRestockMs) {
                     int inputMax = 64 * 27; // Roughly a full inventory
                     
@@ -2106,7 +2321,7 @@ public class TradeRunStateMachine {
                             currentChestPos = null;
                             currentChestOpenSpot = null;
                             containerSession = null;
-                            state = State.DETOUR_RESTOCK;
+                            setState(State.DETOUR_RESTOCK);
                             return;
                         }
                     }
@@ -2138,13 +2353,7 @@ public class TradeRunStateMachine {
                         say(client, "Floor exhausted. Moving to Y=" + newY);
                         dbg("SEEK -> FLOOR_TRANSITION to Y=" + newY);
                         
-                        // Set up floor transition
-                        targetFloorY = newY;
-                        transitionPoint = destination;
-                        floorTransitionPhase = 0;
-                        floorTransitionStartY = currentY;
-                        floorTransitionStartMs = System.currentTimeMillis();
-                        state = State.FLOOR_TRANSITION;
+                        beginFloorTransition(newY, destination, currentY);
                         return;
                     } else {
                         say(client, "Floor exhausted. Y=" + newY + " has villagers but no storage set.");
@@ -2155,7 +2364,7 @@ public class TradeRunStateMachine {
             
             // Show waiting status when all villagers are on cooldown
             if (allOnCooldown && totalVillagers > 0) {
-                long currentTimeMs = System.currentTimeMillis();
+                long currentTimeMs = TickClock.nowMs();
                 boolean isNight = CooldownRegistry.isNightTime(client);
                 
                 // Start tracking when we first see all on cooldown
@@ -2191,25 +2400,29 @@ public class TradeRunStateMachine {
                 // Some villagers available - reset the cooldown wait timer
                 allOnCooldownStartMs = 0L;
             }
+            // Nothing to do until villagers come into range, restock (checked once per second)
+            // or the inventory changes
+            sleepUntil(now + WAIT_RECHECK_MS,
+                    TradeRunEvents.Type.ENTITY_LOADED, TradeRunEvents.Type.ENTITY_UNLOADED,
+                    TradeRunEvents.Type.INVENTORY_CHANGED);
             return;
         }
 
         currentTarget = best.get();
 
-        resetOpenAttemptState();
+        resetUseKeyState();
         attemptedDiagonalFromHang = false;
         usingDiagonal = false;
 
         nudgeTimes = 0;
-        nudgeTicksRemaining = 0;
-        nudgeStartPos = null;
 
         // Use smart approach - prefers cardinal directions, only uses diagonals if necessary
         BlockPos goal = navigator.gotoVillagerApproachPoint(client, currentTarget);
         
         // Debug approach selection
         boolean isDiag = navigator.wasLastApproachDiagonal();
-        dbg("approach: " + (goal != null ? goal.toShortString() : "null") + " diagonal=" + isDiag);
+        if (goal != null) DebugLogger.event(EV_APPROACH_GOAL, goal.getX(), goal.getY(), goal.getZ(), isDiag ? 1 : 0);
+        else dbg("approach: null diagonal=" + isDiag);
 
         currentApproachGoal = goal;
         approachKind = ApproachKind.VILLAGER;
@@ -2217,20 +2430,119 @@ public class TradeRunStateMachine {
         if (goal == null) {
             // Use longer cooldown for "no approach" failures - environment won't change quickly
             RecentFailRegistry.markNoApproachFailure(currentTarget);
+            TradeRunMetrics.onFailure("no_approach");
             currentTarget = null;
             nextSeekAllowedMs = now + 500L; // Small delay before trying next
-            state = State.SEEK;
+            setState(State.SEEK);
             dbg("SEEK: no valid approach for villager (60s cooldown)");
             return;
         }
 
         usingDiagonal = isDiagonalApproach(currentTarget, goal);
         resetApproachTracking(client);
-        state = State.APPROACH;
+        setState(State.APPROACH);
         statusThrottled(client, "→ Walking to villager");
         dbg("SEEK -> APPROACH villager (diagonal=" + usingDiagonal + ")");
     }
 
+    /**
+     * Walk toward the best group of villagers HallRegistry remembers outside the scan radius.
+     * Stays in SEEK: once they load (or their cells turn out empty) the normal pass takes over.
+     * Gives up for a while once a walk stops getting closer to the goal.
+     *
+     * @return true if a walk goal was set
+     */
+    private boolean trySeekFarCluster(MinecraftClient client, long now) {
+        if (now < farClusterPausedUntilMs) return false;
+
+        Optional<VillagerFinder.FarCluster> far = villagerFinder.findFarCluster(client);
+        if (far.isEmpty()) {
+            farClusterGoal = null;
+            return false;
+        }
+
+        BlockPos center = far.get().center;
+        double distSq = distSqToGoal(client, center);
+        if (!center.equals(farClusterGoal) || now - farClusterLastMs > 5_000L) {
+            // New goal, or a fresh walk after trading in between
+            farClusterGoal = center;
+            farClusterBestDistSq = distSq;
+            farClusterProgressMs = now;
+        } else if (Math.sqrt(distSq) <= Math.sqrt(farClusterBestDistSq) - FAR_CLUSTER_PROGRESS) {
+            farClusterBestDistSq = distSq;
+            farClusterProgressMs = now;
+        } else if (now - farClusterProgressMs > FAR_CLUSTER_NO_PROGRESS_MS) {
+            // Can't get there (no path, wrong floor layout) - fall back to the usual waiting
+            dbg("SEEK: far villagers at " + center.toShortString() + " unreachable, pausing far walks");
+            farClusterGoal = null;
+            farClusterPausedUntilMs = now + FAR_CLUSTER_PAUSE_MS;
+            navigator.stop();
+            return false;
+        }
+
+        farClusterLastMs = now;
+        // Re-issuing the same goal would cancel and re-path Baritone on every pass
+        if (navigator.getActiveGoal() == null || !navigator.getActiveGoal().equals(center)) {
+            navigator.gotoExactPosition(client, center);
+        }
+        DebugLogger.event(EV_SEEK_FAR, center.getX(), center.getY(), center.getZ(), far.get().villagers);
+        statusThrottled(client, "→ Walking to " + far.get().villagers + " villagers further down the hall");
+        allOnCooldownStartMs = 0L;
+        nextSeekAllowedMs = now + 400L;
+        return true;
+    }
+
+    /**
+     * Stand-and-trade: trade every eligible villager reachable from where we stand,
+     * then walk to the next planned standing tile (set cover over approach tiles).
+     *
+     * @return true if a target was chosen (state already switched)
+     */
+    private boolean trySeekFromStand(MinecraftClient client) {
+        List<VillagerEntity> eligible = villagerFinder.findEligibleOnFloor(client);
+        if (eligible.isEmpty()) return false;
+
+        // Anything reachable right here - no walking at all
+        VillagerEntity reachable = null;
+        double bestDistSq = Double.POSITIVE_INFINITY;
+        for (VillagerEntity v : eligible) {
+            if (!inReachAndSight(client, v)) continue;
+            double d = client.player.squaredDistanceTo(v);
+            if (d < bestDistSq) {
+                bestDistSq = d;
+                reachable = v;
+            }
+        }
+
+        resetUseKeyState();
+        attemptedDiagonalFromHang = false;
+        usingDiagonal = false;
+        nudgeTimes = 0;
+        approachKind = ApproachKind.VILLAGER;
+
+        if (reachable != null) {
+            navigator.stop();
+            currentTarget = reachable;
+            currentApproachGoal = client.player.getBlockPos();
+            setState(State.OPEN_ATTEMPTS);
+            statusThrottled(client, "⚡ Opening trade");
+            dbg("SEEK -> OPEN_ATTEMPTS (reachable from current stand)");
+            return true;
+        }
+
+        StandingPlanner.Stand stand = standingPlanner.nextStand(client, eligible);
+        if (stand == null) return false;
+
+        currentTarget = stand.villagers.get(0);
+        currentApproachGoal = navigator.gotoExactPosition(client, stand.pos);
+        resetApproachTracking(client);
+        setState(State.APPROACH);
+        statusThrottled(client, "→ Walking to stand (" + stand.villagers.size() + " villagers)");
+        dbg("SEEK -> APPROACH stand " + stand.pos.toShortString() + " covers " + stand.villagers.size() +
+                " (" + standingPlanner.remainingStands() + " stands left)");
+        return true;
+    }
+
     /**
      * Track how many times we've rotated through floors while inputs are empty.
      * Stops the run after six full rotations without finding any items.
@@ -2312,9 +2624,7 @@ public class TradeRunStateMachine {
         navigator.stop();
         releaseUseKey(client);
         releaseForwardKey(client);
-        targetFloorY = floorY;
-        floorTransitionStartY = playerY;
-        
+
         // Find a walkable destination on the target floor - prefer input storage, then output
         BlockPos destination = null;
         Optional<StorageRegistry.StoredLocation> inputStorage = StorageRegistry.getForY(Role.INPUT, floorY);
@@ -2332,10 +2642,7 @@ public class TradeRunStateMachine {
             }
         }
         
-        transitionPoint = destination;
-        floorTransitionPhase = 0;
-        floorTransitionStartMs = System.currentTimeMillis();
-        state = State.FLOOR_TRANSITION;
+        beginFloorTransition(floorY, destination, playerY);
         say(client, "Dropped off " + currentFloorName + " floor - heading back (attempt " + floorReturnAttempts + "/" + MAX_FLOOR_RETURN_ATTEMPTS + ")");
         dbg("ensureOnActiveFloor: playerY=" + playerY + ", floorY=" + floorY + " -> returning to " + destination.toShortString() + " attempt=" + floorReturnAttempts);
         return true;
@@ -2368,7 +2675,7 @@ public class TradeRunStateMachine {
     private void tickApproach(MinecraftClient client) {
         if (client.player == null || client.world == null) return;
 
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (approachStartMs == 0L) resetApproachTracking(client);
 
         // Check if navigator had any error - fail this villager and move on
@@ -2377,6 +2684,7 @@ public class TradeRunStateMachine {
             navigator.stop();
             navigator.clearLastError();
             if (approachKind == ApproachKind.VILLAGER && currentTarget != null) {
+                TradeRunMetrics.onFailure("nav_error");
                 boolean secondFail = RecentFailRegistry.markDiagonalFailure(currentTarget);
                 String cooldown = secondFail ? "15s" : "5s";
                 dbg("nav error: " + navError + ", skipping villager (" + cooldown + ")");
@@ -2389,8 +2697,8 @@ public class TradeRunStateMachine {
             currentTarget = null;
             currentApproachGoal = null;
             // Small delay before seeking next villager
-            nextSeekAllowedMs = System.currentTimeMillis() + 300L;
-            state = State.SEEK;
+            nextSeekAllowedMs = TickClock.nowMs() + 300L;
+            setState(State.SEEK);
             return;
         }
 
@@ -2399,13 +2707,13 @@ public class TradeRunStateMachine {
                 navigator.stop();
                 currentTarget = null;
                 currentApproachGoal = null;
-                state = State.SEEK;
+                setState(State.SEEK);
                 return;
             }
         }
 
         if (currentApproachGoal == null) {
-            state = State.SEEK;
+            setState(State.SEEK);
             return;
         }
 
@@ -2414,20 +2722,31 @@ public class TradeRunStateMachine {
         if (distGoalSq <= APPROACH_GOAL_RANGE_SQ) {
             navigator.stop();
             if (approachKind == ApproachKind.VILLAGER) {
-                resetOpenAttemptState();
-                state = State.OPEN_ATTEMPTS;
+                resetUseKeyState();
+                setState(State.OPEN_ATTEMPTS);
                 statusThrottled(client, "⚡ Opening trade");
                 dbg("APPROACH -> OPEN_ATTEMPTS");
             } else if (approachKind == ApproachKind.INPUT_CHEST) {
                 statusThrottled(client, "📦 At input chest");
-                state = State.DETOUR_RESTOCK;
+                setState(State.DETOUR_RESTOCK);
             } else {
                 statusThrottled(client, "📦 At output chest");
-                state = State.DETOUR_DUMP;
+                setState(State.DETOUR_DUMP);
             }
             return;
         }
 
+        // Interact-on-arrival: villager already within server reach and visible - skip the rest of the walk
+        if (approachKind == ApproachKind.VILLAGER && TradeRunSettings.get().interactOnArrival
+                && inReachAndSight(client, currentTarget)) {
+            navigator.stop();
+            resetUseKeyState();
+            setState(State.OPEN_ATTEMPTS);
+            statusThrottled(client, "⚡ Opening trade");
+            dbg("APPROACH -> OPEN_ATTEMPTS (in reach, " + String.format("%.2f", Math.sqrt(distGoalSq)) + " blocks early)");
+            return;
+        }
+
         // If approach is stuck AND not at goal, try an alternate position
         if (approachKind == ApproachKind.VILLAGER && !attemptedDiagonalFromHang && distGoalSq > APPROACH_GOAL_RANGE_SQ) {
             long elapsed = now - approachStartMs;
@@ -2475,13 +2794,14 @@ public class TradeRunStateMachine {
                         // Escape didn't help - fail this villager
                         navigator.stop();
                         if (currentTarget != null) {
+                            TradeRunMetrics.onFailure("approach_stuck");
                             RecentFailRegistry.markDiagonalFailure(currentTarget);
                             say(client, "⚠ Stuck - skipping villager");
                         }
                         currentTarget = null;
                         currentApproachGoal = null;
                         nextSeekAllowedMs = now + 300L;
-                        state = State.SEEK;
+                        setState(State.SEEK);
                         dbg("stuck detection -> SEEK (failed " + stuckCheckFailCount + " checks)");
                         return;
                     }
@@ -2497,222 +2817,48 @@ public class TradeRunStateMachine {
         if (now - approachStartMs > APPROACH_TIMEOUT_MS) {
             navigator.stop();
             if (approachKind == ApproachKind.VILLAGER && currentTarget != null) {
+                TradeRunMetrics.onFailure("approach_timeout");
                 RecentFailRegistry.markFailure(currentTarget);
             }
             currentTarget = null;
             currentApproachGoal = null;
-            state = State.SEEK;
+            setState(State.SEEK);
             dbg("APPROACH timeout -> SEEK");
         }
     }
 
-    private void tickOpenAttempts(MinecraftClient client) {
-        if (client.player == null || client.world == null) return;
-
-        if (currentTarget == null || !currentTarget.isAlive()) {
-            releaseUseKey(client);
-            state = State.SEEK;
-            return;
-        }
-
-        int floorY = currentFloorKeyY(client);
-        Identifier safeInputId = StorageRegistry.getRememberedItem(Role.INPUT, floorY).orElse(learnedInputItemId);
-        if (!InventoryOps.ensureFreeHand(client.player, safeInputId)) {
-            dbg("OPEN_ATTEMPTS: couldn't secure safe hand (floorY=" + floorY + ")");
-            // Check if holding a placeable block - warn user!
-            net.minecraft.item.ItemStack handStack = client.player.getMainHandStack();
-            if (!handStack.isEmpty() && handStack.getItem() instanceof net.minecraft.item.BlockItem) {
-                say(client, "§c⚠ WARNING: Holding block item! May place blocks - dump inventory!");
-                status(client, "§c⚠ HOLDING BLOCK - MAY PLACE!");
-            }
-        }
-
-        long now = System.currentTimeMillis();
-        if (firstOpenAttemptMs == 0L) firstOpenAttemptMs = now;
-
-        if (client.currentScreen instanceof MerchantScreen) {
-            releaseUseKey(client);
-            state = State.WAIT_CLOSE;
-            dbg("OPEN_ATTEMPTS -> WAIT_CLOSE (merchant open)");
-            return;
-        }
-
-        long elapsed = now - firstOpenAttemptMs;
-
-        double distSq = client.player.squaredDistanceTo(currentTarget);
-        if (distSq > INTERACT_RANGE_VILLAGER_SQ) {
-            releaseUseKey(client);
-            RecentFailRegistry.markFailure(currentTarget);
-            state = State.SEEK;
-            return;
-        }
-
-        if (elapsed > OPEN_TIMEOUT_MS) {
-            releaseUseKey(client);
-            RecentFailRegistry.markFailure(currentTarget);
-            state = State.SEEK;
-            return;
-        }
-
-        if (usingDiagonal && elapsed >= DIAGONAL_RETRY_MS) {
-            if (nudgeTimes < NUDGE_FORWARD_MAX_TIMES) {
-                releaseUseKey(client);
-                faceEntity(client, currentTarget);
-
-                nudgeTimes++;
-                nudgeTicksRemaining = NUDGE_FORWARD_MAX_TICKS;
-                nudgeStartPos = client.player.getPos();
-                state = State.NUDGE_FORWARD;
-                dbg("OPEN_ATTEMPTS -> NUDGE_FORWARD");
-                return;
-            } else {
-                // Diagonal approach failed after nudge - use retry logic
-                releaseUseKey(client);
-                boolean secondFail = RecentFailRegistry.markDiagonalFailure(currentTarget);
-                if (secondFail) {
-                    dbg("diagonal failed twice, skipping villager (15s)");
-                } else {
-                    dbg("diagonal failed, will retry after other villagers (5s)");
-                }
-                currentTarget = null;
-                state = State.SEEK;
-                return;
-            }
-        }
-
-        if (now - lastAimMs >= AIM_DELAY_MS) {
-            faceEntity(client, currentTarget);
-            lastAimMs = now;
-        }
-
-        spamUseKey(client, now);
-    }
-
-    private void tickNudgeForward(MinecraftClient client) {
-        if (client.player == null) return;
-
-        if (client.currentScreen instanceof MerchantScreen) {
-            releaseForwardKey(client);
-            state = State.WAIT_CLOSE;
-            return;
-        }
-
-        if (currentTarget == null || !currentTarget.isAlive()) {
-            releaseForwardKey(client);
-            state = State.SEEK;
-            return;
-        }
-
-        if (nudgeStartPos == null) nudgeStartPos = client.player.getPos();
-
-        pressForwardKey(client, true);
-
-        Vec3d nowPos = client.player.getPos();
-        double movedSq = horizDistSq(nowPos, nudgeStartPos);
-        nudgeTicksRemaining--;
-
-        if (movedSq >= NUDGE_FORWARD_DISTANCE_SQ || nudgeTicksRemaining <= 0) {
-            pressForwardKey(client, false);
-            resetOpenAttemptState();
-            state = State.OPEN_ATTEMPTS;
-        }
-    }
-
-    // Trade completion detection
-    private int invItemCountAtTradeStart = 0;
-    private long tradeItemReceivedMs = 0L;
-    private long tradeGuiOpenedMs = 0L;
-    private static final long CLOSE_DELAY_AFTER_TRADE_MS = 200L;
-    private static final long NO_TRADE_TIMEOUT_MS = 300L; // Close after 0.3s if no trade
-    
-    private void tickWaitClose(MinecraftClient client) {
-        if (client.player == null) return;
-        
-        // If screen is still open, check if we received trade items and should close
-        if (client.currentScreen instanceof MerchantScreen) {
-            long now = System.currentTimeMillis();
-            int currentItemCount = countTotalInventoryItems(client);
-            
-            // First tick in WAIT_CLOSE - record starting inventory and time
-            if (invItemCountAtTradeStart == 0) {
-                invItemCountAtTradeStart = currentItemCount;
-                tradeItemReceivedMs = 0L;
-                tradeGuiOpenedMs = now;
-                return;
-            }
-            
-            // Check if we received new items
-            if (currentItemCount > invItemCountAtTradeStart) {
-                if (tradeItemReceivedMs == 0L) {
-                    tradeItemReceivedMs = now;
-                    dbg("trade items received, closing in 200ms");
-                }
-            }
-            
-            // Close after receiving items + delay
-            if (tradeItemReceivedMs > 0L && now - tradeItemReceivedMs >= CLOSE_DELAY_AFTER_TRADE_MS) {
-                closeAnyScreenProperly(client);
-                // Don't return - fall through to cleanup below
-            }
-            // OR close after 1 second timeout with no trade
-            else if (tradeItemReceivedMs == 0L && now - tradeGuiOpenedMs >= NO_TRADE_TIMEOUT_MS) {
-                dbg("no trade after 1s, closing and marking as traded");
-                closeAnyScreenProperly(client);
-                // Don't return - fall through to cleanup below
-            }
-            else {
-                return; // Still waiting
-            }
-        }
-        
-        // Screen is closed - cleanup and register cooldown
-        if (currentTarget != null && !cooldownRegistered) {
-            CooldownRegistry.onVillagerTraded(currentTarget);
-            InteractedVillagerRegistry.markInteracted(currentTarget);
-            cooldownRegistered = true;
-            dbg("cooldown registered for villager");
-            
-            // After successful trade, clear short-term fails and retry counters
-            // (player position changed, previously-blocked approaches might now be accessible)
-            RecentFailRegistry.clearAll();
-            RecentFailRegistry.clearFailCounts();
-        }
-
+    /**
+     * The villager is done (traded or not): stop walking, forget the target and go back to
+     * SEEK after a short pause. WaitCloseState calls this once the screen is closed.
+     */
+    void finishVillager(MinecraftClient client) {
         // STOP all navigation - prevents walking into villager after trade!
         navigator.stop();
         navigator.clearLastError();
         releaseForwardKey(client);
 
-        // Reset trade tracking
-        invItemCountAtTradeStart = 0;
-        tradeItemReceivedMs = 0L;
-        tradeGuiOpenedMs = 0L;
-        
         currentTarget = null;
         currentApproachGoal = null;
         approachKind = ApproachKind.VILLAGER;
         currentChestPos = null;
         currentChestOpenSpot = null;
 
-        resetOpenAttemptState();
+        resetUseKeyState();
         resetApproachTracking();
 
         usingDiagonal = false;
 
         nudgeTimes = 0;
-        nudgeTicksRemaining = 0;
-        nudgeStartPos = null;
-        
+
         // Small delay before seeking next villager
-        lastMoveMs = System.currentTimeMillis();
+        lastMoveMs = TickClock.nowMs();
         lastMovePos = client.player.getPos();
-        nextSeekAllowedMs = System.currentTimeMillis() + 150L; // 150ms delay
+        nextSeekAllowedMs = TickClock.nowMs() + 150L; // 150ms delay
 
-        state = State.SEEK;
+        setState(State.SEEK);
         showSeekStatus(client);
-        dbg("WAIT_CLOSE -> SEEK");
     }
-    
+
     private void showSeekStatus(MinecraftClient client) {
         int floorY = currentFloorKeyY(client);
         String inItem = StorageRegistry.getRememberedItem(Role.INPUT, floorY)
@@ -2722,16 +2868,8 @@ public class TradeRunStateMachine {
         statusThrottled(client, "👀 Seeking | in:" + inItem + " out:" + outItem);
     }
     
-    private int countTotalInventoryItems(MinecraftClient client) {
-        if (client.player == null) return 0;
-        int count = 0;
-        for (int i = 0; i < client.player.getInventory().main.size(); i++) {
-            var stack = client.player.getInventory().main.get(i);
-            if (stack != null && !stack.isEmpty()) {
-                count += stack.getCount();
-            }
-        }
-        return count;
+    int countTotalInventoryItems(MinecraftClient client) {
+        return InventoryLedger.totalItems(client.player);
     }
 
     private static double distSqToGoal(MinecraftClient client, BlockPos goal) {
@@ -2745,12 +2883,19 @@ public class TradeRunStateMachine {
         return dx * dx + dy * dy + dz * dz;
     }
 
-    private static double horizDistSq(Vec3d a, Vec3d b) {
+    static double horizDistSq(Vec3d a, Vec3d b) {
         double dx = a.x - b.x;
         double dz = a.z - b.z;
         return dx * dx + dz * dz;
     }
 
+    /** Entity reach check with a safety margin (the server validates reach slightly differently). */
+    static boolean inReachAndSight(MinecraftClient client, VillagerEntity villager) {
+        if (client.player == null || villager == null) return false;
+        return client.player.canInteractWithEntity(villager, -EARLY_INTERACT_REACH_MARGIN)
+                && client.player.canSee(villager);
+    }
+
     private boolean isDiagonalApproach(VillagerEntity villager, BlockPos approachPos) {
         if (villager == null || approachPos == null) return false;
         BlockPos base = villager.getBlockPos();
@@ -2779,7 +2924,7 @@ public class TradeRunStateMachine {
         client.player.setPitch(pitch);
     }
 
-    private void faceEntity(MinecraftClient client, VillagerEntity target) {
+    void faceEntity(MinecraftClient client, VillagerEntity target) {
         if (client.player == null) return;
 
         Vec3d eyePos = client.player.getEyePos();
@@ -2816,7 +2961,7 @@ public class TradeRunStateMachine {
         client.player.setPitch(pitch);
     }
 
-    private void spamUseKey(MinecraftClient client, long now) {
+    void spamUseKey(MinecraftClient client, long now) {
         if (client == null || client.options == null) return;
         var useKey = client.options.useKey;
         if (useKey == null) return;
@@ -2839,7 +2984,7 @@ public class TradeRunStateMachine {
         }
     }
 
-    private void releaseUseKey(MinecraftClient client) {
+    void releaseUseKey(MinecraftClient client) {
         if (client == null || client.options == null) return;
         var useKey = client.options.useKey;
         if (useKey == null) return;
@@ -2849,7 +2994,7 @@ public class TradeRunStateMachine {
         }
     }
 
-    private void pressForwardKey(MinecraftClient client, boolean pressed) {
+    void pressForwardKey(MinecraftClient client, boolean pressed) {
         if (client == null || client.options == null) return;
         var key = client.options.forwardKey;
         if (key == null) return;
@@ -2863,195 +3008,38 @@ public class TradeRunStateMachine {
         }
     }
 
-    private void releaseForwardKey(MinecraftClient client) {
+    void releaseForwardKey(MinecraftClient client) {
         pressForwardKey(client, false);
     }
     
     // ---- Floor Transition ----
-    
-    private static final long FLOOR_TRANSITION_TIMEOUT_MS = 45000L; // 45 seconds max for vertical navigation
-    private static final long FLOOR_TRANSITION_RETRY_MS = 10000L; // Give Baritone 10s before trying alternate route
-    private static final int FLOOR_TRANSITION_MAX_RETRIES = 5; // Max villager detour retries
-    private boolean floorTransitionRetryViaVillager = false;
-    private long floorTransitionRetryStartMs = 0L;
-    private long floorTransitionOriginalStartMs = 0L; // Never reset - for absolute timeout
-    private int floorTransitionRetryCount = 0;
-    
-    private void tickFloorTransition(MinecraftClient client) {
-        if (client.player == null || client.world == null) return;
-        
-        int currentY = client.player.getBlockPos().getY();
-        long now = System.currentTimeMillis();
-        
-        if (floorTransitionStartY == 0 && client.player != null) {
-            floorTransitionStartY = client.player.getBlockPos().getY();
-        }
-        
-        // Track absolute start time (never reset)
-        if (floorTransitionOriginalStartMs == 0L) {
-            floorTransitionOriginalStartMs = now;
-        }
-        
-        boolean goingUp = targetFloorY > floorTransitionStartY;
 
-        // Check if we've reached the target floor (directional)
-        // Going up: require currentY >= target Y
-        // Going down: require currentY <= target Y
-        boolean reached = goingUp ? currentY >= targetFloorY : currentY <= targetFloorY;
-        if (reached) {
-            navigator.stop();
-            releaseForwardKey(client);
-            say(client, "Reached floor Y=" + currentY);
-            dbg("FLOOR_TRANSITION complete, arrived at Y=" + currentY);
-            
-            // Update primary floor Y to the TARGET (not current - current might be higher)
-            primaryFloorY = targetFloorY;
-            int arrivedFloorY = targetFloorY;
-            arrivedOnFloorMs = System.currentTimeMillis();  // Track arrival time
-            
-            // Reset transition state
-            targetFloorY = 0;
-            transitionPoint = null;
-            floorTransitionPhase = 0;
-            floorTransitionStartY = 0;
-            floorReturnAttempts = 0; // Successfully reached floor, reset fall counter
-            floorTransitionOriginalStartMs = 0L;
-            floorTransitionRetryCount = 0;
-            
-            // Check if we need to restock for this floor's input item
-            Identifier inputId = StorageRegistry.getRememberedItem(Role.INPUT, arrivedFloorY).orElse(null);
-            int haveInput = (inputId != null) ? countItemById(client, inputId) : 0;
-            
-            if (haveInput < 32 && inputId != null) {
-                // Don't have enough input items for this floor - go restock first
-                dbg("floor arrival: need restock, have " + haveInput + " of " + inputId.getPath());
-                currentChestPos = null;
-                currentChestOpenSpot = null;
-                currentApproachGoal = null;
-                containerSession = null;
-                state = State.DETOUR_RESTOCK;
-            } else {
-                state = State.SEEK;
-            }
-            return;
-        }
-        
-        // After 4s of no progress, try going to nearest villager first
-        long elapsed = now - floorTransitionStartMs;
-        if (!floorTransitionRetryViaVillager && elapsed > FLOOR_TRANSITION_RETRY_MS) {
-            Optional<VillagerEntity> nearestVillager = villagerFinder.findAnyNearestVillager(client);
-            if (nearestVillager.isPresent()) {
-                dbg("floor transition: no progress for 10s, trying alternate route via villager");
-                floorTransitionRetryViaVillager = true;
-                floorTransitionRetryStartMs = now;
-                BlockPos villagerGoal = navigator.gotoVillagerApproachPoint(client, nearestVillager.get());
-                if (villagerGoal != null) {
-                    return;
-                }
-            }
-        }
-        
-        // If we went to villager, check if we're making progress
-        if (floorTransitionRetryViaVillager && now - floorTransitionRetryStartMs > FLOOR_TRANSITION_RETRY_MS) {
-            // Check if we moved at all - if not, try escape
-            Vec3d currentPos = client.player.getPos();
-            if (lastMovePos != null) {
-                double movedSq = horizDistSq(currentPos, lastMovePos);
-                if (movedSq < 2.0 * 2.0) {
-                    // Stuck going to villager - try escape  
-                    dbg("floor transition: stuck on alternate route, attempting escape");
-                    BlockPos escapeTarget = navigator.escapeToNearby(client);
-                    if (escapeTarget != null) {
-                        dbg("floor transition: escaping to " + escapeTarget);
-                        floorTransitionRetryStartMs = now; // Give escape some time
-                        return;
-                    }
-                }
-            }
-            
-            floorTransitionRetryCount++;
-            dbg("floor transition: retrying after villager detour (attempt " + floorTransitionRetryCount + "/" + FLOOR_TRANSITION_MAX_RETRIES + ")");
-            floorTransitionRetryViaVillager = false;
-            navigator.gotoFloorPosition(client, transitionPoint);
-            floorTransitionStartMs = now; // Reset timer for retry
-            return;
-        }
-        
-        // Check retry limit
-        if (floorTransitionRetryCount >= FLOOR_TRANSITION_MAX_RETRIES) {
-            navigator.stop();
-            releaseForwardKey(client);
-            say(client, "§c⚠ Floor transition failed after " + FLOOR_TRANSITION_MAX_RETRIES + " retries - stuck!");
-            dbg("FLOOR_TRANSITION max retries reached");
-            
-            targetFloorY = 0;
-            transitionPoint = null;
-            floorTransitionPhase = 0;
-            floorTransitionRetryViaVillager = false;
-            floorTransitionOriginalStartMs = 0L;
-            floorTransitionRetryCount = 0;
-            state = State.SEEK;
-            return;
-        }
-        
-        // Absolute timeout check (uses original start time, not reset time)
-        if (floorTransitionOriginalStartMs > 0 && now - floorTransitionOriginalStartMs > FLOOR_TRANSITION_TIMEOUT_MS) {
-            navigator.stop();
-            releaseForwardKey(client);
-            say(client, "§c⚠ Floor transition timeout - couldn't reach Y=" + targetFloorY);
-            dbg("FLOOR_TRANSITION timeout (absolute)");
-            
-            targetFloorY = 0;
-            transitionPoint = null;
-            floorTransitionPhase = 0;
-            floorTransitionRetryViaVillager = false;
-            floorTransitionOriginalStartMs = 0L;
-            floorTransitionRetryCount = 0;
-            state = State.SEEK;
-            return;
-        }
-        
-        // Simple approach: just navigate to the transition point using Baritone
-        // Baritone handles stairs, ladders, etc. automatically
-        if (transitionPoint == null) {
-            state = State.SEEK;
-            return;
-        }
-        
-        // Check if we're close enough horizontally (Y is checked at the top)
-        double distSq = client.player.squaredDistanceTo(
-            transitionPoint.getX() + 0.5, 
-            client.player.getY(), 
-            transitionPoint.getZ() + 0.5
-        );
-        
-        if (distSq < 4.0) {
-            // Close enough horizontally but wrong Y - check if we're stuck
-            int yDiff = Math.abs(currentY - targetFloorY);
-            if (yDiff > 1) {
-                // Still need to change Y level but Baritone might be stuck
-                // Check if we've been here too long (use transition timeout / 2)
-                long stuckTime = now - floorTransitionStartMs;
-                if (stuckTime > FLOOR_TRANSITION_TIMEOUT_MS / 2) {
-                    // Stuck for 15+ seconds near target but wrong Y - give up on this transition
-                    navigator.stop();
-                    releaseForwardKey(client);
-                    say(client, "⚠ Can't reach Y=" + targetFloorY + " from here - continuing on current floor");
-                    dbg("FLOOR_TRANSITION: stuck near target, giving up");
-                    
-                    // Reset and go back to SEEK on current floor
-                    targetFloorY = 0;
-                    transitionPoint = null;
-                    floorTransitionPhase = 0;
-                    state = State.SEEK;
-                    return;
-                }
-            }
-        }
-        
-        // Keep navigating to the transition point
-        if (navigator.getActiveGoal() == null || !navigator.getActiveGoal().equals(transitionPoint)) {
-            navigator.gotoFloorPosition(client, transitionPoint);
+    /** Set FLOOR_TRANSITION's destination and switch to it. */
+    private void beginFloorTransition(int targetY, BlockPos point, int fromY) {
+        floorTransition.prepare(targetY, point, fromY);
+        setState(State.FLOOR_TRANSITION);
+    }
+
+    /** FloorTransitionState arrived on floorY: restock for its input if short, otherwise SEEK. */
+    void onFloorReached(MinecraftClient client, int floorY) {
+        primaryFloorY = floorY;
+        arrivedOnFloorMs = TickClock.nowMs();  // Track arrival time
+        floorReturnAttempts = 0; // Successfully reached floor, reset fall counter
+
+        // Check if we need to restock for this floor's input item
+        Identifier inputId = StorageRegistry.getRememberedItem(Role.INPUT, floorY).orElse(null);
+        int haveInput = (inputId != null) ? countItemById(client, inputId) : 0;
+
+        if (haveInput < 32 && inputId != null) {
+            // Don't have enough input items for this floor - go restock first
+            dbg("floor arrival: need restock, have " + haveInput + " of " + inputId.getPath());
+            currentChestPos = null;
+            currentChestOpenSpot = null;
+            currentApproachGoal = null;
+            containerSession = null;
+            setState(State.DETOUR_RESTOCK);
+        } else {
+            setState(State.SEEK);
         }
     }
 }
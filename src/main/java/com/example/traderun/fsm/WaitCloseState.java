@@ -0,0 +1,142 @@
+package com.example.traderun.fsm;
+
+import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.cooldown.CooldownRegistry;
+import com.example.traderun.cooldown.InteractedVillagerRegistry;
+import com.example.traderun.cooldown.RecentFailRegistry;
+import com.example.traderun.floor.FloorRegistry;
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.metrics.TradeRunMetrics;
+import com.example.traderun.trade.MerchantTracker;
+import com.example.traderun.trade.TradeExecutor;
+import com.example.traderun.util.TickClock;
+import com.example.traderun.villager.OfferProfileRegistry;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.MerchantScreen;
+import net.minecraft.screen.MerchantScreenHandler;
+
+/**
+ * WAIT_CLOSE: the merchant screen is open. Trade (natively or by letting AutoTrade click),
+ * close as soon as nothing more can trade, then register the cooldown from what actually
+ * happened. Completion is driven by merchant packets, see MerchantTracker.
+ */
+final class WaitCloseState implements StateHandler {
+
+    // Server time (TickClock.serverNowMs) - waits on the server, so it stretches with lag
+    private static final long OFFERS_TIMEOUT_MS = TickClock.ticksToMs(30); // Close if the offers packet never arrives
+
+    private final TradeRunStateMachine m;
+    private TradeContext trade = new TradeContext();
+
+    WaitCloseState(TradeRunStateMachine m) {
+        this.m = m;
+    }
+
+    @Override
+    public void enter() {
+        trade = new TradeContext();
+    }
+
+    /** Close the JFR span on every way out, including stop and budget recovery. */
+    @Override
+    public void exit() {
+        if (trade.jfrSession != null) {
+            trade.jfrSession.outcome = trade.outcome.name();
+            trade.jfrSession.trades = trade.tradesObserved;
+            trade.jfrSession.commit();
+            trade.jfrSession = null;
+        }
+    }
+
+    @Override
+    public void tick(MinecraftClient client) {
+        if (client.player == null) return;
+
+        if (client.currentScreen instanceof MerchantScreen screen) {
+            MerchantScreenHandler handler = screen.getScreenHandler();
+            long now = TickClock.serverNowMs();
+
+            // First tick in WAIT_CLOSE - record starting inventory and time
+            if (trade.guiOpenedMs == 0L) {
+                trade.guiOpenedMs = now;
+                trade.invCountAtStart = m.countTotalInventoryItems(client);
+                trade.jfrSession = new JfrEvents.TradeSession();
+                trade.jfrSession.begin();
+            }
+
+            if (!MerchantTracker.offersReceived(handler)) {
+                if (now - trade.guiOpenedMs < OFFERS_TIMEOUT_MS) return;
+                m.dbg("no offers packet after " + OFFERS_TIMEOUT_MS + "ms, closing");
+                m.closeAnyScreenProperly(client);
+            } else {
+                trade.tradesObserved = MerchantTracker.tradesDone(handler);
+                if (!trade.profileRecorded) {
+                    OfferProfileRegistry.record(m.target(), handler.getRecipes(),
+                            FloorRegistry.getTradeWhitelist(m.currentFloorKeyY(client)));
+                    trade.profileRecorded = true;
+                }
+
+                if (TradeRunSettings.get().nativeTrading) {
+                    // Native trading: the executor knows exactly when nothing is left to trade
+                    if (trade.executor == null) {
+                        trade.executor = new TradeExecutor(FloorRegistry.getTradeWhitelist(m.currentFloorKeyY(client)));
+                        m.dbg("native trading started");
+                    }
+                    trade.executor.tick(client);
+                    if (!trade.executor.done) return;
+                    trade.tradesObserved = MerchantTracker.tradesDone(handler);
+                    m.dbg("native trading done (" + trade.executor.stats() + ")" +
+                            (trade.executor.error != null ? ": " + trade.executor.error : ""));
+                    m.closeAnyScreenProperly(client);
+                } else {
+                    // AutoTrade does the clicking - close the moment nothing more can trade
+                    boolean canTradeMore = MerchantTracker.anyTradeable(client.player, handler, null);
+                    switch (AutoTradeClose.decide(canTradeMore, trade.tradesObserved,
+                            MerchantTracker.offersAtMs(), MerchantTracker.lastActivityMs(), now)) {
+                        case NOTHING_TRADEABLE -> m.dbg("no trade left (" + trade.tradesObserved + " done), closing");
+                        case TRADER_IDLE -> m.dbg("trader idle after " + trade.tradesObserved + " trades, closing");
+                        case NO_TRADE -> m.dbg("no trade " + AutoTradeClose.NO_TRADE_TIMEOUT_MS + "ms after offers/activity, closing");
+                        case KEEP_OPEN -> {
+                            return; // Still trading
+                        }
+                    }
+                    m.closeAnyScreenProperly(client);
+                }
+            }
+
+            if (trade.tradesObserved > 0) trade.outcome = TradeContext.Outcome.TRADED;
+            else if (MerchantTracker.allExhausted(handler)) trade.outcome = TradeContext.Outcome.EXHAUSTED;
+            // Fall through to cleanup below
+        } else if (trade.outcome == TradeContext.Outcome.NONE && trade.invCountAtStart >= 0
+                && m.countTotalInventoryItems(client) > trade.invCountAtStart) {
+            // Screen was closed by someone else (AutoTrade) - items arriving is the evidence
+            trade.outcome = TradeContext.Outcome.TRADED;
+        }
+
+        // Screen is closed - register cooldown (only if the villager actually traded
+        // or has nothing left to sell until it restocks)
+        if (m.target() != null && !trade.cooldownRegistered) {
+            if (trade.outcome == TradeContext.Outcome.TRADED) {
+                TradeRunMetrics.onVillagerTraded(trade.tradesObserved);
+            }
+            if (trade.outcome != TradeContext.Outcome.NONE) {
+                CooldownRegistry.onVillagerTraded(m.target());
+                InteractedVillagerRegistry.markInteracted(m.target());
+                trade.cooldownRegistered = true;
+                m.dbg("cooldown registered for villager (" + trade.outcome + ")");
+
+                // After successful trade, clear short-term fails and retry counters
+                // (player position changed, previously-blocked approaches might now be accessible)
+                RecentFailRegistry.clearAll();
+                RecentFailRegistry.clearFailCounts();
+            } else {
+                RecentFailRegistry.markFailure(m.target());
+                TradeRunMetrics.onFailure("no_trade");
+                m.dbg("no trade happened, not marking cooldown");
+            }
+        }
+
+        m.finishVillager(client);
+        m.dbg("WAIT_CLOSE -> SEEK");
+    }
+}
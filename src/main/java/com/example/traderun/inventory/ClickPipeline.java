@@ -0,0 +1,151 @@
+package com.example.traderun.inventory;
+
+import com.example.traderun.jfr.JfrEvents;
+
+/**
+ * Paces container clicks from server acknowledgements instead of a fixed delay.
+ *
+ * A vanilla server only answers a click with slot updates when the client's prediction
+ * was wrong, so an acknowledgement can be either:
+ * - any slot / inventory update for the open handler (TCP keeps them ordered), or
+ * - the smoothed round trip elapsing without a correction (prediction was accepted).
+ *
+ * At most {@code window} clicks are in flight at once, and clicks are never sent faster
+ * than {@code minIntervalMs} (the safety ceiling for anti-cheat plugins).
+ */
+public final class ClickPipeline {
+
+    private static final long RTT_FLOOR_MS = 25L;
+    private static final long ACK_SLACK_MS = 30L;
+
+    private final int window;
+    private final long minIntervalMs;
+    private final long maxAckWaitMs;
+
+    // Send times of in-flight clicks, oldest first (ring buffer)
+    private final long[] sentAtMs;
+    private int head = 0;
+    private int inFlight = 0;
+
+    private long lastClickMs = 0L;
+    private long smoothedRttMs = -1L;
+    private int clicksSent = 0;
+    private int acksReceived = 0;
+    private int timeouts = 0;
+
+    public ClickPipeline(int window, long minIntervalMs, long maxAckWaitMs) {
+        this.window = Math.max(1, window);
+        this.minIntervalMs = Math.max(0L, minIntervalMs);
+        this.maxAckWaitMs = Math.max(this.minIntervalMs, maxAckWaitMs);
+        this.sentAtMs = new long[this.window];
+    }
+
+    /** Seed the RTT estimate (e.g. from the player list latency) before the first click. */
+    public void seedRtt(long rttMs) {
+        if (smoothedRttMs < 0L && rttMs > 0L) {
+            smoothedRttMs = Math.max(RTT_FLOOR_MS, rttMs);
+        }
+    }
+
+    public boolean canClick(long now) {
+        expireStale(now);
+        if (inFlight >= window) return false;
+        return now - lastClickMs >= minIntervalMs;
+    }
+
+    public void onClickSent(long now) {
+        occupySlot(now);
+        clicksSent++;
+        recordClick(1);
+    }
+
+    /**
+     * Several clicks sent back-to-back in one frame (like vanilla's shift-double-click).
+     * The burst occupies a single window slot - the server answers it as one batch.
+     */
+    public void onBurstSent(long now, int clicks) {
+        if (clicks <= 0) return;
+        occupySlot(now);
+        clicksSent += clicks;
+        recordClick(clicks);
+    }
+
+    private void occupySlot(long now) {
+        if (inFlight >= window) {
+            // Caller ignored canClick - drop the oldest so the ring stays consistent
+            pop();
+        }
+        sentAtMs[(head + inFlight) % window] = now;
+        inFlight++;
+        lastClickMs = now;
+    }
+
+    private void recordClick(int clicks) {
+        JfrEvents.ContainerClick event = new JfrEvents.ContainerClick();
+        event.clicks = clicks;
+        event.inFlight = inFlight;
+        event.rttMs = smoothedRttMs;
+        event.commit();
+    }
+
+    /** Server sent something for our handler - the oldest in-flight click has been processed. */
+    public void onAck(long now) {
+        if (inFlight == 0) return;
+        long rtt = now - pop();
+        updateRtt(rtt);
+        acksReceived++;
+        JfrEvents.ContainerAck event = new JfrEvents.ContainerAck();
+        event.rttMs = rtt;
+        event.commit();
+    }
+
+    /** Full resync from the server - every click sent before it has been processed. */
+    public void onResync(long now) {
+        while (inFlight > 0) {
+            onAck(now);
+        }
+    }
+
+    public void reset() {
+        head = 0;
+        inFlight = 0;
+        lastClickMs = 0L;
+    }
+
+    public int inFlight() { return inFlight; }
+    public int clicksSent() { return clicksSent; }
+    public int acksReceived() { return acksReceived; }
+    public int timeouts() { return timeouts; }
+    public long smoothedRttMs() { return smoothedRttMs; }
+
+    /** How long an unacknowledged click is assumed to still be in flight. */
+    public long ackWaitMs() {
+        if (smoothedRttMs < 0L) return maxAckWaitMs;
+        return Math.min(maxAckWaitMs, Math.max(minIntervalMs, smoothedRttMs + ACK_SLACK_MS));
+    }
+
+    private void expireStale(long now) {
+        long wait = ackWaitMs();
+        while (inFlight > 0 && now - sentAtMs[head] >= wait) {
+            pop();
+            timeouts++;
+        }
+    }
+
+    private long pop() {
+        long sent = sentAtMs[head];
+        head = (head + 1) % window;
+        inFlight--;
+        return sent;
+    }
+
+    private void updateRtt(long sampleMs) {
+        long sample = Math.max(RTT_FLOOR_MS, sampleMs);
+        if (smoothedRttMs < 0L) {
+            smoothedRttMs = sample;
+        } else {
+            // EWMA with alpha = 1/4
+            smoothedRttMs = (3L * smoothedRttMs + sample) / 4L;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.traderun.inventory;
 
+import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.util.TickClock;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.PlayerListEntry;
 import net.minecraft.client.gui.screen.ingame.HandledScreen;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.Item;
@@ -12,14 +15,13 @@ import net.minecraft.screen.slot.Slot;
 import net.minecraft.screen.slot.SlotActionType;
 import net.minecraft.util.Identifier;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Random;
-
 /**
  * Safe, throttled client-side container operations (Paper-safe pacing).
  *
+ * Clicks are paced by a {@link ClickPipeline}: a bounded window of clicks in flight,
+ * released by server slot updates or the measured round trip, never faster than
+ * the configured minimum click interval.
+ *
  * INPUT / OUTPUT SELECTION RULE:
  * - The "selected item" is defined ONLY by the top-left slot of the container UI.
  * - If that top-left slot is empty, we keep using the already-known remembered item,
@@ -29,6 +31,29 @@ public final class ContainerOps {
 
     private ContainerOps() {}
 
+    /** Session currently clicking in an open handler (receives server acknowledgements). */
+    private static Session activeSession = null;
+
+    /** Called from the network handler after a slot update packet was applied. */
+    public static void onSlotUpdate(int syncId, int revision, int slot) {
+        Session s = activeSession;
+        if (s == null || s.done) return;
+        if (syncId != s.syncId) return;
+        s.pipeline.onAck(TickClock.nowMs());
+    }
+
+    /**
+     * Called from the network handler after a full inventory packet was applied. Only a
+     * packet for the session's own handler acknowledges its clicks; the player handler
+     * (syncId 0) is resent on its own and says nothing about the container.
+     */
+    public static void onInventoryResync(int syncId) {
+        Session s = activeSession;
+        if (s == null || s.done) return;
+        if (syncId != s.syncId) return;
+        s.pipeline.onResync(TickClock.nowMs());
+    }
+
     public enum Mode {
         /** Withdraw ONLY the selected input item until reserved empty slots remain. */
         WITHDRAW_INPUT_FILL_LEAVE_EMPTY,
@@ -59,17 +84,46 @@ public final class ContainerOps {
         /** Selected output item id (preseed from remembered per-floor). */
         public Identifier outputItemId = null;
 
-        private long lastClickMs = 0L;
-        private long lastProgressMs = 0L;
-        private final Random rng = new Random();
+        private final ClickPipeline pipeline;
+        /** Send the whole plan as one burst instead of one paced click at a time. */
+        private final boolean bulk;
+        private int syncId = -1;
+        private int handlerSeenTick = 0;
+
+        /** Built once per handler, after its contents arrived. */
+        private TransferPlan plan = null;
+        private Item planItem = null;
+        private String lastPlanSummary = "none";
+
+        // Slot layout of the current handler, indexed once per syncId
+        private int[] containerSlots = new int[0];
+        private int[] playerSlots = new int[0];
+        private int topLeftIdx = -1;
+        private final SlotScan scan = new SlotScan();
+
+        // Main inventory counters for the planned item (see scanMain)
+        private int mainCount = 0;
+        private int mainEmpty = 0;
+        private int mainRoom = 0;
 
         public Session(Mode mode, int reservedEmptySlots, int desiredMinCount) {
             this.mode = mode;
             this.reservedEmptySlots = Math.max(0, reservedEmptySlots);
             this.desiredMinCount = desiredMinCount;
+
+            TradeRunSettings settings = TradeRunSettings.get();
+            this.pipeline = new ClickPipeline(
+                    settings.containerClickWindow,
+                    settings.containerMinClickMs,
+                    settings.containerMaxAckWaitMs
+            );
+            this.bulk = settings.bulkContainerTransfers;
         }
 
         public int tickCount = 0;
+
+        /** Fallback if the handler revision never moves (e.g. server without revisions). */
+        private static final int CONTENTS_WAIT_TICKS = 10;
         
         public void tick(MinecraftClient client) {
             if (done) return;
@@ -103,281 +157,267 @@ public final class ContainerOps {
                 return;
             }
 
-            List<Integer> containerSlots = getContainerSlotIndices(client.player, handler);
-            if (containerSlots.isEmpty()) {
+            if (handler.syncId != syncId) {
+                // New handler - clicks sent to the old one can never be acknowledged
+                syncId = handler.syncId;
+                pipeline.reset();
+                pipeline.seedRtt(playerLatencyMs(client));
+                plan = null;
+                handlerSeenTick = tickCount;
+                indexSlots(client.player, handler);
+            }
+            activeSession = this;
+
+            // Plan only once the server sent the contents (initial sync bumps the revision)
+            if (plan == null && handler.getRevision() == 0 && tickCount - handlerSeenTick < CONTENTS_WAIT_TICKS) {
+                return;
+            }
+
+            if (containerSlots.length == 0) {
                 error = "No container slots detected (handler has " + handler.slots.size() + " slots)";
                 done = true;
                 return;
             }
 
             switch (mode) {
-                case WITHDRAW_INPUT_FILL_LEAVE_EMPTY -> tickWithdrawInput(client, handler, containerSlots);
-                case DEPOSIT_OUTPUT_ITEM -> tickDepositOutputItem(client, handler, containerSlots);
-                case DEPOSIT_INPUT_ITEM -> tickDepositInputItem(client, handler, containerSlots);
+                case WITHDRAW_INPUT_FILL_LEAVE_EMPTY -> tickWithdrawInput(client, handler);
+                case DEPOSIT_OUTPUT_ITEM -> tickDepositOutputItem(client, handler);
+                case DEPOSIT_INPUT_ITEM -> tickDepositInputItem(client, handler);
                 case DEPOSIT_EMERALDS -> tickDepositEmeralds(client, handler);
             }
         }
 
-        private void tickWithdrawInput(MinecraftClient client, ScreenHandler handler, List<Integer> containerSlots) {
+        private void tickWithdrawInput(MinecraftClient client, ScreenHandler handler) {
             PlayerEntity player = client.player;
 
-            Integer topLeftIdx = topLeftContainerSlotIndex(handler, containerSlots);
-            if (topLeftIdx == null) {
-                error = "No container slots (found " + containerSlots.size() + " slots)";
-                done = true;
-                return;
-            }
-
-            // Check first slot of INPUT container - this defines what INPUT item is
-            Slot topLeft = handler.slots.get(topLeftIdx);
-            ItemStack topLeftStack = topLeft.getStack();
-            if (topLeftStack != null && !topLeftStack.isEmpty()) {
-                Identifier id = Registries.ITEM.getId(topLeftStack.getItem());
-                if (id == null) {
-                    error = "Failed to identify input item";
+            if (plan == null) {
+                if (topLeftIdx < 0) {
+                    error = "No container slots (found " + containerSlots.length + " slots)";
                     done = true;
                     return;
                 }
-                // First slot has an item - this IS the input item (update if different)
-                if (inputItemId == null || !inputItemId.equals(id)) {
-                    inputItemId = id;
-                }
-            }
-            // If first slot is empty, keep using remembered inputItemId (don't clear it)
-
-            // We MUST know the input item to withdraw anything
-            if (inputItemId == null) {
-                // Check if container has any items at all
-                int nonEmpty = 0;
-                for (int idx : containerSlots) {
-                    ItemStack st = handler.slots.get(idx).getStack();
-                    if (st != null && !st.isEmpty()) nonEmpty++;
-                }
-                if (nonEmpty == 0) {
-                    error = "INPUT container is empty - waiting for items";
-                } else {
-                    error = "Put input item in INPUT chest's first slot once to learn it";
-                }
-                done = true;
-                return;
-            }
 
-            Item inputItem = Registries.ITEM.get(inputItemId);
-            if (inputItem == null) {
-                error = "Unknown input item id";
-                done = true;
-                return;
-            }
-
-            int emptyMain = emptyMainSlots(player);
-
-            if (emptyMain <= reservedEmptySlots) {
-                if (desiredMinCount > 0) {
-                    int have = countInMain(player, inputItem);
-                    if (have < desiredMinCount) {
-                        int missing = desiredMinCount - have;
-                        error = "inventory full, remove " + missing + " items";
+                // Check first slot of INPUT container - this defines what INPUT item is
+                Slot topLeft = handler.slots.get(topLeftIdx);
+                ItemStack topLeftStack = topLeft.getStack();
+                if (topLeftStack != null && !topLeftStack.isEmpty()) {
+                    Identifier id = Registries.ITEM.getId(topLeftStack.getItem());
+                    if (id == null) {
+                        error = "Failed to identify input item";
+                        done = true;
+                        return;
+                    }
+                    // First slot has an item - this IS the input item (update if different)
+                    if (inputItemId == null || !inputItemId.equals(id)) {
+                        inputItemId = id;
                     }
                 }
-                done = true;
-                return;
-            }
-
-            // Withdraw ONLY the selected input item - prioritize larger stacks
-            int slotToMove = -1;
-            int largestCount = 0;
-            for (int idx : containerSlots) {
-                Slot slot = handler.slots.get(idx);
-                ItemStack st = slot.getStack();
-                if (st == null || st.isEmpty()) continue;
-                if (st.getItem() == inputItem) {
-                    int count = st.getCount();
-                    if (count > largestCount) {
-                        largestCount = count;
-                        slotToMove = idx;
+                // If first slot is empty, keep using remembered inputItemId (don't clear it)
+
+                // We MUST know the input item to withdraw anything
+                if (inputItemId == null) {
+                    // Check if container has any items at all
+                    int nonEmpty = 0;
+                    for (int idx : containerSlots) {
+                        ItemStack st = handler.slots.get(idx).getStack();
+                        if (st != null && !st.isEmpty()) nonEmpty++;
                     }
+                    if (nonEmpty == 0) {
+                        error = "INPUT container is empty - waiting for items";
+                    } else {
+                        error = "Put input item in INPUT chest's first slot once to learn it";
+                    }
+                    done = true;
+                    return;
                 }
-            }
 
-            if (slotToMove == -1) {
-                done = true;
-                return;
-            }
-
-            if (!canClickNow()) return;
-
-            int beforeCount = countInMain(player, inputItem);
-            int beforeEmpty = emptyMainSlots(player);
+                planItem = Registries.ITEM.get(inputItemId);
+                if (planItem == null) {
+                    error = "Unknown input item id";
+                    done = true;
+                    return;
+                }
 
-            quickMove(client, handler, slotToMove);
+                // Withdraw ONLY the selected input item - larger stacks first
+                int n = collectSources(handler, containerSlots, planItem);
+                scan.sortByCountDesc(n);
 
-            int afterCount = countInMain(player, inputItem);
-            int afterEmpty = emptyMainSlots(player);
+                scanMain(player, planItem);
+                int freeSlots = Math.max(0, mainEmpty - reservedEmptySlots);
+                int capacity = mainRoom + freeSlots * planItem.getMaxCount();
+                plan = buildPlan(n, capacity);
+            }
 
-            boolean progress = (afterCount > beforeCount) || (afterEmpty < beforeEmpty);
-            if (progress) {
-                lastProgressMs = System.currentTimeMillis();
-                return;
+            if (plan.hasNext()) {
+                if (!canClickNow()) return;
+                runPlan(client, handler);
+                if (plan.hasNext()) return;
             }
 
-            long now = System.currentTimeMillis();
-            if (lastProgressMs == 0L) lastProgressMs = now;
-            if (now - lastProgressMs > 1200L) {
-                if (desiredMinCount > 0) {
-                    int have = countInMain(player, inputItem);
-                    if (have < desiredMinCount) {
-                        int missing = desiredMinCount - have;
-                        error = "inventory full, remove " + missing + " items";
-                    }
+            if (plan.capacityLimited() && desiredMinCount > 0) {
+                scanMain(player, planItem);
+                int have = mainCount;
+                if (have < desiredMinCount) {
+                    int missing = desiredMinCount - have;
+                    error = "inventory full, remove " + missing + " items";
                 }
-                done = true;
             }
+            done = true;
         }
 
-        private int lastDepositCount = -1;
-        private long lastDepositProgressMs = 0L;
-        
-        private void tickDepositOutputItem(MinecraftClient client, ScreenHandler handler, List<Integer> containerSlots) {
-            PlayerEntity player = client.player;
-
-            Integer topLeftIdx = topLeftContainerSlotIndex(handler, containerSlots);
-            if (topLeftIdx == null) {
-                error = "No container slots detected";
-                done = true;
-                return;
-            }
+        private void tickDepositOutputItem(MinecraftClient client, ScreenHandler handler) {
+            if (plan == null) {
+                if (topLeftIdx < 0) {
+                    error = "No container slots detected";
+                    done = true;
+                    return;
+                }
 
-            // Check first slot of OUTPUT container - this defines what OUTPUT item is
-            Slot topLeft = handler.slots.get(topLeftIdx);
-            ItemStack topLeftStack = topLeft.getStack();
-            if (topLeftStack != null && !topLeftStack.isEmpty()) {
-                Identifier id = Registries.ITEM.getId(topLeftStack.getItem());
-                if (id != null) {
-                    // First slot has an item - this IS the output item (update if different)
-                    if (outputItemId == null || !outputItemId.equals(id)) {
-                        outputItemId = id;
+                // Check first slot of OUTPUT container - this defines what OUTPUT item is
+                Slot topLeft = handler.slots.get(topLeftIdx);
+                ItemStack topLeftStack = topLeft.getStack();
+                if (topLeftStack != null && !topLeftStack.isEmpty()) {
+                    Identifier id = Registries.ITEM.getId(topLeftStack.getItem());
+                    if (id != null) {
+                        // First slot has an item - this IS the output item (update if different)
+                        if (outputItemId == null || !outputItemId.equals(id)) {
+                            outputItemId = id;
+                        }
                     }
                 }
-            }
-            // If first slot is empty, keep using remembered outputItemId (don't clear it)
+                // If first slot is empty, keep using remembered outputItemId (don't clear it)
 
-            // We MUST know the output item to deposit anything
-            if (outputItemId == null) {
-                error = "Output item unknown: put the output item in OUTPUT chest's first slot once";
-                done = true;
-                return;
-            }
+                // We MUST know the output item to deposit anything
+                if (outputItemId == null) {
+                    error = "Output item unknown: put the output item in OUTPUT chest's first slot once";
+                    done = true;
+                    return;
+                }
 
-            Item outItem = Registries.ITEM.get(outputItemId);
-            if (outItem == null) {
-                error = "Unknown output item id: " + outputItemId;
-                done = true;
-                return;
-            }
+                planItem = Registries.ITEM.get(outputItemId);
+                if (planItem == null) {
+                    error = "Unknown output item id: " + outputItemId;
+                    done = true;
+                    return;
+                }
 
-            // Count output items in player inventory
-            int currentCount = countInMain(player, outItem);
-            
-            // Track progress
-            if (lastDepositCount == -1) {
-                lastDepositCount = currentCount;
-                lastDepositProgressMs = System.currentTimeMillis();
-            } else if (currentCount != lastDepositCount) {
-                lastDepositCount = currentCount;
-                lastDepositProgressMs = System.currentTimeMillis();
-            }
-            
-            // If no progress for 3 seconds, container might be full - done
-            if (System.currentTimeMillis() - lastDepositProgressMs > 3000L && currentCount > 0) {
-                // Container might be full, done for now
-                done = true;
-                return;
+                // Deposit ONLY the output item - nothing else
+                plan = buildDepositPlan(handler, planItem);
             }
 
-            // Deposit ONLY the output item - nothing else
-            int outSlot = findPlayerInvSlot(handler, player, outItem);
-            if (outSlot != -1) {
+            if (plan.hasNext()) {
                 if (!canClickNow()) return;
-                quickMove(client, handler, outSlot);
-                return;
+                runPlan(client, handler);
+                if (plan.hasNext()) return;
             }
 
-            // No more output items to deposit
+            // Plan complete (everything moved, or the container is full)
             done = true;
         }
-        
-        private int lastInputDepositCount = -1;
-        private long lastInputDepositProgressMs = 0L;
-        
-        private void tickDepositInputItem(MinecraftClient client, ScreenHandler handler, List<Integer> containerSlots) {
-            PlayerEntity player = client.player;
 
-            Integer topLeftIdx = topLeftContainerSlotIndex(handler, containerSlots);
-            if (topLeftIdx == null) {
-                error = "No container slots detected";
-                done = true;
-                return;
-            }
+        private void tickDepositInputItem(MinecraftClient client, ScreenHandler handler) {
+            if (plan == null) {
+                // We MUST know the input item to deposit
+                if (inputItemId == null) {
+                    error = "Input item unknown - cannot return items";
+                    done = true;
+                    return;
+                }
 
-            // We MUST know the input item to deposit
-            if (inputItemId == null) {
-                error = "Input item unknown - cannot return items";
-                done = true;
-                return;
+                planItem = Registries.ITEM.get(inputItemId);
+                if (planItem == null) {
+                    error = "Unknown input item id: " + inputItemId;
+                    done = true;
+                    return;
+                }
+
+                // Deposit ONLY the input item - nothing else
+                plan = buildDepositPlan(handler, planItem);
             }
 
-            Item inputItem = Registries.ITEM.get(inputItemId);
-            if (inputItem == null) {
-                error = "Unknown input item id: " + inputItemId;
-                done = true;
-                return;
+            if (plan.hasNext()) {
+                if (!canClickNow()) return;
+                runPlan(client, handler);
+                if (plan.hasNext()) return;
             }
 
-            // Count input items in player inventory
-            int currentCount = countInMain(player, inputItem);
-            
-            // Track progress
-            if (lastInputDepositCount == -1) {
-                lastInputDepositCount = currentCount;
-                lastInputDepositProgressMs = System.currentTimeMillis();
-            } else if (currentCount != lastInputDepositCount) {
-                lastInputDepositCount = currentCount;
-                lastInputDepositProgressMs = System.currentTimeMillis();
+            // Plan complete (everything moved, or the container is full)
+            done = true;
+        }
+
+        private TransferPlan buildDepositPlan(ScreenHandler handler, Item item) {
+            int n = collectSources(handler, playerSlots, item);
+
+            int capacity = 0;
+            for (int idx : containerSlots) {
+                ItemStack st = handler.slots.get(idx).getStack();
+                if (st == null || st.isEmpty()) {
+                    capacity += item.getMaxCount();
+                } else if (st.getItem() == item) {
+                    capacity += Math.max(0, st.getMaxCount() - st.getCount());
+                }
             }
-            
-            // If no progress for 3 seconds, container might be full - done
-            if (System.currentTimeMillis() - lastInputDepositProgressMs > 3000L && currentCount > 0) {
-                // Container might be full, done for now
-                done = true;
+            return buildPlan(n, capacity);
+        }
+
+        /** Collect the slots from {@code range} holding {@code item} into the scan; returns how many. */
+        private int collectSources(ScreenHandler handler, int[] range, Item item) {
+            return scan.collect(range, idx -> {
+                ItemStack st = handler.slots.get(idx).getStack();
+                return (st == null || st.isEmpty() || st.getItem() != item) ? 0 : st.getCount();
+            });
+        }
+
+        private TransferPlan buildPlan(int n, int capacity) {
+            TransferPlan p = scan.plan(n, capacity);
+            lastPlanSummary = p.toString();
+            return p;
+        }
+
+        /**
+         * Send the next planned click, or in bulk mode the whole rest of the plan at once.
+         * Bulk mode mirrors vanilla shift-double-click, which sends one QUICK_MOVE per
+         * matching stack in the same frame.
+         */
+        private void runPlan(MinecraftClient client, ScreenHandler handler) {
+            if (!bulk) {
+                if (clickNextPlanned(client, handler)) {
+                    pipeline.onClickSent(TickClock.nowMs());
+                }
                 return;
             }
 
-            // Deposit ONLY the input item - nothing else
-            int inputSlot = findPlayerInvSlot(handler, player, inputItem);
-            if (inputSlot != -1) {
-                if (!canClickNow()) return;
-                quickMove(client, handler, inputSlot);
-                return;
+            int sent = 0;
+            while (plan.hasNext() && !done) {
+                if (clickNextPlanned(client, handler)) sent++;
             }
+            pipeline.onBurstSent(TickClock.nowMs(), sent);
+        }
 
-            // No more input items to deposit
-            done = true;
+        /** Click the next planned slot, skipping entries that no longer hold the planned item. */
+        private boolean clickNextPlanned(MinecraftClient client, ScreenHandler handler) {
+            while (plan.hasNext()) {
+                int idx = plan.next();
+                if (idx < 0 || idx >= handler.slots.size()) continue;
+                ItemStack st = handler.slots.get(idx).getStack();
+                if (st == null || st.isEmpty() || st.getItem() != planItem) continue;
+                return quickMove(client, handler, idx);
+            }
+            return false;
         }
 
         private void tickDepositEmeralds(MinecraftClient client, ScreenHandler handler) {
-            PlayerEntity player = client.player;
-
-            int emeraldBlockSlot = findPlayerInvSlot(handler, player, Items.EMERALD_BLOCK);
+            int emeraldBlockSlot = findPlayerInvSlot(handler, Items.EMERALD_BLOCK);
             if (emeraldBlockSlot != -1) {
                 if (!canClickNow()) return;
-                quickMove(client, handler, emeraldBlockSlot);
+                if (quickMove(client, handler, emeraldBlockSlot)) pipeline.onClickSent(TickClock.nowMs());
                 return;
             }
 
-            int emeraldSlot = findPlayerInvSlot(handler, player, Items.EMERALD);
+            int emeraldSlot = findPlayerInvSlot(handler, Items.EMERALD);
             if (emeraldSlot != -1) {
                 if (!canClickNow()) return;
-                quickMove(client, handler, emeraldSlot);
+                if (quickMove(client, handler, emeraldSlot)) pipeline.onClickSent(TickClock.nowMs());
                 return;
             }
 
@@ -385,16 +425,10 @@ public final class ContainerOps {
         }
 
         private boolean canClickNow() {
-            long now = System.currentTimeMillis();
-            long base = 220L;
-            long jitter = rng.nextInt(41);
-            long delay = base + jitter;
-            if (now - lastClickMs < delay) return false;
-            lastClickMs = now;
-            return true;
+            return pipeline.canClick(TickClock.nowMs());
         }
 
-        private void quickMove(MinecraftClient client, ScreenHandler handler, int slotIndex) {
+        private boolean quickMove(MinecraftClient client, ScreenHandler handler, int slotIndex) {
             try {
                 client.interactionManager.clickSlot(
                         handler.syncId,
@@ -403,64 +437,81 @@ public final class ContainerOps {
                         SlotActionType.QUICK_MOVE,
                         client.player
                 );
+                return true;
             } catch (Throwable t) {
                 error = "clickSlot failed";
                 done = true;
+                return false;
             }
         }
 
-        private static Integer topLeftContainerSlotIndex(ScreenHandler handler, List<Integer> containerSlots) {
-            return containerSlots.stream()
-                    .min(Comparator.<Integer>comparingInt(i -> handler.slots.get(i).y)
-                            .thenComparingInt(i -> handler.slots.get(i).x))
-                    .orElse(null);
+        /** Debug summary of click pacing for this session. */
+        public String pipelineStats() {
+            return "plan[" + lastPlanSummary + "]" + (bulk ? " bulk" : "") + " clicks=" + pipeline.clicksSent() + " acks=" + pipeline.acksReceived() +
+                    " timeouts=" + pipeline.timeouts() + " rtt=" + pipeline.smoothedRttMs() + "ms";
         }
-    }
 
-    private static List<Integer> getContainerSlotIndices(PlayerEntity player, ScreenHandler handler) {
-        List<Integer> out = new ArrayList<>();
-        var playerInv = player.getInventory();
-
-        for (int i = 0; i < handler.slots.size(); i++) {
-            Slot s = handler.slots.get(i);
-            if (s == null) continue;
-            if (s.inventory == playerInv) continue;
-            out.add(i);
+        private static long playerLatencyMs(MinecraftClient client) {
+            try {
+                if (client.getNetworkHandler() == null || client.player == null) return -1L;
+                PlayerListEntry entry = client.getNetworkHandler().getPlayerListEntry(client.player.getUuid());
+                return entry != null ? entry.getLatency() : -1L;
+            } catch (Throwable t) {
+                return -1L;
+            }
         }
-        return out;
-    }
 
-    private static int findPlayerInvSlot(ScreenHandler handler, PlayerEntity player, Item item) {
-        var playerInv = player.getInventory();
-        for (int i = 0; i < handler.slots.size(); i++) {
-            Slot s = handler.slots.get(i);
-            if (s == null) continue;
-            if (s.inventory != playerInv) continue;
+        /** Split handler slots into container / player ranges and find the top-left container slot. */
+        private void indexSlots(PlayerEntity player, ScreenHandler handler) {
+            var playerInv = player.getInventory();
+            int size = handler.slots.size();
+            int containerCount = 0;
+            int playerCount = 0;
+            for (int i = 0; i < size; i++) {
+                Slot s = handler.slots.get(i);
+                if (s == null) continue;
+                if (s.inventory == playerInv) playerCount++;
+                else containerCount++;
+            }
 
-            ItemStack st = s.getStack();
-            if (st == null || st.isEmpty()) continue;
-            if (st.getItem() == item) return i;
+            containerSlots = new int[containerCount];
+            playerSlots = new int[playerCount];
+            scan.resize(size);
+            topLeftIdx = -1;
+
+            int c = 0;
+            int p = 0;
+            for (int i = 0; i < size; i++) {
+                Slot s = handler.slots.get(i);
+                if (s == null) continue;
+                if (s.inventory == playerInv) {
+                    playerSlots[p++] = i;
+                    continue;
+                }
+                containerSlots[c++] = i;
+                if (topLeftIdx < 0) {
+                    topLeftIdx = i;
+                } else {
+                    Slot best = handler.slots.get(topLeftIdx);
+                    if (s.y < best.y || (s.y == best.y && s.x < best.x)) topLeftIdx = i;
+                }
+            }
         }
-        return -1;
-    }
 
-    private static int emptyMainSlots(PlayerEntity player) {
-        int empty = 0;
-        var main = player.getInventory().main;
-        for (ItemStack st : main) {
-            if (st == null || st.isEmpty()) empty++;
+        private int findPlayerInvSlot(ScreenHandler handler, Item item) {
+            for (int idx : playerSlots) {
+                ItemStack st = handler.slots.get(idx).getStack();
+                if (st == null || st.isEmpty()) continue;
+                if (st.getItem() == item) return idx;
+            }
+            return -1;
         }
-        return empty;
-    }
 
-    private static int countInMain(PlayerEntity player, Item item) {
-        int c = 0;
-        var main = player.getInventory().main;
-        for (ItemStack st : main) {
-            if (st == null || st.isEmpty()) continue;
-            if (st.getItem() == item) c += st.getCount();
+        /** Main inventory counters for this item, from the InventoryLedger. */
+        private void scanMain(PlayerEntity player, Item item) {
+            mainCount = InventoryLedger.count(player, item);
+            mainEmpty = InventoryLedger.emptySlots(player);
+            mainRoom = InventoryLedger.room(player, item);
         }
-        return c;
     }
 }
-
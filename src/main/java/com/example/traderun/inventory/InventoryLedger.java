@@ -0,0 +1,227 @@
+package com.example.traderun.inventory;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.screen.slot.Slot;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running per-item counts for the player's main inventory (hotbar included).
+ *
+ * Slots are marked dirty by server slot updates, direct player inventory updates
+ * (pickups), full inventory resyncs and every
+ * container click sent from this client (ClientPlayerInteractionManagerMixin) - client
+ * prediction changes stacks and the server does not echo a matching prediction. Only
+ * dirty slots are re-read, and the per-item totals are adjusted by the difference, so
+ * queries are O(1) once the ledger is clean. A periodic full pass guards against local
+ * changes we don't hear about.
+ */
+public final class InventoryLedger {
+
+    private InventoryLedger() {}
+
+    /** Notified after a slot change moved the total of an item. */
+    public interface Listener {
+        void onCountChanged(Item item, int oldCount, int newCount);
+    }
+
+    private static final int MAIN_SIZE = 36;
+    private static final long ALL_DIRTY = (1L << MAIN_SIZE) - 1L;
+    private static final int GUARD_INTERVAL_TICKS = 40;
+
+    // Snapshot of what each main slot held when last read
+    private static final Item[] slotItem = new Item[MAIN_SIZE];
+    private static final int[] slotCount = new int[MAIN_SIZE];
+    private static final int[] slotRoom = new int[MAIN_SIZE];
+
+    // Per item: [0] = count, [1] = room left in its partial stacks
+    private static final Map<Item, int[]> totals = new IdentityHashMap<>();
+    private static final List<Listener> listeners = new ArrayList<>();
+
+    private static long dirtyMask = ALL_DIRTY;
+    private static int emptySlots = 0;
+    private static int totalItems = 0;
+    private static PlayerEntity trackedPlayer = null;
+    private static int guardTicks = 0;
+
+    public static void addListener(Listener listener) {
+        if (listener != null && !listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // ========== Queries ==========
+
+    public static int count(PlayerEntity player, Item item) {
+        if (player == null || item == null) return 0;
+        refresh(player);
+        int[] t = totals.get(item);
+        return t == null ? 0 : t[0];
+    }
+
+    /** Items of this type that still fit into existing partial stacks. */
+    public static int room(PlayerEntity player, Item item) {
+        if (player == null || item == null) return 0;
+        refresh(player);
+        int[] t = totals.get(item);
+        return t == null ? 0 : t[1];
+    }
+
+    public static int emptySlots(PlayerEntity player) {
+        if (player == null) return 0;
+        refresh(player);
+        return emptySlots;
+    }
+
+    public static int totalItems(PlayerEntity player) {
+        if (player == null) return 0;
+        refresh(player);
+        return totalItems;
+    }
+
+    // ========== Invalidation ==========
+
+    public static void markDirty(int mainIndex) {
+        if (mainIndex < 0 || mainIndex >= MAIN_SIZE) return;
+        dirtyMask |= 1L << mainIndex;
+    }
+
+    public static void markAllDirty() {
+        dirtyMask = ALL_DIRTY;
+    }
+
+    /**
+     * Called from the network handler after a slot update was applied.
+     * Resolves the handler slot to a main inventory index and re-reads just that slot.
+     */
+    public static void onSlotUpdate(int syncId, int slot) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        PlayerEntity player = client.player;
+        if (player == null) return;
+
+        PlayerInventory inv = player.getInventory();
+        ScreenHandler handler = null;
+        if (syncId == 0) handler = player.playerScreenHandler;
+        else if (player.currentScreenHandler != null && player.currentScreenHandler.syncId == syncId) handler = player.currentScreenHandler;
+
+        if (handler == null || slot < 0 || slot >= handler.slots.size()) {
+            markAllDirty();
+        } else {
+            Slot s = handler.slots.get(slot);
+            if (s != null && s.inventory == inv) markDirty(s.getIndex());
+        }
+        refresh(player);
+    }
+
+    /**
+     * Called after a SetPlayerInventory packet was applied: the server's way of changing
+     * one player inventory slot directly (item pickups), by inventory index rather than
+     * handler slot.
+     */
+    public static void onPlayerInventorySlot(int index) {
+        PlayerEntity player = MinecraftClient.getInstance().player;
+        if (player == null) return;
+        markDirty(index);
+        refresh(player);
+    }
+
+    /**
+     * Called after any container click was predicted locally. Shift-clicks, pickup-all and
+     * swaps touch slots other than the clicked one, so everything is re-read.
+     */
+    public static void onLocalClick(PlayerEntity player) {
+        markAllDirty();
+        if (player != null) refresh(player);
+    }
+
+    /** Called from the network handler after a full inventory packet was applied. */
+    public static void onInventoryResync() {
+        markAllDirty();
+        PlayerEntity player = MinecraftClient.getInstance().player;
+        if (player != null) refresh(player);
+    }
+
+    public static void tick(MinecraftClient client) {
+        if (client == null || client.player == null) return;
+        if (++guardTicks >= GUARD_INTERVAL_TICKS) {
+            guardTicks = 0;
+            markAllDirty();
+        }
+        refresh(client.player);
+    }
+
+    // ========== Internals ==========
+
+    private static void refresh(PlayerEntity player) {
+        if (player != trackedPlayer) {
+            // New world / respawn - start from scratch
+            trackedPlayer = player;
+            totals.clear();
+            for (int i = 0; i < MAIN_SIZE; i++) {
+                slotItem[i] = null;
+                slotCount[i] = 0;
+                slotRoom[i] = 0;
+            }
+            emptySlots = MAIN_SIZE;
+            totalItems = 0;
+            dirtyMask = ALL_DIRTY;
+        }
+        if (dirtyMask == 0L) return;
+
+        var main = player.getInventory().main;
+        long mask = dirtyMask;
+        dirtyMask = 0L;
+
+        int limit = Math.min(MAIN_SIZE, main.size());
+        while (mask != 0L) {
+            int i = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1L;
+            if (i >= limit) continue;
+            readSlot(i, main.get(i));
+        }
+    }
+
+    private static void readSlot(int i, ItemStack st) {
+        Item newItem = (st == null || st.isEmpty()) ? null : st.getItem();
+        int newCount = newItem == null ? 0 : st.getCount();
+        int newRoom = newItem == null ? 0 : Math.max(0, st.getMaxCount() - newCount);
+
+        Item oldItem = slotItem[i];
+        int oldCount = slotCount[i];
+        if (oldItem == newItem && oldCount == newCount && slotRoom[i] == newRoom) return;
+
+        int oldRoom = slotRoom[i];
+        // Update the snapshot first so listeners see consistent totals
+        totalItems += newCount - oldCount;
+        if (oldItem == null) emptySlots--;
+        if (newItem == null) emptySlots++;
+        slotItem[i] = newItem;
+        slotCount[i] = newCount;
+        slotRoom[i] = newRoom;
+
+        if (oldItem != null) adjust(oldItem, -oldCount, -oldRoom);
+        if (newItem != null) adjust(newItem, newCount, newRoom);
+    }
+
+    private static void adjust(Item item, int countDelta, int roomDelta) {
+        int[] t = totals.computeIfAbsent(item, k -> new int[2]);
+        int before = t[0];
+        t[0] += countDelta;
+        t[1] += roomDelta;
+        if (countDelta != 0) {
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onCountChanged(item, before, t[0]);
+            }
+        }
+    }
+}
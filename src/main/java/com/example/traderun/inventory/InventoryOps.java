@@ -18,24 +18,11 @@ public final class InventoryOps {
      * Counts empty slots in main inventory (includes hotbar). Excludes armor/offhand.
      */
     public static int emptyMainSlots(PlayerEntity player) {
-        if (player == null) return 0;
-        int empty = 0;
-        for (int i = 0; i < player.getInventory().main.size(); i++) {
-            ItemStack s = player.getInventory().main.get(i);
-            if (s == null || s.isEmpty()) empty++;
-        }
-        return empty;
+        return InventoryLedger.emptySlots(player);
     }
 
     public static int countItem(PlayerEntity player, Item item) {
-        if (player == null || item == null) return 0;
-        int count = 0;
-        for (int i = 0; i < player.getInventory().main.size(); i++) {
-            ItemStack s = player.getInventory().main.get(i);
-            if (s == null || s.isEmpty()) continue;
-            if (s.getItem() == item) count += s.getCount();
-        }
-        return count;
+        return InventoryLedger.count(player, item);
     }
 
     public static boolean hasItem(PlayerEntity player, Item item) {
@@ -50,6 +37,8 @@ public final class InventoryOps {
         }
         PlayerInventory inv = player.getInventory();
         DefaultedList<ItemStack> main = inv.main;
+        // Slots may be shuffled below without any packet
+        InventoryLedger.markAllDirty();
 
         // Always prefer the reserved safe slot; keep it empty if possible
         if (ensureSafeSlotEmpty(main)) {
@@ -0,0 +1,62 @@
+package com.example.traderun.inventory;
+
+/**
+ * Source side of a container session: which slots hold the planned item and how many,
+ * optionally largest stacks first, turned into a TransferPlan.
+ *
+ * Works on slot indices only; ContainerOps reads the stacks from the screen handler,
+ * benchmarks and the simulator from flat arrays. The scratch arrays are reused across
+ * plans, so one instance per session.
+ */
+public final class SlotScan {
+
+    /** Stack size of {@code slot} if it holds the planned item, 0 otherwise. */
+    @FunctionalInterface
+    public interface Counts {
+        int matching(int slot);
+    }
+
+    private int[] slots = new int[0];
+    private int[] counts = new int[0];
+
+    /** Make room for a handler with {@code size} slots. */
+    public void resize(int size) {
+        if (slots.length == size) return;
+        slots = new int[size];
+        counts = new int[size];
+    }
+
+    /** Fill the scratch arrays with the slots from {@code range} holding the item; returns how many. */
+    public int collect(int[] range, Counts stacks) {
+        int n = 0;
+        for (int idx : range) {
+            int count = stacks.matching(idx);
+            if (count <= 0) continue;
+            slots[n] = idx;
+            counts[n] = count;
+            n++;
+        }
+        return n;
+    }
+
+    /** Insertion sort - at most a few dozen entries, and no boxing. */
+    public void sortByCountDesc(int n) {
+        for (int i = 1; i < n; i++) {
+            int slot = slots[i];
+            int count = counts[i];
+            int j = i - 1;
+            while (j >= 0 && counts[j] < count) {
+                slots[j + 1] = slots[j];
+                counts[j + 1] = counts[j];
+                j--;
+            }
+            slots[j + 1] = slot;
+            counts[j + 1] = count;
+        }
+    }
+
+    /** Plan the first {@code n} collected sources into {@code capacity} items of room. */
+    public TransferPlan plan(int n, int capacity) {
+        return TransferPlan.build(slots, counts, n, capacity);
+    }
+}
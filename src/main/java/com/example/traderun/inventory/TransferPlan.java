@@ -0,0 +1,81 @@
+package com.example.traderun.inventory;
+
+/**
+ * Precomputed list of quick-moves for one container session.
+ *
+ * Built once when the handler contents are known: source stacks are taken in the
+ * given order until the destination capacity (free slots + room in matching partial
+ * stacks) is used up. Execution is just walking the list - the session is complete
+ * when the last click is sent, no "no progress" timeout is needed.
+ */
+public final class TransferPlan {
+
+    private final int[] slots;
+    private final int plannedItems;
+    private final boolean capacityLimited;
+    private int next = 0;
+
+    private TransferPlan(int[] slots, int plannedItems, boolean capacityLimited) {
+        this.slots = slots;
+        this.plannedItems = plannedItems;
+        this.capacityLimited = capacityLimited;
+    }
+
+    /**
+     * @param sourceSlots  handler slot indices holding the item, in click order
+     * @param sourceCounts stack size of each source slot
+     * @param capacity     how many items the destination can still accept
+     */
+    public static TransferPlan build(int[] sourceSlots, int[] sourceCounts, int capacity) {
+        return build(sourceSlots, sourceCounts, Math.min(sourceSlots.length, sourceCounts.length), capacity);
+    }
+
+    /** Same as {@link #build(int[], int[], int)} but only the first {@code n} entries are used. */
+    public static TransferPlan build(int[] sourceSlots, int[] sourceCounts, int n, int capacity) {
+        int[] out = new int[n];
+        int size = 0;
+        int planned = 0;
+        boolean limited = false;
+
+        for (int i = 0; i < n; i++) {
+            int count = sourceCounts[i];
+            if (count <= 0) continue;
+            if (capacity <= 0) {
+                limited = true;
+                break;
+            }
+            int moved = Math.min(count, capacity);
+            out[size++] = sourceSlots[i];
+            planned += moved;
+            capacity -= moved;
+            if (moved < count) {
+                // Last stack only partially fits - anything after it won't move at all
+                limited = true;
+                break;
+            }
+        }
+
+        int[] trimmed = new int[size];
+        System.arraycopy(out, 0, trimmed, 0, size);
+        return new TransferPlan(trimmed, planned, limited);
+    }
+
+    public boolean hasNext() { return next < slots.length; }
+
+    public int next() { return slots[next++]; }
+
+    public int size() { return slots.length; }
+
+    public int remaining() { return slots.length - next; }
+
+    /** Items expected to move once the plan is complete. */
+    public int plannedItems() { return plannedItems; }
+
+    /** True when the destination ran out of room before the source was emptied. */
+    public boolean capacityLimited() { return capacityLimited; }
+
+    @Override
+    public String toString() {
+        return "clicks=" + slots.length + " items=" + plannedItems + (capacityLimited ? " (full)" : "");
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.traderun.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events, so a recording (/traderun jfr start, or -XX:StartFlightRecording)
+ * lines the bot's states, pathing and container traffic up with GC, allocation and
+ * frame-time data in JDK Mission Control.
+ *
+ * Creating and committing an event while no recording has it enabled is a few field
+ * stores; JFR drops it in commit(). Stack traces are off - the event type says where.
+ * Hot paths create these events unconditionally, so the mod needs the jdk.jfr module;
+ * every standard Java runtime has it, including the ones Minecraft launchers ship.
+ */
+public final class JfrEvents {
+
+    private JfrEvents() {}
+
+    private static StateSpan openState = null;
+
+    /** Close the span of the state being left and open one for the next (client thread). */
+    public static void onStateChange(String to) {
+        if (openState != null) {
+            openState.next = to;
+            openState.commit();
+        }
+        StateSpan span = new StateSpan();
+        span.state = to;
+        span.begin();
+        openState = span;
+    }
+
+    @Name("traderun.State")
+    @Label("FSM State")
+    @Category({"TradeRun", "FSM"})
+    @Description("Time spent in one FSM state")
+    @StackTrace(false)
+    public static final class StateSpan extends Event {
+        @Label("State")
+        public String state;
+        @Label("Next State")
+        public String next;
+    }
+
+    @Name("traderun.Failure")
+    @Label("Failure")
+    @Category({"TradeRun", "FSM"})
+    @Description("A counted failure (approach stuck, open timeout, ...)")
+    @StackTrace(false)
+    public static final class Failure extends Event {
+        @Label("Cause")
+        public String cause;
+    }
+
+    @Name("traderun.NavGoal")
+    @Label("Navigation Goal")
+    @Category({"TradeRun", "Navigation"})
+    @StackTrace(false)
+    public static final class NavGoal extends Event {
+        @Label("X")
+        public int x;
+        @Label("Y")
+        public int y;
+        @Label("Z")
+        public int z;
+        @Label("Baritone")
+        @Description("Goal handed to Baritone (false: direct walk)")
+        public boolean baritone;
+    }
+
+    @Name("traderun.NavFailed")
+    @Label("Navigation Failed")
+    @Category({"TradeRun", "Navigation"})
+    @StackTrace(false)
+    public static final class NavFailed extends Event {
+        @Label("Error")
+        public String error;
+    }
+
+    @Name("traderun.BaritoneCall")
+    @Label("Baritone Call")
+    @Category({"TradeRun", "Navigation"})
+    @Description("Reflective call into the Baritone API")
+    @StackTrace(false)
+    public static final class BaritoneCall extends Event {
+        @Label("Call")
+        public String call;
+        @Label("Succeeded")
+        public boolean ok;
+
+        public static BaritoneCall start(String call) {
+            BaritoneCall e = new BaritoneCall();
+            e.call = call;
+            e.begin();
+            return e;
+        }
+
+        public void finish(boolean ok) {
+            this.ok = ok;
+            commit();
+        }
+    }
+
+    @Name("traderun.ContainerClick")
+    @Label("Container Click")
+    @Category({"TradeRun", "Containers"})
+    @StackTrace(false)
+    public static final class ContainerClick extends Event {
+        @Label("Clicks")
+        @Description("Clicks sent together (more than 1 for a burst)")
+        public int clicks;
+        @Label("In Flight")
+        public int inFlight;
+        @Label("Smoothed RTT")
+        @Timespan(Timespan.MILLISECONDS)
+        public long rttMs;
+    }
+
+    @Name("traderun.ContainerAck")
+    @Label("Container Click Acknowledged")
+    @Category({"TradeRun", "Containers"})
+    @StackTrace(false)
+    public static final class ContainerAck extends Event {
+        @Label("Round Trip")
+        @Timespan(Timespan.MILLISECONDS)
+        public long rttMs;
+    }
+
+    @Name("traderun.TradeSession")
+    @Label("Trade Session")
+    @Category({"TradeRun", "Trading"})
+    @Description("Merchant screen open to close")
+    @StackTrace(false)
+    public static final class TradeSession extends Event {
+        @Label("Outcome")
+        public String outcome;
+        @Label("Trades")
+        public int trades;
+    }
+
+    @Name("traderun.PersistenceWrite")
+    @Label("Persistence Write")
+    @Category({"TradeRun", "I/O"})
+    @Description("Config file or debug log written to disk")
+    @StackTrace(false)
+    public static final class PersistenceWrite extends Event {
+        @Label("File")
+        public String file;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.traderun.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.nio.file.Path;
+
+/**
+ * One local flight recording controlled by /traderun jfr start|stop: the JDK "profile"
+ * settings (GC, allocation, CPU samples) plus every TradeRun event, written to the given
+ * file when stopped.
+ */
+public final class JfrRecorder {
+
+    private JfrRecorder() {}
+
+    private static Recording recording = null;
+    private static Path destination = null;
+
+    public static synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    public static synchronized Path destination() {
+        return destination;
+    }
+
+    /** Start recording to file; returns null on success or an error message. */
+    public static synchronized String start(Path file) {
+        if (recording != null) return "already recording to " + destination.getFileName();
+        Recording r = null;
+        try {
+            r = new Recording(Configuration.getConfiguration("profile"));
+            r.setName("TradeRun");
+            r.setToDisk(true);
+            r.setDestination(file);
+            r.enable(JfrEvents.StateSpan.class);
+            r.enable(JfrEvents.Failure.class);
+            r.enable(JfrEvents.NavGoal.class);
+            r.enable(JfrEvents.NavFailed.class);
+            r.enable(JfrEvents.BaritoneCall.class);
+            r.enable(JfrEvents.ContainerClick.class);
+            r.enable(JfrEvents.ContainerAck.class);
+            r.enable(JfrEvents.TradeSession.class);
+            r.enable(JfrEvents.PersistenceWrite.class);
+            r.start();
+            recording = r;
+            destination = file;
+            return null;
+        } catch (Throwable t) {
+            // Bad destination, or the recorder can't start (repository not writable, JFR
+            // turned off by a JVM option) - release what the recording already holds
+            if (r != null) {
+                try { r.close(); } catch (Throwable ignored) {}
+            }
+            return t.getClass().getSimpleName() + ": " + t.getMessage();
+        }
+    }
+
+    /** Stop and write the recording; returns the file, or null if nothing was recording. */
+    public static synchronized Path stop() {
+        if (recording == null) return null;
+        Path file = destination;
+        try {
+            recording.stop();     // Writes to the destination
+        } catch (Throwable t) {
+            System.err.println("[traderun] Failed to stop JFR recording: " + t.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+            destination = null;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.traderun.metrics;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-size log-linear histogram of millisecond durations (HDR-style).
+ *
+ * Values below 64 get their own bucket; above that every power of two is split into
+ * 32 sub-buckets, so any recorded value is reported within ~3% of its true value.
+ * Recording is one array increment, no allocation. Values above ~2^36 ms are clamped.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;           // 32 sub-buckets per power of two
+    private static final int LINEAR = SUB * 2;              // 0..63 recorded exactly
+    private static final int MAX_SHIFT = 31;
+    private static final int BUCKETS = LINEAR + MAX_SHIFT * SUB;
+    private static final long MAX_VALUE = ((long) (LINEAR - 1) << MAX_SHIFT) | ((1L << MAX_SHIFT) - 1L);
+
+    private final long[] counts = new long[BUCKETS];
+    private long total = 0L;
+    private long sum = 0L;
+    private long min = Long.MAX_VALUE;
+    private long max = 0L;
+
+    public void record(long valueMs) {
+        long v = Math.min(Math.max(0L, valueMs), MAX_VALUE);
+        counts[index(v)]++;
+        total++;
+        sum += v;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    public long min() {
+        return total == 0L ? 0L : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return total == 0L ? 0.0 : (double) sum / total;
+    }
+
+    /** Value at the given percentile (0-100); upper edge of the bucket, capped at max. */
+    public long percentile(double p) {
+        if (total == 0L) return 0L;
+        double q = Math.min(100.0, Math.max(0.0, p));
+        long rank = Math.max(1L, (long) Math.ceil(q / 100.0 * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(Math.max(upperEdge(i), min), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        total = 0L;
+        sum = 0L;
+        min = Long.MAX_VALUE;
+        max = 0L;
+    }
+
+    /** "n=12 p50=340ms p90=1.2s p99=4.0s max=4.1s" */
+    public String summary() {
+        if (total == 0L) return "n=0";
+        return "n=" + total
+                + " p50=" + formatMs(percentile(50.0))
+                + " p90=" + formatMs(percentile(90.0))
+                + " p99=" + formatMs(percentile(99.0))
+                + " max=" + formatMs(max);
+    }
+
+    static int index(long v) {
+        if (v < LINEAR) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - SUB_BITS;
+        int top = (int) (v >>> shift);                       // in [SUB, 2*SUB)
+        return LINEAR + (shift - 1) * SUB + (top - SUB);
+    }
+
+    static long upperEdge(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / SUB + 1;
+        long top = (index - LINEAR) % SUB + SUB;
+        return ((top + 1L) << shift) - 1L;
+    }
+
+    public static String formatMs(long ms) {
+        if (ms < 1000L) return ms + "ms";
+        if (ms < 60_000L) return String.format(Locale.ROOT, "%.1fs", ms / 1000.0);
+        return String.format(Locale.ROOT, "%.1fm", ms / 60_000.0);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.traderun.metrics;
+
+import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.cooldown.CooldownRegistry;
+import com.example.traderun.fsm.TradeRunStateMachine;
+import com.example.traderun.inventory.InventoryOps;
+import com.example.traderun.runtime.TradeRunRuntime;
+import com.example.traderun.util.DebugLogger;
+import com.example.traderun.util.TickClock;
+import com.example.traderun.villager.OfferProfileRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.minecraft.client.MinecraftClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in OpenMetrics endpoint (GET http://127.0.0.1:<port>/metrics) for Prometheus.
+ *
+ * Bound to the loopback address only. The game state is only touched on the client
+ * thread: once a second tick() renders a snapshot, and the HTTP thread serves the last
+ * snapshot as-is, so a scrape never races the state machine.
+ */
+public final class MetricsExporter {
+
+    private MetricsExporter() {}
+
+    private static final long SNAPSHOT_INTERVAL_MS = 1000L;
+    private static final int MAIN_SLOTS = 36;
+
+    private static HttpServer server = null;
+    private static ExecutorService executor = null;
+    private static int boundPort = 0;
+    private static int failedPort = 0;          // Don't retry a port that failed until the setting changes
+
+    private static volatile byte[] snapshot = new OpenMetricsWriter().finish().getBytes(StandardCharsets.UTF_8);
+    private static long lastSnapshotMs = 0L;
+
+    // Client tick timing since the last snapshot
+    private static long tickLastNs = 0L;
+    private static long tickMaxNs = 0L;
+    private static long tickTotalNs = 0L;
+    private static long tickCount = 0L;
+
+    /** Duration of one mod tick (client thread). */
+    public static void recordTick(long ns) {
+        tickLastNs = ns;
+        if (ns > tickMaxNs) tickMaxNs = ns;
+        tickTotalNs += ns;
+        tickCount++;
+    }
+
+    /** Called every client tick: follows the settings and refreshes the snapshot. */
+    public static void tick(MinecraftClient client) {
+        TradeRunSettings s = TradeRunSettings.get();
+        int port = s.metricsEnabled ? s.metricsPort : 0;
+        if (port != failedPort) failedPort = 0;
+        if (port != boundPort) {
+            stop();
+            if (port != 0 && port != failedPort) start(port);
+        }
+        if (server == null) return;
+
+        long now = TickClock.nowMs();
+        if (now - lastSnapshotMs < SNAPSHOT_INTERVAL_MS) return;
+        lastSnapshotMs = now;
+        snapshot = render(client, now).getBytes(StandardCharsets.UTF_8);
+        tickMaxNs = 0L;
+        tickTotalNs = 0L;
+        tickCount = 0L;
+    }
+
+    public static boolean isRunning() {
+        return server != null;
+    }
+
+    public static int port() {
+        return boundPort;
+    }
+
+    private static void start(int port) {
+        try {
+            HttpServer s = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            s.createContext("/metrics", MetricsExporter::handle);
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "TradeRun-Metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            s.setExecutor(executor);
+            s.start();
+            server = s;
+            boundPort = port;
+            failedPort = 0;
+            lastSnapshotMs = 0L;
+            DebugLogger.log("metrics: listening on 127.0.0.1:" + port);
+        } catch (IOException | RuntimeException e) {
+            failedPort = port;
+            DebugLogger.log("metrics: failed to bind 127.0.0.1:" + port + " - " + e.getMessage());
+            if (executor != null) executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public static void stop() {
+        if (server != null) {
+            server.stop(0);
+            DebugLogger.log("metrics: stopped");
+        }
+        if (executor != null) executor.shutdownNow();
+        server = null;
+        executor = null;
+        boundPort = 0;
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = snapshot;
+            exchange.getResponseHeaders().set("Content-Type", OpenMetricsWriter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static String render(MinecraftClient client, long now) {
+        OpenMetricsWriter w = new OpenMetricsWriter();
+        TradeRunRuntime rt = TradeRunRuntime.get();
+
+        TradeRunStateMachine.State current = rt.getState();
+        w.family("traderun_state", "stateset", "Current state machine state");
+        for (TradeRunStateMachine.State st : TradeRunStateMachine.State.values()) {
+            w.sample("traderun_state", new String[] {"traderun_state", st.name()}, st == current ? 1 : 0);
+        }
+        w.family("traderun_state_age_seconds", "gauge", "Time spent in the current state");
+        w.sample("traderun_state_age_seconds", rt.getTimeInStateMs() / 1000.0);
+        w.family("traderun_active", "gauge", "1 while a run is in progress");
+        w.sample("traderun_active", rt.isActive() ? 1 : 0);
+
+        w.family("traderun_run_seconds", "counter", "Time spent running");
+        w.sample("traderun_run_seconds_total", TradeRunMetrics.activeMs(now) / 1000.0);
+        w.family("traderun_trades", "counter", "Trades completed");
+        w.sample("traderun_trades_total", TradeRunMetrics.trades());
+        w.family("traderun_villagers_traded", "counter", "Merchant screens closed with at least one trade");
+        w.sample("traderun_villagers_traded_total", TradeRunMetrics.villagersTraded());
+        w.family("traderun_trades_per_hour", "gauge", "Trades per hour of run time");
+        w.sample("traderun_trades_per_hour", TradeRunMetrics.tradesPerHour(now));
+        long lastTrade = TradeRunMetrics.lastTradeMs();
+        w.family("traderun_last_trade_age_seconds", "gauge", "Time since the last traded villager (-1 = none yet)");
+        w.sample("traderun_last_trade_age_seconds", lastTrade == 0L ? -1 : (now - lastTrade) / 1000.0);
+
+        w.family("traderun_failures", "counter", "Failures by cause");
+        for (Map.Entry<String, Long> e : TradeRunMetrics.failures().entrySet()) {
+            w.sample("traderun_failures_total", new String[] {"cause", e.getKey()}, e.getValue());
+        }
+        w.family("traderun_storage_trips", "counter", "Trips to storage by kind");
+        for (Map.Entry<String, Long> e : TradeRunMetrics.storageTrips().entrySet()) {
+            w.sample("traderun_storage_trips_total", new String[] {"kind", e.getKey()}, e.getValue());
+        }
+        w.family("traderun_floor_switches", "counter", "Floor transitions");
+        w.sample("traderun_floor_switches_total", TradeRunMetrics.floorSwitches());
+
+        w.family("traderun_state_dwell_seconds", "summary", "Time per state visit");
+        for (Map.Entry<String, LatencyHistogram> e : TradeRunMetrics.states().entrySet()) {
+            w.summary("traderun_state_dwell_seconds", "state", e.getKey(), e.getValue());
+        }
+
+        w.family("traderun_cooldown_villagers", "gauge", "Villagers on trade cooldown");
+        w.sample("traderun_cooldown_villagers", CooldownRegistry.count());
+        w.family("traderun_offer_profiles", "gauge", "Villagers with a learned offer profile");
+        w.sample("traderun_offer_profiles", OfferProfileRegistry.size());
+
+        if (client != null && client.player != null) {
+            int used = MAIN_SLOTS - InventoryOps.emptyMainSlots(client.player);
+            w.family("traderun_inventory_used_slots", "gauge", "Occupied main inventory slots");
+            w.sample("traderun_inventory_used_slots", used);
+            w.family("traderun_inventory_fill_ratio", "gauge", "Occupied share of the main inventory");
+            w.sample("traderun_inventory_fill_ratio", used / (double) MAIN_SLOTS);
+        }
+
+        w.family("traderun_tick_seconds", "gauge", "Mod tick time since the previous snapshot");
+        w.sample("traderun_tick_seconds", new String[] {"stat", "last"}, tickLastNs / 1e9);
+        w.sample("traderun_tick_seconds", new String[] {"stat", "max"}, tickMaxNs / 1e9);
+        w.sample("traderun_tick_seconds", new String[] {"stat", "mean"}, tickCount == 0L ? 0 : tickTotalNs / 1e9 / tickCount);
+        return w.finish();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.traderun.metrics;
+
+/**
+ * Minimal OpenMetrics text builder (https://openmetrics.io).
+ *
+ * Each family is declared once with {@link #family} and followed by its samples;
+ * {@link #finish} appends the mandatory "# EOF" terminator.
+ */
+public final class OpenMetricsWriter {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    public OpenMetricsWriter family(String name, String type, String help) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        if (help != null) sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        return this;
+    }
+
+    public OpenMetricsWriter sample(String name, double value) {
+        return sample(name, null, value);
+    }
+
+    /** labels: alternating name, value pairs (may be null). */
+    public OpenMetricsWriter sample(String name, String[] labels, double value) {
+        sb.append(name);
+        if (labels != null && labels.length >= 2) {
+            sb.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) sb.append(',');
+                sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /** Summary samples for a millisecond histogram, exported in seconds. */
+    public OpenMetricsWriter summary(String name, String labelName, String labelValue, LatencyHistogram h) {
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            sample(name, new String[] {labelName, labelValue, "quantile", format(q)}, h.percentile(q * 100.0) / 1000.0);
+        }
+        sample(name + "_sum", new String[] {labelName, labelValue}, h.sum() / 1000.0);
+        sample(name + "_count", new String[] {labelName, labelValue}, h.count());
+        return this;
+    }
+
+    public String finish() {
+        sb.append("# EOF\n");
+        return sb.toString();
+    }
+
+    private static String format(double v) {
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+
+    private static String escape(String s) {
+        if (s == null) return "";
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.traderun.metrics;
+
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.session.SessionRecorder;
+import com.example.traderun.util.TickClock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Run instrumentation: how long each state and transition takes, and what a run produces.
+ *
+ * - Per-state histogram: time spent per visit of a state (recorded when it is left).
+ * - Per-transition histogram: same dwell time, keyed by "FROM->TO".
+ * - Counters: villagers traded, trades, failures by cause, storage trips, floor switches.
+ *
+ * Fed by the state machine on the client thread. Kept until "/traderun stats reset";
+ * trades per hour are computed over time spent running, not wall time.
+ */
+public final class TradeRunMetrics {
+
+    private TradeRunMetrics() {}
+
+    private static final Map<String, LatencyHistogram> STATES = new LinkedHashMap<>();
+    private static final Map<String, LatencyHistogram> TRANSITIONS = new TreeMap<>();
+    private static final Map<String, Long> FAILURES = new TreeMap<>();
+    private static final Map<String, Long> STORAGE_TRIPS = new TreeMap<>();
+
+    private static long villagersTraded = 0L;
+    private static long trades = 0L;
+    private static long floorSwitches = 0L;
+    private static long lastTradeMs = 0L;       // 0 = none yet
+
+    private static long runStartedMs = 0L;      // 0 = not running
+    private static long activeMs = 0L;          // Finished runs
+
+    /** A state was left after dwellMs. */
+    public static void onTransition(String from, String to, long dwellMs) {
+        if (from == null || to == null || from.equals(to)) return;
+        STATES.computeIfAbsent(from, k -> new LatencyHistogram()).record(dwellMs);
+        TRANSITIONS.computeIfAbsent(from + "->" + to, k -> new LatencyHistogram()).record(dwellMs);
+    }
+
+    public static void onRunStarted(long nowMs) {
+        if (runStartedMs == 0L) runStartedMs = nowMs;
+    }
+
+    public static void onRunStopped(long nowMs) {
+        if (runStartedMs == 0L) return;
+        activeMs += Math.max(0L, nowMs - runStartedMs);
+        runStartedMs = 0L;
+    }
+
+    /** A merchant screen closed with at least one trade done. */
+    public static void onVillagerTraded(int tradesDone) {
+        villagersTraded++;
+        trades += Math.max(0, tradesDone);
+        lastTradeMs = TickClock.nowMs();
+    }
+
+    public static void onFailure(String cause) {
+        FAILURES.merge(cause, 1L, Long::sum);
+        SessionRecorder.note("fail " + cause);
+        JfrEvents.Failure event = new JfrEvents.Failure();
+        event.cause = cause;
+        event.commit();
+    }
+
+    public static void onStorageTrip(String kind) {
+        STORAGE_TRIPS.merge(kind, 1L, Long::sum);
+    }
+
+    public static void onFloorSwitch() {
+        floorSwitches++;
+    }
+
+    // ========== Read side ==========
+
+    public static long activeMs(long nowMs) {
+        return activeMs + (runStartedMs == 0L ? 0L : Math.max(0L, nowMs - runStartedMs));
+    }
+
+    public static double tradesPerHour(long nowMs) {
+        long ms = activeMs(nowMs);
+        return ms <= 0L ? 0.0 : trades * 3_600_000.0 / ms;
+    }
+
+    public static long trades() {
+        return trades;
+    }
+
+    public static long villagersTraded() {
+        return villagersTraded;
+    }
+
+    public static long floorSwitches() {
+        return floorSwitches;
+    }
+
+    /** nowMs of the last traded villager, 0 if none yet. */
+    public static long lastTradeMs() {
+        return lastTradeMs;
+    }
+
+    public static Map<String, Long> failures() {
+        return FAILURES;
+    }
+
+    public static Map<String, Long> storageTrips() {
+        return STORAGE_TRIPS;
+    }
+
+    public static Map<String, LatencyHistogram> states() {
+        return STATES;
+    }
+
+    public static Map<String, LatencyHistogram> transitions() {
+        return TRANSITIONS;
+    }
+
+    public static void reset(long nowMs) {
+        STATES.clear();
+        TRANSITIONS.clear();
+        FAILURES.clear();
+        STORAGE_TRIPS.clear();
+        villagersTraded = 0L;
+        trades = 0L;
+        floorSwitches = 0L;
+        lastTradeMs = 0L;
+        activeMs = 0L;
+        if (runStartedMs != 0L) runStartedMs = nowMs;
+    }
+
+    /** Lines for "/traderun stats": totals, then per-state and top transition percentiles. */
+    public static List<String> report(long nowMs, int maxTransitions) {
+        List<String> lines = new ArrayList<>();
+        long active = activeMs(nowMs);
+        lines.add(String.format(Locale.ROOT, "Run time %s, %d trades with %d villagers (%.0f/h)",
+                LatencyHistogram.formatMs(active), trades, villagersTraded, tradesPerHour(nowMs)));
+        lines.add("Storage trips: " + (STORAGE_TRIPS.isEmpty() ? "none" : STORAGE_TRIPS.toString())
+                + ", floor switches: " + floorSwitches);
+        lines.add("Failures: " + (FAILURES.isEmpty() ? "none" : FAILURES.toString()));
+
+        for (Map.Entry<String, LatencyHistogram> e : STATES.entrySet()) {
+            lines.add(e.getKey() + ": " + e.getValue().summary());
+        }
+
+        List<Map.Entry<String, LatencyHistogram>> busiest = new ArrayList<>(TRANSITIONS.entrySet());
+        busiest.sort((a, b) -> Long.compare(b.getValue().count(), a.getValue().count()));
+        for (int i = 0; i < busiest.size() && i < maxTransitions; i++) {
+            Map.Entry<String, LatencyHistogram> e = busiest.get(i);
+            lines.add("  " + e.getKey() + ": " + e.getValue().summary());
+        }
+        return lines;
+    }
+}
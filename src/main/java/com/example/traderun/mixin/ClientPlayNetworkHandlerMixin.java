@@ -0,0 +1,84 @@
+package com.example.traderun.mixin;
+
+import com.example.traderun.event.TradeRunEvents;
+import com.example.traderun.inventory.ContainerOps;
+import com.example.traderun.inventory.InventoryLedger;
+import com.example.traderun.session.SessionRecorder;
+import com.example.traderun.trade.MerchantTracker;
+import com.example.traderun.trade.TradeExecutor;
+import com.example.traderun.util.TickClock;
+import net.minecraft.block.Block;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.BlockUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.InventoryS2CPacket;
+import net.minecraft.network.packet.s2c.play.ScreenHandlerSlotUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.SetPlayerInventoryS2CPacket;
+import net.minecraft.network.packet.s2c.play.SetTradeOffersS2CPacket;
+import net.minecraft.network.packet.s2c.play.WorldTimeUpdateS2CPacket;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Forwards inventory and merchant packets to TradeRun once they have been applied on the main thread.
+ * Used as click acknowledgements by ContainerOps / TradeExecutor and to keep the InventoryLedger current.
+ * Block changes are posted to TradeRunEvents (doors, chests, path blockers), time updates drive
+ * TickClock's server time.
+ */
+@Mixin(ClientPlayNetworkHandler.class)
+public abstract class ClientPlayNetworkHandlerMixin {
+
+    /** Block changes within 16 blocks of the player go into the session recording. */
+    private static final double RECORD_BLOCK_RANGE_SQ = 16.0 * 16.0;
+
+    @Inject(method = "onScreenHandlerSlotUpdate", at = @At("TAIL"))
+    private void traderun_onSlotUpdate(ScreenHandlerSlotUpdateS2CPacket packet, CallbackInfo ci) {
+        InventoryLedger.onSlotUpdate(packet.getSyncId(), packet.getSlot());
+        ContainerOps.onSlotUpdate(packet.getSyncId(), packet.getRevision(), packet.getSlot());
+        TradeExecutor.onSlotUpdate(packet.getSyncId());
+        MerchantTracker.onSlotUpdate(packet.getSyncId(), packet.getSlot());
+    }
+
+    @Inject(method = "onSetPlayerInventory", at = @At("TAIL"))
+    private void traderun_onSetPlayerInventory(SetPlayerInventoryS2CPacket packet, CallbackInfo ci) {
+        InventoryLedger.onPlayerInventorySlot(packet.slot());
+    }
+
+    @Inject(method = "onInventory", at = @At("TAIL"))
+    private void traderun_onInventory(InventoryS2CPacket packet, CallbackInfo ci) {
+        InventoryLedger.onInventoryResync();
+        ContainerOps.onInventoryResync(packet.getSyncId());
+    }
+
+    @Inject(method = "onSetTradeOffers", at = @At("TAIL"))
+    private void traderun_onSetTradeOffers(SetTradeOffersS2CPacket packet, CallbackInfo ci) {
+        MerchantTracker.onTradeOffers(packet.getSyncId(), packet.getOffers());
+    }
+
+    @Inject(method = "onWorldTimeUpdate", at = @At("TAIL"))
+    private void traderun_onWorldTimeUpdate(WorldTimeUpdateS2CPacket packet, CallbackInfo ci) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.world != null) TickClock.onServerTime(client.world.getTime());
+    }
+
+    @Inject(method = "onBlockUpdate", at = @At("TAIL"))
+    private void traderun_onBlockUpdate(BlockUpdateS2CPacket packet, CallbackInfo ci) {
+        if (SessionRecorder.isOpen()) {
+            MinecraftClient client = MinecraftClient.getInstance();
+            BlockPos pos = packet.getPos();
+            if (client.player != null && client.player.getBlockPos().getSquaredDistance(pos) <= RECORD_BLOCK_RANGE_SQ) {
+                SessionRecorder.block(pos.getX(), pos.getY(), pos.getZ(), Block.getRawIdFromState(packet.getState()));
+            }
+        }
+        TradeRunEvents.post(TradeRunEvents.Type.BLOCK_UPDATED);
+    }
+
+    @Inject(method = "onChunkDeltaUpdate", at = @At("TAIL"))
+    private void traderun_onChunkDeltaUpdate(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
+        TradeRunEvents.post(TradeRunEvents.Type.BLOCK_UPDATED);
+    }
+}
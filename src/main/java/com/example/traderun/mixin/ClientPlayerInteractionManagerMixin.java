@@ -0,0 +1,24 @@
+package com.example.traderun.mixin;
+
+import com.example.traderun.inventory.InventoryLedger;
+import net.minecraft.client.network.ClientPlayerInteractionManager;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.screen.slot.SlotActionType;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Every container click on this client - ours, AutoTrade's, the player's - is predicted
+ * locally, and the server stays silent when the prediction matches. Tell the
+ * InventoryLedger once the predicted stacks are in place.
+ */
+@Mixin(ClientPlayerInteractionManager.class)
+public abstract class ClientPlayerInteractionManagerMixin {
+
+    @Inject(method = "clickSlot", at = @At("TAIL"))
+    private void traderun_onClickSlot(int syncId, int slotId, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
+        InventoryLedger.onLocalClick(player);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.traderun.mixin;
+
+import com.example.traderun.event.TradeRunEvents;
+import com.example.traderun.session.SessionRecorder;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.Screen;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Posts screen open / close events once setScreen went through
+ * (screens blocked by GameMenuBypassMixin never reach TAIL).
+ */
+@Mixin(MinecraftClient.class)
+public abstract class ScreenEventsMixin {
+
+    @Inject(method = "setScreen", at = @At("TAIL"))
+    private void traderun_onSetScreen(Screen screen, CallbackInfo ci) {
+        SessionRecorder.screen(screen != null, screen == null ? "" : screen.getClass().getSimpleName());
+        TradeRunEvents.post(screen == null ? TradeRunEvents.Type.SCREEN_CLOSED : TradeRunEvents.Type.SCREEN_OPENED);
+    }
+}
@@ -133,13 +133,20 @@ public class ApproachUtil {
     }
 
     /**
-     * A walkway tile is valid if:
+     * A walkway tile is valid if it is standable (see isStandable) and there is
+     * line-of-sight to the villager.
+     */
+    static boolean isValidWalkway(World world, VillagerEntity villager, BlockPos walkwayPos) {
+        return isStandable(world, walkwayPos) && hasLineOfSight(world, villager, walkwayPos);
+    }
+
+    /**
+     * A tile can be stood on if:
      * - There is a floor block below (non-air).
      * - The tile itself is NOT a solid full block (and not a raised trading block).
      * - The block above (head space) is NOT a solid full block.
-     * - There is line-of-sight to the villager.
      */
-    private static boolean isValidWalkway(World world, VillagerEntity villager, BlockPos walkwayPos) {
+    static boolean isStandable(World world, BlockPos walkwayPos) {
         BlockPos belowWalkway = walkwayPos.down();
         BlockPos headPos = walkwayPos.up();
 
@@ -177,15 +184,41 @@ public class ApproachUtil {
         }
 
         // Head space must NOT be a solid block
-        if (headState.isSolidBlock(world, headPos)) {
-            return false;
-        }
+        return !headState.isSolidBlock(world, headPos);
+    }
 
-        // Require line-of-sight from walkway to villager
-        return hasLineOfSight(world, villager, walkwayPos);
+    /**
+     * Closest standable tile to pos within radius blocks horizontally (same Y first, then
+     * one up or down), searched ring by ring. Returns pos unchanged when its chunk isn't
+     * loaded yet, and null when nothing nearby can be stood on.
+     */
+    public static BlockPos nearestStandable(World world, BlockPos pos, int radius) {
+        if (world == null || pos == null) return null;
+        if (!world.isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4)) return pos;
+
+        for (int r = 0; r <= radius; r++) {
+            for (int dy : new int[]{0, 1, -1}) {
+                BlockPos best = null;
+                int bestDistSq = Integer.MAX_VALUE;
+                for (int dx = -r; dx <= r; dx++) {
+                    for (int dz = -r; dz <= r; dz++) {
+                        if (Math.max(Math.abs(dx), Math.abs(dz)) != r) continue;  // Ring only
+                        int d2 = dx * dx + dz * dz;
+                        if (d2 >= bestDistSq) continue;
+                        BlockPos p = pos.add(dx, dy, dz);
+                        if (isStandable(world, p)) {
+                            best = p;
+                            bestDistSq = d2;
+                        }
+                    }
+                }
+                if (best != null) return best.toImmutable();
+            }
+        }
+        return null;
     }
 
-    private static boolean hasLineOfSight(World world, VillagerEntity villager, BlockPos walkwayPos) {
+    static boolean hasLineOfSight(World world, VillagerEntity villager, BlockPos walkwayPos) {
         Vec3d start = new Vec3d(
                 walkwayPos.getX() + 0.5,
                 walkwayPos.getY() + 1.62,
@@ -1,5 +1,9 @@
 package com.example.traderun.nav;
 
+import com.example.traderun.event.TradeRunEvents;
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.session.SessionRecorder;
+import com.example.traderun.util.TickClock;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.util.math.BlockPos;
@@ -53,7 +57,7 @@ public final class Navigator {
         // PRIORITY 2: Fall back to diagonal only if straight not possible
         target = ApproachUtil.findBestApproach(client, villager);
         if (target == null) {
-            lastError = "no valid approach position";
+            fail("no valid approach position");
             return null;
         }
         
@@ -68,7 +72,7 @@ public final class Navigator {
         // Try to find any valid position excluding the failed one
         BlockPos target = ApproachUtil.findBestApproachExcluding(client, villager, exclude);
         if (target == null) {
-            lastError = "no alternate approach position";
+            fail("no alternate approach position");
             return null;
         }
         
@@ -86,7 +90,7 @@ public final class Navigator {
             target = ApproachUtil.findBestApproach(client, villager);
         }
         if (target == null) {
-            lastError = "no approach position";
+            fail("no approach position");
             return null;
         }
         
@@ -135,7 +139,7 @@ public final class Navigator {
             return target.toImmutable();
         } else {
             // Too far in Y - storage is on a different floor, reject
-            lastError = "storage too far in Y (different floor?)";
+            fail("storage too far in Y (different floor?)");
             return null;
         }
     }
@@ -191,7 +195,7 @@ public final class Navigator {
             }
         }
         
-        lastError = "no escape position found";
+        fail("no escape position found");
         return null;
     }
 
@@ -200,6 +204,14 @@ public final class Navigator {
     public BlockPos getActiveGoal() { return activeGoal; }
     public String getLastError() { return lastError; }
     public void clearLastError() { lastError = null; }
+
+    private void fail(String error) {
+        lastError = error;
+        JfrEvents.NavFailed event = new JfrEvents.NavFailed();
+        event.error = error;
+        event.commit();
+        TradeRunEvents.post(TradeRunEvents.Type.NAV_FAILED);
+    }
     public boolean isDirectWalkActive() { return directWalkActive; }
     public boolean wasLastApproachDiagonal() { return lastApproachWasDiagonal; }
     
@@ -234,13 +246,14 @@ public final class Navigator {
     private void setGoalInternal(MinecraftClient client, BlockPos goal, boolean allowDifferentFloor, int yTolerance) {
         if (goal == null || client == null || client.player == null) return;
 
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         
         // Rate limit
         if (activeGoal != null && activeGoal.equals(goal) && (now - lastGoalSetMs) < 1500L) {
             return;
         }
         if ((now - lastGoalSetMs) < 250L) return;
+        SessionRecorder.navGoal(goal.getX(), goal.getY(), goal.getZ());
 
         stopDirectWalk();
         cancelBaritone();
@@ -249,7 +262,7 @@ public final class Navigator {
         
         // Reject goals on different Y level (unless allowed)
         if (!allowDifferentFloor && Math.abs(goal.getY() - playerY) > yTolerance) {
-            lastError = "goal on different floor (y diff=" + Math.abs(goal.getY() - playerY) + ", tolerance=" + yTolerance + ")";
+            fail("goal on different floor (y diff=" + Math.abs(goal.getY() - playerY) + ", tolerance=" + yTolerance + ")");
             activeGoal = null;
             return;
         }
@@ -264,11 +277,22 @@ public final class Navigator {
         configureBaritone();
 
         // Try Baritone API first (via reflection, NO CHAT)
+        JfrEvents.BaritoneCall call = JfrEvents.BaritoneCall.start("setGoalAndPath");
         boolean baritoneOk = tryBaritoneGoalProcess(goal);
+        call.finish(baritoneOk);
         if (!baritoneOk) {
+            call = JfrEvents.BaritoneCall.start("pathingBehavior.path");
             baritoneOk = tryBaritonePathingBehavior(goal);
+            call.finish(baritoneOk);
         }
 
+        JfrEvents.NavGoal event = new JfrEvents.NavGoal();
+        event.x = goal.getX();
+        event.y = goal.getY();
+        event.z = goal.getZ();
+        event.baritone = baritoneOk;
+        event.commit();
+
         if (baritoneOk) {
             baritoneAvailable = true;
             gotoIssued = true;
@@ -299,7 +323,7 @@ public final class Navigator {
 
         // Check if Baritone was issued but player hasn't moved - switch to direct walk
         if (gotoIssued && !directWalkActive && posAtGoalSet != null && activeGoal != null) {
-            long elapsed = System.currentTimeMillis() - goalSetTimeMs;
+            long elapsed = TickClock.nowMs() - goalSetTimeMs;
             if (elapsed > BARITONE_MOVE_TIMEOUT_MS) {
                 Vec3d currentPos = client.player.getPos();
                 double movedSq = horizDistSq(currentPos, posAtGoalSet);
@@ -317,7 +341,7 @@ public final class Navigator {
         if (!directWalkActive || activeGoal == null) return;
 
         Vec3d playerPos = client.player.getPos();
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
 
         // Stop if Y changed significantly - but ONLY for same-floor navigation
         // If allowYLevelChanges is true (floor transitions), skip this check entirely
@@ -330,7 +354,7 @@ public final class Navigator {
                 // - Climbed more than 0.6 blocks (walked onto block/slab/stair)
                 if (yDiff < -0.5 || yDiff > 0.6) {
                     stopDirectWalk();
-                    lastError = yDiff > 0 ? "climbed onto block" : "Y level dropped";
+                    fail(yDiff > 0 ? "climbed onto block" : "Y level dropped");
                     return;
                 }
             }
@@ -355,7 +379,7 @@ public final class Navigator {
                 if (client.world.getBlockState(currentGround).isSolid()) {
                     // We're on solid ground but next step is a hole - STOP before falling
                     stopDirectWalk();
-                    lastError = "edge detected - stopping before fall";
+                    fail("edge detected - stopping before fall");
                     return;
                 }
             }
@@ -378,13 +402,14 @@ public final class Navigator {
                 }
             }
             stopDirectWalk();
+            TradeRunEvents.post(TradeRunEvents.Type.NAV_ARRIVED);
             return;
         }
         
         // Timeout after 8s
         if (now - directWalkStartMs > 8000L) {
             stopDirectWalk();
-            lastError = "direct walk timeout";
+            fail("direct walk timeout");
             return;
         }
 
@@ -396,7 +421,7 @@ public final class Navigator {
                 lastDirectWalkMoveMs = now;
             } else if (now - lastDirectWalkMoveMs > 600L) {
                 stopDirectWalk();
-                lastError = "direct walk stuck";
+                fail("direct walk stuck");
                 return;
             }
         } else {
@@ -415,9 +440,9 @@ public final class Navigator {
 
     private void startDirectWalk(MinecraftClient client) {
         directWalkActive = true;
-        directWalkStartMs = System.currentTimeMillis();
+        directWalkStartMs = TickClock.nowMs();
         lastDirectWalkPos = null;
-        lastDirectWalkMoveMs = System.currentTimeMillis();
+        lastDirectWalkMoveMs = TickClock.nowMs();
         if (client != null && client.player != null) {
             directWalkStartY = client.player.getPos().y;
         }
@@ -489,11 +514,13 @@ public final class Navigator {
     public void tickBaritoneCommands() {
         if (pendingBaritoneCommands.isEmpty()) return;
         
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (now - lastBaritoneCommandMs < 200L) return;
         
         String cmd = pendingBaritoneCommands.pollFirst();
         if (cmd != null) {
+            JfrEvents.BaritoneCall call = JfrEvents.BaritoneCall.start("execute");
+            boolean ok = false;
             try {
                 Class<?> baritoneAPI = Class.forName("baritone.api.BaritoneAPI");
                 Method getProvider = baritoneAPI.getMethod("getProvider");
@@ -504,7 +531,9 @@ public final class Navigator {
                 Object cmdMgr = getCommandManager.invoke(baritone);
                 Method execute = cmdMgr.getClass().getMethod("execute", String.class);
                 execute.invoke(cmdMgr, cmd);
+                ok = true;
             } catch (Throwable ignored) {}
+            call.finish(ok);
             lastBaritoneCommandMs = now;
         }
     }
@@ -598,6 +627,8 @@ public final class Navigator {
     }
 
     private void cancelBaritone() {
+        JfrEvents.BaritoneCall call = JfrEvents.BaritoneCall.start("cancelEverything");
+        boolean ok = false;
         try {
             Class<?> baritoneAPI = Class.forName("baritone.api.BaritoneAPI");
             Method getProvider = baritoneAPI.getMethod("getProvider");
@@ -619,7 +650,8 @@ public final class Navigator {
                 Method cancel = gp.getClass().getMethod("cancelEverything");
                 cancel.invoke(gp);
             } catch (Throwable ignored) {}
-
+            ok = true;
         } catch (Throwable ignored) {}
+        call.finish(ok);
     }
 }
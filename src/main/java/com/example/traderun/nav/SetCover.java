@@ -0,0 +1,47 @@
+package com.example.traderun.nav;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Greedy set cover: repeatedly pick the candidate covering the most still-uncovered
+ * elements. Not optimal in general, but within ln(n) of it and exact for the small,
+ * regular overlaps of trading cells.
+ */
+public final class SetCover {
+
+    private SetCover() {}
+
+    /**
+     * @param sets     elements covered by each candidate
+     * @param universe elements that must be covered
+     * @return indices of chosen candidates, in pick order (largest gain first).
+     *         Elements no candidate covers are left uncovered.
+     */
+    public static List<Integer> greedy(List<BitSet> sets, BitSet universe) {
+        List<Integer> chosen = new ArrayList<>();
+        BitSet remaining = (BitSet) universe.clone();
+        BitSet scratch = new BitSet();
+
+        while (!remaining.isEmpty()) {
+            int best = -1;
+            int bestGain = 0;
+            for (int i = 0; i < sets.size(); i++) {
+                scratch.clear();
+                scratch.or(sets.get(i));
+                scratch.and(remaining);
+                int gain = scratch.cardinality();
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    best = i;
+                }
+            }
+            if (best < 0) break; // Nothing covers what is left
+
+            chosen.add(best);
+            remaining.andNot(sets.get(best));
+        }
+        return chosen;
+    }
+}
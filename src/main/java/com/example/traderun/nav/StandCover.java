@@ -0,0 +1,150 @@
+package com.example.traderun.nav;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Standing tile choice without the world: candidate tiles around every villager, the
+ * villagers each one reaches, then the greedy cover. Each villager is assigned to the
+ * first chosen tile that reaches it.
+ *
+ * StandingPlanner answers the two questions from block states and raycasts; benchmarks
+ * and the simulator from a grid fixture.
+ */
+public final class StandCover {
+
+    public static final int CANDIDATE_RADIUS = 3;
+
+    /** What the cover asks of the world. Villagers are indices into the input arrays. */
+    public interface Grid {
+        /** Tile (x, y, z) can be stood on and sees villager {@code vi}. */
+        boolean isWalkway(int vi, int x, int y, int z);
+
+        /** A player standing on (x, y, z) can open villager {@code vi}. */
+        boolean canReach(int x, int y, int z, int vi);
+    }
+
+    /** Candidate tiles in discovery order and the villagers each one reaches. */
+    public static final class Candidates {
+        public final int[] x;
+        public final int[] y;
+        public final int[] z;
+        public final List<BitSet> reach;
+
+        Candidates(int[] x, int[] y, int[] z, List<BitSet> reach) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.reach = reach;
+        }
+
+        public int size() {
+            return reach.size();
+        }
+    }
+
+    /** Chosen tiles in pick order and the villagers traded from each. */
+    public static final class Cover {
+        public final int[] x;
+        public final int[] y;
+        public final int[] z;
+        public final List<BitSet> villagers;
+
+        Cover(int[] x, int[] y, int[] z, List<BitSet> villagers) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.villagers = villagers;
+        }
+
+        public int size() {
+            return villagers.size();
+        }
+    }
+
+    private StandCover() {}
+
+    /** Walkway tiles within CANDIDATE_RADIUS of each villager's block, and their reach sets. */
+    public static Candidates candidates(int[] vx, int[] vy, int[] vz, int n, Grid grid) {
+        Map<Long, Integer> seen = new HashMap<>();
+        int[] cx = new int[16];
+        int[] cy = new int[16];
+        int[] cz = new int[16];
+        int m = 0;
+
+        for (int vi = 0; vi < n; vi++) {
+            for (int dx = -CANDIDATE_RADIUS; dx <= CANDIDATE_RADIUS; dx++) {
+                for (int dz = -CANDIDATE_RADIUS; dz <= CANDIDATE_RADIUS; dz++) {
+                    if (dx == 0 && dz == 0) continue;
+                    int x = vx[vi] + dx;
+                    int y = vy[vi];
+                    int z = vz[vi] + dz;
+                    long key = pack(x, y, z);
+                    if (seen.containsKey(key)) continue;
+                    if (!grid.isWalkway(vi, x, y, z)) continue;
+                    if (m == cx.length) {
+                        cx = Arrays.copyOf(cx, m * 2);
+                        cy = Arrays.copyOf(cy, m * 2);
+                        cz = Arrays.copyOf(cz, m * 2);
+                    }
+                    seen.put(key, m);
+                    cx[m] = x;
+                    cy[m] = y;
+                    cz[m] = z;
+                    m++;
+                }
+            }
+        }
+
+        List<BitSet> reach = new ArrayList<>(m);
+        for (int c = 0; c < m; c++) {
+            BitSet s = new BitSet(n);
+            for (int vi = 0; vi < n; vi++) {
+                if (grid.canReach(cx[c], cy[c], cz[c], vi)) s.set(vi);
+            }
+            reach.add(s);
+        }
+        return new Candidates(Arrays.copyOf(cx, m), Arrays.copyOf(cy, m),
+                Arrays.copyOf(cz, m), reach);
+    }
+
+    /** Greedy cover of all {@code n} villagers; tiles that add nobody new are dropped. */
+    public static Cover cover(Candidates candidates, int n) {
+        BitSet universe = new BitSet(n);
+        universe.set(0, n);
+        List<Integer> picked = SetCover.greedy(candidates.reach, universe);
+
+        int[] x = new int[picked.size()];
+        int[] y = new int[picked.size()];
+        int[] z = new int[picked.size()];
+        List<BitSet> villagers = new ArrayList<>(picked.size());
+        BitSet assigned = new BitSet(n);
+        for (int idx : picked) {
+            BitSet own = (BitSet) candidates.reach.get(idx).clone();
+            own.andNot(assigned);
+            if (own.isEmpty()) continue;
+            assigned.or(own);
+            int k = villagers.size();
+            x[k] = candidates.x[idx];
+            y[k] = candidates.y[idx];
+            z[k] = candidates.z[idx];
+            villagers.add(own);
+        }
+        int k = villagers.size();
+        return new Cover(Arrays.copyOf(x, k), Arrays.copyOf(y, k),
+                Arrays.copyOf(z, k), villagers);
+    }
+
+    public static Cover plan(int[] vx, int[] vy, int[] vz, int n, Grid grid) {
+        return cover(candidates(vx, vy, vz, n, grid), n);
+    }
+
+    /** Same bit layout as BlockPos.asLong, without the Minecraft class. */
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+}
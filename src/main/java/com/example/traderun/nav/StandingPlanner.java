@@ -0,0 +1,143 @@
+package com.example.traderun.nav;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Plans a small set of standing tiles that together reach every given villager.
+ *
+ * Candidates are the walkway tiles around each villager (same rules as ApproachUtil).
+ * Each candidate covers the villagers within interaction reach and line of sight of a
+ * player standing there; StandCover picks the tiles, which are then visited
+ * nearest-first from the player.
+ */
+public final class StandingPlanner {
+
+    /** Stay this far inside reach - the server checks from its own idea of our position. */
+    private static final double REACH_MARGIN = 0.5;
+    private static final double EYE_HEIGHT = 1.62;
+
+    public static final class Stand {
+        public final BlockPos pos;
+        public final List<VillagerEntity> villagers;
+
+        Stand(BlockPos pos, List<VillagerEntity> villagers) {
+            this.pos = pos;
+            this.villagers = villagers;
+        }
+    }
+
+    private final Deque<Stand> plan = new ArrayDeque<>();
+
+    public void clear() {
+        plan.clear();
+    }
+
+    public int remainingStands() {
+        return plan.size();
+    }
+
+    /**
+     * Next standing tile with at least one of the given (currently eligible) villagers.
+     * Re-plans when the previous plan is used up.
+     */
+    public Stand nextStand(MinecraftClient client, List<VillagerEntity> eligible) {
+        if (client == null || client.player == null || client.world == null || eligible.isEmpty()) return null;
+
+        Stand next = pollUseful(eligible);
+        if (next != null) return next;
+
+        plan.addAll(computePlan(client, eligible));
+        return pollUseful(eligible);
+    }
+
+    private Stand pollUseful(List<VillagerEntity> eligible) {
+        while (!plan.isEmpty()) {
+            Stand s = plan.poll();
+            List<VillagerEntity> still = new ArrayList<>();
+            for (VillagerEntity v : s.villagers) {
+                if (v.isAlive() && eligible.contains(v)) still.add(v);
+            }
+            if (!still.isEmpty()) return new Stand(s.pos, still);
+        }
+        return null;
+    }
+
+    /** True if a player standing on {@code pos} could open {@code villager}. */
+    public static boolean canReachFrom(MinecraftClient client, BlockPos pos, VillagerEntity villager) {
+        if (client.player == null || client.world == null) return false;
+        double reach = client.player.getEntityInteractionRange() - REACH_MARGIN;
+        Vec3d eye = new Vec3d(pos.getX() + 0.5, pos.getY() + EYE_HEIGHT, pos.getZ() + 0.5);
+        if (villager.getBoundingBox().squaredMagnitude(eye) > reach * reach) return false;
+        return ApproachUtil.hasLineOfSight(client.world, villager, pos);
+    }
+
+    private List<Stand> computePlan(MinecraftClient client, List<VillagerEntity> villagers) {
+        World world = client.world;
+        int n = villagers.size();
+        int[] vx = new int[n];
+        int[] vy = new int[n];
+        int[] vz = new int[n];
+        for (int vi = 0; vi < n; vi++) {
+            BlockPos base = villagers.get(vi).getBlockPos();
+            vx[vi] = base.getX();
+            vy[vi] = base.getY();
+            vz[vi] = base.getZ();
+        }
+
+        StandCover.Cover cover = StandCover.plan(vx, vy, vz, n, new StandCover.Grid() {
+            @Override
+            public boolean isWalkway(int vi, int x, int y, int z) {
+                return ApproachUtil.isValidWalkway(world, villagers.get(vi), new BlockPos(x, y, z));
+            }
+
+            @Override
+            public boolean canReach(int x, int y, int z, int vi) {
+                return canReachFrom(client, new BlockPos(x, y, z), villagers.get(vi));
+            }
+        });
+
+        List<Stand> stands = new ArrayList<>(cover.size());
+        for (int k = 0; k < cover.size(); k++) {
+            List<VillagerEntity> reached = new ArrayList<>();
+            BitSet s = cover.villagers.get(k);
+            for (int vi = s.nextSetBit(0); vi >= 0; vi = s.nextSetBit(vi + 1)) {
+                reached.add(villagers.get(vi));
+            }
+            stands.add(new Stand(new BlockPos(cover.x[k], cover.y[k], cover.z[k]), reached));
+        }
+
+        return orderNearestFirst(stands, client.player.getPos());
+    }
+
+    /** Visit order: always walk to the closest remaining stand. */
+    private static List<Stand> orderNearestFirst(List<Stand> stands, Vec3d start) {
+        List<Stand> left = new ArrayList<>(stands);
+        List<Stand> out = new ArrayList<>(stands.size());
+        Vec3d from = start;
+        while (!left.isEmpty()) {
+            Stand best = null;
+            double bestD = Double.POSITIVE_INFINITY;
+            for (Stand s : left) {
+                double d = from.squaredDistanceTo(s.pos.getX() + 0.5, s.pos.getY(), s.pos.getZ() + 0.5);
+                if (d < bestD) {
+                    bestD = d;
+                    best = s;
+                }
+            }
+            left.remove(best);
+            out.add(best);
+            from = new Vec3d(best.pos.getX() + 0.5, best.pos.getY(), best.pos.getZ() + 0.5);
+        }
+        return out;
+    }
+}
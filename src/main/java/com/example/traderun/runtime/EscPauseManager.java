@@ -1,5 +1,7 @@
 package com.example.traderun.runtime;
 
+import com.example.traderun.util.TickClock;
+
 /**
  * Manages the 10-second ESC pause functionality.
  * Separate from mixin to avoid static method issues.
@@ -18,7 +20,7 @@ public final class EscPauseManager {
         if (isInPause()) {
             return;
         }
-        pauseUntilMs = System.currentTimeMillis() + 10_000L;
+        pauseUntilMs = TickClock.nowMs() + 10_000L;
     }
     
     /**
@@ -32,7 +34,7 @@ public final class EscPauseManager {
      * Check if currently in pause mode
      */
     public static boolean isInPause() {
-        return System.currentTimeMillis() < pauseUntilMs;
+        return TickClock.nowMs() < pauseUntilMs;
     }
     
     /**
@@ -46,7 +48,7 @@ public final class EscPauseManager {
      * Get remaining seconds in pause
      */
     public static int getRemainingSeconds() {
-        long remaining = pauseUntilMs - System.currentTimeMillis();
+        long remaining = pauseUntilMs - TickClock.nowMs();
         return remaining > 0 ? (int)(remaining / 1000) + 1 : 0;
     }
 }
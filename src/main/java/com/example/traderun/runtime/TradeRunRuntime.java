@@ -113,5 +113,17 @@ public final class TradeRunRuntime {
     public java.util.List<String> getDebugLines(int count) {
         return fsm.getDebugLines(count);
     }
+
+    public String getSleepStats() {
+        return fsm.sleepStats();
+    }
+
+    public String getStateStats() {
+        return fsm.stateStats();
+    }
+
+    public long getTimeInStateMs() {
+        return fsm.timeInStateMs();
+    }
 }
 
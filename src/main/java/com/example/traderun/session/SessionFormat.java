@@ -0,0 +1,63 @@
+package com.example.traderun.session;
+
+/**
+ * Layout of the session ring file (little-endian).
+ *
+ * File header (64 bytes): magic, version, segment size, segment count, created wall ms.
+ * The rest is segmentCount fixed-size segments used round-robin. A segment starts with
+ * its header (sequence number, base time, bytes used) and holds whole records only, so
+ * a reader can order segments by sequence and parse each one from the start - no
+ * record is ever split by the wrap-around. "used" is bumped after a record's bytes are
+ * written, so a crash mid-record leaves the segment readable up to the last full record.
+ *
+ * Record: type (u8), payload length (u16), time since segment base (i32 ms), payload.
+ */
+public final class SessionFormat {
+
+    private SessionFormat() {}
+
+    public static final int MAGIC = 0x31525254;         // "TRR1"
+    public static final int VERSION = 1;
+    public static final int FILE_HEADER = 64;
+    public static final int SEGMENT_HEADER = 8 + 8 + 4; // seq, baseMs, used
+    public static final int RECORD_HEADER = 1 + 2 + 4;
+    public static final int MAX_PAYLOAD = 1024;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+    public static final int DEFAULT_SEGMENTS = 64;      // 4 MB, several hours of a normal run
+
+    // Record types
+    /** Comma separated state names; first record of every segment so ordinals stay readable. */
+    public static final int STATE_NAMES = 1;
+    /** from (u8), to (u8) state ordinals. */
+    public static final int STATE = 2;
+    /** TradeRunEvents.Type ordinal (u8). */
+    public static final int EVENT = 3;
+    /** x, y, z (i32). */
+    public static final int NAV_GOAL = 4;
+    /** x, y, z (i32), block state raw id (i32). */
+    public static final int BLOCK = 5;
+    /** opened (u8), screen class simple name (utf-8). */
+    public static final int SCREEN = 6;
+    /** item raw id, old count, new count (i32). */
+    public static final int INVENTORY = 7;
+    /** x, y, z (f32). */
+    public static final int POSITION = 8;
+    /** Free text (utf-8): failure causes, markers. */
+    public static final int NOTE = 9;
+
+    public static String typeName(int type) {
+        return switch (type) {
+            case STATE_NAMES -> "STATE_NAMES";
+            case STATE -> "STATE";
+            case EVENT -> "EVENT";
+            case NAV_GOAL -> "NAV_GOAL";
+            case BLOCK -> "BLOCK";
+            case SCREEN -> "SCREEN";
+            case INVENTORY -> "INVENTORY";
+            case POSITION -> "POSITION";
+            case NOTE -> "NOTE";
+            default -> "TYPE_" + type;
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.traderun.session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads a session ring file back into time-ordered records (oldest first).
+ * Segments are ordered by sequence number; unused segments (sequence 0) are skipped.
+ */
+public final class SessionReader {
+
+    public static final class Entry {
+        public final int type;
+        public final long timeMs;
+        private final byte[] payload;
+
+        Entry(int type, long timeMs, byte[] payload) {
+            this.type = type;
+            this.timeMs = timeMs;
+            this.payload = payload;
+        }
+
+        public int u8(int offset) {
+            return payload[offset] & 0xFF;
+        }
+
+        public int i32(int offset) {
+            return ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).getInt(offset);
+        }
+
+        public float f32(int offset) {
+            return ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).getFloat(offset);
+        }
+
+        public String text(int offset) {
+            return new String(payload, offset, payload.length - offset, StandardCharsets.UTF_8);
+        }
+
+        public int length() {
+            return payload.length;
+        }
+    }
+
+    private final long createdWallMs;
+    private final List<Entry> entries;
+
+    private SessionReader(long createdWallMs, List<Entry> entries) {
+        this.createdWallMs = createdWallMs;
+        this.entries = entries;
+    }
+
+    public static SessionReader read(Path path) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (b.remaining() < SessionFormat.FILE_HEADER || b.getInt(0) != SessionFormat.MAGIC) {
+            throw new IOException("not a session recording: " + path);
+        }
+        if (b.getInt(4) != SessionFormat.VERSION) {
+            throw new IOException("unsupported session version " + b.getInt(4));
+        }
+        int segmentSize = b.getInt(8);
+        int segments = b.getInt(12);
+        long created = b.getLong(16);
+
+        List<long[]> order = new ArrayList<>();  // {seq, segment index}
+        for (int i = 0; i < segments; i++) {
+            int base = SessionFormat.FILE_HEADER + i * segmentSize;
+            if (base + SessionFormat.SEGMENT_HEADER > b.limit()) break;
+            long seq = b.getLong(base);
+            if (seq > 0L) order.add(new long[] {seq, i});
+        }
+        order.sort(Comparator.comparingLong(o -> o[0]));
+
+        List<Entry> out = new ArrayList<>();
+        for (long[] o : order) {
+            int base = SessionFormat.FILE_HEADER + (int) o[1] * segmentSize;
+            long baseMs = b.getLong(base + 8);
+            int used = Math.min(b.getInt(base + 16), segmentSize);
+            int p = SessionFormat.SEGMENT_HEADER;
+            while (p + SessionFormat.RECORD_HEADER <= used) {
+                int at = base + p;
+                int type = b.get(at) & 0xFF;
+                int len = b.getShort(at + 1) & 0xFFFF;
+                int dt = b.getInt(at + 3);
+                if (p + SessionFormat.RECORD_HEADER + len > used) break;
+                byte[] payload = new byte[len];
+                b.get(at + SessionFormat.RECORD_HEADER, payload);
+                out.add(new Entry(type, baseMs + dt, payload));
+                p += SessionFormat.RECORD_HEADER + len;
+            }
+        }
+        return new SessionReader(created, out);
+    }
+
+    public long createdWallMs() {
+        return createdWallMs;
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.traderun.session;
+
+import com.example.traderun.util.TickClock;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary flight recorder: FSM transitions, navigation goals, events, block changes near
+ * the player, screens, inventory deltas and positions, written into a memory-mapped
+ * ring file (see {@link SessionFormat}).
+ *
+ * A record is a handful of stores into the mapped buffer - no allocation (except text
+ * records), no syscalls; the OS writes the pages back, so the file survives a crash of
+ * the game. snapshot() copies the ring next to the debug files so the episode that
+ * went wrong isn't overwritten by the next hours of recording.
+ *
+ * Client thread only. Every method is a no-op while the recorder is closed.
+ */
+public final class SessionRecorder {
+
+    private SessionRecorder() {}
+
+    private static FileChannel channel = null;
+    private static MappedByteBuffer buf = null;
+    private static Path file = null;
+
+    private static int segmentSize = 0;
+    private static int segments = 0;
+    private static int segment = 0;
+    private static int segmentBase = 0;     // Absolute offset of the current segment
+    private static int pos = 0;             // Offset inside the current segment
+    private static long seq = 0L;
+    private static long baseMs = 0L;
+    private static byte[] stateNames = new byte[0];
+
+    private static long records = 0L;
+
+    public static boolean open(Path path, String[] stateNameList) {
+        return open(path, stateNameList, SessionFormat.DEFAULT_SEGMENT_SIZE, SessionFormat.DEFAULT_SEGMENTS);
+    }
+
+    /** Start a fresh recording (the previous content of the file is discarded). */
+    public static boolean open(Path path, String[] stateNameList, int segmentSize, int segments) {
+        close();
+        try {
+            FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            long size = SessionFormat.FILE_HEADER + (long) segmentSize * segments;
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            b.order(ByteOrder.LITTLE_ENDIAN);
+
+            b.putInt(0, SessionFormat.MAGIC);
+            b.putInt(4, SessionFormat.VERSION);
+            b.putInt(8, segmentSize);
+            b.putInt(12, segments);
+            b.putLong(16, TickClock.wallMs());
+
+            channel = ch;
+            buf = b;
+            file = path;
+            SessionRecorder.segmentSize = segmentSize;
+            SessionRecorder.segments = segments;
+            stateNames = String.join(",", stateNameList).getBytes(StandardCharsets.UTF_8);
+            seq = 0L;
+            records = 0L;
+            startSegment(0);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[traderun] Session recorder disabled: " + e.getMessage());
+            close();
+            return false;
+        }
+    }
+
+    public static void close() {
+        if (buf != null) {
+            try { buf.force(); } catch (RuntimeException ignored) {}
+        }
+        if (channel != null) {
+            try { channel.close(); } catch (IOException ignored) {}
+        }
+        channel = null;
+        buf = null;
+        file = null;
+    }
+
+    public static boolean isOpen() {
+        return buf != null;
+    }
+
+    public static long records() {
+        return records;
+    }
+
+    // ========== Records ==========
+
+    public static void state(int from, int to) {
+        int p = begin(SessionFormat.STATE, 2);
+        if (p < 0) return;
+        buf.put(p, (byte) from);
+        buf.put(p + 1, (byte) to);
+        commit(2);
+    }
+
+    public static void event(int type) {
+        int p = begin(SessionFormat.EVENT, 1);
+        if (p < 0) return;
+        buf.put(p, (byte) type);
+        commit(1);
+    }
+
+    public static void navGoal(int x, int y, int z) {
+        int p = begin(SessionFormat.NAV_GOAL, 12);
+        if (p < 0) return;
+        buf.putInt(p, x);
+        buf.putInt(p + 4, y);
+        buf.putInt(p + 8, z);
+        commit(12);
+    }
+
+    public static void block(int x, int y, int z, int stateRawId) {
+        int p = begin(SessionFormat.BLOCK, 16);
+        if (p < 0) return;
+        buf.putInt(p, x);
+        buf.putInt(p + 4, y);
+        buf.putInt(p + 8, z);
+        buf.putInt(p + 12, stateRawId);
+        commit(16);
+    }
+
+    public static void screen(boolean opened, String name) {
+        if (buf == null) return;
+        byte[] text = utf8(name);
+        int p = begin(SessionFormat.SCREEN, 1 + text.length);
+        if (p < 0) return;
+        buf.put(p, (byte) (opened ? 1 : 0));
+        buf.put(p + 1, text);
+        commit(1 + text.length);
+    }
+
+    public static void inventory(int itemRawId, int oldCount, int newCount) {
+        int p = begin(SessionFormat.INVENTORY, 12);
+        if (p < 0) return;
+        buf.putInt(p, itemRawId);
+        buf.putInt(p + 4, oldCount);
+        buf.putInt(p + 8, newCount);
+        commit(12);
+    }
+
+    public static void position(double x, double y, double z) {
+        int p = begin(SessionFormat.POSITION, 12);
+        if (p < 0) return;
+        buf.putFloat(p, (float) x);
+        buf.putFloat(p + 4, (float) y);
+        buf.putFloat(p + 8, (float) z);
+        commit(12);
+    }
+
+    public static void note(String text) {
+        if (buf == null) return;
+        byte[] bytes = utf8(text);
+        int p = begin(SessionFormat.NOTE, bytes.length);
+        if (p < 0) return;
+        buf.put(p, bytes);
+        commit(bytes.length);
+    }
+
+    /** Copy the ring to dir/session_<reason>_<timestamp>.ring; returns the copy or null. */
+    public static Path snapshot(Path dir, String reason, String timestamp) {
+        if (buf == null || file == null) return null;
+        try {
+            buf.force();
+            Path copy = dir.resolve("session_" + reason + "_" + timestamp + ".ring");
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+            return copy;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[traderun] Failed to save session: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ========== Internals ==========
+
+    /** Reserve a record; returns the absolute payload offset or -1 when closed / too big. */
+    private static int begin(int type, int len) {
+        if (buf == null || len > SessionFormat.MAX_PAYLOAD) return -1;
+        long now = TickClock.nowMs();
+        long dt = now - baseMs;
+        if (pos + SessionFormat.RECORD_HEADER + len > segmentSize || dt < 0L || dt > Integer.MAX_VALUE) {
+            startSegment((segment + 1) % segments);
+            dt = 0L;
+        }
+        int at = segmentBase + pos;
+        buf.put(at, (byte) type);
+        buf.putShort(at + 1, (short) len);
+        buf.putInt(at + 3, (int) dt);
+        return at + SessionFormat.RECORD_HEADER;
+    }
+
+    /** Publish the record: only now does the segment's "used" cover it. */
+    private static void commit(int len) {
+        pos += SessionFormat.RECORD_HEADER + len;
+        buf.putInt(segmentBase + 16, pos);
+        records++;
+    }
+
+    private static void startSegment(int index) {
+        segment = index;
+        segmentBase = SessionFormat.FILE_HEADER + index * segmentSize;
+        baseMs = TickClock.nowMs();
+        buf.putInt(segmentBase + 16, 0);             // Invalidate old content first
+        buf.putLong(segmentBase, ++seq);
+        buf.putLong(segmentBase + 8, baseMs);
+        pos = SessionFormat.SEGMENT_HEADER;
+        buf.putInt(segmentBase + 16, pos);
+
+        // Self-describing: every segment names the states its STATE records refer to
+        int len = Math.min(stateNames.length, SessionFormat.MAX_PAYLOAD);
+        int at = segmentBase + pos;
+        buf.put(at, (byte) SessionFormat.STATE_NAMES);
+        buf.putShort(at + 1, (short) len);
+        buf.putInt(at + 3, 0);
+        buf.put(at + SessionFormat.RECORD_HEADER, stateNames, 0, len);
+        commit(len);
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        if (b.length <= SessionFormat.MAX_PAYLOAD - 1) return b;
+        byte[] cut = new byte[SessionFormat.MAX_PAYLOAD - 1];
+        System.arraycopy(b, 0, cut, 0, cut.length);
+        return cut;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.traderun.storage;
 
 import com.example.traderun.util.DebugLogger;
+import com.example.traderun.util.TickClock;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.ingame.GenericContainerScreen;
 import net.minecraft.client.gui.screen.ingame.ShulkerBoxScreen;
@@ -61,7 +62,7 @@ public final class StorageLearner {
         }
         
         // Rate limit checks
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (now - lastCheckMs < 500) return;
         lastCheckMs = now;
         
@@ -1,22 +1,24 @@
 package com.example.traderun.storage;
 
+import com.example.traderun.config.ConfigStore;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
-import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.lang.reflect.Type;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 
+/**
+ * Input and output chests per floor Y, with their opening spots and remembered items.
+ *
+ * TradeRunVisuals asks getForY() on the render thread, so reads never lock: mutations copy
+ * the map (and the entry they change) and publish an immutable map through a volatile
+ * field, and the ConfigStore writer serializes whatever map is published.
+ */
 public final class StorageRegistry {
 
     public enum Role { INPUT, OUTPUT }
@@ -32,62 +34,96 @@ public final class StorageRegistry {
         public BlockPos toBlockPos() { return new BlockPos(x, y, z); }
     }
 
+    // Published entries are never modified: writers change a copy() and publish a new map
     private static final class RoleData {
         public StoredLocation block;
         public double[] openSpot;       // Vec3d [x,y,z]
         public String rememberedItem;   // Identifier string
+
+        RoleData copy() {
+            RoleData c = new RoleData();
+            c.block = block;
+            c.openSpot = openSpot;
+            c.rememberedItem = rememberedItem;
+            return c;
+        }
     }
 
     private static final class FloorData {
         public int y;
         public RoleData input;
         public RoleData output;
+
+        FloorData copy() {
+            FloorData c = new FloorData();
+            c.y = y;
+            c.input = input == null ? null : input.copy();
+            c.output = output == null ? null : output.copy();
+            return c;
+        }
     }
 
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson GSON = new Gson();
+    private static final String FILE = "storages.json";
     private static final Type LIST_TYPE = new TypeToken<List<FloorData>>(){}.getType();
-    private static final Map<Integer, FloorData> FLOORS = new HashMap<>();
+
+    // Copy-on-write: replaced (never modified) under the class lock, read without it
+    private static volatile Map<Integer, FloorData> floors = Map.of();
 
     private StorageRegistry() {}
 
-    private static Path configPath() {
-        Path dir = FabricLoader.getInstance().getConfigDir().resolve("traderun");
-        try { Files.createDirectories(dir); } catch (IOException ignored) {}
-        return dir.resolve("storages.json");
+    /** Publish a modified copy; callers hold the class lock so writers don't lose each other's changes. */
+    private static void publishMap(Map<Integer, FloorData> next) {
+        floors = Map.copyOf(next);
     }
 
-    static { load(); }
+    /** Load storages.json in the background; called once at client init. */
+    public static void preload() {
+        ConfigStore.readAsync(FILE, StorageRegistry::publish);
+    }
 
-    public static synchronized void load() {
-        FLOORS.clear();
-        Path p = configPath();
-        if (!Files.exists(p)) return;
+    /** Parse without the lock, then publish in one step; edits made meanwhile win. */
+    private static void publish(JsonElement el) {
+        Map<Integer, FloorData> loaded = new HashMap<>();
+        if (el != null) {
+            try {
+                List<FloorData> list = GSON.fromJson(el, LIST_TYPE);
+                if (list != null) {
+                    for (FloorData f : list) {
+                        if (f != null) loaded.put(f.y, f);
+                    }
+                }
+            } catch (Throwable ignored) {}
+        }
+        synchronized (StorageRegistry.class) {
+            Map<Integer, FloorData> next = new HashMap<>(loaded);
+            next.putAll(floors);
+            publishMap(next);
+        }
+    }
 
-        try (Reader r = Files.newBufferedReader(p)) {
-            List<FloorData> list = GSON.fromJson(r, LIST_TYPE);
-            if (list == null) return;
-            for (FloorData f : list) {
-                if (f == null) continue;
-                FLOORS.put(f.y, f);
-            }
-        } catch (Throwable ignored) {}
+    private static void save() {
+        ConfigStore.markDirty(FILE, StorageRegistry::snapshot);
     }
 
-    private static synchronized void save() {
-        Path p = configPath();
-        List<FloorData> list = new ArrayList<>(FLOORS.values());
+    /** Runs on the ConfigStore writer; serializes the published map, never takes the lock. */
+    private static JsonElement snapshot() {
+        List<FloorData> list = new ArrayList<>(floors.values());
         list.sort(Comparator.comparingInt(a -> a.y));
-        try (Writer w = Files.newBufferedWriter(p)) {
-            GSON.toJson(list, LIST_TYPE, w);
-        } catch (Throwable ignored) {}
+        return GSON.toJsonTree(list, LIST_TYPE);
+    }
+
+    /** Writable copy of floor y in next (a new floor if there is none). */
+    private static FloorData floor(Map<Integer, FloorData> next, int y) {
+        FloorData old = next.get(y);
+        FloorData f = old == null ? new FloorData() : old.copy();
+        f.y = y;
+        next.put(y, f);
+        return f;
     }
 
-    private static FloorData floor(int y) {
-        return FLOORS.computeIfAbsent(y, yy -> {
-            FloorData f = new FloorData();
-            f.y = yy;
-            return f;
-        });
+    private static RoleData role(FloorData f, Role role) {
+        return (role == Role.INPUT) ? f.input : f.output;
     }
 
     private static RoleData roleData(FloorData f, Role role) {
@@ -108,7 +144,8 @@ public final class StorageRegistry {
     public static synchronized void setForPlayerFloor(Role role, MinecraftClient client, BlockPos pos) {
         if (pos == null) return;
         int y = playerFloorY(client);
-        FloorData f = floor(y);
+        Map<Integer, FloorData> next = new HashMap<>(floors);
+        FloorData f = floor(next, y);
         RoleData rd = roleData(f, role);
         rd.block = new StoredLocation(pos.getX(), pos.getY(), pos.getZ());
         // Save player's current position as the opening spot
@@ -116,18 +153,21 @@ public final class StorageRegistry {
             Vec3d playerPos = client.player.getPos();
             rd.openSpot = new double[]{playerPos.x, playerPos.y, playerPos.z};
         }
+        publishMap(next);
         save();
     }
 
     public static synchronized void deleteForPlayerFloor(Role role, MinecraftClient client) {
         int y = playerFloorY(client);
-        FloorData f = FLOORS.get(y);
-        if (f == null) return;
+        if (!floors.containsKey(y)) return;
+        Map<Integer, FloorData> next = new HashMap<>(floors);
+        FloorData f = floor(next, y);
 
         if (role == Role.INPUT) f.input = null;
         else f.output = null;
 
-        if (f.input == null && f.output == null) FLOORS.remove(y);
+        if (f.input == null && f.output == null) next.remove(y);
+        publishMap(next);
         save();
     }
 
@@ -139,14 +179,19 @@ public final class StorageRegistry {
         deleteForPlayerFloor(role, MinecraftClient.getInstance());
     }
 
-    public static synchronized int count() {
-        return count(Role.INPUT) + count(Role.OUTPUT);
+    public static int count() {
+        Map<Integer, FloorData> m = floors;
+        return count(m, Role.INPUT) + count(m, Role.OUTPUT);
+    }
+
+    public static int count(Role role) {
+        return count(floors, role);
     }
 
-    public static synchronized int count(Role role) {
+    private static int count(Map<Integer, FloorData> m, Role role) {
         int c = 0;
-        for (FloorData f : FLOORS.values()) {
-            RoleData rd = (role == Role.INPUT) ? f.input : f.output;
+        for (FloorData f : m.values()) {
+            RoleData rd = role(f, role);
             if (rd != null && rd.block != null) c++;
         }
         return c;
@@ -156,13 +201,14 @@ public final class StorageRegistry {
      * Get detailed info about all storages for display.
      * Returns a list of strings describing each storage entry.
      */
-    public static synchronized java.util.List<String> getDetailedList() {
+    public static java.util.List<String> getDetailedList() {
+        Map<Integer, FloorData> m = floors;
         java.util.List<String> result = new ArrayList<>();
-        java.util.List<Integer> sortedYs = new ArrayList<>(FLOORS.keySet());
+        java.util.List<Integer> sortedYs = new ArrayList<>(m.keySet());
         sortedYs.sort(Integer::compare);
         
         for (int y : sortedYs) {
-            FloorData f = FLOORS.get(y);
+            FloorData f = m.get(y);
             if (f == null) continue;
             
             StringBuilder sb = new StringBuilder();
@@ -202,11 +248,15 @@ public final class StorageRegistry {
     /**
      * Get storage for exact floor Y; else fallback within |ΔY|<=3 choosing closest.
      */
-    public static synchronized Optional<StoredLocation> getForY(Role role, int y) {
+    public static Optional<StoredLocation> getForY(Role role, int y) {
+        return getForY(floors, role, y);
+    }
+
+    private static Optional<StoredLocation> getForY(Map<Integer, FloorData> m, Role role, int y) {
         // First try exact match
-        FloorData exact = FLOORS.get(y);
+        FloorData exact = m.get(y);
         if (exact != null) {
-            RoleData rd = (role == Role.INPUT) ? exact.input : exact.output;
+            RoleData rd = role(exact, role);
             if (rd != null && rd.block != null) return Optional.of(rd.block);
         }
 
@@ -214,10 +264,10 @@ public final class StorageRegistry {
         FloorData best = null;
         int bestDy = Integer.MAX_VALUE;
 
-        for (FloorData f : FLOORS.values()) {
+        for (FloorData f : m.values()) {
             int dy = Math.abs(f.y - y);
             if (dy > 3) continue; // Allow up to 3 Y levels difference
-            RoleData rd = (role == Role.INPUT) ? f.input : f.output;
+            RoleData rd = role(f, role);
             if (rd == null || rd.block == null) continue;
             if (dy < bestDy) {
                 bestDy = dy;
@@ -226,23 +276,26 @@ public final class StorageRegistry {
         }
 
         if (best == null) return Optional.empty();
-        RoleData rd = (role == Role.INPUT) ? best.input : best.output;
+        RoleData rd = role(best, role);
         return (rd != null && rd.block != null) ? Optional.of(rd.block) : Optional.empty();
     }
 
     public static synchronized void setOpenSpot(Role role, int floorY, Vec3d spot) {
         if (spot == null) return;
-        FloorData f = floor(floorY);
+        Map<Integer, FloorData> next = new HashMap<>(floors);
+        FloorData f = floor(next, floorY);
         RoleData rd = roleData(f, role);
         rd.openSpot = new double[]{spot.x, spot.y, spot.z};
+        publishMap(next);
         save();
     }
 
-    public static synchronized Optional<Vec3d> getOpenSpot(Role role, int floorY) {
+    public static Optional<Vec3d> getOpenSpot(Role role, int floorY) {
+        Map<Integer, FloorData> m = floors;
         // First try exact match
-        FloorData exact = FLOORS.get(floorY);
+        FloorData exact = m.get(floorY);
         if (exact != null) {
-            RoleData rd = (role == Role.INPUT) ? exact.input : exact.output;
+            RoleData rd = role(exact, role);
             if (rd != null && rd.openSpot != null && rd.openSpot.length >= 3) {
                 return Optional.of(new Vec3d(rd.openSpot[0], rd.openSpot[1], rd.openSpot[2]));
             }
@@ -252,10 +305,10 @@ public final class StorageRegistry {
         FloorData best = null;
         int bestDy = Integer.MAX_VALUE;
 
-        for (FloorData f : FLOORS.values()) {
+        for (FloorData f : m.values()) {
             int dy = Math.abs(f.y - floorY);
             if (dy > 3) continue;
-            RoleData rd = (role == Role.INPUT) ? f.input : f.output;
+            RoleData rd = role(f, role);
             if (rd == null || rd.openSpot == null || rd.openSpot.length < 3) continue;
             if (dy < bestDy) {
                 bestDy = dy;
@@ -264,7 +317,7 @@ public final class StorageRegistry {
         }
 
         if (best == null) return Optional.empty();
-        RoleData rd = (role == Role.INPUT) ? best.input : best.output;
+        RoleData rd = role(best, role);
         if (rd != null && rd.openSpot != null && rd.openSpot.length >= 3) {
             return Optional.of(new Vec3d(rd.openSpot[0], rd.openSpot[1], rd.openSpot[2]));
         }
@@ -276,9 +329,11 @@ public final class StorageRegistry {
      */
     public static synchronized void updateRememberedItem(Role role, int floorY, Identifier itemId) {
         if (itemId == null) return;
-        FloorData f = floor(floorY);
+        Map<Integer, FloorData> next = new HashMap<>(floors);
+        FloorData f = floor(next, floorY);
         RoleData rd = roleData(f, role);
         rd.rememberedItem = itemId.toString();
+        publishMap(next);
         save();
     }
     
@@ -286,13 +341,12 @@ public final class StorageRegistry {
      * Clear the remembered item for a role at a floor Y level.
      */
     public static synchronized void clearRememberedItem(Role role, int floorY) {
-        FloorData exact = FLOORS.get(floorY);
-        if (exact != null) {
-            RoleData rd = (role == Role.INPUT) ? exact.input : exact.output;
-            if (rd != null) {
-                rd.rememberedItem = null;
-                save();
-            }
+        FloorData exact = floors.get(floorY);
+        if (exact != null && role(exact, role) != null) {
+            Map<Integer, FloorData> next = new HashMap<>(floors);
+            role(floor(next, floorY), role).rememberedItem = null;
+            publishMap(next);
+            save();
         }
     }
     
@@ -300,17 +354,21 @@ public final class StorageRegistry {
      * Clear remembered items for all floors.
      */
     public static synchronized void clearAllRememberedItems() {
-        for (FloorData f : FLOORS.values()) {
+        Map<Integer, FloorData> next = new HashMap<>(floors);
+        for (int y : floors.keySet()) {
+            FloorData f = floor(next, y);
             if (f.input != null) f.input.rememberedItem = null;
             if (f.output != null) f.output.rememberedItem = null;
         }
+        publishMap(next);
         save();
     }
 
-    public static synchronized Optional<Identifier> getRememberedItem(Role role, int floorY) {
-        FloorData exact = FLOORS.get(floorY);
+    public static Optional<Identifier> getRememberedItem(Role role, int floorY) {
+        Map<Integer, FloorData> m = floors;
+        FloorData exact = m.get(floorY);
         if (exact != null) {
-            RoleData rd = (role == Role.INPUT) ? exact.input : exact.output;
+            RoleData rd = role(exact, role);
             Identifier id = parseId(rd == null ? null : rd.rememberedItem);
             if (id != null) return Optional.of(id);
         }
@@ -319,10 +377,10 @@ public final class StorageRegistry {
         int bestDy = Integer.MAX_VALUE;
         Identifier bestId = null;
 
-        for (FloorData f : FLOORS.values()) {
+        for (FloorData f : m.values()) {
             int dy = Math.abs(f.y - floorY);
             if (dy > 1) continue;
-            RoleData rd = (role == Role.INPUT) ? f.input : f.output;
+            RoleData rd = role(f, role);
             Identifier id = parseId(rd == null ? null : rd.rememberedItem);
             if (id == null) continue;
             if (dy < bestDy) {
@@ -344,21 +402,22 @@ public final class StorageRegistry {
      * Check if a floor has both INPUT and OUTPUT storage configured.
      * Used to verify a floor is ready for trading before switching to it.
      */
-    public static synchronized boolean hasStorageForFloor(int floorY) {
-        return getForY(Role.INPUT, floorY).isPresent() && getForY(Role.OUTPUT, floorY).isPresent();
+    public static boolean hasStorageForFloor(int floorY) {
+        Map<Integer, FloorData> m = floors;
+        return getForY(m, Role.INPUT, floorY).isPresent() && getForY(m, Role.OUTPUT, floorY).isPresent();
     }
     
     /**
      * Check if a floor has INPUT storage configured.
      */
-    public static synchronized boolean hasInputForFloor(int floorY) {
+    public static boolean hasInputForFloor(int floorY) {
         return getForY(Role.INPUT, floorY).isPresent();
     }
     
     /**
      * Check if a floor has OUTPUT storage configured.
      */
-    public static synchronized boolean hasOutputForFloor(int floorY) {
+    public static boolean hasOutputForFloor(int floorY) {
         return getForY(Role.OUTPUT, floorY).isPresent();
     }
     
@@ -367,12 +426,12 @@ public final class StorageRegistry {
      * Returns the Y level closest to the given reference Y, or any if all are far.
      * Used as fallback when no nearby storage exists.
      */
-    public static synchronized Optional<Integer> getAnyFloorWithStorage(Role role, int referenceY) {
+    public static Optional<Integer> getAnyFloorWithStorage(Role role, int referenceY) {
         Integer bestY = null;
         int bestDy = Integer.MAX_VALUE;
         
-        for (FloorData f : FLOORS.values()) {
-            RoleData rd = (role == Role.INPUT) ? f.input : f.output;
+        for (FloorData f : floors.values()) {
+            RoleData rd = role(f, role);
             if (rd == null || rd.block == null) continue;
             
             int dy = Math.abs(f.y - referenceY);
@@ -389,11 +448,11 @@ public final class StorageRegistry {
      * Get ANY floor Y that has BOTH input and output storage configured.
      * Returns the Y level closest to the given reference Y.
      */
-    public static synchronized Optional<Integer> getAnyFloorWithBothStorage(int referenceY) {
+    public static Optional<Integer> getAnyFloorWithBothStorage(int referenceY) {
         Integer bestY = null;
         int bestDy = Integer.MAX_VALUE;
         
-        for (FloorData f : FLOORS.values()) {
+        for (FloorData f : floors.values()) {
             if (f.input == null || f.input.block == null) continue;
             if (f.output == null || f.output.block == null) continue;
             
@@ -410,9 +469,9 @@ public final class StorageRegistry {
     /**
      * Get all floor Y levels that have storage configured.
      */
-    public static synchronized List<Integer> getAllFloorsWithStorage() {
+    public static List<Integer> getAllFloorsWithStorage() {
         List<Integer> result = new ArrayList<>();
-        for (FloorData f : FLOORS.values()) {
+        for (FloorData f : floors.values()) {
             boolean hasInput = f.input != null && f.input.block != null;
             boolean hasOutput = f.output != null && f.output.block != null;
             if (hasInput || hasOutput) {
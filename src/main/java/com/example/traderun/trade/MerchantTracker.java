@@ -0,0 +1,128 @@
+package com.example.traderun.trade;
+
+import com.example.traderun.inventory.InventoryLedger;
+import com.example.traderun.util.TickClock;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.screen.MerchantScreenHandler;
+import net.minecraft.util.Identifier;
+import net.minecraft.village.TradeOffer;
+import net.minecraft.village.TradeOfferList;
+
+import java.util.Set;
+
+/**
+ * Follows the open merchant screen from server packets instead of polling inventory totals.
+ *
+ * - the offers packet tells us the screen is ready and what each offer's uses were
+ * - result slot updates mean someone (us or AutoTrade) is taking trades
+ * - offer uses reaching maxUses, or the inputs running out, means nothing is left to trade
+ */
+public final class MerchantTracker {
+
+    private MerchantTracker() {}
+
+    private static final int RESULT_SLOT = 2;
+
+    private static int offersSyncId = -1;
+    private static long offersAtMs = 0L;
+    private static int[] usesAtOffers = new int[0];
+    private static long lastActivityMs = 0L;
+    private static int lastUsesSum = -1;
+
+    /** Called from the network handler after the offers packet was applied. */
+    public static void onTradeOffers(int syncId, TradeOfferList offers) {
+        long now = TickClock.serverNowMs();
+        if (syncId != offersSyncId) {
+            // New screen - remember the starting uses so we can count trades
+            offersSyncId = syncId;
+            offersAtMs = now;
+            lastActivityMs = 0L;
+            lastUsesSum = -1;
+            usesAtOffers = new int[offers == null ? 0 : offers.size()];
+            for (int i = 0; i < usesAtOffers.length; i++) {
+                usesAtOffers[i] = offers.get(i).getUses();
+            }
+        } else {
+            // Refreshed offers for the same screen (after a trade)
+            lastActivityMs = now;
+        }
+    }
+
+    /** Called from the network handler after a slot update was applied. */
+    public static void onSlotUpdate(int syncId, int slot) {
+        if (syncId == offersSyncId && slot == RESULT_SLOT) {
+            lastActivityMs = TickClock.serverNowMs();
+        }
+    }
+
+    public static boolean offersReceived(MerchantScreenHandler handler) {
+        return handler != null && handler.syncId == offersSyncId;
+    }
+
+    public static long offersAtMs() {
+        return offersAtMs;
+    }
+
+    /** Last result slot update or uses change on the open screen (0 = none yet). */
+    public static long lastActivityMs() {
+        return lastActivityMs;
+    }
+
+    /** Trades completed on this screen since the offers arrived (from offer uses). */
+    public static int tradesDone(MerchantScreenHandler handler) {
+        if (!offersReceived(handler)) return 0;
+        TradeOfferList offers = handler.getRecipes();
+        int trades = 0;
+        int sum = 0;
+        for (int i = 0; i < offers.size(); i++) {
+            int uses = offers.get(i).getUses();
+            sum += uses;
+            if (i < usesAtOffers.length) trades += Math.max(0, uses - usesAtOffers[i]);
+        }
+        if (lastUsesSum >= 0 && sum != lastUsesSum) lastActivityMs = TickClock.serverNowMs();
+        lastUsesSum = sum;
+        return trades;
+    }
+
+    /** True when every offer is out of uses (villager needs to restock). */
+    public static boolean allExhausted(MerchantScreenHandler handler) {
+        if (!offersReceived(handler)) return false;
+        TradeOfferList offers = handler.getRecipes();
+        for (TradeOffer offer : offers) {
+            if (!offer.isDisabled()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if at least one offer (restricted to the whitelist if given) still has uses left
+     * and the player holds enough of its inputs, counting items already in the trade slots.
+     */
+    public static boolean anyTradeable(PlayerEntity player, MerchantScreenHandler handler, Set<String> whitelist) {
+        if (player == null || !offersReceived(handler)) return false;
+        for (TradeOffer offer : handler.getRecipes()) {
+            if (offer.isDisabled()) continue;
+            if (whitelist != null && !whitelist.isEmpty()) {
+                Identifier id = Registries.ITEM.getId(offer.getSellItem().getItem());
+                if (id == null || !whitelist.contains(id.toString())) continue;
+            }
+            if (canAfford(player, handler, offer.getDisplayedFirstBuyItem())
+                    && canAfford(player, handler, offer.getDisplayedSecondBuyItem())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean canAfford(PlayerEntity player, MerchantScreenHandler handler, ItemStack price) {
+        if (price == null || price.isEmpty()) return true;
+        int have = InventoryLedger.count(player, price.getItem());
+        for (int slot = 0; slot < RESULT_SLOT; slot++) {
+            ItemStack st = handler.getSlot(slot).getStack();
+            if (st != null && !st.isEmpty() && st.getItem() == price.getItem()) have += st.getCount();
+        }
+        return have >= price.getCount();
+    }
+}
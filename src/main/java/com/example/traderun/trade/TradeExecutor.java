@@ -0,0 +1,173 @@
+package com.example.traderun.trade;
+
+import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.inventory.ClickPipeline;
+import com.example.traderun.inventory.InventoryLedger;
+import com.example.traderun.util.TickClock;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.MerchantScreen;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.packet.c2s.play.SelectMerchantTradeC2SPacket;
+import net.minecraft.registry.Registries;
+import net.minecraft.screen.MerchantScreenHandler;
+import net.minecraft.screen.slot.SlotActionType;
+import net.minecraft.util.Identifier;
+import net.minecraft.village.TradeOffer;
+import net.minecraft.village.TradeOfferList;
+
+import java.util.Set;
+
+/**
+ * Native trading inside an open MerchantScreen (replaces relying on the AutoTrade mod).
+ *
+ * For every whitelisted offer, in order:
+ * - select it (same packet + local switch the vanilla trade list button sends),
+ *   which moves the inputs from the inventory into the trade slots
+ * - shift-click the result slot; the server repeats the trade while the inputs last
+ * - re-select to refill the inputs, until the offer is used up or the result stays empty
+ *
+ * The executor is done when no whitelisted offer can be traded any more, so the caller
+ * can close the screen immediately.
+ */
+public final class TradeExecutor {
+
+    private static final int RESULT_SLOT = 2;
+    /** Offers packet usually follows the screen within a tick or two. */
+    private static final int OFFERS_WAIT_TICKS = 40;
+
+    /** Executor currently trading (receives server acknowledgements). */
+    private static TradeExecutor active = null;
+
+    /** Called from the network handler after a slot update packet was applied. */
+    public static void onSlotUpdate(int syncId) {
+        TradeExecutor e = active;
+        if (e == null || e.done || syncId != e.syncId) return;
+        e.pipeline.onAck(TickClock.nowMs());
+    }
+
+    private enum Step { SELECT, TAKE_RESULT }
+
+    /** Sell item ids to trade for; empty means every offer. */
+    private final Set<String> whitelist;
+    private final ClickPipeline pipeline;
+
+    public boolean done = false;
+    public String error = null;
+    /** Number of result-slot takes sent (each may complete several trades). */
+    public int takes = 0;
+
+    private int tickCount = 0;
+    private int syncId = -1;
+    private int offerIndex = 0;
+    private Step step = Step.SELECT;
+    /** Offer uses just before the last take (-1 = no take yet for this offer). */
+    private int usesAtTake = -1;
+
+    public TradeExecutor(Set<String> whitelist) {
+        this.whitelist = whitelist;
+        TradeRunSettings settings = TradeRunSettings.get();
+        this.pipeline = new ClickPipeline(1, settings.containerMinClickMs, settings.containerMaxAckWaitMs);
+    }
+
+    public void tick(MinecraftClient client) {
+        if (done) return;
+        if (client == null || client.player == null) return;
+        tickCount++;
+
+        if (!(client.currentScreen instanceof MerchantScreen)
+                || !(client.player.currentScreenHandler instanceof MerchantScreenHandler handler)) {
+            finish(null);
+            return;
+        }
+
+        if (handler.syncId != syncId) {
+            syncId = handler.syncId;
+            pipeline.reset();
+            offerIndex = 0;
+            step = Step.SELECT;
+            usesAtTake = -1;
+        }
+        active = this;
+
+        TradeOfferList offers = handler.getRecipes();
+        if (offers == null || offers.isEmpty()) {
+            if (tickCount > OFFERS_WAIT_TICKS) finish("No offers received");
+            return;
+        }
+
+        long now = TickClock.nowMs();
+        if (!pipeline.canClick(now)) return;
+
+        // Skip offers we don't want or can't use any more
+        while (offerIndex < offers.size() && !isTradeable(offers.get(offerIndex))) {
+            nextOffer();
+        }
+        if (offerIndex >= offers.size()) {
+            finish(null);
+            return;
+        }
+
+        switch (step) {
+            case SELECT -> {
+                TradeOffer offer = offers.get(offerIndex);
+                if (usesAtTake >= 0 && offer.getUses() <= usesAtTake) {
+                    // Last take traded nothing (inventory full or server refused)
+                    nextOffer();
+                    return;
+                }
+                handler.setRecipeIndex(offerIndex);
+                handler.switchTo(offerIndex);
+                if (client.getNetworkHandler() != null) {
+                    client.getNetworkHandler().sendPacket(new SelectMerchantTradeC2SPacket(offerIndex));
+                }
+                InventoryLedger.markAllDirty();
+                pipeline.onClickSent(now);
+                step = Step.TAKE_RESULT;
+            }
+            case TAKE_RESULT -> {
+                ItemStack result = handler.getSlot(RESULT_SLOT).getStack();
+                if (result == null || result.isEmpty()) {
+                    // Inputs ran out - move on to the next offer
+                    nextOffer();
+                    return;
+                }
+                usesAtTake = offers.get(offerIndex).getUses();
+                try {
+                    client.interactionManager.clickSlot(handler.syncId, RESULT_SLOT, 0, SlotActionType.QUICK_MOVE, client.player);
+                } catch (Throwable t) {
+                    finish("clickSlot failed");
+                    return;
+                }
+                pipeline.onClickSent(now);
+                takes++;
+                // Refill inputs from the inventory for the next round of the same offer
+                step = Step.SELECT;
+            }
+        }
+    }
+
+    private void nextOffer() {
+        offerIndex++;
+        step = Step.SELECT;
+        usesAtTake = -1;
+    }
+
+    private boolean isTradeable(TradeOffer offer) {
+        if (offer == null || offer.isDisabled()) return false;
+        if (whitelist == null || whitelist.isEmpty()) return true;
+        Identifier id = Registries.ITEM.getId(offer.getSellItem().getItem());
+        return id != null && whitelist.contains(id.toString());
+    }
+
+    private void finish(String err) {
+        error = err;
+        done = true;
+        if (active == this) active = null;
+    }
+
+    /** Debug summary for the session log. */
+    public String stats() {
+        return "takes=" + takes + " offer=" + offerIndex + " clicks=" + pipeline.clicksSent() +
+                " rtt=" + pipeline.smoothedRttMs() + "ms";
+    }
+}
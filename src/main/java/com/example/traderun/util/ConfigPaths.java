@@ -0,0 +1,37 @@
+package com.example.traderun.util;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Where the mod keeps its files: config/traderun.
+ *
+ * Tools running without a game (benchmarks, simulator) point it somewhere else with
+ * -Dtraderun.configDir=<dir>, so the registries can load and save outside Minecraft.
+ */
+public final class ConfigPaths {
+
+    private ConfigPaths() {}
+
+    public static final String DIR_PROPERTY = "traderun.configDir";
+
+    private static Path dir = null;
+
+    public static synchronized Path dir() {
+        if (dir == null) {
+            String override = System.getProperty(DIR_PROPERTY);
+            dir = (override != null && !override.isBlank())
+                    ? Path.of(override)
+                    : FabricLoader.getInstance().getConfigDir().resolve("traderun");
+            try { Files.createDirectories(dir); } catch (IOException ignored) {}
+        }
+        return dir;
+    }
+
+    public static Path file(String name) {
+        return dir().resolve(name);
+    }
+}
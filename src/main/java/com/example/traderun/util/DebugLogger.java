@@ -1,92 +1,362 @@
 package com.example.traderun.util;
 
-import net.fabricmc.loader.api.FabricLoader;
+import com.example.traderun.jfr.JfrEvents;
+import com.example.traderun.session.SessionRecorder;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Simple debug logger that saves to a file automatically on errors
+ * Debug logger: config/traderun/debug_latest.log plus a dump file on errors.
+ *
+ * log() only timestamps the message and claims a slot in a lock-free ring (any thread
+ * may log); a daemon thread drains the ring every FLUSH_INTERVAL_MS, formats the lines
+ * and appends them in one write over a channel that stays open. debug_latest.log is
+ * rotated to debug_latest.1.log / .2.log past MAX_FILE_BYTES. When the ring is full
+ * lines are dropped and counted rather than blocking the tick.
+ *
+ * Hot paths use event() with a {@link LogEvent} instead of a concatenated message: the
+ * level check comes first and the line is only rendered on the log thread.
  */
 public final class DebugLogger {
-    private static final int MAX_LINES = 100;
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR;
+
+        /** Case-insensitive name, or null. */
+        public static Level parse(String s) {
+            if (s == null) return null;
+            try {
+                return valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final long wallMs;
+        final Level level;
+        final String msg;
+        // Structured entries (msg == null)
+        final LogEvent event;
+        final boolean hasRef;
+        final Object ref;
+        final int count;
+        final long a, b, c, d;
+
+        Entry(long wallMs, Level level, String msg) {
+            this.wallMs = wallMs;
+            this.level = level;
+            this.msg = msg;
+            this.event = null;
+            this.hasRef = false;
+            this.ref = null;
+            this.count = 0;
+            this.a = this.b = this.c = this.d = 0L;
+        }
+
+        Entry(long wallMs, LogEvent event, boolean hasRef, Object ref, int count, long a, long b, long c, long d) {
+            this.wallMs = wallMs;
+            this.level = event.level;
+            this.msg = null;
+            this.event = event;
+            this.hasRef = hasRef;
+            this.ref = ref;
+            this.count = count;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+        }
+    }
+
+    private static final int MAX_LINES = 100;               // Kept for error dumps
+    private static final int RING_SIZE = 8192;              // Power of two
+    private static final long FLUSH_INTERVAL_MS = 100L;
+    private static final long MAX_FILE_BYTES = 4L * 1024 * 1024;
+    private static final int ROTATE_KEEP = 2;
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Ring: producers claim a sequence with a CAS on HEAD and publish the slot; the
+    // writer consumes in order from tail and frees the slot before advancing it.
+    private static final AtomicReferenceArray<Entry> RING = new AtomicReferenceArray<>(RING_SIZE);
+    private static final AtomicLong HEAD = new AtomicLong();
+    private static volatile long tail = 0L;
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static volatile Level minLevel = Level.DEBUG;
+
+    // Everything below is guarded by WRITE_LOCK (writer thread, saveNow, clear)
+    private static final Object WRITE_LOCK = new Object();
     private static final Deque<String> lines = new ArrayDeque<>();
+    private static final StringBuilder pending = new StringBuilder();
+    private static FileChannel channel = null;
+    private static long fileBytes = 0L;
     private static Path LOG_DIR = null;
     private static Path LOG_FILE = null;
-    
+
+    static {
+        Thread writer = new Thread(DebugLogger::run, "TradeRun-Log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(DebugLogger::flush, "TradeRun-Log-Flush"));
+    }
+
     private DebugLogger() {}
-    
+
     private static Path getLogDir() {
         if (LOG_DIR == null) {
-            Path configDir = FabricLoader.getInstance().getConfigDir();
-            LOG_DIR = configDir.resolve("traderun");
-            try {
-                Files.createDirectories(LOG_DIR);
-            } catch (IOException ignored) {}
+            LOG_DIR = ConfigPaths.dir();
         }
         return LOG_DIR;
     }
-    
+
     private static Path getLogFile() {
         if (LOG_FILE == null) {
             LOG_FILE = getLogDir().resolve("debug_latest.log");
         }
         return LOG_FILE;
     }
-    
-    public static synchronized void log(String msg) {
-        if (msg == null) return;
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
-        String line = "[" + timestamp + "] " + msg;
-        if (lines.size() >= MAX_LINES) lines.removeFirst();
-        lines.addLast(line);
-        
-        // Also append to file immediately
+
+    // ========== Producers (any thread, never block) ==========
+
+    public static void log(String msg) {
+        log(Level.DEBUG, msg);
+    }
+
+    public static void log(Level level, String msg) {
+        if (msg == null || level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), level, msg));
+    }
+
+    // Fixed arities so callers pass primitives: no varargs array, no boxing
+
+    public static void event(LogEvent ev, long a) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, false, null, 1, a, 0L, 0L, 0L));
+    }
+
+    public static void event(LogEvent ev, long a, long b) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, false, null, 2, a, b, 0L, 0L));
+    }
+
+    public static void event(LogEvent ev, long a, long b, long c) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, false, null, 3, a, b, c, 0L));
+    }
+
+    public static void event(LogEvent ev, long a, long b, long c, long d) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, false, null, 4, a, b, c, d));
+    }
+
+    // ref must be immutable (Identifier, enum, String): it is stringified later, on the log thread
+
+    public static void event(LogEvent ev, Object ref, long a) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, true, ref, 1, a, 0L, 0L, 0L));
+    }
+
+    public static void event(LogEvent ev, Object ref, long a, long b) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, true, ref, 2, a, b, 0L, 0L));
+    }
+
+    public static void event(LogEvent ev, Object ref, long a, long b, long c) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, true, ref, 3, a, b, c, 0L));
+    }
+
+    public static void event(LogEvent ev, Object ref, long a, long b, long c, long d) {
+        if (ev.level.ordinal() < minLevel.ordinal()) return;
+        offer(new Entry(TickClock.wallMs(), ev, true, ref, 4, a, b, c, d));
+    }
+
+    private static void offer(Entry e) {
+        long h;
+        do {
+            h = HEAD.get();
+            if (h - tail >= RING_SIZE) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        } while (!HEAD.compareAndSet(h, h + 1));
+        RING.set(slot(h), e);
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= minLevel.ordinal();
+    }
+
+    public static Level level() {
+        return minLevel;
+    }
+
+    public static void setLevel(Level level) {
+        if (level != null) minLevel = level;
+    }
+
+    public static long dropped() {
+        return DROPPED.get();
+    }
+
+    public static void error(String msg) {
+        log(Level.ERROR, msg);
+        saveNow("error");
+    }
+
+    // ========== Writer side ==========
+
+    private static void run() {
+        while (true) {
+            flush();
+            LockSupport.parkNanos(FLUSH_INTERVAL_MS * 1_000_000L);
+        }
+    }
+
+    /** Drain the ring and write everything out; callable from any thread. */
+    public static void flush() {
+        synchronized (WRITE_LOCK) {
+            drain();
+            writePending();
+        }
+    }
+
+    private static void drain() {
+        long t = tail;
+        Entry e;
+        while ((e = RING.get(slot(t))) != null) {
+            RING.set(slot(t), null);
+            tail = ++t;
+            String line = format(e);
+            if (lines.size() >= MAX_LINES) lines.removeFirst();
+            lines.addLast(line);
+            pending.append(line).append('\n');
+        }
+        long dropped = DROPPED.getAndSet(0L);
+        if (dropped > 0L) {
+            pending.append("[").append(LocalDateTime.now().format(TIME)).append("] (")
+                    .append(dropped).append(" lines dropped, log ring full)\n");
+        }
+    }
+
+    private static String format(Entry e) {
+        String time = LocalDateTime.ofInstant(Instant.ofEpochMilli(e.wallMs), ZONE).format(TIME);
+        if (e.event != null) {
+            StringBuilder sb = new StringBuilder(64).append('[').append(time).append("] ");
+            e.event.appendTo(sb, e.hasRef, e.ref, e.count, e.a, e.b, e.c, e.d);
+            return sb.toString();
+        }
+        return e.level == Level.DEBUG
+                ? "[" + time + "] " + e.msg
+                : "[" + time + "] " + e.level + ": " + e.msg;
+    }
+
+    private static void writePending() {
+        if (pending.length() == 0) return;
         try {
-            Files.writeString(getLogFile(), line + "\n", 
-                StandardOpenOption.CREATE, 
-                StandardOpenOption.APPEND);
+            if (channel == null) {
+                channel = FileChannel.open(getLogFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                fileBytes = channel.size();
+            }
+            JfrEvents.PersistenceWrite event = new JfrEvents.PersistenceWrite();
+            event.begin();
+            ByteBuffer bytes = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) fileBytes += channel.write(bytes);
+            event.file = "debug_latest.log";
+            event.bytes = bytes.limit();
+            event.commit();
+            if (fileBytes >= MAX_FILE_BYTES) rotate();
         } catch (IOException e) {
             System.err.println("[traderun] Failed to write log: " + e.getMessage());
+            closeChannel();
+        } finally {
+            pending.setLength(0);
         }
     }
-    
-    public static synchronized void error(String msg) {
-        log("ERROR: " + msg);
-        saveNow("error");
+
+    private static void rotate() throws IOException {
+        closeChannel();
+        Path dir = getLogDir();
+        for (int i = ROTATE_KEEP; i >= 1; i--) {
+            Path from = (i == 1) ? getLogFile() : dir.resolve("debug_latest." + (i - 1) + ".log");
+            if (Files.exists(from)) {
+                Files.move(from, dir.resolve("debug_latest." + i + ".log"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
     }
-    
-    public static synchronized void saveNow(String reason) {
-        try {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            Path debugFile = getLogDir().resolve("debug_" + reason + "_" + timestamp + ".txt");
-            
-            StringBuilder sb = new StringBuilder();
-            sb.append("TradeRun Debug - ").append(reason).append(" - ").append(LocalDateTime.now()).append("\n");
-            sb.append("Log file: ").append(debugFile.toAbsolutePath()).append("\n");
-            sb.append("---\n");
-            for (String line : lines) {
-                sb.append(line).append("\n");
+
+    private static void closeChannel() {
+        if (channel != null) {
+            try { channel.close(); } catch (IOException ignored) {}
+        }
+        channel = null;
+        fileBytes = 0L;
+    }
+
+    private static int slot(long seq) {
+        return (int) seq & (RING_SIZE - 1);
+    }
+
+    // ========== Dumps ==========
+
+    public static void saveNow(String reason) {
+        synchronized (WRITE_LOCK) {
+            drain();
+            writePending();
+            try {
+                String timestamp = LocalDateTime.now().format(FILE_TIME);
+                Path debugFile = getLogDir().resolve("debug_" + reason + "_" + timestamp + ".txt");
+
+                StringBuilder sb = new StringBuilder();
+                sb.append("TradeRun Debug - ").append(reason).append(" - ").append(LocalDateTime.now()).append("\n");
+                sb.append("Log file: ").append(debugFile.toAbsolutePath()).append("\n");
+                sb.append("---\n");
+                for (String line : lines) {
+                    sb.append(line).append("\n");
+                }
+
+                Files.writeString(debugFile, sb.toString());
+                System.out.println("[traderun] Debug saved to: " + debugFile.toAbsolutePath());
+                SessionRecorder.snapshot(getLogDir(), reason, timestamp);
+            } catch (IOException e) {
+                System.err.println("[traderun] Failed to save debug: " + e.getMessage());
             }
-            
-            Files.writeString(debugFile, sb.toString());
-            System.out.println("[traderun] Debug saved to: " + debugFile.toAbsolutePath());
-        } catch (IOException e) {
-            System.err.println("[traderun] Failed to save debug: " + e.getMessage());
         }
     }
-    
-    public static synchronized void clear() {
-        lines.clear();
-        try {
-            Files.deleteIfExists(getLogFile());
-        } catch (IOException ignored) {}
+
+    /** Forget recent lines and truncate debug_latest.log (lines still queued are discarded). */
+    public static void clear() {
+        synchronized (WRITE_LOCK) {
+            drain();
+            pending.setLength(0);
+            lines.clear();
+            closeChannel();
+            try {
+                Files.deleteIfExists(getLogFile());
+            } catch (IOException ignored) {}
+        }
     }
 }
-
@@ -0,0 +1,77 @@
+package com.example.traderun.util;
+
+/**
+ * A structured debug line for hot paths: name, level and field names are fixed when the
+ * event is defined, values are handed to {@link DebugLogger#event} as primitives (plus at
+ * most one immutable object, stringified on the log thread). Below the active level the
+ * call returns before allocating anything.
+ *
+ * Written as one line: {@code [12:00:00] seek_input {"input":"minecraft:emerald","have":12}}.
+ * Field names starting with '?' are booleans passed as 0 / 1.
+ */
+public final class LogEvent {
+
+    final String name;
+    final DebugLogger.Level level;
+    final String[] fields;
+    final boolean[] booleans;
+
+    private LogEvent(String name, DebugLogger.Level level, String[] fields) {
+        this.name = name;
+        this.level = level;
+        this.fields = new String[fields.length];
+        this.booleans = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            booleans[i] = fields[i].startsWith("?");
+            this.fields[i] = booleans[i] ? fields[i].substring(1) : fields[i];
+        }
+    }
+
+    public static LogEvent define(String name, DebugLogger.Level level, String... fields) {
+        return new LogEvent(name, level, fields);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public DebugLogger.Level level() {
+        return level;
+    }
+
+    /** Render name + JSON fields; ref (if any) is field 0, then the longs. */
+    void appendTo(StringBuilder sb, boolean hasRef, Object ref, int count, long a, long b, long c, long d) {
+        sb.append(name).append(" {");
+        int field = 0;
+        if (hasRef) {
+            key(sb, field++);
+            if (ref == null) sb.append("null");
+            else quote(sb, String.valueOf(ref));
+        }
+        for (int i = 0; i < count; i++) {
+            long v = (i == 0) ? a : (i == 1) ? b : (i == 2) ? c : d;
+            if (field > 0) sb.append(',');
+            key(sb, field);
+            if (field < booleans.length && booleans[field]) sb.append(v != 0L);
+            else sb.append(v);
+            field++;
+        }
+        sb.append('}');
+    }
+
+    private void key(StringBuilder sb, int field) {
+        quote(sb, field < fields.length ? fields[field] : "f" + field);
+        sb.append(':');
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"' || ch == '\\') sb.append('\\').append(ch);
+            else if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+            else sb.append(ch);
+        }
+        sb.append('"');
+    }
+}
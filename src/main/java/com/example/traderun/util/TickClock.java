@@ -0,0 +1,104 @@
+package com.example.traderun.util;
+
+/**
+ * Single time source for all timing logic.
+ *
+ * - {@link #nowMs()}: monotonic milliseconds (immune to wall clock changes). Starts at the
+ *   wall time of class load so "0 = never" sentinels behave as before.
+ * - {@link #serverNowMs()}: milliseconds that advance with the server's tick counter.
+ *   Use it for timeouts that wait on the server (offers, trades): during lag it slows
+ *   down with the server instead of expiring early.
+ * - {@link #wallMs()}: wall time, only for timestamps persisted across restarts.
+ *
+ * {@link #useVirtual(long)} switches nowMs / serverNowMs to a manually advanced clock for
+ * simulation and benchmarks.
+ */
+public final class TickClock {
+
+    private TickClock() {}
+
+    public static final long TICK_MS = 50L;
+
+    /** The server sends its time every 20 ticks; extrapolate a little past that, then wait for it. */
+    private static final long MAX_EXTRAPOLATE_TICKS = 25L;
+
+    private static final long BASE_MS = System.currentTimeMillis();
+    private static final long BASE_NS = System.nanoTime();
+
+    private static boolean virtual = false;
+    private static long virtualMs = 0L;
+
+    // Last server time update: world time (ticks) and when it arrived (nowMs)
+    private static long serverTicks = -1L;
+    private static long serverTicksAtMs = 0L;
+    private static long serverEpochMs = 0L;
+    private static long lastServerNowMs = 0L;
+
+    public static long nowMs() {
+        if (virtual) return virtualMs;
+        return BASE_MS + (System.nanoTime() - BASE_NS) / 1_000_000L;
+    }
+
+    public static long wallMs() {
+        return System.currentTimeMillis();
+    }
+
+    public static long ticksToMs(long ticks) {
+        return ticks * TICK_MS;
+    }
+
+    /** Server ticks, extrapolated from the last time update (-1 when not connected). */
+    public static long serverTicks() {
+        if (serverTicks < 0L) return -1L;
+        long elapsed = (nowMs() - serverTicksAtMs) / TICK_MS;
+        return serverTicks + Math.min(Math.max(0L, elapsed), MAX_EXTRAPOLATE_TICKS);
+    }
+
+    /** Milliseconds of server time; monotonic, falls back to nowMs() before the first update. */
+    public static long serverNowMs() {
+        long t = serverTicks();
+        long ms = (t < 0L) ? nowMs() : serverEpochMs + t * TICK_MS;
+        if (ms < lastServerNowMs) return lastServerNowMs;
+        lastServerNowMs = ms;
+        return ms;
+    }
+
+    /** Called after a server time update was applied, with the world's tick counter. */
+    public static void onServerTime(long worldTicks) {
+        long now = nowMs();
+        if (serverTicks < 0L || worldTicks < serverTicks || worldTicks - serverTicks > 20L * 60L) {
+            // First update, new world or a big jump - re-anchor on the local clock
+            serverEpochMs = Math.max(now, lastServerNowMs) - worldTicks * TICK_MS;
+        }
+        serverTicks = worldTicks;
+        serverTicksAtMs = now;
+    }
+
+    /** Disconnected - server time is unknown until the next update. */
+    public static void resetServerTime() {
+        serverTicks = -1L;
+    }
+
+    // ========== Virtual time ==========
+
+    public static void useVirtual(long startMs) {
+        virtual = true;
+        virtualMs = startMs;
+        resetServerTime();
+        lastServerNowMs = 0L;
+    }
+
+    public static void advance(long ms) {
+        if (virtual) virtualMs += Math.max(0L, ms);
+    }
+
+    public static void useSystem() {
+        virtual = false;
+        resetServerTime();
+        lastServerNowMs = 0L;
+    }
+
+    public static boolean isVirtual() {
+        return virtual;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.traderun.villager;
+
+import com.example.traderun.config.ConfigStore;
+import com.example.traderun.util.TickClock;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Every adult villager seen anywhere in the hall: cell position, profession and when it
+ * was last seen, persisted to hall.json.
+ *
+ * The client only has the villagers inside the server's entity tracking range, so
+ * VillagerFinder plans far targets from here and the FSM walks toward them until they
+ * load. An entry is dropped once the player has stood near its cell for a while without
+ * the villager being there (moved, died, converted).
+ */
+public final class HallRegistry {
+
+    private HallRegistry() {}
+
+    /** A remembered villager this close to the player should be loaded if it still exists. */
+    private static final double PRESENT_RANGE = 24.0;
+    private static final double PRESENT_RANGE_SQ = PRESENT_RANGE * PRESENT_RANGE;
+    private static final long MISSING_DROP_MS = 10_000L;
+    /** observe() runs once a second; seen within this window means loaded right now. */
+    private static final long LOADED_WINDOW_MS = 2_500L;
+
+    public static final class Entry {
+        public String uuid;
+        public int x;
+        public int y;
+        public int z;
+        public String profession = "";  // e.g. "minecraft:cleric"
+        public long lastSeenMs;         // Wall clock
+
+        transient UUID id;
+        transient long missingSinceMs;
+
+        public UUID id() {
+            return id;
+        }
+
+        /** Seen by the last observe() pass, i.e. the client has the entity now. */
+        public boolean isLoaded() {
+            return TickClock.wallMs() - lastSeenMs <= LOADED_WINDOW_MS;
+        }
+    }
+
+    // Also read by ConfigStore's writer thread, hence the synchronized methods
+    private static final Gson GSON = new Gson();
+    private static final String FILE = "hall.json";
+    private static final Type LIST_TYPE = new TypeToken<List<Entry>>(){}.getType();
+    private static final Map<UUID, Entry> VILLAGERS = new HashMap<>();
+
+    /** Load hall.json in the background; called once at client init. */
+    public static void preload() {
+        ConfigStore.readAsync(FILE, HallRegistry::publish);
+    }
+
+    /** Parse without the lock, then publish in one step; villagers observed meanwhile win. */
+    private static void publish(JsonElement el) {
+        if (el == null) return;
+        Map<UUID, Entry> loaded = new HashMap<>();
+        try {
+            List<Entry> list = GSON.fromJson(el, LIST_TYPE);
+            if (list == null) return;
+            for (Entry e : list) {
+                if (e == null || e.uuid == null) continue;
+                try {
+                    e.id = UUID.fromString(e.uuid);
+                } catch (IllegalArgumentException ignored) {
+                    continue;
+                }
+                if (e.profession == null) e.profession = "";
+                loaded.put(e.id, e);
+            }
+        } catch (Throwable ignored) {
+            return;
+        }
+        synchronized (HallRegistry.class) {
+            loaded.forEach(VILLAGERS::putIfAbsent);
+        }
+    }
+
+    private static void save() {
+        ConfigStore.markDirty(FILE, HallRegistry::snapshot);
+    }
+
+    private static synchronized JsonElement snapshot() {
+        List<Entry> list = new ArrayList<>(VILLAGERS.values());
+        list.sort(Comparator.comparingInt((Entry e) -> e.y).thenComparingInt(e -> e.x).thenComparingInt(e -> e.z));
+        return GSON.toJsonTree(list, LIST_TYPE);
+    }
+
+    /**
+     * Record the loaded villagers and forget remembered ones whose cell is near the player
+     * but empty. Only moves, new villagers and removals mark the file dirty.
+     */
+    public static synchronized void observe(MinecraftClient client) {
+        if (client == null || client.world == null || client.player == null) return;
+
+        long now = TickClock.wallMs();
+        boolean changed = false;
+
+        for (Entity entity : client.world.getEntities()) {
+            if (!(entity instanceof VillagerEntity v) || !v.isAlive() || v.isBaby()) continue;
+
+            UUID id = v.getUuid();
+            Entry e = VILLAGERS.get(id);
+            if (e == null) {
+                e = new Entry();
+                e.uuid = id.toString();
+                e.id = id;
+                VILLAGERS.put(id, e);
+                changed = true;
+            }
+
+            BlockPos pos = v.getBlockPos();
+            Identifier prof = Registries.VILLAGER_PROFESSION.getId(v.getVillagerData().getProfession());
+            String profession = (prof == null) ? "" : prof.toString();
+            if (e.x != pos.getX() || e.y != pos.getY() || e.z != pos.getZ() || !profession.equals(e.profession)) {
+                e.x = pos.getX();
+                e.y = pos.getY();
+                e.z = pos.getZ();
+                e.profession = profession;
+                changed = true;
+            }
+            e.lastSeenMs = now;
+            e.missingSinceMs = 0L;
+        }
+
+        double px = client.player.getX();
+        double py = client.player.getY();
+        double pz = client.player.getZ();
+        for (Iterator<Entry> it = VILLAGERS.values().iterator(); it.hasNext(); ) {
+            Entry e = it.next();
+            if (e.lastSeenMs == now) continue;
+
+            double dx = e.x + 0.5 - px;
+            double dy = e.y - py;
+            double dz = e.z + 0.5 - pz;
+            if (dx * dx + dy * dy + dz * dz > PRESENT_RANGE_SQ) {
+                e.missingSinceMs = 0L;
+                continue;
+            }
+            if (e.missingSinceMs == 0L) {
+                e.missingSinceMs = now;
+            } else if (now - e.missingSinceMs >= MISSING_DROP_MS) {
+                it.remove();
+                changed = true;
+            }
+        }
+
+        if (changed) save();
+    }
+
+    /** Remembered villagers on a floor (Y ±1, same rule as VillagerFinder). */
+    public static synchronized List<Entry> onFloor(int floorY) {
+        List<Entry> out = new ArrayList<>();
+        for (Entry e : VILLAGERS.values()) {
+            if (Math.abs(e.y - floorY) <= 1) out.add(e);
+        }
+        return out;
+    }
+
+    /** Villager count per Y level, ascending. */
+    public static synchronized SortedMap<Integer, Integer> countsByY() {
+        SortedMap<Integer, Integer> out = new TreeMap<>();
+        for (Entry e : VILLAGERS.values()) {
+            out.merge(e.y, 1, Integer::sum);
+        }
+        return out;
+    }
+
+    public static synchronized int size() {
+        return VILLAGERS.size();
+    }
+
+    public static synchronized void clear() {
+        if (!VILLAGERS.isEmpty()) {
+            VILLAGERS.clear();
+            save();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.traderun.villager;
+
+import com.example.traderun.config.TradeRunSettings;
+import com.example.traderun.util.TickClock;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import net.minecraft.village.TradeOffer;
+import net.minecraft.village.TradeOfferList;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-villager offer profiles learned from merchant screens (in memory only).
+ *
+ * Cured / discounted villagers sell the same output for fewer inputs, and high demand
+ * raises prices, so villagers are scored by output per input of their best offer.
+ * Villagers never seen yet score like an average known villager.
+ */
+public final class OfferProfileRegistry {
+
+    private OfferProfileRegistry() {}
+
+    /** Profiles older than this are ignored - demand and discounts change over time. */
+    private static final long PROFILE_TTL_MS = 30L * 60L * 1000L;
+
+    public static final class OfferProfile {
+        public final String sellItem;
+        public final int price;         // Displayed first-buy count (special price + demand applied)
+        public final int secondPrice;   // Second buy count (0 if none)
+        public final int sellCount;
+        public final int specialPrice;
+        public final int demandBonus;
+        public final int uses;
+        public final int maxUses;
+        public final long seenMs;
+
+        OfferProfile(String sellItem, int price, int secondPrice, int sellCount,
+                     int specialPrice, int demandBonus, int uses, int maxUses, long seenMs) {
+            this.sellItem = sellItem;
+            this.price = price;
+            this.secondPrice = secondPrice;
+            this.sellCount = sellCount;
+            this.specialPrice = specialPrice;
+            this.demandBonus = demandBonus;
+            this.uses = uses;
+            this.maxUses = maxUses;
+            this.seenMs = seenMs;
+        }
+
+        /** Output items per input item for this offer. */
+        public double outputPerInput() {
+            int inputs = price + secondPrice;
+            return inputs <= 0 ? 0.0 : (double) sellCount / inputs;
+        }
+    }
+
+    private static final Map<UUID, OfferProfile> PROFILES = new HashMap<>();
+
+    /**
+     * Learn the best offer (highest output per input) of a villager.
+     * Restricted to whitelisted sell items when the whitelist is not empty.
+     */
+    public static void record(VillagerEntity villager, TradeOfferList offers, Set<String> whitelist) {
+        if (villager == null || offers == null) return;
+        OfferProfile best = null;
+        long now = TickClock.nowMs();
+        for (TradeOffer offer : offers) {
+            ItemStack sell = offer.getSellItem();
+            if (sell == null || sell.isEmpty()) continue;
+            Identifier id = Registries.ITEM.getId(sell.getItem());
+            if (whitelist != null && !whitelist.isEmpty() && (id == null || !whitelist.contains(id.toString()))) continue;
+
+            ItemStack first = offer.getDisplayedFirstBuyItem();
+            ItemStack second = offer.getDisplayedSecondBuyItem();
+            OfferProfile p = new OfferProfile(
+                    id == null ? "?" : id.toString(),
+                    first == null ? 0 : first.getCount(),
+                    (second == null || second.isEmpty()) ? 0 : second.getCount(),
+                    sell.getCount(),
+                    offer.getSpecialPrice(),
+                    offer.getDemandBonus(),
+                    offer.getUses(),
+                    offer.getMaxUses(),
+                    now
+            );
+            if (best == null || p.outputPerInput() > best.outputPerInput()) best = p;
+        }
+        if (best != null) PROFILES.put(villager.getUuid(), best);
+    }
+
+    public static OfferProfile get(VillagerEntity villager) {
+        return villager == null ? null : get(villager.getUuid());
+    }
+
+    /** By UUID, for villagers remembered in HallRegistry but not loaded right now. */
+    public static OfferProfile get(UUID id) {
+        if (id == null) return null;
+        OfferProfile p = PROFILES.get(id);
+        if (p == null) return null;
+        if (TickClock.nowMs() - p.seenMs > PROFILE_TTL_MS) return null;
+        return p;
+    }
+
+    /** True if the last seen price is above the configured limit (0 = no limit). */
+    public static boolean isTooExpensive(VillagerEntity villager) {
+        return villager != null && isTooExpensive(villager.getUuid());
+    }
+
+    public static boolean isTooExpensive(UUID id) {
+        int limit = TradeRunSettings.get().maxInputPrice;
+        if (limit <= 0) return false;
+        OfferProfile p = get(id);
+        return p != null && p.price > limit;
+    }
+
+    /** Output per input for a villager; unknown villagers get the average of known ones. */
+    public static double outputPerInput(VillagerEntity villager) {
+        return outputPerInput(villager == null ? null : villager.getUuid());
+    }
+
+    public static double outputPerInput(UUID id) {
+        OfferProfile p = get(id);
+        if (p != null) return p.outputPerInput();
+        return averageOutputPerInput();
+    }
+
+    private static double averageOutputPerInput() {
+        long now = TickClock.nowMs();
+        double sum = 0.0;
+        int n = 0;
+        for (OfferProfile p : PROFILES.values()) {
+            if (now - p.seenMs > PROFILE_TTL_MS) continue;
+            sum += p.outputPerInput();
+            n++;
+        }
+        return n == 0 ? 1.0 : sum / n;
+    }
+
+    public static int size() {
+        return PROFILES.size();
+    }
+
+    public static void clear() {
+        PROFILES.clear();
+    }
+}
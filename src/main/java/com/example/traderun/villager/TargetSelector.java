@@ -0,0 +1,116 @@
+package com.example.traderun.villager;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Target choice without the client: eligibility, the same-floor rule and the
+ * output-per-second score.
+ *
+ * VillagerFinder runs it over the loaded entities with the live registries; benchmarks
+ * and the simulator over their own villagers and bookkeeping. Villagers are whatever
+ * {@code V} the caller has, read through {@link Villagers}, so no wrapper per entity.
+ */
+public final class TargetSelector<V> {
+
+    public static final double WALK_SPEED_BLOCKS_PER_SEC = 4.3;
+    public static final double TRADE_OVERHEAD_SEC = 1.0; // Open + trade + close
+
+    /** What selection reads off one villager. */
+    public interface Villagers<V> {
+        UUID id(V v);
+
+        double x(V v);
+
+        double y(V v);
+
+        double z(V v);
+
+        int blockY(V v);
+
+        boolean isBaby(V v);
+
+        boolean isSleeping(V v);
+
+        /** Matches the selected professions (all match when none are selected). */
+        boolean professionOk(V v);
+
+        /** Another player has its trade screen open. */
+        boolean hasCustomer(V v);
+    }
+
+    /** Per-villager state the registries keep: cooldowns, recent failures, prices. */
+    public interface Rules {
+        boolean isOnCooldown(UUID id);
+
+        boolean isSuppressed(UUID id);
+
+        boolean isTooExpensive(UUID id);
+
+        double outputPerInput(UUID id);
+    }
+
+    private final Villagers<V> villagers;
+    private final Rules rules;
+
+    public TargetSelector(Villagers<V> villagers, Rules rules) {
+        this.villagers = villagers;
+        this.rules = rules;
+    }
+
+    public boolean isEligible(V v) {
+        if (villagers.isBaby(v)) return false;
+        if (villagers.isSleeping(v)) return false;
+        if (!villagers.professionOk(v)) return false;
+        UUID id = villagers.id(v);
+        if (rules.isOnCooldown(id)) return false;
+        if (rules.isSuppressed(id)) return false;
+        if (villagers.hasCustomer(v)) return false;
+        if (rules.isTooExpensive(id)) return false;
+        return true;
+    }
+
+    /** Same floor: the villager's block Y within one of the floor (slabs, stairs). */
+    public static boolean onFloor(int blockY, int floorY) {
+        return Math.abs(blockY - floorY) <= 1;
+    }
+
+    /**
+     * Expected output per second: output per input of the villager's best known offer,
+     * over the walk there plus a fixed trade overhead. With no offers learned yet every
+     * villager has the same price, so this falls back to "nearest first".
+     */
+    public static double score(double outputPerInput, double distance) {
+        double seconds = distance / WALK_SPEED_BLOCKS_PER_SEC + TRADE_OVERHEAD_SEC;
+        return outputPerInput / seconds;
+    }
+
+    /** Highest scoring eligible villager on the floor as seen from (px, py, pz), or null. */
+    public V best(Iterable<? extends V> candidates, int floorY, double px, double py, double pz) {
+        V best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (V v : candidates) {
+            if (!isEligible(v)) continue;
+            if (!onFloor(villagers.blockY(v), floorY)) continue;
+
+            double dx = villagers.x(v) - px;
+            double dy = villagers.y(v) - py;
+            double dz = villagers.z(v) - pz;
+            double s = score(rules.outputPerInput(villagers.id(v)), Math.sqrt(dx * dx + dy * dy + dz * dz));
+            if (s > bestScore) {
+                bestScore = s;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /** Adds every eligible villager on the floor to {@code out}. */
+    public void eligibleOnFloor(Iterable<? extends V> candidates, int floorY, List<V> out) {
+        for (V v : candidates) {
+            if (!isEligible(v)) continue;
+            if (!onFloor(villagers.blockY(v), floorY)) continue;
+            out.add(v);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.traderun.villager;
 
+import com.example.traderun.config.TradeRunSettings;
 import com.example.traderun.cooldown.CooldownRegistry;
 import com.example.traderun.cooldown.RecentFailRegistry;
+import com.example.traderun.floor.ClusterFinder;
+import com.example.traderun.nav.ApproachUtil;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.village.VillagerProfession;
 
@@ -14,11 +18,98 @@ import java.util.*;
 /**
  * Finds the nearest eligible villager.
  * Supports multiple professions and smart floor changing.
+ * Villagers beyond the scan radius are planned from HallRegistry (findFarCluster).
  */
 public class VillagerFinder {
 
-    private static final double SCAN_RADIUS = 48.0;
     private static final int MIN_VILLAGERS_FOR_FLOOR_CHANGE = 2;
+    private static final double FAR_CLUSTER_DISTANCE_SQ = 5.0 * 5.0; // Same linking as FloorRegistry
+    private static final int MAX_FAR_CLUSTERS = 8;
+    private static final int FAR_CLUSTER_SNAP_RADIUS = 4;
+
+    /** A group of remembered villagers outside the scan box, worth walking to. */
+    public static final class FarCluster {
+        public final BlockPos center;
+        public final int villagers;
+
+        FarCluster(BlockPos center, int villagers) {
+            this.center = center;
+            this.villagers = villagers;
+        }
+    }
+
+    /** Registry-backed rules for live play. */
+    public static final TargetSelector.Rules LIVE_RULES = new TargetSelector.Rules() {
+        @Override
+        public boolean isOnCooldown(UUID id) {
+            return CooldownRegistry.isOnCooldown(id);
+        }
+
+        @Override
+        public boolean isSuppressed(UUID id) {
+            return RecentFailRegistry.isSuppressed(id);
+        }
+
+        @Override
+        public boolean isTooExpensive(UUID id) {
+            return OfferProfileRegistry.isTooExpensive(id);
+        }
+
+        @Override
+        public double outputPerInput(UUID id) {
+            return OfferProfileRegistry.outputPerInput(id);
+        }
+    };
+
+    /** Loaded villager entities as the selector sees them. */
+    private final TargetSelector.Villagers<VillagerEntity> entities = new TargetSelector.Villagers<>() {
+        @Override
+        public UUID id(VillagerEntity v) {
+            return v.getUuid();
+        }
+
+        @Override
+        public double x(VillagerEntity v) {
+            return v.getX();
+        }
+
+        @Override
+        public double y(VillagerEntity v) {
+            return v.getY();
+        }
+
+        @Override
+        public double z(VillagerEntity v) {
+            return v.getZ();
+        }
+
+        @Override
+        public int blockY(VillagerEntity v) {
+            return v.getBlockPos().getY();
+        }
+
+        @Override
+        public boolean isBaby(VillagerEntity v) {
+            return v.isBaby();
+        }
+
+        @Override
+        public boolean isSleeping(VillagerEntity v) {
+            return v.isSleeping();
+        }
+
+        @Override
+        public boolean professionOk(VillagerEntity v) {
+            return VillagerFinder.this.professionOk(v);
+        }
+
+        @Override
+        public boolean hasCustomer(VillagerEntity v) {
+            return VillagerFinder.this.hasCustomer(v);
+        }
+    };
+
+    private final TargetSelector<VillagerEntity> selector = new TargetSelector<>(entities, LIVE_RULES);
 
     // Multiple professions support
     private Set<Identifier> targetProfessionIds = new HashSet<>();
@@ -68,27 +159,27 @@ public class VillagerFinder {
 
         // Use target floor Y if set, otherwise fall back to player Y
         int floorY = (targetFloorY != null) ? targetFloorY : client.player.getBlockPos().getY();
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
-
-        VillagerEntity bestSameFloor = null;
-        double bestSameDist = Double.POSITIVE_INFINITY;
+        Box box = scanBox(client);
 
-        for (VillagerEntity v : client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive)) {
-            if (!isEligible(v)) continue;
-
-            // STRICT same floor - only villagers at target floor Y level (±1 for slabs/stairs)
-            int vy = v.getBlockPos().getY();
-            if (Math.abs(vy - floorY) > 1) continue;
+        // STRICT same floor - only villagers at target floor Y level (±1 for slabs/stairs)
+        return Optional.ofNullable(selector.best(
+                client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive),
+                floorY, client.player.getX(), client.player.getY(), client.player.getZ()));
+    }
+    
+    /**
+     * All eligible villagers on the target floor (same rules as findBestTarget).
+     */
+    public List<VillagerEntity> findEligibleOnFloor(MinecraftClient client) {
+        List<VillagerEntity> out = new ArrayList<>();
+        if (client == null || client.world == null || client.player == null) return out;
 
-            double d = v.squaredDistanceTo(client.player);
-            if (d < bestSameDist) {
-                bestSameDist = d;
-                bestSameFloor = v;
-            }
-        }
+        int floorY = (targetFloorY != null) ? targetFloorY : client.player.getBlockPos().getY();
+        Box box = scanBox(client);
 
-        if (bestSameFloor != null) return Optional.of(bestSameFloor);
-        return Optional.empty();
+        selector.eligibleOnFloor(client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive),
+                floorY, out);
+        return out;
     }
     
     /**
@@ -108,14 +199,14 @@ public class VillagerFinder {
         }
 
         int playerY = client.player.getBlockPos().getY();
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
+        Box box = scanBox(client);
 
         // Count eligible villagers per floor (Y level)
         Map<Integer, Integer> villagersPerFloor = new HashMap<>();
         Map<Integer, Double> closestDistPerFloor = new HashMap<>();
 
         for (VillagerEntity v : client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive)) {
-            if (!isEligible(v)) continue;
+            if (!selector.isEligible(v)) continue;
 
             int vy = v.getBlockPos().getY();
             
@@ -165,7 +256,7 @@ public class VillagerFinder {
     public Optional<VillagerEntity> findAnyNearestVillager(MinecraftClient client) {
         if (client == null || client.world == null || client.player == null) return Optional.empty();
         
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
+        Box box = scanBox(client);
         
         VillagerEntity nearest = null;
         double nearestDist = Double.POSITIVE_INFINITY;
@@ -183,14 +274,80 @@ public class VillagerFinder {
         return Optional.ofNullable(nearest);
     }
     
-    private boolean isEligible(VillagerEntity v) {
-        if (v.isBaby()) return false;
-        if (v.isSleeping()) return false;
-        if (!professionOk(v)) return false;
-        if (CooldownRegistry.isOnCooldown(v)) return false;
-        if (RecentFailRegistry.isSuppressed(v)) return false;
-        if (hasCustomer(v)) return false;
-        return true;
+    /**
+     * Best group of off-cooldown villagers on the target floor that HallRegistry remembers
+     * outside the scan box - or inside it but not loaded. Groups are scored like single
+     * targets: summed output per input over the walk to the group plus one trade overhead
+     * per villager. Empty when nothing is known out there.
+     */
+    public Optional<FarCluster> findFarCluster(MinecraftClient client) {
+        if (client == null || client.world == null || client.player == null) return Optional.empty();
+
+        int floorY = (targetFloorY != null) ? targetFloorY : client.player.getBlockPos().getY();
+        double radius = TradeRunSettings.get().getScanRadius();
+        double px = client.player.getX();
+        double pz = client.player.getZ();
+
+        List<HallRegistry.Entry> far = new ArrayList<>();
+        for (HallRegistry.Entry e : HallRegistry.onFloor(floorY)) {
+            // Loaded and in the scan box: findBestTarget has already judged it
+            boolean inBox = Math.abs(e.x + 0.5 - px) <= radius && Math.abs(e.z + 0.5 - pz) <= radius;
+            if (inBox && e.isLoaded()) continue;
+            if (!professionOk(e.profession)) continue;
+            if (CooldownRegistry.isOnCooldown(e.id())) continue;
+            if (OfferProfileRegistry.isTooExpensive(e.id())) continue;
+            far.add(e);
+        }
+        if (far.isEmpty()) return Optional.empty();
+
+        int n = far.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        boolean[] taken = new boolean[n];
+
+        FarCluster best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int round = 0; round < MAX_FAR_CLUSTERS; round++) {
+            // Compact the villagers not yet assigned to a cluster
+            int[] index = new int[n];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (taken[i]) continue;
+                HallRegistry.Entry e = far.get(i);
+                x[m] = e.x + 0.5;
+                y[m] = e.y;
+                z[m] = e.z + 0.5;
+                index[m++] = i;
+            }
+            if (m == 0) break;
+
+            int[] members = ClusterFinder.largest(x, y, z, m, FAR_CLUSTER_DISTANCE_SQ);
+            double cx = 0, cz = 0, output = 0;
+            for (int k : members) {
+                taken[index[k]] = true;
+                cx += x[k];
+                cz += z[k];
+                output += OfferProfileRegistry.outputPerInput(far.get(index[k]).id());
+            }
+            cx /= members.length;
+            cz /= members.length;
+
+            double walk = Math.sqrt((cx - px) * (cx - px) + (cz - pz) * (cz - pz));
+            double seconds = walk / TargetSelector.WALK_SPEED_BLOCKS_PER_SEC
+                    + TargetSelector.TRADE_OVERHEAD_SEC * members.length;
+            double score = output / seconds;
+            if (score > bestScore) {
+                bestScore = score;
+                best = new FarCluster(BlockPos.ofFloored(cx, floorY, cz), members.length);
+            }
+        }
+        if (best == null) return Optional.empty();
+
+        // The centroid can land inside a trading cell or a wall - walk to a tile we can stand on
+        BlockPos stand = ApproachUtil.nearestStandable(client.world, best.center, FAR_CLUSTER_SNAP_RADIUS);
+        if (stand == null) return Optional.empty();
+        return Optional.of(new FarCluster(stand, best.villagers));
     }
 
     /**
@@ -201,7 +358,7 @@ public class VillagerFinder {
         if (client == null || client.world == null || client.player == null) return "no client/world/player";
 
         int floorY = (targetFloorY != null) ? targetFloorY : client.player.getBlockPos().getY();
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
+        Box box = scanBox(client);
 
         int total = 0;
         int sameFloor = 0;
@@ -260,6 +417,17 @@ public class VillagerFinder {
         return id != null && targetProfessionIds.contains(id);
     }
 
+    private boolean professionOk(String professionId) {
+        if (targetProfessionIds.isEmpty()) return true;
+        Identifier id = Identifier.tryParse(professionId);
+        return id != null && targetProfessionIds.contains(id);
+    }
+
+    private static Box scanBox(MinecraftClient client) {
+        double r = TradeRunSettings.get().getScanRadius();
+        return client.player.getBoundingBox().expand(r, r, r);
+    }
+
     private boolean hasCustomer(VillagerEntity v) {
         try {
             Object customer = VillagerEntity.class.getMethod("getCustomer").invoke(v);
@@ -277,7 +445,7 @@ public class VillagerFinder {
         if (client == null || client.world == null || client.player == null) return 0;
 
         int floorY = (targetFloorY != null) ? targetFloorY : client.player.getBlockPos().getY();
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
+        Box box = scanBox(client);
         int count = 0;
 
         for (VillagerEntity v : client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive)) {
@@ -301,7 +469,7 @@ public class VillagerFinder {
         if (client == null || client.world == null || client.player == null) return false;
 
         int floorY = (targetFloorY != null) ? targetFloorY : client.player.getBlockPos().getY();
-        Box box = client.player.getBoundingBox().expand(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
+        Box box = scanBox(client);
 
         for (VillagerEntity v : client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive)) {
             if (v.isBaby()) continue;
@@ -1,8 +1,10 @@
 package com.example.traderun.visual;
 
+import com.example.traderun.config.TradeRunSettings;
 import com.example.traderun.cooldown.CooldownRegistry;
 import com.example.traderun.runtime.TradeRunRuntime;
 import com.example.traderun.storage.StorageRegistry;
+import com.example.traderun.util.TickClock;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.particle.ParticleTypes;
@@ -40,7 +42,7 @@ public class TradeRunVisuals {
         // Only show visuals when TradeRun is active
         if (!TradeRunRuntime.get().isActive()) return;
         
-        long now = System.currentTimeMillis();
+        long now = TickClock.nowMs();
         if (now - lastTickMs < TICK_INTERVAL_MS) return;
         lastTickMs = now;
         
@@ -76,7 +78,7 @@ public class TradeRunVisuals {
     }
     
     private static void renderCooldownMarkers(MinecraftClient client) {
-        double range = 48.0;
+        double range = TradeRunSettings.get().getScanRadius();
         Box box = client.player.getBoundingBox().expand(range, range, range);
         
         for (VillagerEntity v : client.world.getEntitiesByClass(VillagerEntity.class, box, VillagerEntity::isAlive)) {
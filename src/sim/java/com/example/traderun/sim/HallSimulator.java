@@ -0,0 +1,378 @@
+package com.example.traderun.sim;
+
+import com.example.traderun.inventory.ClickPipeline;
+import com.example.traderun.inventory.SlotScan;
+import com.example.traderun.inventory.TransferPlan;
+import com.example.traderun.nav.StandCover;
+import com.example.traderun.villager.TargetSelector;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Runs the trading loop of TradeRunStateMachine against a SimHall on a virtual clock.
+ *
+ * The decisions are the mod's own code behind its ports: TargetSelector picks targets
+ * (SimHall.PORT for the villagers, the simulator's cooldowns and prices as its Rules),
+ * StandCover plans stand-and-trade tiles over the corridor, SlotScan and TransferPlan
+ * plan storage sessions and ClickPipeline paces the clicks. The phases in between
+ * (walk + path overhead, open round trip, offers packet, trade clicks or AutoTrade
+ * pacing) are modelled costs following the state machine, not the state machine itself.
+ */
+final class HallSimulator {
+
+    enum Strategy { NEAREST, PRICE, STAND }
+
+    /** Same names as TradeRunStateMachine.State for the states the loop passes through. */
+    enum Phase { SEEK, APPROACH, OPEN_ATTEMPTS, WAIT_CLOSE, DETOUR_RESTOCK, DETOUR_DUMP }
+
+    private static final int INV_SLOTS = 36;
+    private static final int STACK = 64;
+    private static final int CHEST_SLOTS = 54;
+    private static final int[] CHEST_RANGE = range(0, CHEST_SLOTS);
+    private static final int[] PLAYER_RANGE = range(CHEST_SLOTS, INV_SLOTS);
+    private static final long AIM_DELAY_MS = 80L;
+    private static final long USE_PRESS_MS = 80L;
+    private static final long OPEN_RETRY_MS = 500L;
+    private static final long CLOSE_DELAY_AFTER_TRADE_MS = 200L;
+    private static final long CONTAINER_CONTENTS_WAIT_MS = 100L;
+    private static final long IDLE_RECHECK_MS = 1000L;
+    private static final int FLOOR_Y = 0;
+
+    private final SimConfig cfg;
+    private final Strategy strategy;
+    private final SimClock clock = new SimClock();
+    private final Random rng;
+    private final SimHall hall;
+    private final ClickPipeline pipeline;
+    private final TargetSelector<SimHall.Villager> selector;
+    private final SlotScan scan = new SlotScan();
+
+    // Bot
+    private int posX = 0;
+    private int inputItems;
+    private int outputItems = 0;
+    private final long[] cooldownUntil;
+    private final List<Integer> stands;
+
+    // Results
+    private final Map<Phase, Long> timeInPhase = new EnumMap<>(Phase.class);
+    private long trades = 0L;
+    private long visits = 0L;
+    private long exhaustedVisits = 0L;
+    private long restocks = 0L;
+    private long dumps = 0L;
+    private long clicks = 0L;
+
+    HallSimulator(SimConfig cfg, Strategy strategy) {
+        this.cfg = cfg;
+        this.strategy = strategy;
+        this.rng = new Random(cfg.seed);
+        this.hall = new SimHall(cfg, clock, rng);
+        this.pipeline = new ClickPipeline(cfg.clickWindow, cfg.minClickMs, cfg.maxAckWaitMs);
+        this.cooldownUntil = new long[hall.villagers.size()];
+        this.selector = new TargetSelector<>(SimHall.PORT, new Rules());
+        this.inputItems = cfg.inputMin;
+        scan.resize(CHEST_SLOTS + INV_SLOTS);
+        this.stands = strategy == Strategy.STAND ? computeStands() : List.of();
+        for (Phase p : Phase.values()) timeInPhase.put(p, 0L);
+    }
+
+    SimReport run() {
+        long end = (long) (cfg.hours * 3_600_000.0);
+        long wallStart = System.nanoTime();
+        while (clock.now() < end) {
+            step();
+        }
+        long wallNs = System.nanoTime() - wallStart;
+        return new SimReport(strategy.name().toLowerCase(), clock.now(), wallNs, trades, trades * cfg.sellCount,
+                visits, exhaustedVisits, restocks, dumps, clicks, pipeline.timeouts(), timeInPhase);
+    }
+
+    // ========== Loop ==========
+
+    private void step() {
+        spend(Phase.SEEK, cfg.clientTickMs);
+
+        if (inputItems < Math.max(1, cfg.inputMin)) {
+            restock();
+            return;
+        }
+        // Dump at the output threshold, or when the inventory is completely full
+        if (outputItems > 0 && (outputItems >= cfg.outputMin || freeSlots() == 0)) {
+            dump();
+            return;
+        }
+
+        if (strategy == Strategy.STAND) {
+            if (!tradeFromStand()) idle();
+            return;
+        }
+
+        SimHall.Villager target = pickTarget();
+        if (target == null) {
+            idle();
+            return;
+        }
+        int goal = cfg.interactOnArrival ? hall.nearestReachTile(posX, target) : hall.frontTile(target);
+        walkTo(goal, Phase.APPROACH);
+        trade(target);
+    }
+
+    /** VillagerFinder.findBestTarget, seen from the centre of the bot's corridor tile. */
+    private SimHall.Villager pickTarget() {
+        return selector.best(hall.villagers, FLOOR_Y, posX + 0.5, 0.0, 0.0);
+    }
+
+    /**
+     * The registries' side of eligibility. NEAREST is the mod before any offers are
+     * learned: every villager has the same output per input, so the score is distance.
+     */
+    private final class Rules implements TargetSelector.Rules {
+        @Override
+        public boolean isOnCooldown(UUID id) {
+            return clock.now() < cooldownUntil[hall.byUuid(id).id];
+        }
+
+        @Override
+        public boolean isSuppressed(UUID id) {
+            return false;
+        }
+
+        @Override
+        public boolean isTooExpensive(UUID id) {
+            return cfg.maxInputPrice > 0 && hall.byUuid(id).price > cfg.maxInputPrice;
+        }
+
+        @Override
+        public double outputPerInput(UUID id) {
+            return strategy == Strategy.PRICE ? hall.byUuid(id).outputPerInput() : 1.0;
+        }
+    }
+
+    /** Nothing to do - wait like SEEK does, until a cooldown ends (rechecked once per second). */
+    private void idle() {
+        spend(Phase.SEEK, IDLE_RECHECK_MS);
+    }
+
+    // ========== Stand and trade ==========
+
+    /** StandingPlanner's cover; only corridor tiles (z = 0) can be stood on. */
+    private List<Integer> computeStands() {
+        int n = hall.villagers.size();
+        int[] vx = new int[n];
+        int[] vy = new int[n];
+        int[] vz = new int[n];
+        for (SimHall.Villager v : hall.villagers) {
+            vx[v.id] = (int) Math.floor(v.x);
+            vz[v.id] = (int) Math.floor(v.z);
+        }
+        StandCover.Cover cover = StandCover.plan(vx, vy, vz, n, new StandCover.Grid() {
+            @Override
+            public boolean isWalkway(int vi, int x, int y, int z) {
+                return z == 0 && x >= hall.minTileX && x <= hall.maxTileX;
+            }
+
+            @Override
+            public boolean canReach(int x, int y, int z, int vi) {
+                return hall.inReach(x, hall.villagers.get(vi));
+            }
+        });
+        List<Integer> out = new ArrayList<>(cover.size());
+        for (int k = 0; k < cover.size(); k++) out.add(cover.x[k]);
+        return out;
+    }
+
+    private boolean tradeFromStand() {
+        int bestStand = Integer.MIN_VALUE;
+        for (int x : stands) {
+            if (!hasEligibleFrom(x)) continue;
+            if (bestStand == Integer.MIN_VALUE || Math.abs(x - posX) < Math.abs(bestStand - posX)) bestStand = x;
+        }
+        if (bestStand == Integer.MIN_VALUE) return false;
+
+        walkTo(bestStand, Phase.APPROACH);
+        for (SimHall.Villager v : hall.villagers) {
+            if (!selector.isEligible(v) || !hall.inReach(posX, v)) continue;
+            if (inputItems < v.price || freeSlots() <= 0) break;
+            trade(v);
+        }
+        return true;
+    }
+
+    private boolean hasEligibleFrom(int x) {
+        for (SimHall.Villager v : hall.villagers) {
+            if (selector.isEligible(v) && hall.inReach(x, v)) return true;
+        }
+        return false;
+    }
+
+    // ========== Villager session ==========
+
+    private void trade(SimHall.Villager v) {
+        visits++;
+
+        // OPEN_ATTEMPTS - use key (aim + press) or interact packet, one round trip for the screen
+        long open = cfg.directInteract ? 0L : AIM_DELAY_MS + USE_PRESS_MS;
+        open += cfg.rttMs + cfg.clientTickMs;
+        while (rng.nextDouble() < cfg.openFailRate) open += OPEN_RETRY_MS;
+        spend(Phase.OPEN_ATTEMPTS, open);
+
+        // WAIT_CLOSE - offers packet follows the screen within a server tick
+        spend(Phase.WAIT_CLOSE, cfg.serverTickMs);
+        cooldownUntil[v.id] = clock.now() + cfg.cooldownMs;
+        if (v.usesLeft() <= 0) {
+            exhaustedVisits++;
+            spend(Phase.WAIT_CLOSE, cfg.clientTickMs);
+            return;
+        }
+
+        int done = 0;
+        if (cfg.nativeTrading) {
+            // Select + take per round; a take repeats the trade while one input stack lasts
+            while (v.usesLeft() > 0 && inputItems >= v.price && outputRoom() >= v.sellCount) {
+                int n = Math.min(v.usesLeft(), Math.min(Math.min(inputItems, STACK) / v.price, outputRoom() / v.sellCount));
+                if (n <= 0) break;
+                runClicks(Phase.WAIT_CLOSE, 2, false);
+                applyTrades(v, n);
+                done += n;
+            }
+        } else {
+            // AutoTrade: about one trade per client tick, closed once it goes idle
+            int n = Math.min(v.usesLeft(), Math.min(inputItems / v.price, outputRoom() / v.sellCount));
+            spend(Phase.WAIT_CLOSE, n * cfg.clientTickMs + CLOSE_DELAY_AFTER_TRADE_MS);
+            applyTrades(v, n);
+            done = n;
+        }
+        spend(Phase.WAIT_CLOSE, cfg.clientTickMs);
+        if (done == 0) exhaustedVisits++;
+    }
+
+    private void applyTrades(SimHall.Villager v, int n) {
+        v.uses += n;
+        inputItems -= n * v.price;
+        outputItems += n * v.sellCount;
+        trades += n;
+    }
+
+    // ========== Storage ==========
+
+    private void restock() {
+        int keepFree = 1;
+        if (freeSlots() <= keepFree && outputItems > 0) {
+            // No room for inputs - DETOUR_RESTOCK goes to dump first
+            dump();
+            return;
+        }
+        restocks++;
+        walkTo(hall.inputChestX, Phase.DETOUR_RESTOCK);
+        openContainer(Phase.DETOUR_RESTOCK);
+
+        // Chest assumed full of input stacks (hopper fed); withdrawals go largest first
+        int n = scan.collect(CHEST_RANGE, idx -> STACK);
+        scan.sortByCountDesc(n);
+        int capacity = Math.max(0, (freeSlots() - keepFree) * STACK + partialRoom(inputItems));
+        TransferPlan plan = scan.plan(n, capacity);
+        runClicks(Phase.DETOUR_RESTOCK, plan.size(), cfg.bulk);
+        inputItems += plan.plannedItems();
+        spend(Phase.DETOUR_RESTOCK, cfg.clientTickMs);
+    }
+
+    private void dump() {
+        dumps++;
+        walkTo(hall.outputChestX, Phase.DETOUR_DUMP);
+        openContainer(Phase.DETOUR_DUMP);
+
+        // Output stacks fill the player slots after the chest's; deposits go in slot order
+        int items = outputItems;
+        int n = scan.collect(PLAYER_RANGE, idx -> Math.max(0, Math.min(STACK, items - (idx - CHEST_SLOTS) * STACK)));
+        TransferPlan plan = scan.plan(n, Integer.MAX_VALUE);
+        runClicks(Phase.DETOUR_DUMP, plan.size(), cfg.bulk);
+        outputItems -= plan.plannedItems();
+        spend(Phase.DETOUR_DUMP, cfg.clientTickMs);
+    }
+
+    private void openContainer(Phase phase) {
+        spend(phase, cfg.rttMs + CONTAINER_CONTENTS_WAIT_MS);
+    }
+
+    // ========== Costs ==========
+
+    private void walkTo(int tileX, Phase phase) {
+        if (tileX == posX) return;
+        double dist = Math.abs(tileX - posX);
+        spend(phase, cfg.pathOverheadMs + (long) (dist / cfg.walkSpeed * 1000.0));
+        posX = tileX;
+    }
+
+    /**
+     * Send clicks the way ContainerOps does: one per client tick when the pipeline allows,
+     * or everything in one burst. Acks arrive one round trip later for the share of clicks
+     * the server corrects; the rest are released by the pipeline's RTT estimate.
+     */
+    private void runClicks(Phase phase, int n, boolean burst) {
+        if (n <= 0) return;
+        long start = clock.now();
+        pipeline.reset();
+        pipeline.seedRtt(cfg.rttMs);
+        clicks += n;
+
+        if (burst) {
+            pipeline.onBurstSent(clock.now(), n);
+            scheduleAck();
+        } else {
+            int sent = 0;
+            while (sent < n) {
+                if (pipeline.canClick(clock.now())) {
+                    pipeline.onClickSent(clock.now());
+                    if (rng.nextDouble() < cfg.slotUpdateRate) scheduleAck();
+                    sent++;
+                }
+                clock.advanceBy(cfg.clientTickMs);
+            }
+        }
+        // Last click settles after one round trip
+        clock.advanceBy(cfg.rttMs);
+        addTime(phase, clock.now() - start);
+    }
+
+    private void scheduleAck() {
+        long at = clock.now() + cfg.rttMs;
+        clock.schedule(at, () -> pipeline.onAck(at));
+    }
+
+    private void spend(Phase phase, long ms) {
+        clock.advanceBy(ms);
+        addTime(phase, ms);
+    }
+
+    private void addTime(Phase phase, long ms) {
+        timeInPhase.merge(phase, ms, Long::sum);
+    }
+
+    // ========== Inventory ==========
+
+    private int freeSlots() {
+        int used = (inputItems + STACK - 1) / STACK + (outputItems + STACK - 1) / STACK;
+        return Math.max(0, INV_SLOTS - used);
+    }
+
+    private int outputRoom() {
+        return freeSlots() * STACK + partialRoom(outputItems);
+    }
+
+    private static int[] range(int from, int n) {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = from + i;
+        return out;
+    }
+
+    private static int partialRoom(int items) {
+        int rem = items % STACK;
+        return rem == 0 ? 0 : STACK - rem;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.traderun.sim;
+
+import com.example.traderun.event.TradeRunEvents;
+import com.example.traderun.metrics.LatencyHistogram;
+import com.example.traderun.metrics.TradeRunMetrics;
+import com.example.traderun.session.SessionFormat;
+import com.example.traderun.session.SessionReader;
+import com.example.traderun.util.TickClock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Session viewer: reads a session recording (config/traderun/session*.ring) and walks
+ * it on a virtual clock.
+ *
+ * Records are read in order: time advances to each record, events are re-posted on the
+ * TradeRunEvents bus (timers included) and the recorded transitions go into
+ * TradeRunMetrics, so the output is the same per-state percentiles "/traderun stats"
+ * shows in game. State visits longer than --slowMs are listed with the records that
+ * happened during them.
+ *
+ * The state machine itself does not run here: the transitions shown are the ones the
+ * game recorded, not ones re-derived from the recorded screens, blocks and entities.
+ * Replaying a recording through the state machine needs ports around its screen, slot
+ * and entity inputs first, and is not implemented.
+ *
+ * Usage: {@code ./gradlew viewSession -PsessionArgs="<file> --slowMs 10000 --context 40"}
+ */
+public final class SessionViewer {
+
+    private SessionViewer() {}
+
+    private static final class Visit {
+        final String state;
+        final int firstRecord;
+        final long enteredMs;
+
+        Visit(String state, int firstRecord, long enteredMs) {
+            this.state = state;
+            this.firstRecord = firstRecord;
+            this.enteredMs = enteredMs;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: viewSession <session.ring> [--slowMs n] [--context n]");
+            System.exit(2);
+            return;
+        }
+        Path file = Path.of(args[0]);
+        long slowMs = 10_000L;
+        int context = 40;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--slowMs" -> slowMs = Long.parseLong(args[i + 1]);
+                case "--context" -> context = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SessionReader reader = SessionReader.read(file);
+        List<SessionReader.Entry> entries = reader.entries();
+        if (entries.isEmpty()) {
+            System.out.println("empty recording");
+            return;
+        }
+
+        long startMs = entries.get(0).timeMs;
+        TickClock.useVirtual(startMs);
+        long[] wakeups = new long[1];
+        int all = 0;
+        for (TradeRunEvents.Type t : TradeRunEvents.Type.values()) all |= t.bit();
+        TradeRunEvents.Listener counter = type -> wakeups[0]++;
+        TradeRunEvents.subscribe(all, counter);
+        TradeRunMetrics.reset(startMs);
+
+        String[] names = new String[0];
+        Visit visit = null;
+        List<String> slow = new ArrayList<>();
+        int[] perType = new int[256];
+
+        for (int i = 0; i < entries.size(); i++) {
+            SessionReader.Entry e = entries.get(i);
+            TickClock.advance(e.timeMs - TickClock.nowMs());
+            long now = TickClock.nowMs();
+            TradeRunEvents.tick(now);
+            perType[e.type]++;
+
+            switch (e.type) {
+                case SessionFormat.STATE_NAMES -> names = e.text(0).split(",");
+                case SessionFormat.EVENT -> {
+                    int ord = e.u8(0);
+                    if (ord < TradeRunEvents.Type.values().length) TradeRunEvents.post(TradeRunEvents.Type.values()[ord]);
+                }
+                case SessionFormat.STATE -> {
+                    String from = name(names, e.u8(0));
+                    String to = name(names, e.u8(1));
+                    if (visit == null) {
+                        visit = new Visit(from, 0, startMs);
+                        TradeRunMetrics.onRunStarted(startMs);
+                    }
+                    long dwell = now - visit.enteredMs;
+                    TradeRunMetrics.onTransition(from, to, dwell);
+                    if (dwell >= slowMs) {
+                        slow.add(describeSlow(entries, names, visit, i, dwell, context));
+                    }
+                    if (to.equals("IDLE")) TradeRunMetrics.onRunStopped(now);
+                    else if (from.equals("IDLE")) TradeRunMetrics.onRunStarted(now);
+                    visit = new Visit(to, i + 1, now);
+                }
+                case SessionFormat.NOTE -> {
+                    String text = e.text(0);
+                    if (text.startsWith("fail ")) TradeRunMetrics.onFailure(text.substring(5));
+                }
+                default -> {}
+            }
+        }
+        TradeRunEvents.unsubscribe(counter);
+        long endMs = TickClock.nowMs();
+        TickClock.useSystem();
+
+        System.out.println("traderun session: " + file.getFileName() + ", " + entries.size() + " records over "
+                + LatencyHistogram.formatMs(endMs - startMs) + ", " + wakeups[0] + " events delivered");
+        StringBuilder counts = new StringBuilder();
+        for (int t = 0; t < perType.length; t++) {
+            if (perType[t] == 0) continue;
+            counts.append(' ').append(SessionFormat.typeName(t).toLowerCase(Locale.ROOT)).append('=').append(perType[t]);
+        }
+        System.out.println("records:" + counts);
+        for (String line : TradeRunMetrics.report(endMs, 10)) {
+            System.out.println(line);
+        }
+        System.out.println();
+        System.out.println(slow.size() + " state visit(s) >= " + LatencyHistogram.formatMs(slowMs));
+        for (String s : slow) System.out.println(s);
+    }
+
+    private static String describeSlow(List<SessionReader.Entry> entries, String[] names, Visit visit,
+                                       int endIndex, long dwell, int context) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("--- ").append(visit.state).append(" for ").append(LatencyHistogram.formatMs(dwell))
+                .append(" (records ").append(visit.firstRecord).append("..").append(endIndex).append(")\n");
+        int from = Math.max(visit.firstRecord, endIndex - context);
+        if (from > visit.firstRecord) sb.append("  ... ").append(from - visit.firstRecord).append(" earlier records\n");
+        for (int i = from; i <= endIndex; i++) {
+            SessionReader.Entry e = entries.get(i);
+            sb.append(String.format(Locale.ROOT, "  +%7.1fs %s%n", (e.timeMs - visit.enteredMs) / 1000.0, format(e, names)));
+        }
+        return sb.toString();
+    }
+
+    private static String format(SessionReader.Entry e, String[] names) {
+        return switch (e.type) {
+            case SessionFormat.STATE -> "state " + name(names, e.u8(0)) + " -> " + name(names, e.u8(1));
+            case SessionFormat.EVENT -> "event " + eventName(e.u8(0));
+            case SessionFormat.NAV_GOAL -> "goal " + e.i32(0) + " " + e.i32(4) + " " + e.i32(8);
+            case SessionFormat.BLOCK -> "block " + e.i32(0) + " " + e.i32(4) + " " + e.i32(8) + " state#" + e.i32(12);
+            case SessionFormat.SCREEN -> (e.u8(0) == 1 ? "screen open " + e.text(1) : "screen closed");
+            case SessionFormat.INVENTORY -> "item#" + e.i32(0) + " " + e.i32(4) + " -> " + e.i32(8);
+            case SessionFormat.POSITION -> String.format(Locale.ROOT, "pos %.1f %.1f %.1f", e.f32(0), e.f32(4), e.f32(8));
+            case SessionFormat.NOTE -> "note " + e.text(0);
+            case SessionFormat.STATE_NAMES -> "(segment start)";
+            default -> SessionFormat.typeName(e.type);
+        };
+    }
+
+    private static String name(String[] names, int ordinal) {
+        return ordinal < names.length ? names[ordinal] : "#" + ordinal;
+    }
+
+    private static String eventName(int ordinal) {
+        TradeRunEvents.Type[] types = TradeRunEvents.Type.values();
+        return ordinal < types.length ? types[ordinal].name() : "#" + ordinal;
+    }
+}
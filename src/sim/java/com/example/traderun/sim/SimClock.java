@@ -0,0 +1,54 @@
+package com.example.traderun.sim;
+
+import java.util.PriorityQueue;
+
+/**
+ * Virtual clock with a discrete event queue. Time only moves when the simulator advances
+ * it, so an 8 hour run takes as long as its events take to process.
+ */
+final class SimClock {
+
+    private static final class Event implements Comparable<Event> {
+        final long atMs;
+        final long seq;
+        final Runnable action;
+
+        Event(long atMs, long seq, Runnable action) {
+            this.atMs = atMs;
+            this.seq = seq;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            int c = Long.compare(atMs, o.atMs);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private long now = 0L;
+    private long seq = 0L;
+
+    long now() {
+        return now;
+    }
+
+    void schedule(long atMs, Runnable action) {
+        queue.add(new Event(Math.max(atMs, now), seq++, action));
+    }
+
+    /** Run every event due up to t (in order), then set the clock to t. */
+    void advanceTo(long t) {
+        while (!queue.isEmpty() && queue.peek().atMs <= t) {
+            Event e = queue.poll();
+            now = e.atMs;
+            e.action.run();
+        }
+        if (t > now) now = t;
+    }
+
+    void advanceBy(long ms) {
+        advanceTo(now + Math.max(0L, ms));
+    }
+}
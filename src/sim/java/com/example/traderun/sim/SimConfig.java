@@ -0,0 +1,95 @@
+package com.example.traderun.sim;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulation parameters. Defaults mirror TradeRunSettings and vanilla mechanics;
+ * any field can be overridden with {@code --name value} (booleans: {@code --name}).
+ */
+public final class SimConfig {
+
+    // Run
+    public double hours = 8.0;
+    public long seed = 1L;
+    public String strategy = "all"; // nearest | price | stand | all
+
+    // Hall: two rows of villagers facing a 1-wide corridor, storage at the corridor start
+    public int villagers = 40;
+    public double rowOffset = 1.5;     // Villager distance from the corridor centre line
+    public double reach = 3.0;         // Entity interaction range
+    public double reachMargin = 0.5;   // Same margin as interact-on-arrival
+    public int minPrice = 1;           // Input items per trade, uniform in [minPrice, maxPrice]
+    public int maxPrice = 4;
+    public int sellCount = 1;
+    public int maxUses = 12;
+    public long restockIntervalMs = 600_000L;  // Work-station restock, twice per day
+
+    // Network
+    public long rttMs = 80L;
+    public long serverTickMs = 50L;
+    public double slotUpdateRate = 0.3; // Share of clicks the server answers with a slot update
+    public double openFailRate = 0.05;
+
+    // Bot
+    public double walkSpeed = 4.3;
+    public long pathOverheadMs = 250L;
+    public long clientTickMs = 50L;
+    public int inputMin = 32;
+    public int outputMin = 672;
+    public long cooldownMs = 600_000L;
+    public int maxInputPrice = 0;
+    public int clickWindow = 2;
+    public long minClickMs = 50L;
+    public long maxAckWaitMs = 400L;
+    public boolean bulk = false;
+    public boolean nativeTrading = false;
+    public boolean directInteract = false;
+    public boolean interactOnArrival = false;
+
+    static SimConfig parse(String[] args) {
+        SimConfig c = new SimConfig();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + a);
+            String name = a.substring(2);
+            Field f;
+            try {
+                f = SimConfig.class.getField(name);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Unknown option: " + a);
+            }
+            try {
+                Class<?> t = f.getType();
+                if (t == boolean.class) {
+                    boolean v = true;
+                    if (i + 1 < args.length && (args[i + 1].equals("true") || args[i + 1].equals("false"))) {
+                        v = Boolean.parseBoolean(args[++i]);
+                    }
+                    f.setBoolean(c, v);
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + a);
+                String v = args[++i];
+                if (t == int.class) f.setInt(c, Integer.parseInt(v));
+                else if (t == long.class) f.setLong(c, Long.parseLong(v));
+                else if (t == double.class) f.setDouble(c, Double.parseDouble(v));
+                else f.set(c, v);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return c;
+    }
+
+    List<String> describe() {
+        List<String> out = new ArrayList<>();
+        for (Field f : SimConfig.class.getFields()) {
+            try {
+                out.add(f.getName() + "=" + f.get(this));
+            } catch (IllegalAccessException ignored) {}
+        }
+        return out;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.traderun.sim;
+
+import com.example.traderun.villager.TargetSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Trading hall model: villagers in two rows along a corridor (z = 0), input and output
+ * chests at the corridor start. The bot stands on integer corridor tiles (x, 0).
+ */
+final class SimHall {
+
+    static final class Villager {
+        final int id;
+        final UUID uuid;
+        final double x;
+        final double z;
+        final int price;
+        final int sellCount;
+        final int maxUses;
+        int uses = 0;
+        long restocks = 0L;
+
+        Villager(int id, double x, double z, int price, int sellCount, int maxUses) {
+            this.id = id;
+            this.uuid = new UUID(0L, id);
+            this.x = x;
+            this.z = z;
+            this.price = price;
+            this.sellCount = sellCount;
+            this.maxUses = maxUses;
+        }
+
+        int usesLeft() {
+            return maxUses - uses;
+        }
+
+        double outputPerInput() {
+            return price <= 0 ? 0.0 : (double) sellCount / price;
+        }
+    }
+
+    /** Villagers as TargetSelector reads them: all adults, awake, on floor 0, no other customer. */
+    static final TargetSelector.Villagers<Villager> PORT = new TargetSelector.Villagers<>() {
+        @Override
+        public UUID id(Villager v) {
+            return v.uuid;
+        }
+
+        @Override
+        public double x(Villager v) {
+            return v.x;
+        }
+
+        @Override
+        public double y(Villager v) {
+            return 0.0;
+        }
+
+        @Override
+        public double z(Villager v) {
+            return v.z;
+        }
+
+        @Override
+        public int blockY(Villager v) {
+            return 0;
+        }
+
+        @Override
+        public boolean isBaby(Villager v) {
+            return false;
+        }
+
+        @Override
+        public boolean isSleeping(Villager v) {
+            return false;
+        }
+
+        @Override
+        public boolean professionOk(Villager v) {
+            return true;
+        }
+
+        @Override
+        public boolean hasCustomer(Villager v) {
+            return false;
+        }
+    };
+
+    final List<Villager> villagers = new ArrayList<>();
+    final int inputChestX = -2;
+    final int outputChestX = -3;
+    final int minTileX;
+    final int maxTileX;
+    private final SimConfig cfg;
+
+    SimHall(SimConfig cfg, SimClock clock, Random rng) {
+        this.cfg = cfg;
+        int perRow = (cfg.villagers + 1) / 2;
+        for (int i = 0; i < cfg.villagers; i++) {
+            int col = i % perRow;
+            double z = (i < perRow) ? -cfg.rowOffset : cfg.rowOffset;
+            int price = cfg.minPrice + rng.nextInt(Math.max(1, cfg.maxPrice - cfg.minPrice + 1));
+            Villager v = new Villager(i, col + 0.5, z, price, cfg.sellCount, cfg.maxUses);
+            villagers.add(v);
+
+            // Each villager restocks on its own phase, only if it was traded with
+            long phase = (long) (rng.nextDouble() * cfg.restockIntervalMs);
+            scheduleRestock(clock, v, phase);
+        }
+        minTileX = outputChestX;
+        maxTileX = perRow;
+    }
+
+    private void scheduleRestock(SimClock clock, Villager v, long atMs) {
+        clock.schedule(atMs, () -> {
+            if (v.uses > 0) {
+                v.uses = 0;
+                v.restocks++;
+            }
+            scheduleRestock(clock, v, atMs + cfg.restockIntervalMs);
+        });
+    }
+
+    Villager byUuid(UUID id) {
+        return villagers.get((int) id.getLeastSignificantBits());
+    }
+
+    /** Horizontal distance from the centre of corridor tile x to a villager. */
+    double distance(int tileX, Villager v) {
+        double dx = (tileX + 0.5) - v.x;
+        return Math.sqrt(dx * dx + v.z * v.z);
+    }
+
+    boolean inReach(int tileX, Villager v) {
+        return distance(tileX, v) <= cfg.reach - cfg.reachMargin;
+    }
+
+    /** Tile directly in front of the villager (the normal approach goal). */
+    int frontTile(Villager v) {
+        return (int) Math.floor(v.x);
+    }
+
+    /** Closest tile (from the bot) that still has the villager in reach. */
+    int nearestReachTile(int fromX, Villager v) {
+        int best = frontTile(v);
+        for (int x = minTileX; x <= maxTileX; x++) {
+            if (inReach(x, v) && Math.abs(x - fromX) < Math.abs(best - fromX)) best = x;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.traderun.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless trading-hall simulator.
+ *
+ * Usage: {@code ./gradlew runSim -PsimArgs="--hours 8 --villagers 60 --strategy all --nativeTrading"}
+ * Every SimConfig field is an option. Prints trades per hour and time per state for each strategy.
+ *
+ * Both are modelled figures: the state machine, VillagerFinder, Navigator and ContainerOps
+ * don't run, so walking, opening and trading cost fixed times from HallSimulator.
+ */
+public final class SimMain {
+
+    private SimMain() {}
+
+    public static void main(String[] args) {
+        SimConfig cfg;
+        try {
+            cfg = SimConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: " + String.join(" ", new SimConfig().describe()));
+            System.exit(2);
+            return;
+        }
+
+        List<HallSimulator.Strategy> strategies = new ArrayList<>();
+        if (cfg.strategy.equalsIgnoreCase("all")) {
+            strategies.addAll(List.of(HallSimulator.Strategy.values()));
+        } else {
+            strategies.add(HallSimulator.Strategy.valueOf(cfg.strategy.toUpperCase()));
+        }
+
+        System.out.println("traderun sim: " + String.join(" ", cfg.describe()));
+        System.out.println("modelled, not measured: walk, open and trade times are fixed costs; the state machine,"
+                + " VillagerFinder, Navigator and ContainerOps don't run. Use the figures to compare strategies.");
+        for (HallSimulator.Strategy s : strategies) {
+            SimReport report = new HallSimulator(cfg, s).run();
+            System.out.println(report.format());
+        }
+    }
+}
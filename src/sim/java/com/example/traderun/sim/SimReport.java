@@ -0,0 +1,61 @@
+package com.example.traderun.sim;
+
+import java.util.Locale;
+import java.util.Map;
+
+/** Results of one simulated run. */
+final class SimReport {
+
+    final String strategy;
+    final long simMs;
+    final long wallNs;
+    final long trades;
+    final long outputs;
+    final long visits;
+    final long wastedVisits;
+    final long restocks;
+    final long dumps;
+    final long clicks;
+    final long clickTimeouts;
+    final Map<HallSimulator.Phase, Long> timeInPhase;
+
+    SimReport(String strategy, long simMs, long wallNs, long trades, long outputs, long visits, long wastedVisits,
+              long restocks, long dumps, long clicks, long clickTimeouts, Map<HallSimulator.Phase, Long> timeInPhase) {
+        this.strategy = strategy;
+        this.simMs = simMs;
+        this.wallNs = wallNs;
+        this.trades = trades;
+        this.outputs = outputs;
+        this.visits = visits;
+        this.wastedVisits = wastedVisits;
+        this.restocks = restocks;
+        this.dumps = dumps;
+        this.clicks = clicks;
+        this.clickTimeouts = clickTimeouts;
+        this.timeInPhase = timeInPhase;
+    }
+
+    double hours() {
+        return simMs / 3_600_000.0;
+    }
+
+    double tradesPerHour() {
+        return simMs == 0L ? 0.0 : trades / hours();
+    }
+
+    double speedup() {
+        return wallNs == 0L ? 0.0 : (simMs * 1_000_000.0) / wallNs;
+    }
+
+    String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-8s trades/h=%8.1f  outputs=%d  visits=%d (wasted %d)  restocks=%d  dumps=%d  clicks=%d (timeouts %d)  speedup=%.0fx%n",
+                strategy, tradesPerHour(), outputs, visits, wastedVisits, restocks, dumps, clicks, clickTimeouts, speedup()));
+        sb.append("         modelled time per state:");
+        for (Map.Entry<HallSimulator.Phase, Long> e : timeInPhase.entrySet()) {
+            double pct = simMs == 0L ? 0.0 : 100.0 * e.getValue() / simMs;
+            sb.append(String.format(Locale.ROOT, " %s=%.1f%%", e.getKey().name(), pct));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.traderun.config;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String json) throws IOException {
+        Path p = dir.resolve(name);
+        Files.writeString(p, json, StandardCharsets.UTF_8);
+        return p;
+    }
+
+    @Test
+    void readsTheDataOutOfTheEnvelope() throws IOException {
+        Path p = write("env.json", "{\"schemaVersion\": 1, \"data\": {\"a\": 2}}");
+
+        JsonElement data = ConfigStore.read("env.json", p);
+
+        assertEquals(JsonParser.parseString("{\"a\": 2}"), data);
+    }
+
+    @Test
+    void bareFilesAreSchemaZeroAndReadWhole() throws IOException {
+        Path p = write("bare.json", "[1, 2, 3]");
+
+        assertEquals(JsonParser.parseString("[1, 2, 3]"), ConfigStore.read("bare.json", p));
+        assertEquals(JsonParser.parseString("[1, 2, 3]"),
+                ConfigStore.migrate(0, JsonParser.parseString("[1, 2, 3]")));
+    }
+
+    @Test
+    void missingAndBrokenFilesReadAsNull() throws IOException {
+        assertNull(ConfigStore.read("missing.json", dir.resolve("missing.json")));
+        assertNull(ConfigStore.read("broken.json", write("broken.json", "{\"schemaVersion\": ")));
+    }
+
+    @Test
+    void newerFilesAreNeitherLoadedNorWritten() throws IOException {
+        String newer = "{\"schemaVersion\": " + (ConfigStore.SCHEMA_VERSION + 1) + ", \"data\": {\"a\": 2}}";
+        Path p = write("newer.json", newer);
+
+        assertNull(ConfigStore.read("newer.json", p));
+        assertTrue(ConfigStore.isNewer("newer.json"));
+
+        boolean[] snapshotTaken = {false};
+        ConfigStore.markDirty("newer.json", () -> {
+            snapshotTaken[0] = true;
+            return JsonParser.parseString("{}");
+        });
+        ConfigStore.flushAll();
+
+        assertFalse(snapshotTaken[0]);
+        assertEquals(newer, Files.readString(p, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void currentAndOlderFilesStayWritable() throws IOException {
+        ConfigStore.read("current.json", write("current.json", "{\"schemaVersion\": 1, \"data\": []}"));
+        ConfigStore.read("old.json", write("old.json", "[]"));
+
+        assertFalse(ConfigStore.isNewer("current.json"));
+        assertFalse(ConfigStore.isNewer("old.json"));
+    }
+
+    @Test
+    void unknownOldVersionsHaveNoMigration() {
+        assertThrows(IllegalStateException.class, () -> ConfigStore.migrate(-1, JsonParser.parseString("[]")));
+    }
+
+    @Test
+    void atomicWriteReplacesTheFileAndLeavesNoTemp() throws IOException {
+        Path p = write("atomic.json", "old contents that are longer than the new ones");
+
+        long bytes = ConfigStore.writeAtomic(p, "{\"new\": true}");
+
+        assertEquals("{\"new\": true}", Files.readString(p, StandardCharsets.UTF_8));
+        assertEquals(13L, bytes);
+        assertFalse(Files.exists(dir.resolve("atomic.json.tmp")));
+    }
+
+    @Test
+    void atomicWriteCreatesMissingFiles() throws IOException {
+        Path p = dir.resolve("fresh.json");
+
+        ConfigStore.writeAtomic(p, "[]");
+
+        assertEquals("[]", Files.readString(p, StandardCharsets.UTF_8));
+    }
+}
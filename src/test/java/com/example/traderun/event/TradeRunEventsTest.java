@@ -0,0 +1,90 @@
+package com.example.traderun.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TradeRunEventsTest {
+
+    private final List<TradeRunEvents.Type> seen = new ArrayList<>();
+    private final TradeRunEvents.Listener listener = seen::add;
+
+    @AfterEach
+    void cleanUp() {
+        TradeRunEvents.unsubscribe(listener);
+        TradeRunEvents.clearTimers();
+    }
+
+    @Test
+    void timerFiresOnceItIsDue() {
+        TradeRunEvents.subscribe(TradeRunEvents.mask(TradeRunEvents.Type.TIMER_EXPIRED), listener);
+        TradeRunEvents.scheduleTimer(1_000L);
+
+        TradeRunEvents.tick(999L);
+        assertTrue(seen.isEmpty());
+
+        TradeRunEvents.tick(1_000L);
+        assertEquals(List.of(TradeRunEvents.Type.TIMER_EXPIRED), seen);
+
+        TradeRunEvents.tick(2_000L);
+        assertEquals(1, seen.size());
+    }
+
+    @Test
+    void dueTimersInOneTickPostOnce() {
+        TradeRunEvents.subscribe(TradeRunEvents.mask(TradeRunEvents.Type.TIMER_EXPIRED), listener);
+        TradeRunEvents.scheduleTimer(300L);
+        TradeRunEvents.scheduleTimer(100L);
+        TradeRunEvents.scheduleTimer(200L);
+        TradeRunEvents.scheduleTimer(900L);
+
+        TradeRunEvents.tick(500L);
+        assertEquals(1, seen.size());
+
+        TradeRunEvents.tick(900L);
+        assertEquals(2, seen.size());
+    }
+
+    @Test
+    void clearedTimersNeverFire() {
+        TradeRunEvents.subscribe(TradeRunEvents.mask(TradeRunEvents.Type.TIMER_EXPIRED), listener);
+        TradeRunEvents.scheduleTimer(100L);
+        TradeRunEvents.clearTimers();
+
+        TradeRunEvents.tick(1_000L);
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test
+    void maskFiltersEventTypes() {
+        TradeRunEvents.subscribe(TradeRunEvents.mask(TradeRunEvents.Type.SCREEN_OPENED, TradeRunEvents.Type.NAV_ARRIVED), listener);
+
+        TradeRunEvents.post(TradeRunEvents.Type.SCREEN_CLOSED);
+        TradeRunEvents.post(TradeRunEvents.Type.NAV_ARRIVED);
+        TradeRunEvents.post(TradeRunEvents.Type.SCREEN_OPENED);
+
+        assertEquals(List.of(TradeRunEvents.Type.NAV_ARRIVED, TradeRunEvents.Type.SCREEN_OPENED), seen);
+    }
+
+    @Test
+    void listenerMayUnsubscribeWhileNotified() {
+        TradeRunEvents.Listener once = new TradeRunEvents.Listener() {
+            @Override
+            public void onEvent(TradeRunEvents.Type type) {
+                seen.add(type);
+                TradeRunEvents.unsubscribe(this);
+            }
+        };
+        TradeRunEvents.subscribe(TradeRunEvents.Type.BLOCK_UPDATED.bit(), once);
+
+        TradeRunEvents.post(TradeRunEvents.Type.BLOCK_UPDATED);
+        TradeRunEvents.post(TradeRunEvents.Type.BLOCK_UPDATED);
+
+        assertEquals(1, seen.size());
+    }
+}
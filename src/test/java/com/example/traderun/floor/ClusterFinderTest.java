@@ -0,0 +1,53 @@
+package com.example.traderun.floor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ClusterFinderTest {
+
+    private static final double DIST_SQ = 5.0 * 5.0;
+
+    @Test
+    void chainsNeighboursIntoOneCluster() {
+        // 0-1-2 linked in a chain (each 4 apart), 3 alone
+        double[] x = {0, 4, 8, 40};
+        double[] y = {64, 64, 64, 64};
+        double[] z = {0, 0, 0, 0};
+
+        assertArrayEquals(new int[] {0, 1, 2}, ClusterFinder.largest(x, y, z, 4, DIST_SQ));
+    }
+
+    @Test
+    void tieGoesToTheClusterWithTheLowestIndex() {
+        double[] x = {100, 0, 101, 1};
+        double[] y = {64, 64, 64, 64};
+        double[] z = {0, 0, 0, 0};
+
+        assertArrayEquals(new int[] {0, 2}, ClusterFinder.largest(x, y, z, 4, DIST_SQ));
+    }
+
+    @Test
+    void onlyTheFirstNPointsCount() {
+        double[] x = {0, 50, 51, 52};
+        double[] y = {64, 64, 64, 64};
+        double[] z = {0, 0, 0, 0};
+
+        assertArrayEquals(new int[] {0}, ClusterFinder.largest(x, y, z, 2, DIST_SQ));
+    }
+
+    @Test
+    void heightSeparatesFloors() {
+        double[] x = {0, 1, 2};
+        double[] y = {64, 64, 74};
+        double[] z = {0, 0, 0};
+
+        assertArrayEquals(new int[] {0, 1}, ClusterFinder.largest(x, y, z, 3, DIST_SQ));
+    }
+
+    @Test
+    void emptyAndSingleInputs() {
+        assertArrayEquals(new int[0], ClusterFinder.largest(new double[0], new double[0], new double[0], 0, DIST_SQ));
+        assertArrayEquals(new int[] {0}, ClusterFinder.largest(new double[] {1}, new double[] {2}, new double[] {3}, 1, DIST_SQ));
+    }
+}
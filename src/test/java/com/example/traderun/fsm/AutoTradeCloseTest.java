@@ -0,0 +1,45 @@
+package com.example.traderun.fsm;
+
+import org.junit.jupiter.api.Test;
+
+import static com.example.traderun.fsm.AutoTradeClose.CLOSE_DELAY_AFTER_TRADE_MS;
+import static com.example.traderun.fsm.AutoTradeClose.NO_TRADE_TIMEOUT_MS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AutoTradeCloseTest {
+
+    private static final long OFFERS_AT = 10_000L;
+
+    @Test
+    void closesAtOnceWhenNothingIsTradeable() {
+        assertEquals(AutoTradeClose.Decision.NOTHING_TRADEABLE,
+                AutoTradeClose.decide(false, 0, OFFERS_AT, 0L, OFFERS_AT));
+    }
+
+    @Test
+    void noActivityTimesOutFromTheOffers() {
+        assertEquals(AutoTradeClose.Decision.KEEP_OPEN,
+                AutoTradeClose.decide(true, 0, OFFERS_AT, 0L, OFFERS_AT + NO_TRADE_TIMEOUT_MS - 1));
+        assertEquals(AutoTradeClose.Decision.NO_TRADE,
+                AutoTradeClose.decide(true, 0, OFFERS_AT, 0L, OFFERS_AT + NO_TRADE_TIMEOUT_MS));
+    }
+
+    @Test
+    void resultSlotUpdateWithoutATradeStillTimesOut() {
+        // Offer selected, result slot filled, but the trade never went through
+        long activity = OFFERS_AT + 150L;
+        assertEquals(AutoTradeClose.Decision.KEEP_OPEN,
+                AutoTradeClose.decide(true, 0, OFFERS_AT, activity, activity + NO_TRADE_TIMEOUT_MS - 1));
+        assertEquals(AutoTradeClose.Decision.NO_TRADE,
+                AutoTradeClose.decide(true, 0, OFFERS_AT, activity, activity + NO_TRADE_TIMEOUT_MS));
+    }
+
+    @Test
+    void closesWhenTheTraderGoesIdleAfterATrade() {
+        long activity = OFFERS_AT + 500L;
+        assertEquals(AutoTradeClose.Decision.KEEP_OPEN,
+                AutoTradeClose.decide(true, 2, OFFERS_AT, activity, activity + CLOSE_DELAY_AFTER_TRADE_MS - 1));
+        assertEquals(AutoTradeClose.Decision.TRADER_IDLE,
+                AutoTradeClose.decide(true, 2, OFFERS_AT, activity, activity + CLOSE_DELAY_AFTER_TRADE_MS));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.traderun.fsm;
+
+import net.minecraft.client.MinecraftClient;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateTableTest {
+
+    private enum S { REST, A, B, C }
+
+    private static final class Counting implements StateHandler {
+        int ticks = 0;
+        int enters = 0;
+        int exits = 0;
+        long spinNs = 0L;
+
+        @Override
+        public void tick(MinecraftClient client) {
+            ticks++;
+            long until = System.nanoTime() + spinNs;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+        }
+
+        @Override
+        public void enter() {
+            enters++;
+        }
+
+        @Override
+        public void exit() {
+            exits++;
+        }
+    }
+
+    private final Counting a = new Counting();
+    private final Counting b = new Counting();
+
+    private StateTable<S> table() {
+        return new StateTable<>(S.class)
+                .rest(S.REST)
+                .on(S.A, a, 1.0, 1000L)
+                .on(S.B, b, 1.0, 5000L)
+                .allowFromAny(S.REST)
+                .allow(S.REST, S.A)
+                .allow(S.A, S.B);
+    }
+
+    @Test
+    void onlyListedTransitionsAreAllowed() {
+        StateTable<S> t = table();
+        assertTrue(t.isAllowed(S.REST, S.A));
+        assertTrue(t.isAllowed(S.A, S.B));
+        assertFalse(t.isAllowed(S.B, S.A));
+        assertFalse(t.isAllowed(S.REST, S.B));
+    }
+
+    @Test
+    void fromAnyTargetsAndSelfTransitionsAreAlwaysAllowed() {
+        StateTable<S> t = table();
+        assertTrue(t.isAllowed(S.B, S.REST));
+        assertTrue(t.isAllowed(S.B, S.B));
+        assertTrue(t.isAllowed(null, S.C));
+    }
+
+    @Test
+    void everyTickedStateNeedsBothBudgets() {
+        StateTable<S> t = new StateTable<>(S.class);
+        assertThrows(IllegalArgumentException.class, () -> t.on(S.A, a, 1.0, 0L));
+        assertThrows(IllegalArgumentException.class, () -> t.on(S.A, a, 0.0, 1000L));
+    }
+
+    @Test
+    void transitionRunsExitAndEnter() {
+        StateTable<S> t = table();
+        t.transition(S.A, 0L);
+        t.transition(S.B, 10L);
+        t.transition(S.B, 20L);
+
+        assertEquals(1, a.enters);
+        assertEquals(1, a.exits);
+        assertEquals(1, b.enters);
+        assertEquals(0, b.exits);
+    }
+
+    @Test
+    void restingStateHasNoBudget() {
+        StateTable<S> t = table();
+        t.transition(S.REST, 0L);
+        assertFalse(t.overTimeBudget(Long.MAX_VALUE / 2));
+        assertFalse(t.dispatch(null));
+    }
+
+    @Test
+    void timeBudgetCountsFromEntry() {
+        StateTable<S> t = table();
+        t.transition(S.A, 0L);
+        assertFalse(t.overTimeBudget(1000L));
+        assertTrue(t.overTimeBudget(1001L));
+    }
+
+    @Test
+    void waitingIsNotCountedAgainstTheBudget() {
+        StateTable<S> t = table();
+        t.transition(S.A, 0L);
+        t.waited(200L, 900L);
+        assertFalse(t.overTimeBudget(1700L));
+        assertTrue(t.overTimeBudget(1701L));
+    }
+
+    @Test
+    void waitsFromBeforeTheStateOnlyCountFromEntry() {
+        StateTable<S> t = table();
+        t.transition(S.A, 500L);
+        // Asleep since 0, woke at 800: only 300ms of that was in A
+        t.waited(0L, 800L);
+        assertFalse(t.overTimeBudget(1800L));
+        assertTrue(t.overTimeBudget(1801L));
+    }
+
+    @Test
+    void restartGivesAFreshBudget() {
+        StateTable<S> t = table();
+        t.transition(S.A, 0L);
+        assertTrue(t.overTimeBudget(2000L));
+
+        t.restart(2000L);
+        assertFalse(t.overTimeBudget(2500L));
+        assertEquals(2, a.enters);
+        assertEquals(1, a.exits);
+    }
+
+    @Test
+    void cpuBudgetTripsAfterConsecutiveOverruns() {
+        StateTable<S> t = new StateTable<>(S.class).on(S.A, a, 0.01, 1000L);
+        t.transition(S.A, 0L);
+        a.spinNs = 200_000L;
+        for (int i = 1; i < StateTable.MAX_CONSECUTIVE_OVERRUNS; i++) {
+            assertTrue(t.dispatch(null));
+            assertFalse(t.overCpuBudget());
+        }
+        assertTrue(t.dispatch(null));
+        assertTrue(t.overCpuBudget());
+
+        // One tick inside the budget clears the streak
+        a.spinNs = 0L;
+        t.dispatch(null);
+        assertFalse(t.overCpuBudget());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.traderun.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClickPipelineTest {
+
+    @Test
+    void windowLimitsClicksInFlight() {
+        ClickPipeline p = new ClickPipeline(2, 0L, 400L);
+
+        assertTrue(p.canClick(1000L));
+        p.onClickSent(1000L);
+        assertTrue(p.canClick(1000L));
+        p.onClickSent(1000L);
+        assertFalse(p.canClick(1000L));
+
+        p.onAck(1080L);
+        assertEquals(1, p.inFlight());
+        assertTrue(p.canClick(1080L));
+    }
+
+    @Test
+    void minIntervalSpacesClicks() {
+        ClickPipeline p = new ClickPipeline(4, 50L, 400L);
+
+        p.onClickSent(1000L);
+        assertFalse(p.canClick(1049L));
+        assertTrue(p.canClick(1050L));
+    }
+
+    @Test
+    void unacknowledgedClicksTimeOut() {
+        ClickPipeline p = new ClickPipeline(1, 0L, 400L);
+
+        p.onClickSent(1000L);
+        assertFalse(p.canClick(1399L));
+        assertTrue(p.canClick(1400L));
+        assertEquals(1, p.timeouts());
+        assertEquals(0, p.inFlight());
+    }
+
+    @Test
+    void ackWaitFollowsTheSmoothedRtt() {
+        ClickPipeline p = new ClickPipeline(2, 0L, 400L);
+        assertEquals(400L, p.ackWaitMs());
+
+        p.onClickSent(1000L);
+        p.onAck(1100L);
+        assertEquals(100L, p.smoothedRttMs());
+        assertEquals(130L, p.ackWaitMs());
+
+        // EWMA with alpha 1/4
+        p.onClickSent(2000L);
+        p.onAck(2200L);
+        assertEquals(125L, p.smoothedRttMs());
+    }
+
+    @Test
+    void seedOnlyAppliesBeforeTheFirstSample() {
+        ClickPipeline p = new ClickPipeline(2, 0L, 400L);
+        p.seedRtt(10L);
+        assertEquals(25L, p.smoothedRttMs());   // Floor
+
+        p.seedRtt(300L);
+        assertEquals(25L, p.smoothedRttMs());
+    }
+
+    @Test
+    void burstTakesOneSlotAndCountsEveryClick() {
+        ClickPipeline p = new ClickPipeline(2, 0L, 400L);
+
+        p.onBurstSent(1000L, 12);
+        assertEquals(1, p.inFlight());
+        assertEquals(12, p.clicksSent());
+        assertTrue(p.canClick(1000L));
+    }
+
+    @Test
+    void resyncAcknowledgesEverything() {
+        ClickPipeline p = new ClickPipeline(3, 0L, 400L);
+        p.onClickSent(1000L);
+        p.onClickSent(1000L);
+        p.onClickSent(1000L);
+
+        p.onResync(1090L);
+        assertEquals(0, p.inFlight());
+        assertEquals(3, p.acksReceived());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.traderun.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotScanTest {
+
+    // Handler slot -> stack size of the planned item (0 = empty or another item)
+    private static final int[] STACKS = {0, 12, 64, 0, 5, 64, 30, 0};
+    private static final SlotScan.Counts COUNTS = slot -> STACKS[slot];
+
+    private static int[] range(int from, int to) {
+        int[] r = new int[to - from];
+        for (int i = 0; i < r.length; i++) r[i] = from + i;
+        return r;
+    }
+
+    private static int[] drain(TransferPlan plan) {
+        int[] out = new int[plan.size()];
+        for (int i = 0; i < out.length; i++) out[i] = plan.next();
+        return out;
+    }
+
+    @Test
+    void collectsMatchingSlotsInRangeOrder() {
+        SlotScan scan = new SlotScan();
+        scan.resize(STACKS.length);
+
+        int n = scan.collect(range(0, STACKS.length), COUNTS);
+
+        assertEquals(5, n);
+        assertArrayEquals(new int[] {1, 2, 4, 5, 6}, drain(scan.plan(n, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void onlyLooksAtTheGivenRange() {
+        SlotScan scan = new SlotScan();
+        scan.resize(STACKS.length);
+
+        int n = scan.collect(new int[] {6, 0, 4}, COUNTS);
+
+        assertEquals(2, n);
+        assertArrayEquals(new int[] {6, 4}, drain(scan.plan(n, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void sortsLargestStacksFirstKeepingTiesInOrder() {
+        SlotScan scan = new SlotScan();
+        scan.resize(STACKS.length);
+        int n = scan.collect(range(0, STACKS.length), COUNTS);
+
+        scan.sortByCountDesc(n);
+
+        assertArrayEquals(new int[] {2, 5, 6, 1, 4}, drain(scan.plan(n, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void planStopsAtCapacity() {
+        SlotScan scan = new SlotScan();
+        scan.resize(STACKS.length);
+        int n = scan.collect(range(0, STACKS.length), COUNTS);
+        scan.sortByCountDesc(n);
+
+        TransferPlan plan = scan.plan(n, 100);
+
+        assertEquals(2, plan.size());
+        assertEquals(100, plan.plannedItems());
+        assertTrue(plan.capacityLimited());
+    }
+
+    @Test
+    void scratchIsReusedAcrossScans() {
+        SlotScan scan = new SlotScan();
+        scan.resize(STACKS.length);
+        scan.collect(range(0, STACKS.length), COUNTS);
+
+        // A second scan overwrites the first: only its own slots are planned
+        int n = scan.collect(new int[] {4}, COUNTS);
+        TransferPlan plan = scan.plan(n, Integer.MAX_VALUE);
+
+        assertEquals(1, plan.size());
+        assertEquals(5, plan.plannedItems());
+        assertFalse(plan.capacityLimited());
+    }
+}
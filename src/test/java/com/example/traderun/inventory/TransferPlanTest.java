@@ -0,0 +1,68 @@
+package com.example.traderun.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransferPlanTest {
+
+    @Test
+    void takesEverySourceWhenThereIsRoom() {
+        TransferPlan plan = TransferPlan.build(new int[] {3, 5, 9}, new int[] {64, 10, 1}, 1000);
+
+        assertEquals(3, plan.size());
+        assertEquals(75, plan.plannedItems());
+        assertFalse(plan.capacityLimited());
+        assertEquals(3, plan.next());
+        assertEquals(5, plan.next());
+        assertEquals(9, plan.next());
+        assertFalse(plan.hasNext());
+    }
+
+    @Test
+    void stopsAtThePartiallyFittingStack() {
+        TransferPlan plan = TransferPlan.build(new int[] {0, 1, 2}, new int[] {64, 64, 64}, 100);
+
+        assertEquals(2, plan.size());
+        assertEquals(100, plan.plannedItems());
+        assertTrue(plan.capacityLimited());
+    }
+
+    @Test
+    void exactFitIsNotLimited() {
+        TransferPlan plan = TransferPlan.build(new int[] {0, 1}, new int[] {32, 32}, 64);
+
+        assertEquals(2, plan.size());
+        assertFalse(plan.capacityLimited());
+    }
+
+    @Test
+    void noRoomMeansNoClicks() {
+        TransferPlan plan = TransferPlan.build(new int[] {0}, new int[] {5}, 0);
+
+        assertEquals(0, plan.size());
+        assertEquals(0, plan.plannedItems());
+        assertTrue(plan.capacityLimited());
+    }
+
+    @Test
+    void skipsEmptySourcesAndHonoursN() {
+        TransferPlan plan = TransferPlan.build(new int[] {4, 6, 8}, new int[] {0, 7, 9}, 2, 100);
+
+        assertEquals(1, plan.size());
+        assertEquals(6, plan.next());
+        assertEquals(7, plan.plannedItems());
+    }
+
+    @Test
+    void remainingCountsDown() {
+        TransferPlan plan = TransferPlan.build(new int[] {1, 2}, new int[] {1, 1}, 10);
+
+        assertEquals(2, plan.remaining());
+        plan.next();
+        assertEquals(1, plan.remaining());
+        assertEquals("clicks=2 items=2", plan.toString());
+    }
+}
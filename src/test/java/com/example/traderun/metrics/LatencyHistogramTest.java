@@ -0,0 +1,72 @@
+package com.example.traderun.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 50; v++) h.record(v);
+
+        assertEquals(50, h.count());
+        assertEquals(1L, h.min());
+        assertEquals(50L, h.max());
+        assertEquals(25L, h.percentile(50.0));
+        assertEquals(50L, h.percentile(100.0));
+        assertEquals(25.5, h.mean(), 1e-9);
+    }
+
+    @Test
+    void largeValuesStayWithinThreePercent() {
+        for (long v : new long[] {100L, 1_234L, 65_000L, 3_600_000L}) {
+            LatencyHistogram h = new LatencyHistogram();
+            h.record(v);
+            h.record(v * 10);
+            long p = h.percentile(50.0);
+            assertTrue(p >= v && p <= v * 1.03, v + " -> " + p);
+        }
+    }
+
+    @Test
+    void bucketIndexIsMonotonic() {
+        int last = -1;
+        for (long v = 0; v < 200_000L; v += 7) {
+            int i = LatencyHistogram.index(v);
+            assertTrue(i >= last, "index dropped at " + v);
+            assertTrue(LatencyHistogram.upperEdge(i) >= v, "upper edge below " + v);
+            last = i;
+        }
+    }
+
+    @Test
+    void negativeValuesClampToZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5L);
+
+        assertEquals(0L, h.max());
+        assertEquals(0L, h.sum());
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(10L);
+        h.reset();
+
+        assertEquals(0, h.count());
+        assertEquals(0L, h.min());
+        assertEquals(0L, h.percentile(99.0));
+        assertEquals("n=0", h.summary());
+    }
+
+    @Test
+    void formatsMilliseconds() {
+        assertEquals("340ms", LatencyHistogram.formatMs(340L));
+        assertEquals("1.2s", LatencyHistogram.formatMs(1_200L));
+        assertEquals("2.0m", LatencyHistogram.formatMs(120_000L));
+    }
+}
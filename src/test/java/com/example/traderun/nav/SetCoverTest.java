@@ -0,0 +1,58 @@
+package com.example.traderun.nav;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetCoverTest {
+
+    private static BitSet bits(int... elements) {
+        BitSet b = new BitSet();
+        for (int e : elements) b.set(e);
+        return b;
+    }
+
+    private static BitSet universe(int n) {
+        BitSet b = new BitSet();
+        b.set(0, n);
+        return b;
+    }
+
+    @Test
+    void picksLargestGainFirst() {
+        List<BitSet> sets = List.of(bits(0, 1), bits(1, 2, 3, 4), bits(4, 5));
+
+        assertEquals(List.of(1, 0, 2), SetCover.greedy(sets, universe(6)));
+    }
+
+    @Test
+    void skipsCandidatesThatAddNothing() {
+        List<BitSet> sets = List.of(bits(0, 1, 2), bits(1, 2), bits(3));
+
+        assertEquals(List.of(0, 2), SetCover.greedy(sets, universe(4)));
+    }
+
+    @Test
+    void leavesUncoverableElements() {
+        List<BitSet> sets = List.of(bits(0), bits(1));
+
+        assertEquals(List.of(0, 1), SetCover.greedy(sets, universe(3)));
+    }
+
+    @Test
+    void emptyUniverseNeedsNothing() {
+        assertTrue(SetCover.greedy(List.of(bits(0)), new BitSet()).isEmpty());
+    }
+
+    @Test
+    void doesNotModifyTheUniverse() {
+        BitSet u = universe(2);
+        SetCover.greedy(List.of(bits(0, 1)), u);
+
+        assertEquals(universe(2), u);
+    }
+}
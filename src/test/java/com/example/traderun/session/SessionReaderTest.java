@@ -0,0 +1,117 @@
+package com.example.traderun.session;
+
+import com.example.traderun.util.TickClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionReaderTest {
+
+    private static final String[] STATES = {"IDLE", "SEEK", "APPROACH"};
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void virtualClock() {
+        TickClock.useVirtual(5_000L);
+    }
+
+    @AfterEach
+    void closeRecorder() {
+        SessionRecorder.close();
+        TickClock.useSystem();
+    }
+
+    @Test
+    void everyRecordTypeRoundTrips() throws IOException {
+        Path file = dir.resolve("session.ring");
+        assertTrue(SessionRecorder.open(file, STATES, 4096, 4));
+
+        SessionRecorder.state(0, 1);
+        TickClock.advance(50L);
+        SessionRecorder.event(3);
+        SessionRecorder.navGoal(10, 64, -20);
+        SessionRecorder.block(1, 2, 3, 777);
+        SessionRecorder.screen(true, "MerchantScreen");
+        SessionRecorder.inventory(42, 5, 12);
+        SessionRecorder.position(1.5, 64.0, -2.25);
+        SessionRecorder.note("stuck: no path");
+        SessionRecorder.close();
+
+        List<SessionReader.Entry> e = SessionReader.read(file).entries();
+        assertEquals(9, e.size());
+
+        assertEquals(SessionFormat.STATE_NAMES, e.get(0).type);
+        assertEquals("IDLE,SEEK,APPROACH", e.get(0).text(0));
+
+        assertEquals(SessionFormat.STATE, e.get(1).type);
+        assertEquals(0, e.get(1).u8(0));
+        assertEquals(1, e.get(1).u8(1));
+        assertEquals(5_000L, e.get(1).timeMs);
+
+        assertEquals(SessionFormat.EVENT, e.get(2).type);
+        assertEquals(3, e.get(2).u8(0));
+        assertEquals(5_050L, e.get(2).timeMs);
+
+        assertEquals(-20, e.get(3).i32(8));
+        assertEquals(777, e.get(4).i32(12));
+
+        assertEquals(1, e.get(5).u8(0));
+        assertEquals("MerchantScreen", e.get(5).text(1));
+
+        assertEquals(42, e.get(6).i32(0));
+        assertEquals(12, e.get(6).i32(8));
+
+        assertEquals(-2.25f, e.get(7).f32(8));
+        assertEquals("stuck: no path", e.get(8).text(0));
+    }
+
+    @Test
+    void wrapKeepsTheNewestSegmentsInOrder() throws IOException {
+        Path file = dir.resolve("wrap.ring");
+        int segmentSize = 256;
+        assertTrue(SessionRecorder.open(file, STATES, segmentSize, 2));
+
+        // Far more navGoal records (7 + 12 bytes) than two small segments hold
+        for (int i = 0; i < 100; i++) {
+            TickClock.advance(1L);
+            SessionRecorder.navGoal(i, 0, 0);
+        }
+        SessionRecorder.close();
+
+        List<SessionReader.Entry> entries = SessionReader.read(file).entries();
+        int last = -1;
+        long lastTime = -1L;
+        int goals = 0;
+        for (SessionReader.Entry e : entries) {
+            if (e.type != SessionFormat.NAV_GOAL) continue;
+            int x = e.i32(0);
+            assertTrue(x > last, "out of order at " + x);
+            assertTrue(e.timeMs >= lastTime);
+            last = x;
+            lastTime = e.timeMs;
+            goals++;
+        }
+        assertEquals(99, last);
+        assertTrue(goals > 0 && goals < 100);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("junk.ring");
+        Files.write(file, new byte[128]);
+
+        assertThrows(IOException.class, () -> SessionReader.read(file));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.traderun.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickClockTest {
+
+    @BeforeEach
+    void virtualClock() {
+        TickClock.useVirtual(1_000_000L);
+    }
+
+    @AfterEach
+    void systemClock() {
+        TickClock.useSystem();
+    }
+
+    @Test
+    void virtualTimeOnlyMovesWhenAdvanced() {
+        assertEquals(1_000_000L, TickClock.nowMs());
+        TickClock.advance(250L);
+        assertEquals(1_000_250L, TickClock.nowMs());
+        TickClock.advance(-10L);
+        assertEquals(1_000_250L, TickClock.nowMs());
+    }
+
+    @Test
+    void serverTimeFallsBackToLocalBeforeTheFirstUpdate() {
+        assertEquals(-1L, TickClock.serverTicks());
+        assertEquals(TickClock.nowMs(), TickClock.serverNowMs());
+    }
+
+    @Test
+    void serverTimeExtrapolatesThenWaits() {
+        TickClock.onServerTime(1000L);
+        long start = TickClock.serverNowMs();
+
+        TickClock.advance(10 * TickClock.TICK_MS);
+        assertEquals(1010L, TickClock.serverTicks());
+        assertEquals(start + 10 * TickClock.TICK_MS, TickClock.serverNowMs());
+
+        // Past the extrapolation limit the server clock stalls until the next update
+        TickClock.advance(100 * TickClock.TICK_MS);
+        assertEquals(1025L, TickClock.serverTicks());
+    }
+
+    @Test
+    void serverTimeNeverGoesBackwards() {
+        TickClock.onServerTime(1000L);
+        TickClock.advance(20 * TickClock.TICK_MS);
+        long before = TickClock.serverNowMs();
+
+        // Server lagged: its counter is behind our extrapolation
+        TickClock.onServerTime(1005L);
+        assertTrue(TickClock.serverNowMs() >= before);
+    }
+
+    @Test
+    void resetForgetsTheServer() {
+        TickClock.onServerTime(1000L);
+        TickClock.resetServerTime();
+
+        assertEquals(-1L, TickClock.serverTicks());
+    }
+
+    @Test
+    void ticksToMs() {
+        assertEquals(1000L, TickClock.ticksToMs(20L));
+    }
+}
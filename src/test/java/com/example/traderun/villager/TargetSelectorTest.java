@@ -0,0 +1,175 @@
+package com.example.traderun.villager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetSelectorTest {
+
+    private static final int FLOOR_Y = 64;
+
+    private static final class V {
+        final UUID id = UUID.randomUUID();
+        final double x;
+        final double y;
+        final double z;
+        boolean baby = false;
+        boolean sleeping = false;
+        boolean profession = true;
+        boolean customer = false;
+
+        V(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    private static final TargetSelector.Villagers<V> PORT = new TargetSelector.Villagers<>() {
+        @Override
+        public UUID id(V v) {
+            return v.id;
+        }
+
+        @Override
+        public double x(V v) {
+            return v.x;
+        }
+
+        @Override
+        public double y(V v) {
+            return v.y;
+        }
+
+        @Override
+        public double z(V v) {
+            return v.z;
+        }
+
+        @Override
+        public int blockY(V v) {
+            return (int) Math.floor(v.y);
+        }
+
+        @Override
+        public boolean isBaby(V v) {
+            return v.baby;
+        }
+
+        @Override
+        public boolean isSleeping(V v) {
+            return v.sleeping;
+        }
+
+        @Override
+        public boolean professionOk(V v) {
+            return v.profession;
+        }
+
+        @Override
+        public boolean hasCustomer(V v) {
+            return v.customer;
+        }
+    };
+
+    private final Set<UUID> cooldown = new HashSet<>();
+    private final Set<UUID> suppressed = new HashSet<>();
+    private final Set<UUID> expensive = new HashSet<>();
+    private final Map<UUID, Double> prices = new HashMap<>();
+
+    private final TargetSelector.Rules rules = new TargetSelector.Rules() {
+        @Override
+        public boolean isOnCooldown(UUID id) {
+            return cooldown.contains(id);
+        }
+
+        @Override
+        public boolean isSuppressed(UUID id) {
+            return suppressed.contains(id);
+        }
+
+        @Override
+        public boolean isTooExpensive(UUID id) {
+            return expensive.contains(id);
+        }
+
+        @Override
+        public double outputPerInput(UUID id) {
+            return prices.getOrDefault(id, 1.0);
+        }
+    };
+
+    private final TargetSelector<V> selector = new TargetSelector<>(PORT, rules);
+
+    @Test
+    void scoreIsOutputPerSecondOfWalkAndTrade() {
+        double walk = 8.6 / TargetSelector.WALK_SPEED_BLOCKS_PER_SEC;
+        assertEquals(0.5 / (walk + TargetSelector.TRADE_OVERHEAD_SEC), TargetSelector.score(0.5, 8.6), 1e-9);
+        assertEquals(1.0 / TargetSelector.TRADE_OVERHEAD_SEC, TargetSelector.score(1.0, 0.0), 1e-9);
+    }
+
+    @Test
+    void withoutPricesTheNearestWins() {
+        V near = new V(2.5, FLOOR_Y, 0.5);
+        V far = new V(12.5, FLOOR_Y, 0.5);
+
+        assertEquals(near, selector.best(List.of(far, near), FLOOR_Y, 0.5, FLOOR_Y, 0.5));
+    }
+
+    @Test
+    void aCheaperVillagerIsWorthAWalk() {
+        V near = new V(2.5, FLOOR_Y, 0.5);
+        V far = new V(12.5, FLOOR_Y, 0.5);
+        prices.put(near.id, 0.25);
+        prices.put(far.id, 1.0);
+
+        assertEquals(far, selector.best(List.of(near, far), FLOOR_Y, 0.5, FLOOR_Y, 0.5));
+    }
+
+    @Test
+    void onlyTheSameFloorCounts() {
+        assertTrue(TargetSelector.onFloor(FLOOR_Y + 1, FLOOR_Y));
+        assertTrue(TargetSelector.onFloor(FLOOR_Y - 1, FLOOR_Y));
+        assertFalse(TargetSelector.onFloor(FLOOR_Y + 2, FLOOR_Y));
+
+        V upstairs = new V(1.5, FLOOR_Y + 6, 0.5);
+        assertNull(selector.best(List.of(upstairs), FLOOR_Y, 0.5, FLOOR_Y, 0.5));
+    }
+
+    @Test
+    void ineligibleVillagersAreSkipped() {
+        V baby = new V(1.5, FLOOR_Y, 0.5);
+        baby.baby = true;
+        V sleeping = new V(2.5, FLOOR_Y, 0.5);
+        sleeping.sleeping = true;
+        V wrongJob = new V(3.5, FLOOR_Y, 0.5);
+        wrongJob.profession = false;
+        V busy = new V(4.5, FLOOR_Y, 0.5);
+        busy.customer = true;
+        V onCooldown = new V(5.5, FLOOR_Y, 0.5);
+        cooldown.add(onCooldown.id);
+        V failed = new V(6.5, FLOOR_Y, 0.5);
+        suppressed.add(failed.id);
+        V pricey = new V(7.5, FLOOR_Y, 0.5);
+        expensive.add(pricey.id);
+        V ok = new V(20.5, FLOOR_Y, 0.5);
+
+        List<V> all = List.of(baby, sleeping, wrongJob, busy, onCooldown, failed, pricey, ok);
+        assertEquals(ok, selector.best(all, FLOOR_Y, 0.5, FLOOR_Y, 0.5));
+
+        List<V> out = new ArrayList<>();
+        selector.eligibleOnFloor(all, FLOOR_Y, out);
+        assertEquals(List.of(ok), out);
+    }
+}